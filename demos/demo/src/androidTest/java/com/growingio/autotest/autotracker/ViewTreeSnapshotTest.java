@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.autotest.autotracker;
+
+import android.app.Activity;
+import android.view.View;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.gio.test.R;
+import com.gio.test.three.DemoApplication;
+import com.gio.test.three.autotrack.activity.ClickTestActivity;
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.autotrack.page.Page;
+import com.growingio.android.sdk.autotrack.page.PageProvider;
+import com.growingio.android.sdk.autotrack.view.DecorView;
+import com.growingio.android.sdk.autotrack.view.ViewTreeSnapshot;
+import com.growingio.android.sdk.autotrack.view.WindowHelper;
+import com.growingio.autotest.TestTrackConfiguration;
+import com.growingio.autotest.help.BeforeAppOnCreate;
+import com.growingio.autotest.help.DataHelper;
+import com.growingio.autotest.help.TrackHelper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ViewTreeSnapshotTest {
+
+    @BeforeAppOnCreate
+    public static void beforeAppOnCreate() {
+        DataHelper.deleteEventsDatabase();
+        DemoApplication.setConfiguration(new TestTrackConfiguration());
+    }
+
+    @Test
+    public void snapshotSharedInFrameTest() {
+        AtomicReference<Activity> activityRef = new AtomicReference<>();
+        ActivityScenario.launch(ClickTestActivity.class).onActivity(activityRef::set);
+        TrackHelper.waitUiThreadForIdleSync();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            List<DecorView> first = WindowHelper.get().getAllWindowDecorViews();
+            List<DecorView> second = WindowHelper.get().getAllWindowDecorViews();
+            Truth.assertThat(second).isSameInstanceAs(first);
+
+            View button = activityRef.get().findViewById(R.id.btn_test_click);
+            Page<?> page = PageProvider.get().findPage(button);
+            Truth.assertThat(page).isSameInstanceAs(PageProvider.get().findPage(activityRef.get()));
+            Truth.assertThat(ViewTreeSnapshot.get().isVisibleInParents(button)).isTrue();
+
+            ViewTreeSnapshot.get().invalidate();
+            Truth.assertThat(WindowHelper.get().getAllWindowDecorViews()).isNotSameInstanceAs(first);
+        });
+    }
+
+    @Test
+    public void invalidateFromBackgroundThreadTest() {
+        ActivityScenario.launch(ClickTestActivity.class);
+        TrackHelper.waitUiThreadForIdleSync();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            List<DecorView> first = WindowHelper.get().getAllWindowDecorViews();
+            Thread thread = new Thread(() -> ViewTreeSnapshot.get().invalidate());
+            thread.start();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            Truth.assertThat(WindowHelper.get().getAllWindowDecorViews()).isNotSameInstanceAs(first);
+        });
+    }
+
+    @Test
+    public void snapshotInvalidatedByViewTreeChangeTest() {
+        AtomicReference<Activity> activityRef = new AtomicReference<>();
+        ActivityScenario.launch(ClickTestActivity.class).onActivity(activityRef::set);
+        TrackHelper.waitUiThreadForIdleSync();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            View button = activityRef.get().findViewById(R.id.btn_test_click);
+            Truth.assertThat(ViewTreeSnapshot.get().isVisibleInParents(button)).isTrue();
+            button.setVisibility(View.GONE);
+        });
+        TrackHelper.waitUiThreadForIdleSync();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            View button = activityRef.get().findViewById(R.id.btn_test_click);
+            Truth.assertThat(ViewTreeSnapshot.get().isVisibleInParents(button)).isFalse();
+            button.setVisibility(View.VISIBLE);
+        });
+    }
+}
@@ -112,6 +112,8 @@ public class HybridEventsTest extends EventsTest {
                         Truth.assertThat(config.getString("projectId")).isEqualTo("testProjectId");
                         Truth.assertThat(config.getString("nativeSdkVersion")).isEqualTo(SDKConfig.SDK_VERSION);
                         Truth.assertThat(config.getInt("nativeSdkVersionCode")).isEqualTo(SDKConfig.SDK_VERSION_CODE);
+                        Truth.assertThat(config.getInt("batchDispatchMaxSize")).isGreaterThan(0);
+                        Truth.assertThat(config.getInt("batchDispatchInterval")).isGreaterThan(0);
 
                     } catch (JSONException e) {
                         e.printStackTrace();
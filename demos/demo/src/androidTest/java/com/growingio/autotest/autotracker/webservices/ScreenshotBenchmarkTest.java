@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.autotest.autotracker.webservices;
+
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.os.SystemClock;
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.gio.test.three.DemoApplication;
+import com.gio.test.three.autotrack.activity.ClickTestActivity;
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.autotrack.webservices.ScreenshotQuality;
+import com.growingio.android.sdk.autotrack.webservices.ScreenshotUtil;
+import com.growingio.autotest.TestTrackConfiguration;
+import com.growingio.autotest.help.BeforeAppOnCreate;
+import com.growingio.autotest.help.DataHelper;
+import com.growingio.autotest.help.TrackHelper;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * 对比旧的截图流程(UI线程全屏绘制+缩放+JPEG100+Base64)和新流程(UI线程只绘制到复用的缩放bitmap)，
+ * 输出每帧UI线程耗时和各质量档位的每帧字节数
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ScreenshotBenchmarkTest {
+    private static final String TAG = "ScreenshotBenchmark";
+
+    private static final int FRAME_COUNT = 20;
+    private static final float SCALE = 0.5F;
+
+    @BeforeAppOnCreate
+    public static void beforeAppOnCreate() {
+        DataHelper.deleteEventsDatabase();
+        DemoApplication.setConfiguration(new TestTrackConfiguration());
+    }
+
+    @Test
+    @Ignore("截图耗时基准, 需要时手动运行")
+    public void screenshotBenchmarkTest() {
+        ActivityScenario.launch(ClickTestActivity.class);
+        TrackHelper.waitUiThreadForIdleSync();
+
+        final long[] legacyUiTime = new long[1];
+        final long[] legacyBytes = new long[1];
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+                long startTime = SystemClock.elapsedRealtimeNanos();
+                legacyBytes[0] += legacyScreenshot(SCALE).length;
+                legacyUiTime[0] += SystemClock.elapsedRealtimeNanos() - startTime;
+            });
+        }
+        report("legacy JPEG_100", legacyUiTime[0], legacyBytes[0]);
+
+        final Bitmap bitmap = Bitmap.createBitmap(
+                ScreenshotUtil.getScaledWidth(SCALE), ScreenshotUtil.getScaledHeight(SCALE), Bitmap.Config.ARGB_8888);
+        final long[] uiTime = new long[1];
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+                long startTime = SystemClock.elapsedRealtimeNanos();
+                bitmap.eraseColor(0);
+                ScreenshotUtil.drawScreenshot(bitmap, SCALE);
+                uiTime[0] += SystemClock.elapsedRealtimeNanos() - startTime;
+            });
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(1024);
+        for (ScreenshotQuality quality : ScreenshotQuality.values()) {
+            long bytes = 0;
+            for (int i = 0; i < FRAME_COUNT; i++) {
+                bytes += ScreenshotUtil.encodeScreenshot(bitmap, quality, stream).getData().length;
+            }
+            report(quality.name(), uiTime[0], bytes);
+        }
+
+        int[] rowPixels = new int[bitmap.getWidth()];
+        Truth.assertThat(ScreenshotUtil.getPixelsHash(bitmap, rowPixels))
+                .isEqualTo(ScreenshotUtil.getPixelsHash(bitmap, rowPixels));
+        Truth.assertThat(uiTime[0]).isLessThan(legacyUiTime[0]);
+        bitmap.recycle();
+    }
+
+    private static void report(String name, long uiTimeNanos, long bytes) {
+        Log.i(TAG, String.format("%-16s ui thread %.2f ms/frame, %d bytes/frame",
+                name, uiTimeNanos / 1e6 / FRAME_COUNT, bytes / FRAME_COUNT));
+    }
+
+    private static byte[] legacyScreenshot(float scale) {
+        Bitmap originBitmap = ScreenshotUtil.getScreenshotBitmap();
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        Bitmap scaledBitmap = Bitmap.createBitmap(originBitmap, 0, 0, originBitmap.getWidth(), originBitmap.getHeight(), matrix, false);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        scaledBitmap.compress(Bitmap.CompressFormat.JPEG, 100, stream);
+        if (scaledBitmap != originBitmap) {
+            scaledBitmap.recycle();
+        }
+        originBitmap.recycle();
+        // 旧流程在UI线程完成Base64编码
+        Base64.encodeToString(stream.toByteArray(), Base64.DEFAULT);
+        return stream.toByteArray();
+    }
+}
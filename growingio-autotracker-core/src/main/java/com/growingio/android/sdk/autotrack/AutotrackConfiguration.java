@@ -19,9 +19,11 @@ package com.growingio.android.sdk.autotrack;
 import androidx.annotation.NonNull;
 
 import com.growingio.android.sdk.track.TrackConfiguration;
+import com.growingio.android.sdk.track.encrypt.PayloadEncryptor;
 
 public class AutotrackConfiguration extends TrackConfiguration {
     private float mImpressionScale = 0;
+    private int mPageCoalesceWindow = 300;
 
     public AutotrackConfiguration(String projectId, String urlScheme) {
         super(projectId, urlScheme);
@@ -41,6 +43,23 @@ public class AutotrackConfiguration extends TrackConfiguration {
         return mImpressionScale;
     }
 
+    /**
+     * 同一个页面在窗口时间内重复的page事件会被合并，例如ViewPager切换时setUserVisibleHint和onResume同时触发
+     *
+     * @param windowMillis 合并窗口，单位毫秒，0表示不合并
+     */
+    public AutotrackConfiguration setPageCoalesceWindow(int windowMillis) {
+        if (windowMillis < 0) {
+            windowMillis = 0;
+        }
+        this.mPageCoalesceWindow = windowMillis;
+        return this;
+    }
+
+    public int getPageCoalesceWindow() {
+        return mPageCoalesceWindow;
+    }
+
     @Override
     public AutotrackConfiguration setChannel(String channel) {
         super.setChannel(channel);
@@ -95,6 +114,18 @@ public class AutotrackConfiguration extends TrackConfiguration {
         return this;
     }
 
+    @Override
+    public AutotrackConfiguration setHttp2Enabled(boolean enabled) {
+        super.setHttp2Enabled(enabled);
+        return this;
+    }
+
+    @Override
+    public AutotrackConfiguration setPayloadEncryptor(PayloadEncryptor encryptor) {
+        super.setPayloadEncryptor(encryptor);
+        return this;
+    }
+
     @NonNull
     @Override
     public AutotrackConfiguration clone() {
@@ -107,7 +138,10 @@ public class AutotrackConfiguration extends TrackConfiguration {
                 .setUploadExceptionEnabled(isUploadExceptionEnabled())
                 .setDataCollectionEnabled(isDataCollectionEnabled())
                 .setImpressionScale(getImpressionScale())
+                .setPageCoalesceWindow(getPageCoalesceWindow())
                 .setDataCollectionServerHost(getDataCollectionServerHost())
-                .setOaidEnabled(isOaidEnabled());
+                .setOaidEnabled(isOaidEnabled())
+                .setHttp2Enabled(isHttp2Enabled())
+                .setPayloadEncryptor(getPayloadEncryptor());
     }
 }
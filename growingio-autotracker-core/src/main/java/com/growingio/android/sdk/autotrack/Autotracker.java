@@ -27,6 +27,7 @@ import com.growingio.android.sdk.autotrack.impression.ImpressionProvider;
 import com.growingio.android.sdk.autotrack.page.PageProvider;
 import com.growingio.android.sdk.autotrack.page.SuperFragment;
 import com.growingio.android.sdk.autotrack.view.ViewAttributeUtil;
+import com.growingio.android.sdk.autotrack.view.ViewTreeSnapshot;
 import com.growingio.android.sdk.autotrack.webservices.circle.CircleService;
 import com.growingio.android.sdk.track.Tracker;
 import com.growingio.android.sdk.track.log.Logger;
@@ -52,6 +53,7 @@ public class Autotracker extends Tracker {
 
         ConfigurationProvider.get().addConfiguration(trackConfiguration.clone());
         PageProvider.get().start();
+        ViewTreeSnapshot.get().start();
         mViewChangeProvider = new ViewChangeProvider();
         mViewChangeProvider.start();
 
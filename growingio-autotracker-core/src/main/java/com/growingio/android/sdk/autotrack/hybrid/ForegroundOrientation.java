@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.hybrid;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+
+import com.growingio.android.sdk.autotrack.events.PageEvent;
+import com.growingio.android.sdk.track.ContextProvider;
+import com.growingio.android.sdk.track.listener.IActivityLifecycle;
+import com.growingio.android.sdk.track.listener.event.ActivityLifecycleEvent;
+import com.growingio.android.sdk.track.providers.ActivityStateProvider;
+
+/**
+ * 缓存前台 Activity 的屏幕方向, 在 Activity resume 和配置变化时更新, 避免每个 Hybrid page 事件都读取 Configuration
+ */
+class ForegroundOrientation implements IActivityLifecycle, ComponentCallbacks {
+    private volatile String mOrientation;
+
+    private static class SingleInstance {
+        private static final ForegroundOrientation INSTANCE = new ForegroundOrientation();
+    }
+
+    private ForegroundOrientation() {
+        ActivityStateProvider.get().registerActivityLifecycleListener(this);
+        Context context = ContextProvider.getApplicationContext();
+        if (context != null) {
+            context.registerComponentCallbacks(this);
+        }
+    }
+
+    static ForegroundOrientation get() {
+        return SingleInstance.INSTANCE;
+    }
+
+    @PageEvent.Orientation
+    String getOrientation() {
+        String orientation = mOrientation;
+        if (orientation == null) {
+            Activity activity = ActivityStateProvider.get().getForegroundActivity();
+            if (activity == null) {
+                // 没有前台 Activity 时不缓存
+                return PageEvent.ORIENTATION_PORTRAIT;
+            }
+            orientation = toOrientation(activity.getResources().getConfiguration());
+            mOrientation = orientation;
+        }
+        return orientation;
+    }
+
+    @Override
+    public void onActivityLifecycle(ActivityLifecycleEvent event) {
+        if (event.eventType == ActivityLifecycleEvent.EVENT_TYPE.ON_RESUMED) {
+            Activity activity = event.getActivity();
+            mOrientation = activity == null ? null : toOrientation(activity.getResources().getConfiguration());
+        } else if (event.eventType == ActivityLifecycleEvent.EVENT_TYPE.ON_DESTROYED) {
+            mOrientation = null;
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        mOrientation = toOrientation(newConfig);
+    }
+
+    @Override
+    public void onLowMemory() {
+    }
+
+    private static String toOrientation(Configuration configuration) {
+        return configuration.orientation == Configuration.ORIENTATION_PORTRAIT
+                ? PageEvent.ORIENTATION_PORTRAIT : PageEvent.ORIENTATION_LANDSCAPE;
+    }
+}
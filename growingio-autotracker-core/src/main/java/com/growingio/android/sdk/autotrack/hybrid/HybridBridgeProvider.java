@@ -18,28 +18,25 @@ package com.growingio.android.sdk.autotrack.hybrid;
 
 import android.annotation.SuppressLint;
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.UiThread;
-import android.text.TextUtils;
-import android.webkit.ValueCallback;
 
 import com.growingio.android.sdk.track.SDKConfig;
 import com.growingio.android.sdk.track.async.Callback;
 import com.growingio.android.sdk.track.async.Disposable;
-import com.growingio.android.sdk.track.async.HandlerDisposable;
 import com.growingio.android.sdk.track.listener.ListenerContainer;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.providers.AppInfoProvider;
 import com.growingio.android.sdk.track.providers.ConfigurationProvider;
 
-import org.json.JSONException;
 import org.json.JSONObject;
 
-import static com.growingio.android.sdk.autotrack.hybrid.WebViewBridgeJavascriptInterface.JAVASCRIPT_GET_DOM_TREE_METHOD;
-
 public class HybridBridgeProvider extends ListenerContainer<OnDomChangedListener, Void> {
+    public static final int EVALUATE_JAVASCRIPT_TIMEOUT = 5000;
+
     private static final String TAG = "HybridBridgePolicy";
 
-    private static final int EVALUATE_JAVASCRIPT_TIMEOUT = 5000;
+    private final WebViewDomTreeCache mDomTreeCache = new WebViewDomTreeCache();
 
     private static class SingleInstance {
         private static final HybridBridgeProvider INSTANCE = new HybridBridgeProvider();
@@ -62,6 +59,8 @@ public class HybridBridgeProvider extends ListenerContainer<OnDomChangedListener
     }
 
     public void onDomChanged() {
+        // 先让缓存失效, 监听者收到通知后重新获取的是新的 DOM 树
+        mDomTreeCache.invalidateAll();
         dispatchActions(null);
     }
 
@@ -79,54 +78,29 @@ public class HybridBridgeProvider extends ListenerContainer<OnDomChangedListener
         webView.addJavascriptInterface(new WebViewBridgeJavascriptInterface(getJavascriptBridgeConfiguration()), WebViewBridgeJavascriptInterface.JAVASCRIPT_INTERFACE_NAME);
     }
 
+    /**
+     * 页面没有变化时直接返回缓存的 DOM 树, 见 WebViewDomTreeCache
+     */
     @UiThread
     public Disposable getWebViewDomTree(SuperWebView<?> webView, final Callback<JSONObject> callback) {
+        return getWebViewDomTree(webView, SystemClock.uptimeMillis() + EVALUATE_JAVASCRIPT_TIMEOUT, callback);
+    }
+
+    /**
+     * @param deadline SystemClock.uptimeMillis() 的时间, 多个 WebView 同时请求时使用同一个 deadline
+     */
+    @UiThread
+    public Disposable getWebViewDomTree(SuperWebView<?> webView, long deadline, final Callback<JSONObject> callback) {
         Logger.d(TAG, "getWebViewDomTree");
         if (callback == null) {
             return Disposable.EMPTY_DISPOSABLE;
         }
-        final Disposable disposable = new HandlerDisposable().schedule(new Runnable() {
-            @Override
-            public void run() {
-                Logger.e(TAG, "getWebViewDomTree timeout");
-                callback.onFailed();
-            }
-        }, EVALUATE_JAVASCRIPT_TIMEOUT);
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-            int[] location = new int[2];
-            webView.getLocationOnScreen(location);
-            webView.evaluateJavascript("javascript:" + JAVASCRIPT_GET_DOM_TREE_METHOD + "(" +
-                            location[0] + ", " + location[1] + ", " + webView.getWidth() + ", " + webView.getHeight() + ", 100)",
-                    new ValueCallback<String>() {
-                        @Override
-                        public void onReceiveValue(String value) {
-                            if (disposable.isDisposed()) {
-                                return;
-                            }
-                            disposable.dispose();
-                            if (TextUtils.isEmpty(value) || "null".equals(value)) {
-                                Logger.e(TAG, "getWebViewDomTree ValueCallback is NULL");
-                                callback.onFailed();
-                                return;
-                            }
-                            try {
-                                JSONObject domTree = new JSONObject(value);
-                                callback.onSuccess(domTree);
-                            } catch (JSONException e) {
-                                Logger.e(TAG, e);
-                                callback.onFailed();
-                            }
-                        }
-                    });
-        } else {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
             Logger.e(TAG, "You need use after Android 4.4 to getWebViewDomTree");
-            if (!disposable.isDisposed()) {
-                disposable.dispose();
-                callback.onFailed();
-            }
+            callback.onFailed();
+            return Disposable.EMPTY_DISPOSABLE;
         }
-        return disposable;
+        return mDomTreeCache.get(webView, deadline, callback);
     }
 
     @Override
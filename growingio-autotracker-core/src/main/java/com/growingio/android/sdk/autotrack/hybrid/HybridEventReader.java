@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.hybrid;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 只向前读取的 JSON 解析器, 不构建 JSONObject, 只提供 HybridTransformerImp 需要的操作。
+ * <p>
+ * 数字和 true/false 按原始文本返回, 转换为字符串时与 JSONObject 的结果一致。不检查多余或缺少的逗号。
+ */
+class HybridEventReader {
+    static final int END = 0;
+    static final int OBJECT = 1;
+    static final int ARRAY = 2;
+    static final int STRING = 3;
+    static final int LITERAL = 4;
+    static final int NULL = 5;
+
+    private final String mJson;
+    private final int mLength;
+    private int mPos;
+    private StringBuilder mBuffer;
+    private boolean mLastValueLiteral;
+
+    HybridEventReader(String json) {
+        mJson = json;
+        mLength = json.length();
+    }
+
+    int peek() throws JSONException {
+        skipWhitespace();
+        if (mPos >= mLength) {
+            return END;
+        }
+        char c = mJson.charAt(mPos);
+        switch (c) {
+            case '{':
+                return OBJECT;
+            case '[':
+                return ARRAY;
+            case '"':
+                return STRING;
+            case 'n':
+                if (mJson.startsWith("null", mPos)) {
+                    return NULL;
+                }
+                throw syntaxError("unexpected literal");
+            default:
+                if (c == '-' || c == 't' || c == 'f' || (c >= '0' && c <= '9')) {
+                    return LITERAL;
+                }
+                throw syntaxError("unexpected character '" + c + "'");
+        }
+    }
+
+    void beginObject() throws JSONException {
+        expect('{');
+    }
+
+    void endObject() throws JSONException {
+        expect('}');
+    }
+
+    void beginArray() throws JSONException {
+        expect('[');
+    }
+
+    void endArray() throws JSONException {
+        expect(']');
+    }
+
+    /**
+     * 当前对象或数组中是否还有元素, 会跳过元素之间的逗号
+     */
+    boolean hasNext() throws JSONException {
+        skipWhitespace();
+        if (mPos >= mLength) {
+            throw syntaxError("unterminated object or array");
+        }
+        char c = mJson.charAt(mPos);
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (c == ',') {
+            mPos++;
+        }
+        return true;
+    }
+
+    /**
+     * 读取 key 并返回它在 names 中的位置, 不在 names 中时返回 -1。不含转义字符的 key 不会生成新的字符串
+     */
+    int nextName(String[] names) throws JSONException {
+        skipWhitespace();
+        if (mPos >= mLength || mJson.charAt(mPos) != '"') {
+            throw syntaxError("expected name");
+        }
+        int start = mPos + 1;
+        int end = start;
+        while (end < mLength && mJson.charAt(end) != '"' && mJson.charAt(end) != '\\') {
+            end++;
+        }
+        int index = -1;
+        if (end < mLength && mJson.charAt(end) == '"') {
+            int length = end - start;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].length() == length && mJson.regionMatches(start, names[i], 0, length)) {
+                    index = i;
+                    break;
+                }
+            }
+            mPos = end + 1;
+        } else {
+            String name = readString();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    index = i;
+                    break;
+                }
+            }
+        }
+        expect(':');
+        return index;
+    }
+
+    /**
+     * @return 字符串, 数字或 true/false 的原始文本, null 返回 null。见 wasLiteral()
+     */
+    String nextString() throws JSONException {
+        int type = peek();
+        if (type == STRING) {
+            mLastValueLiteral = false;
+            return readString();
+        } else if (type == LITERAL) {
+            mLastValueLiteral = true;
+            return readLiteral();
+        } else if (type == NULL) {
+            mLastValueLiteral = false;
+            mPos += 4;
+            return null;
+        }
+        throw syntaxError("expected string");
+    }
+
+    /**
+     * 上一次 nextString() 读到的是否是数字或 true/false
+     */
+    boolean wasLiteral() {
+        return mLastValueLiteral;
+    }
+
+    /**
+     * 读取对象中所有的值, 与 JsonUtil.copyToMap(JSONObject) 的结果相同
+     */
+    Map<String, String> nextStringMap() throws JSONException {
+        Map<String, String> map = new HashMap<>();
+        beginObject();
+        while (hasNext()) {
+            String key = nextKey();
+            map.put(key, nextValueAsString());
+        }
+        endObject();
+        return map;
+    }
+
+    void skipValue() throws JSONException {
+        int type = peek();
+        if (type == OBJECT) {
+            beginObject();
+            while (hasNext()) {
+                nextKey();
+                skipValue();
+            }
+            endObject();
+        } else if (type == ARRAY) {
+            beginArray();
+            while (hasNext()) {
+                skipValue();
+            }
+            endArray();
+        } else if (type == END) {
+            throw syntaxError("unexpected end of input");
+        } else {
+            nextString();
+        }
+    }
+
+    JSONException syntaxError(String message) {
+        return new JSONException(message + " at character " + mPos);
+    }
+
+    private String nextKey() throws JSONException {
+        skipWhitespace();
+        if (mPos >= mLength || mJson.charAt(mPos) != '"') {
+            throw syntaxError("expected name");
+        }
+        String key = readString();
+        expect(':');
+        return key;
+    }
+
+    private String nextValueAsString() throws JSONException {
+        int type = peek();
+        if (type == OBJECT || type == ARRAY) {
+            // 嵌套的值很少见, 交给 JSONObject 格式化
+            int start = mPos;
+            skipValue();
+            String raw = mJson.substring(start, mPos);
+            return type == OBJECT ? new JSONObject(raw).toString() : new JSONArray(raw).toString();
+        }
+        String value = nextString();
+        return mLastValueLiteral ? literalToString(value) : value;
+    }
+
+    /**
+     * 数字按 JSONObject 的规则转换为整数或 Double 后再转换为字符串
+     */
+    static String literalToString(String literal) {
+        if ("true".equals(literal) || "false".equals(literal)) {
+            return literal;
+        }
+        if (literal.indexOf('.') == -1 && literal.indexOf('e') == -1 && literal.indexOf('E') == -1) {
+            try {
+                return String.valueOf(Long.parseLong(literal));
+            } catch (NumberFormatException ignored) {
+                // 超出 long 的范围
+            }
+        }
+        return String.valueOf(Double.valueOf(literal));
+    }
+
+    private String readLiteral() throws JSONException {
+        int start = mPos;
+        while (mPos < mLength) {
+            char c = mJson.charAt(mPos);
+            if (c == ',' || c == '}' || c == ']' || c == ':' || c <= ' ') {
+                break;
+            }
+            mPos++;
+        }
+        String literal = mJson.substring(start, mPos);
+        if (!"true".equals(literal) && !"false".equals(literal)) {
+            try {
+                Double.parseDouble(literal);
+            } catch (NumberFormatException e) {
+                mPos = start;
+                throw syntaxError("invalid literal " + literal);
+            }
+        }
+        return literal;
+    }
+
+    private String readString() throws JSONException {
+        // 当前位置是左引号
+        int start = ++mPos;
+        while (mPos < mLength) {
+            char c = mJson.charAt(mPos);
+            if (c == '"') {
+                return mJson.substring(start, mPos++);
+            } else if (c == '\\') {
+                break;
+            }
+            mPos++;
+        }
+        if (mBuffer == null) {
+            mBuffer = new StringBuilder();
+        }
+        mBuffer.setLength(0);
+        mBuffer.append(mJson, start, mPos);
+        while (mPos < mLength) {
+            char c = mJson.charAt(mPos++);
+            if (c == '"') {
+                return mBuffer.toString();
+            } else if (c == '\\') {
+                if (mPos >= mLength) {
+                    break;
+                }
+                char escaped = mJson.charAt(mPos++);
+                switch (escaped) {
+                    case 'b':
+                        mBuffer.append('\b');
+                        break;
+                    case 't':
+                        mBuffer.append('\t');
+                        break;
+                    case 'n':
+                        mBuffer.append('\n');
+                        break;
+                    case 'f':
+                        mBuffer.append('\f');
+                        break;
+                    case 'r':
+                        mBuffer.append('\r');
+                        break;
+                    case 'u':
+                        if (mPos + 4 > mLength) {
+                            throw syntaxError("unterminated escape sequence");
+                        }
+                        try {
+                            mBuffer.append((char) Integer.parseInt(mJson.substring(mPos, mPos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw syntaxError("invalid escape sequence");
+                        }
+                        mPos += 4;
+                        break;
+                    default:
+                        // \" \\ \/ 以及其他字符按原样处理
+                        mBuffer.append(escaped);
+                        break;
+                }
+            } else {
+                mBuffer.append(c);
+            }
+        }
+        throw syntaxError("unterminated string");
+    }
+
+    private void expect(char c) throws JSONException {
+        skipWhitespace();
+        if (mPos >= mLength || mJson.charAt(mPos) != c) {
+            throw syntaxError("expected '" + c + "'");
+        }
+        mPos++;
+    }
+
+    private void skipWhitespace() {
+        while (mPos < mLength && mJson.charAt(mPos) <= ' ') {
+            mPos++;
+        }
+    }
+}
@@ -20,7 +20,14 @@ import androidx.annotation.Nullable;
 
 import com.growingio.android.sdk.track.events.base.BaseEvent;
 
+import java.util.List;
+
 public interface HybridTransformer {
     @Nullable
     BaseEvent.BaseBuilder<?> transform(String hybridEvent);
+
+    /**
+     * @param hybridEvents JS 端合并后的事件数组, 无法解析的事件会被跳过, 不影响同一批中的其他事件
+     */
+    List<BaseEvent.BaseBuilder<?>> transformEvents(String hybridEvents);
 }
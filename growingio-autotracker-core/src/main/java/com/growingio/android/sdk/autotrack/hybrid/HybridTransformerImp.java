@@ -16,14 +16,11 @@
 
 package com.growingio.android.sdk.autotrack.hybrid;
 
-import android.app.Activity;
-import android.content.res.Configuration;
 import android.text.TextUtils;
 
 import androidx.annotation.Nullable;
 
 import com.growingio.android.sdk.autotrack.events.AutotrackEventType;
-import com.growingio.android.sdk.autotrack.events.PageEvent;
 import com.growingio.android.sdk.autotrack.hybrid.event.HybridCustomEvent;
 import com.growingio.android.sdk.autotrack.hybrid.event.HybridEventType;
 import com.growingio.android.sdk.autotrack.hybrid.event.HybridPageAttributesEvent;
@@ -35,121 +32,288 @@ import com.growingio.android.sdk.track.events.TrackEventType;
 import com.growingio.android.sdk.track.events.VisitorAttributesEvent;
 import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.log.Logger;
-import com.growingio.android.sdk.track.providers.ActivityStateProvider;
 import com.growingio.android.sdk.track.providers.AppInfoProvider;
-import com.growingio.android.sdk.track.utils.JsonUtil;
 
 import org.json.JSONException;
-import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 使用 HybridEventReader 一次读完事件中的字段, 再按事件类型生成对应的 builder, 不构建 JSONObject
+ */
 public class HybridTransformerImp implements HybridTransformer {
     private static final String TAG = "HybridTransformerImp";
+    /**
+     * JSONObject.NULL.toString()
+     */
+    private static final String JSON_NULL = "null";
 
-    private static final String KEY_EVENT_TYPE = "eventType";
-    private static final String KEY_DOMAIN = "domain";
-    private static final String KEY_PATH = "path";
-    private static final String KEY_PROTOCOL_TYPE = "protocolType";
-    private static final String KEY_QUERY = "query";
-    private static final String KEY_REFERRAL_PAGE = "referralPage";
-    private static final String KEY_TITLE = "title";
-    private static final String KEY_TIMESTAMP = "timestamp";
-    private static final String KEY_PAGE_SHOW_TIMESTAMP = "pageShowTimestamp";
-    private static final String KEY_ATTRIBUTES = "attributes";
-    private static final String KEY_EVENT_NAME = "eventName";
-    private static final String KEY_HYPERLINK = "hyperlink";
-    private static final String KEY_INDEX = "index";
-    private static final String KEY_TEXT_VALUE = "textValue";
-    private static final String KEY_XPATH = "xpath";
+    private static final int KEY_EVENT_TYPE = 0;
+    private static final int KEY_DOMAIN = 1;
+    private static final int KEY_PATH = 2;
+    private static final int KEY_PROTOCOL_TYPE = 3;
+    private static final int KEY_QUERY = 4;
+    private static final int KEY_REFERRAL_PAGE = 5;
+    private static final int KEY_TITLE = 6;
+    private static final int KEY_TIMESTAMP = 7;
+    private static final int KEY_PAGE_SHOW_TIMESTAMP = 8;
+    private static final int KEY_ATTRIBUTES = 9;
+    private static final int KEY_EVENT_NAME = 10;
+    private static final int KEY_HYPERLINK = 11;
+    private static final int KEY_INDEX = 12;
+    private static final int KEY_TEXT_VALUE = 13;
+    private static final int KEY_XPATH = 14;
+    /**
+     * 下标与 KEY_* 对应
+     */
+    private static final String[] KEYS = {
+            "eventType", "domain", "path", "protocolType", "query", "referralPage", "title", "timestamp",
+            "pageShowTimestamp", "attributes", "eventName", "hyperlink", "index", "textValue", "xpath",
+    };
+
+    private static final int TYPE_PAGE = 1;
+    private static final int TYPE_PAGE_ATTRIBUTES = 2;
+    private static final int TYPE_VIEW_ELEMENT = 3;
+    private static final int TYPE_CUSTOM = 4;
+    private static final int TYPE_LOGIN_USER_ATTRIBUTES = 5;
+    private static final int TYPE_VISITOR_ATTRIBUTES = 6;
+    private static final int TYPE_CONVERSION_VARIABLES = 7;
+    private static final Map<String, Integer> TYPES = new HashMap<>();
+
+    static {
+        TYPES.put(AutotrackEventType.PAGE, TYPE_PAGE);
+        TYPES.put(AutotrackEventType.PAGE_ATTRIBUTES, TYPE_PAGE_ATTRIBUTES);
+        TYPES.put(AutotrackEventType.VIEW_CLICK, TYPE_VIEW_ELEMENT);
+        TYPES.put(AutotrackEventType.VIEW_CHANGE, TYPE_VIEW_ELEMENT);
+        TYPES.put(HybridEventType.FORM_SUBMIT, TYPE_VIEW_ELEMENT);
+        TYPES.put(TrackEventType.CUSTOM, TYPE_CUSTOM);
+        TYPES.put(TrackEventType.LOGIN_USER_ATTRIBUTES, TYPE_LOGIN_USER_ATTRIBUTES);
+        TYPES.put(TrackEventType.VISITOR_ATTRIBUTES, TYPE_VISITOR_ATTRIBUTES);
+        TYPES.put(TrackEventType.CONVERSION_VARIABLES, TYPE_CONVERSION_VARIABLES);
+    }
 
     @Nullable
     @Override
     public BaseEvent.BaseBuilder<?> transform(String hybridEvent) {
         try {
-            JSONObject eventJson = new JSONObject(hybridEvent);
-            String type = eventJson.getString(KEY_EVENT_TYPE);
-            if (AutotrackEventType.PAGE.equals(type)) {
-                String orientation = PageEvent.ORIENTATION_PORTRAIT;
-                Activity activity = ActivityStateProvider.get().getForegroundActivity();
-                if (activity != null) {
-                    orientation = activity.getResources().getConfiguration().orientation == Configuration.ORIENTATION_PORTRAIT
-                            ? PageEvent.ORIENTATION_PORTRAIT : PageEvent.ORIENTATION_LANDSCAPE;
+            HybridEventReader reader = new HybridEventReader(hybridEvent);
+            if (reader.peek() != HybridEventReader.OBJECT) {
+                throw reader.syntaxError("expected JSONObject");
+            }
+            return transform(readFields(reader));
+        } catch (JSONException e) {
+            Logger.e(TAG, e.getMessage(), e);
+        }
+        return null;
+    }
+
+    @Override
+    public List<BaseEvent.BaseBuilder<?>> transformEvents(String hybridEvents) {
+        List<BaseEvent.BaseBuilder<?>> builders = new ArrayList<>();
+        try {
+            HybridEventReader reader = new HybridEventReader(hybridEvents);
+            reader.beginArray();
+            for (int i = 0; reader.hasNext(); i++) {
+                if (reader.peek() != HybridEventReader.OBJECT) {
+                    Logger.e(TAG, "transformEvents: event at " + i + " is not a JSONObject");
+                    reader.skipValue();
+                    continue;
+                }
+                BaseEvent.BaseBuilder<?> builder = transform(readFields(reader));
+                if (builder != null) {
+                    builders.add(builder);
                 }
-                return new HybridPageEvent.Builder()
-                        .setDomain(getDomain(eventJson))
-                        .setProtocolType(eventJson.getString(KEY_PROTOCOL_TYPE))
-                        .setQuery(eventJson.optString(KEY_QUERY))
-                        .setPath(eventJson.getString(KEY_PATH))
-                        .setReferralPage(eventJson.optString(KEY_REFERRAL_PAGE))
-                        .setTitle(eventJson.optString(KEY_TITLE))
-                        .setTimestamp(eventJson.getLong(KEY_TIMESTAMP))
-                        .setOrientation(orientation);
-
-            } else if (AutotrackEventType.PAGE_ATTRIBUTES.equals(type)) {
-                return new HybridPageAttributesEvent.Builder()
-                        .setDomain(getDomain(eventJson))
-                        .setQuery(eventJson.optString(KEY_QUERY))
-                        .setPath(eventJson.getString(KEY_PATH))
-                        .setPageShowTimestamp(eventJson.getLong(KEY_PAGE_SHOW_TIMESTAMP))
-                        .setAttributes(JsonUtil.copyToMap(eventJson.getJSONObject(KEY_ATTRIBUTES)));
-
-            } else if (AutotrackEventType.VIEW_CLICK.equals(type)) {
-                return transformViewElementEventBuilder(eventJson)
-                        .setEventType(type);
-
-            } else if (AutotrackEventType.VIEW_CHANGE.equals(type)) {
-                return transformViewElementEventBuilder(eventJson)
-                        .setEventType(type);
-
-            } else if (HybridEventType.FORM_SUBMIT.equals(type)) {
-                return transformViewElementEventBuilder(eventJson)
-                        .setEventType(type);
-
-            } else if (TrackEventType.CUSTOM.equals(type)) {
-                return new HybridCustomEvent.Builder()
-                        .setDomain(getDomain(eventJson))
-                        .setQuery(eventJson.optString(KEY_QUERY))
-                        .setPath(eventJson.getString(KEY_PATH))
-                        .setPageShowTimestamp(eventJson.getLong(KEY_PAGE_SHOW_TIMESTAMP))
-                        .setEventName(eventJson.getString(KEY_EVENT_NAME))
-                        .setAttributes(JsonUtil.copyToMap(eventJson.optJSONObject(KEY_ATTRIBUTES)));
-
-            } else if (TrackEventType.LOGIN_USER_ATTRIBUTES.equals(type)) {
-                return new LoginUserAttributesEvent.Builder()
-                        .setAttributes(JsonUtil.copyToMap(eventJson.getJSONObject(KEY_ATTRIBUTES)));
-
-            } else if (TrackEventType.VISITOR_ATTRIBUTES.equals(type)) {
-                return new VisitorAttributesEvent.Builder()
-                        .setAttributes(JsonUtil.copyToMap(eventJson.getJSONObject(KEY_ATTRIBUTES)));
-
-            } else if (TrackEventType.CONVERSION_VARIABLES.equals(type)) {
-                return new ConversionVariablesEvent.Builder()
-                        .setAttributes(JsonUtil.copyToMap(eventJson.getJSONObject(KEY_ATTRIBUTES)));
             }
+            reader.endArray();
         } catch (JSONException e) {
+            // 语法错误之后的事件都无法读取, 已经读到的事件仍然发送
             Logger.e(TAG, e.getMessage(), e);
         }
+        return builders;
+    }
+
+    private static Fields readFields(HybridEventReader reader) throws JSONException {
+        Fields fields = new Fields();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int key = reader.nextName(KEYS);
+            if (key == KEY_ATTRIBUTES) {
+                fields.mHasAttributes = true;
+                if (reader.peek() == HybridEventReader.OBJECT) {
+                    fields.mAttributes = reader.nextStringMap();
+                } else {
+                    fields.mAttributes = null;
+                    reader.skipValue();
+                }
+            } else if (key != -1 && reader.peek() == HybridEventReader.NULL) {
+                // 与 JSONObject 相同, getString 和 optString 返回 "null", getLong 和 optInt 无法转换
+                reader.skipValue();
+                fields.mValues[key] = JSON_NULL;
+                fields.mLiterals[key] = false;
+            } else if (key != -1 && isScalar(reader.peek())) {
+                fields.mValues[key] = reader.nextString();
+                fields.mLiterals[key] = reader.wasLiteral();
+            } else {
+                if (key != -1) {
+                    // 对象或数组不能转换为这些字段
+                    fields.mValues[key] = null;
+                }
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return fields;
+    }
+
+    private static boolean isScalar(int type) {
+        return type == HybridEventReader.STRING || type == HybridEventReader.LITERAL;
+    }
+
+    @Nullable
+    private BaseEvent.BaseBuilder<?> transform(Fields fields) {
+        try {
+            String type = fields.getString(KEY_EVENT_TYPE);
+            Integer typeCode = TYPES.get(type);
+            if (typeCode == null) {
+                return null;
+            }
+            switch (typeCode) {
+                case TYPE_PAGE:
+                    return new HybridPageEvent.Builder()
+                            .setDomain(getDomain(fields))
+                            .setProtocolType(fields.getString(KEY_PROTOCOL_TYPE))
+                            .setQuery(fields.optString(KEY_QUERY))
+                            .setPath(fields.getString(KEY_PATH))
+                            .setReferralPage(fields.optString(KEY_REFERRAL_PAGE))
+                            .setTitle(fields.optString(KEY_TITLE))
+                            .setTimestamp(fields.getLong(KEY_TIMESTAMP))
+                            .setOrientation(ForegroundOrientation.get().getOrientation());
 
+                case TYPE_PAGE_ATTRIBUTES:
+                    return new HybridPageAttributesEvent.Builder()
+                            .setDomain(getDomain(fields))
+                            .setQuery(fields.optString(KEY_QUERY))
+                            .setPath(fields.getString(KEY_PATH))
+                            .setPageShowTimestamp(fields.getLong(KEY_PAGE_SHOW_TIMESTAMP))
+                            .setAttributes(fields.getAttributes());
 
+                case TYPE_VIEW_ELEMENT:
+                    return new HybridViewElementEvent.Builder()
+                            .setHyperlink(fields.optString(KEY_HYPERLINK))
+                            .setDomain(getDomain(fields))
+                            .setQuery(fields.optString(KEY_QUERY))
+                            .setIndex(fields.optInt(KEY_INDEX, -1))
+                            .setTextValue(fields.optString(KEY_TEXT_VALUE))
+                            .setXpath(fields.getString(KEY_XPATH))
+                            .setPath(fields.getString(KEY_PATH))
+                            .setPageShowTimestamp(fields.getLong(KEY_PAGE_SHOW_TIMESTAMP))
+                            .setEventType(type);
+
+                case TYPE_CUSTOM:
+                    return new HybridCustomEvent.Builder()
+                            .setDomain(getDomain(fields))
+                            .setQuery(fields.optString(KEY_QUERY))
+                            .setPath(fields.getString(KEY_PATH))
+                            .setPageShowTimestamp(fields.getLong(KEY_PAGE_SHOW_TIMESTAMP))
+                            .setEventName(fields.getString(KEY_EVENT_NAME))
+                            .setAttributes(fields.mAttributes);
+
+                case TYPE_LOGIN_USER_ATTRIBUTES:
+                    return new LoginUserAttributesEvent.Builder()
+                            .setAttributes(fields.getAttributes());
+
+                case TYPE_VISITOR_ATTRIBUTES:
+                    return new VisitorAttributesEvent.Builder()
+                            .setAttributes(fields.getAttributes());
+
+                case TYPE_CONVERSION_VARIABLES:
+                    return new ConversionVariablesEvent.Builder()
+                            .setAttributes(fields.getAttributes());
+
+                default:
+                    return null;
+            }
+        } catch (JSONException e) {
+            Logger.e(TAG, e.getMessage(), e);
+        }
         return null;
     }
 
-    private String getDomain(JSONObject event) {
-        String domain = event.optString(KEY_DOMAIN);
+    private String getDomain(Fields fields) {
+        String domain = fields.optString(KEY_DOMAIN);
         if (TextUtils.isEmpty(domain)) {
             domain = AppInfoProvider.get().getPackageName();
         }
         return domain;
     }
 
-    private HybridViewElementEvent.Builder transformViewElementEventBuilder(JSONObject eventJson) throws JSONException {
-        return new HybridViewElementEvent.Builder()
-                .setHyperlink(eventJson.optString(KEY_HYPERLINK))
-                .setDomain(getDomain(eventJson))
-                .setQuery(eventJson.optString(KEY_QUERY))
-                .setIndex(eventJson.optInt(KEY_INDEX, -1))
-                .setTextValue(eventJson.optString(KEY_TEXT_VALUE))
-                .setXpath(eventJson.getString(KEY_XPATH))
-                .setPath(eventJson.getString(KEY_PATH))
-                .setPageShowTimestamp(eventJson.getLong(KEY_PAGE_SHOW_TIMESTAMP));
+    /**
+     * 一个事件中读到的字段, 取值规则与 JSONObject 的 getXxx/optXxx 相同
+     */
+    private static final class Fields {
+        private final String[] mValues = new String[KEYS.length];
+        private final boolean[] mLiterals = new boolean[KEYS.length];
+        private Map<String, String> mAttributes;
+        private boolean mHasAttributes;
+
+        String getString(int key) throws JSONException {
+            String value = mValues[key];
+            if (value == null) {
+                throw new JSONException("No value for " + KEYS[key]);
+            }
+            return mLiterals[key] ? HybridEventReader.literalToString(value) : value;
+        }
+
+        String optString(int key) {
+            String value = mValues[key];
+            if (value == null) {
+                return "";
+            }
+            return mLiterals[key] ? HybridEventReader.literalToString(value) : value;
+        }
+
+        long getLong(int key) throws JSONException {
+            String value = mValues[key];
+            if (value == null) {
+                throw new JSONException("No value for " + KEYS[key]);
+            }
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException ignored) {
+                // 小数或科学计数法
+            }
+            try {
+                return (long) Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new JSONException(KEYS[key] + " is not a number: " + value);
+            }
+        }
+
+        int optInt(int key, int fallback) {
+            String value = mValues[key];
+            if (value == null) {
+                return fallback;
+            }
+            try {
+                return (int) Long.parseLong(value);
+            } catch (NumberFormatException ignored) {
+                // 小数或科学计数法
+            }
+            try {
+                return (int) Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+
+        Map<String, String> getAttributes() throws JSONException {
+            if (mAttributes == null) {
+                throw new JSONException(mHasAttributes ? "attributes is not a JSONObject" : "No value for attributes");
+            }
+            return mAttributes;
+        }
     }
 }
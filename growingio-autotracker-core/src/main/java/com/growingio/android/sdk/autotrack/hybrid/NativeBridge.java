@@ -18,9 +18,12 @@ package com.growingio.android.sdk.autotrack.hybrid;
 
 import com.growingio.android.sdk.autotrack.Autotracker;
 import com.growingio.android.sdk.track.TrackMainThread;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.providers.UserInfoProvider;
 
+import java.util.List;
+
 class NativeBridge {
     private static final String TAG = "NativeBridge";
 
@@ -39,6 +42,26 @@ class NativeBridge {
         TrackMainThread.trackMain().postEventToTrackMain(mHybridTransformer.transform(event));
     }
 
+    /**
+     * 解析在 track 线程中进行, 不占用 WebView 的 JavaBridge 线程
+     */
+    void dispatchEvents(final String events) {
+        if (!Autotracker.initializedSuccessfully()) {
+            Logger.e(TAG, "Autotracker do not initialized successfully");
+            return;
+        }
+
+        TrackMainThread.trackMain().postActionToTrackMain(new Runnable() {
+            @Override
+            public void run() {
+                List<BaseEvent.BaseBuilder<?>> builders = mHybridTransformer.transformEvents(events);
+                for (BaseEvent.BaseBuilder<?> builder : builders) {
+                    TrackMainThread.trackMain().postEventToTrackMain(builder);
+                }
+            }
+        });
+    }
+
     void setNativeUserId(String userId) {
         if (!Autotracker.initializedSuccessfully()) {
             Logger.e(TAG, "Autotracker do not initialized successfully");
@@ -49,6 +49,14 @@ public abstract class SuperWebView<T extends View> {
         return getRealWebView().getWidth();
     }
 
+    public int getScrollX() {
+        return getRealWebView().getScrollX();
+    }
+
+    public int getScrollY() {
+        return getRealWebView().getScrollY();
+    }
+
     public abstract void setJavaScriptEnabled(boolean flag);
 
     public abstract void addJavascriptInterface(Object obj, String interfaceName);
@@ -107,6 +115,19 @@ public abstract class SuperWebView<T extends View> {
             getRealWebView().addJavascriptInterface(obj, interfaceName);
         }
 
+        /**
+         * X5 内核的内容滚动不会反映到外层 View 的 scrollX/scrollY
+         */
+        @Override
+        public int getScrollX() {
+            return getRealWebView().getWebScrollX();
+        }
+
+        @Override
+        public int getScrollY() {
+            return getRealWebView().getWebScrollY();
+        }
+
         @Override
         public void evaluateJavascript(String script, @Nullable final ValueCallback<String> resultCallback) {
             getRealWebView().evaluateJavascript(script, new com.tencent.smtt.sdk.ValueCallback<String>() {
@@ -54,6 +54,19 @@ class WebViewBridgeJavascriptInterface {
         mNativeBridge.dispatchEvent(event);
     }
 
+    /**
+     * JS 端合并后批量发送的事件, 格式为 dispatchEvent 参数组成的 JSON 数组。
+     * 高频调用, 这里不打印日志, 每个事件在 track 线程保存时仍会输出
+     */
+    @JavascriptInterface
+    @com.uc.webview.export.JavascriptInterface
+    public void dispatchEvents(String events) {
+        if (TextUtils.isEmpty(events)) {
+            return;
+        }
+        mNativeBridge.dispatchEvents(events);
+    }
+
     @JavascriptInterface
     @com.uc.webview.export.JavascriptInterface
     public void setNativeUserId(String userId) {
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.hybrid;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.UiThread;
+import android.text.TextUtils;
+import android.view.View;
+import android.webkit.ValueCallback;
+
+import com.growingio.android.sdk.track.async.Callback;
+import com.growingio.android.sdk.track.async.Disposable;
+import com.growingio.android.sdk.track.log.Logger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.growingio.android.sdk.autotrack.hybrid.WebViewBridgeJavascriptInterface.JAVASCRIPT_GET_DOM_TREE_METHOD;
+
+/**
+ * 缓存每个 WebView 的 DOM 树, 除 invalidateAll() 外只在主线程调用。
+ * <p>
+ * 页面 DOM 变化后所有缓存失效, WebView 的位置, 大小或滚动位置变化后这个 WebView 的缓存失效。
+ * 同一个 WebView 在同样状态下的请求返回之前只执行一次 getDomTree, 每个等待者按自己的 deadline 超时。
+ * 最后一个等待者超时后放弃这个请求, 下次 get() 重新执行 getDomTree, 避免 JS 一直不回调时所有请求都挂在同一个请求上;
+ * 被放弃的请求如果之后返回, 在没有更新的请求和结果时仍然会被缓存。
+ */
+class WebViewDomTreeCache {
+    private static final String TAG = "WebViewDomTreeCache";
+
+    private final Handler mHandler;
+    private final Map<View, Entry> mEntries = new WeakHashMap<>();
+    private final AtomicInteger mDomVersion = new AtomicInteger();
+
+    WebViewDomTreeCache() {
+        this(new Handler(Looper.getMainLooper()));
+    }
+
+    WebViewDomTreeCache(Handler handler) {
+        mHandler = handler;
+    }
+
+    /**
+     * 可以在任意线程调用
+     */
+    void invalidateAll() {
+        mDomVersion.incrementAndGet();
+    }
+
+    /**
+     * @param deadline SystemClock.uptimeMillis() 的时间, 同一次截图中的多个 WebView 使用同一个 deadline
+     */
+    @UiThread
+    Disposable get(SuperWebView<?> webView, long deadline, Callback<JSONObject> callback) {
+        int domVersion = mDomVersion.get();
+        int[] state = getState(webView);
+        Entry entry = mEntries.get(webView.getRealWebView());
+        if (entry == null) {
+            entry = new Entry();
+            mEntries.put(webView.getRealWebView(), entry);
+        }
+        if (entry.mDomTree != null) {
+            if (entry.mDomVersion == domVersion && Arrays.equals(entry.mState, state)) {
+                Logger.d(TAG, "get: cached");
+                callback.onSuccess(entry.mDomTree);
+                return Disposable.EMPTY_DISPOSABLE;
+            }
+            entry.mDomTree = null;
+        }
+
+        Request request = entry.mRequest;
+        if (request == null || request.mDomVersion != domVersion || !Arrays.equals(request.mState, state)) {
+            request = new Request(entry, state, domVersion);
+            entry.mRequest = request;
+            evaluate(webView, request);
+        }
+        return request.addWaiter(callback, deadline);
+    }
+
+    /**
+     * 与 getDomTree 的参数以及返回结果相关的状态
+     */
+    private static int[] getState(SuperWebView<?> webView) {
+        int[] location = new int[2];
+        webView.getLocationOnScreen(location);
+        return new int[]{location[0], location[1], webView.getWidth(), webView.getHeight(), webView.getScrollX(), webView.getScrollY()};
+    }
+
+    private void evaluate(SuperWebView<?> webView, final Request request) {
+        int[] state = request.mState;
+        webView.evaluateJavascript("javascript:" + JAVASCRIPT_GET_DOM_TREE_METHOD + "(" +
+                        state[0] + ", " + state[1] + ", " + state[2] + ", " + state[3] + ", 100)",
+                new ValueCallback<String>() {
+                    @Override
+                    public void onReceiveValue(String value) {
+                        onResult(request, parse(value));
+                    }
+                });
+    }
+
+    private static JSONObject parse(String value) {
+        if (TextUtils.isEmpty(value) || "null".equals(value)) {
+            Logger.e(TAG, "getWebViewDomTree ValueCallback is NULL");
+            return null;
+        }
+        try {
+            return new JSONObject(value);
+        } catch (JSONException e) {
+            Logger.e(TAG, e);
+            return null;
+        }
+    }
+
+    private void onResult(Request request, JSONObject domTree) {
+        Entry entry = request.mEntry;
+        // 被放弃的请求只在没有更新的请求和结果时缓存
+        if (entry.mRequest == request || (entry.mRequest == null && entry.mDomTree == null)) {
+            entry.mRequest = null;
+            if (domTree != null && request.mDomVersion == mDomVersion.get()) {
+                entry.mDomTree = domTree;
+                entry.mState = request.mState;
+                entry.mDomVersion = request.mDomVersion;
+            }
+        }
+        request.finish(domTree);
+    }
+
+    private static final class Entry {
+        private JSONObject mDomTree;
+        private int[] mState;
+        private int mDomVersion;
+        private Request mRequest;
+    }
+
+    private final class Request {
+        private final Entry mEntry;
+        private final int[] mState;
+        private final int mDomVersion;
+        private final List<Waiter> mWaiters = new ArrayList<>(1);
+
+        Request(Entry entry, int[] state, int domVersion) {
+            mEntry = entry;
+            mState = state;
+            mDomVersion = domVersion;
+        }
+
+        Disposable addWaiter(Callback<JSONObject> callback, long deadline) {
+            final Waiter waiter = new Waiter(mHandler, callback);
+            mWaiters.add(waiter);
+            waiter.mTimeout = new Runnable() {
+                @Override
+                public void run() {
+                    if (mWaiters.remove(waiter) && !waiter.isDisposed()) {
+                        Logger.e(TAG, "getWebViewDomTree timeout");
+                        waiter.dispose();
+                        waiter.mCallback.onFailed();
+                        abandonIfIdle();
+                    }
+                }
+            };
+            mHandler.postAtTime(waiter.mTimeout, deadline);
+            return waiter;
+        }
+
+        /**
+         * 没有等待者时放弃这个请求, 之后的 get() 会重新执行 getDomTree
+         */
+        private void abandonIfIdle() {
+            for (Waiter waiter : mWaiters) {
+                if (!waiter.isDisposed()) {
+                    return;
+                }
+            }
+            if (mEntry.mRequest == this) {
+                mEntry.mRequest = null;
+            }
+        }
+
+        void finish(JSONObject domTree) {
+            for (Waiter waiter : mWaiters) {
+                if (waiter.isDisposed()) {
+                    continue;
+                }
+                waiter.dispose();
+                if (domTree != null) {
+                    waiter.mCallback.onSuccess(domTree);
+                } else {
+                    waiter.mCallback.onFailed();
+                }
+            }
+            mWaiters.clear();
+        }
+    }
+
+    private static final class Waiter implements Disposable {
+        private final Handler mHandler;
+        private final Callback<JSONObject> mCallback;
+        private Runnable mTimeout;
+        private boolean mDisposed;
+
+        Waiter(Handler handler, Callback<JSONObject> callback) {
+            mHandler = handler;
+            mCallback = callback;
+        }
+
+        @Override
+        public void dispose() {
+            mDisposed = true;
+            mHandler.removeCallbacks(mTimeout);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return mDisposed;
+        }
+    }
+}
@@ -23,6 +23,11 @@ import org.json.JSONObject;
 
 class WebViewJavascriptBridgeConfiguration {
     private static final String TAG = "WebViewJavascriptBridgeConfiguration";
+    /**
+     * JS 端合并事件后通过 dispatchEvents 发送, 缓存达到该数量, 距第一个事件超过该时间或 pagehide 时立即发送
+     */
+    static final int BATCH_DISPATCH_MAX_SIZE = 20;
+    static final int BATCH_DISPATCH_INTERVAL = 500;
 
     private final String mProjectId;
     private final String mAppId;
@@ -46,6 +51,8 @@ class WebViewJavascriptBridgeConfiguration {
             jsonObject.put("appPackage", mAppPackage);
             jsonObject.put("nativeSdkVersion", mNativeSdkVersion);
             jsonObject.put("nativeSdkVersionCode", mNativeSdkVersionCode);
+            jsonObject.put("batchDispatchMaxSize", BATCH_DISPATCH_MAX_SIZE);
+            jsonObject.put("batchDispatchInterval", BATCH_DISPATCH_INTERVAL);
             return jsonObject;
         } catch (JSONException e) {
             Logger.e(TAG, e.getMessage(), e);
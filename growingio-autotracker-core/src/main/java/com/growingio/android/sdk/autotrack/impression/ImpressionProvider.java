@@ -32,6 +32,7 @@ import com.growingio.android.sdk.autotrack.page.PageProvider;
 import com.growingio.android.sdk.autotrack.view.OnViewStateChangedListener;
 import com.growingio.android.sdk.autotrack.view.ViewHelper;
 import com.growingio.android.sdk.autotrack.view.ViewStateChangedEvent;
+import com.growingio.android.sdk.autotrack.view.ViewTreeSnapshot;
 import com.growingio.android.sdk.autotrack.view.ViewTreeStatusProvider;
 import com.growingio.android.sdk.track.TrackMainThread;
 import com.growingio.android.sdk.track.log.Logger;
@@ -52,6 +53,7 @@ public class ImpressionProvider implements OnViewStateChangedListener {
     private static final Map<Activity, List<ViewImpression>> ACTIVITY_SCOPE = new WeakHashMap<>();
     private final float mImpressionScale;
     private final Handler mUiHandler;
+    private final Rect mVisibleRect = new Rect();
     private volatile boolean mStarted = false;
     private final Runnable mCheckImpressionRunnable = new Runnable() {
         @Override
@@ -109,12 +111,12 @@ public class ImpressionProvider implements OnViewStateChangedListener {
     }
 
     private boolean isVisibility(View view) {
-        if (ViewHelper.viewVisibilityInParents(view)) {
+        if (ViewTreeSnapshot.get().isVisibleInParents(view)) {
             if (mImpressionScale <= 0) {
                 return true;
             }
 
-            Rect rect = new Rect();
+            Rect rect = mVisibleRect;
             view.getLocalVisibleRect(rect);
             return rect.right * rect.bottom >= view.getMeasuredHeight() * view.getMeasuredWidth() * mImpressionScale;
         }
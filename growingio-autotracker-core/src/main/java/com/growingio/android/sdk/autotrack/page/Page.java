@@ -20,6 +20,7 @@ import android.text.TextUtils;
 import android.view.View;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +35,8 @@ public abstract class Page<T> {
     private String mTitle;
     private String mPath;
     private Map<String, String> mAttributes;
+    private Map<String, String> mEmittedAttributes;
+    private long mEmittedAttributesTimestamp;
     private final List<Page<?>> mChildren = new ArrayList<>();
 
     Page(T carrier) {
@@ -69,6 +72,21 @@ public abstract class Page<T> {
         mAttributes = attributes;
     }
 
+    /**
+     * 同一次页面展示中属性没有变化时不需要重复发送，页面重新展示后需要重新发送
+     *
+     * @return 需要发送时返回true
+     */
+    boolean markAttributesEmitted() {
+        if (mEmittedAttributesTimestamp == mShowTimestamp && mAttributes.equals(mEmittedAttributes)) {
+            return false;
+        }
+        // 保存副本，调用方之后修改传入的Map不会影响比较
+        mEmittedAttributes = new HashMap<>(mAttributes);
+        mEmittedAttributesTimestamp = mShowTimestamp;
+        return true;
+    }
+
     public abstract String getName();
 
     public abstract View getView();
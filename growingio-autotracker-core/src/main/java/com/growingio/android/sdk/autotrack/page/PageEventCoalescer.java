@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.android.sdk.autotrack.page;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 合并短时间内重复的页面切换。
+ * <p>
+ * 一个页面在合并窗口内再次发送page事件，并且期间没有其他页面切换(最近一次发送page事件的仍然是同一批次)，
+ * 就认为是重复的切换，例如ViewPager滑动时setUserVisibleHint和onResume先后触发。
+ * 刷新Fragment子树时整棵子树属于同一批次，所以重复刷新子树时子树上的页面都会被合并。
+ */
+class PageEventCoalescer {
+    private final long mWindowMillis;
+    private final Map<Page<?>, EmittedRecord> mEmittedRecords = new WeakHashMap<>();
+    private int mBatchId = 0;
+    private int mLastEmittedBatchId = -1;
+
+    PageEventCoalescer(long windowMillis) {
+        mWindowMillis = windowMillis;
+    }
+
+    void beginBatch() {
+        mBatchId++;
+    }
+
+    /**
+     * 页面被隐藏、移除或者Activity进入后台，之后再次显示是一次新的页面切换，不能被合并
+     */
+    void onPageLeft() {
+        mLastEmittedBatchId = -1;
+    }
+
+    boolean isDuplicate(Page<?> page, String orientation, long now) {
+        if (mWindowMillis <= 0) {
+            return false;
+        }
+        EmittedRecord record = mEmittedRecords.get(page);
+        return record != null
+                && record.mBatchId == mLastEmittedBatchId
+                && now - record.mTimestamp < mWindowMillis
+                && record.mOrientation.equals(orientation);
+    }
+
+    void onEmitted(Page<?> page, String orientation, long now) {
+        if (mWindowMillis <= 0) {
+            return;
+        }
+        mEmittedRecords.put(page, new EmittedRecord(now, orientation, mBatchId));
+        mLastEmittedBatchId = mBatchId;
+    }
+
+    private static final class EmittedRecord {
+        private final long mTimestamp;
+        private final String mOrientation;
+        private final int mBatchId;
+
+        private EmittedRecord(long timestamp, String orientation, int batchId) {
+            mTimestamp = timestamp;
+            mOrientation = orientation;
+            mBatchId = batchId;
+        }
+    }
+}
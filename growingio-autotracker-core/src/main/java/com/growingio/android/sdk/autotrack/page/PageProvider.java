@@ -19,22 +19,28 @@ package com.growingio.android.sdk.autotrack.page;
 import android.app.Activity;
 import android.content.Context;
 import android.content.res.Configuration;
+import android.os.SystemClock;
 import android.support.annotation.UiThread;
 import android.text.TextUtils;
 import android.view.View;
 
+import com.growingio.android.sdk.autotrack.AutotrackConfiguration;
 import com.growingio.android.sdk.autotrack.Autotracker;
 import com.growingio.android.sdk.autotrack.IgnorePolicy;
 import com.growingio.android.sdk.autotrack.events.PageAttributesEvent;
 import com.growingio.android.sdk.autotrack.events.PageEvent;
 import com.growingio.android.sdk.autotrack.view.ViewAttributeUtil;
+import com.growingio.android.sdk.autotrack.view.ViewTreeSnapshot;
 import com.growingio.android.sdk.track.TrackMainThread;
 import com.growingio.android.sdk.track.listener.IActivityLifecycle;
 import com.growingio.android.sdk.track.listener.event.ActivityLifecycleEvent;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.providers.ActivityStateProvider;
-import com.growingio.android.sdk.track.utils.ActivityUtil;
+import com.growingio.android.sdk.track.providers.ConfigurationProvider;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,11 +50,17 @@ public class PageProvider implements IActivityLifecycle {
     private static final String TAG = "PageProvider";
 
     private static final Map<Activity, ActivityPage> ALL_PAGE_TREE = new WeakHashMap<>();
+    // carrier(Activity或真实的Fragment对象)到Page的索引，与ALL_PAGE_TREE保持同步。
+    // Activity和Fragment的equals都是final的对象比较，所以这里相当于identity key；
+    // Page会强引用carrier，value使用弱引用，否则WeakHashMap的key永远不会被回收
+    private static final Map<Object, WeakReference<Page<?>>> ALL_PAGE_INDEX = new WeakHashMap<>();
     private static final Map<Object, String> ALL_PAGE_ALIAS = new WeakHashMap<>();
     private static final Map<Class<?>, IgnorePolicy> IGNORE_PAGE_CLASSES = new HashMap<>();
     private static final Map<Object, IgnorePolicy> IGNORE_PAGES = new WeakHashMap<>();
     private static final Map<Object, Map<String, String>> PAGE_ATTRIBUTES_CACHE = new WeakHashMap<>();
 
+    private PageEventCoalescer mPageEventCoalescer = new PageEventCoalescer(0);
+
     private static class SingleInstance {
         private static final PageProvider INSTANCE = new PageProvider();
     }
@@ -61,6 +73,10 @@ public class PageProvider implements IActivityLifecycle {
     }
 
     public void start() {
+        AutotrackConfiguration configuration = ConfigurationProvider.get().getConfiguration(AutotrackConfiguration.class);
+        if (configuration != null) {
+            mPageEventCoalescer = new PageEventCoalescer(configuration.getPageCoalesceWindow());
+        }
         ActivityStateProvider.get().registerActivityLifecycleListener(this);
     }
 
@@ -80,6 +96,8 @@ public class PageProvider implements IActivityLifecycle {
 
         if (event.eventType == ActivityLifecycleEvent.EVENT_TYPE.ON_RESUMED) {
             createOrResumePage(activity);
+        } else if (event.eventType == ActivityLifecycleEvent.EVENT_TYPE.ON_PAUSED) {
+            mPageEventCoalescer.onPageLeft();
         } else if (event.eventType == ActivityLifecycleEvent.EVENT_TYPE.ON_DESTROYED) {
             removePage(activity);
         }
@@ -100,21 +118,43 @@ public class PageProvider implements IActivityLifecycle {
             addPageAlias(page);
             ViewAttributeUtil.setViewPage(activity.getWindow().getDecorView(), page);
             ALL_PAGE_TREE.put(activity, page);
-        } else {
-            page.refreshShowTimestamp();
+            indexPage(page);
         }
         sendPage(activity, page);
     }
 
-    private void refreshPages(Context context, Page<?> page) {
-        page.refreshShowTimestamp();
-        Logger.d(TAG, "refreshPages: " + page.path());
-        sendPage(context, page);
-        if (!page.getAllChildren().isEmpty()) {
-            for (Page<?> child : page.getAllChildren()) {
-                refreshPages(context, child);
+    /**
+     * 一次遍历刷新整棵子树：忽略状态由父节点向下传递，不再为每个子Page重新向上查找父Fragment
+     */
+    private void refreshPages(Context context, Page<?> root) {
+        mPageEventCoalescer.beginBatch();
+        String orientation = getOrientation(context);
+        Deque<Page<?>> pages = new ArrayDeque<>();
+        Deque<Boolean> ignoredByParents = new ArrayDeque<>();
+        pages.push(root);
+        ignoredByParents.push(root.getCarrier() instanceof SuperFragment && isIgnoreByParent((SuperFragment<?>) root.getCarrier()));
+        while (!pages.isEmpty()) {
+            Page<?> page = pages.pop();
+            boolean ignoredByParent = ignoredByParents.pop();
+            IgnorePolicy ignorePolicy = IGNORE_PAGES.get(page.getCarrier());
+            if (ignorePolicy != null) {
+                page.setIgnored(ignorePolicy == IgnorePolicy.IGNORE_SELF || ignorePolicy == IgnorePolicy.IGNORE_ALL);
+            } else {
+                page.setIgnored(ignoredByParent);
+            }
+            Logger.d(TAG, "refreshPages: " + page.path());
+            dispatchPage(page, orientation);
+
+            boolean ignoreChildren = ignoredByParent
+                    || ignorePolicy == IgnorePolicy.IGNORE_ALL || ignorePolicy == IgnorePolicy.IGNORE_CHILD;
+            List<Page<?>> children = page.getAllChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pages.push(children.get(i));
+                ignoredByParents.push(ignoreChildren);
             }
         }
+        // 忽略状态会影响View所属Page的查找结果
+        ViewTreeSnapshot.get().invalidate();
     }
 
     private void sendPage(Context context, Page<?> page) {
@@ -123,18 +163,37 @@ public class PageProvider implements IActivityLifecycle {
         } else if (page.getCarrier() instanceof SuperFragment) {
             page.setIgnored(isIgnoreFragment((SuperFragment<?>) page.getCarrier()));
         }
+        // 忽略状态会影响View所属Page的查找结果
+        ViewTreeSnapshot.get().invalidate();
+        mPageEventCoalescer.beginBatch();
+        dispatchPage(page, getOrientation(context));
+    }
+
+    private void dispatchPage(Page<?> page, String orientation) {
+        long now = SystemClock.uptimeMillis();
+        if (!page.isIgnored() && mPageEventCoalescer.isDuplicate(page, orientation, now)) {
+            // 合并窗口内重复的页面切换，保持原来的showTimestamp，后续事件仍然关联到已发送的page事件
+            Logger.d(TAG, "sendPage: path = " + page.path() + " is coalesced");
+            return;
+        }
+
+        page.refreshShowTimestamp();
         if (!page.isIgnored()) {
             Logger.d(TAG, "sendPage: path = " + page.path());
-            generatePageEvent(context, page);
+            generatePageEvent(page, orientation);
+            mPageEventCoalescer.onEmitted(page, orientation, now);
             reissuePageAttributes(page);
         } else {
             Logger.e(TAG, "sendPage: path = " + page.path() + " is ignored");
         }
     }
 
-    private void generatePageEvent(Context context, Page<?> page) {
-        String orientation = context.getResources().getConfiguration().orientation == Configuration.ORIENTATION_PORTRAIT
+    private String getOrientation(Context context) {
+        return context.getResources().getConfiguration().orientation == Configuration.ORIENTATION_PORTRAIT
                 ? PageEvent.ORIENTATION_PORTRAIT : PageEvent.ORIENTATION_LANDSCAPE;
+    }
+
+    private void generatePageEvent(Page<?> page, String orientation) {
         TrackMainThread.trackMain().postEventToTrackMain(
                 new PageEvent.Builder()
                         .setPath(page.path())
@@ -201,7 +260,10 @@ public class PageProvider implements IActivityLifecycle {
     @UiThread
     private void removePage(Activity activity) {
         Logger.d(TAG, "removePage: activity is " + activity);
-        ALL_PAGE_TREE.remove(activity);
+        ActivityPage page = ALL_PAGE_TREE.remove(activity);
+        if (page != null) {
+            unindexPages(page);
+        }
         PAGE_ATTRIBUTES_CACHE.remove(activity);
     }
 
@@ -227,7 +289,9 @@ public class PageProvider implements IActivityLifecycle {
             return;
         }
 
-        if (!hidden) {
+        if (hidden) {
+            mPageEventCoalescer.onPageLeft();
+        } else {
             Page<?> page = findPage(fragment);
             if (page == null) {
                 Logger.e(TAG, "fragmentOnHiddenChanged: fragment is NULL");
@@ -280,10 +344,9 @@ public class PageProvider implements IActivityLifecycle {
             Page<?> pageParent = findPageParent(fragment);
             page.assignParent(pageParent);
             pageParent.addChildren(page);
+            indexPage(page);
             addPageAlias(page);
             ViewAttributeUtil.setViewPage(fragment.getView(), page);
-        } else {
-            page.refreshShowTimestamp();
         }
         sendPage(fragment.getActivity(), page);
     }
@@ -307,35 +370,25 @@ public class PageProvider implements IActivityLifecycle {
 
         Logger.e(TAG, "removePage: fragment is " + fragment.getRealFragment());
         PAGE_ATTRIBUTES_CACHE.remove(fragment);
+        mPageEventCoalescer.onPageLeft();
 
-        Page<?> page = ALL_PAGE_TREE.get(fragment.getActivity());
+        Page<?> page = findPage(fragment);
         if (page == null) {
             return;
         }
-        removePage(fragment, page);
-    }
-
-    private void removePage(SuperFragment<?> carrier, Page<?> page) {
-        List<Page<?>> pages = page.getAllChildren();
-        for (int i = pages.size() - 1; i >= 0; i--) {
-            Page<?> onePage = pages.get(i);
-            if (carrier.equals(onePage.getCarrier())) {
-                pages.remove(i);
-                return;
-            } else {
-                removePage(carrier, onePage);
-            }
+        if (page.getParent() != null) {
+            page.getParent().removeChildren(page);
         }
+        unindexPages(page);
     }
 
     private Page<?> findPageParent(SuperFragment<?> fragment) {
         Page<?> pageParent;
         SuperFragment<?> parentFragment = fragment.getParentFragment();
-        ActivityPage activityPage = ALL_PAGE_TREE.get(fragment.getActivity());
         if (parentFragment == null) {
-            pageParent = activityPage;
+            pageParent = ALL_PAGE_TREE.get(fragment.getActivity());
         } else {
-            pageParent = findPage(parentFragment, activityPage);
+            pageParent = findPage(parentFragment);
         }
         if (pageParent == null) {
             // TODO: 2020/4/24
@@ -345,30 +398,35 @@ public class PageProvider implements IActivityLifecycle {
     }
 
     private Page<?> findPage(SuperFragment<?> carrier) {
-        Activity activity = carrier.getActivity();
-        Page<?> page = ALL_PAGE_TREE.get(activity);
-        if (page == null) {
-            return null;
-        }
-        return findPage(carrier, page);
+        WeakReference<Page<?>> pageRef = ALL_PAGE_INDEX.get(carrier.getRealFragment());
+        return pageRef == null ? null : pageRef.get();
     }
 
-    private Page<?> findPage(SuperFragment<?> carrier, Page<?> page) {
-        if (carrier.equals(page.getCarrier())) {
-            return page;
-        }
+    private void indexPage(Page<?> page) {
+        ALL_PAGE_INDEX.put(getIndexKey(page), new WeakReference<Page<?>>(page));
+    }
 
-        List<Page<?>> pages = page.getAllChildren();
-        for (Page<?> onePage : pages) {
-            if (onePage != null) {
-                Page<?> p = findPage(carrier, onePage);
-                if (p != null) {
-                    return p;
-                }
+    /**
+     * 子树从页面树上移除时需要同步移除索引，否则在GC之前还能查到已经脱离页面树的Page
+     */
+    private void unindexPages(Page<?> root) {
+        Deque<Page<?>> pages = new ArrayDeque<>();
+        pages.push(root);
+        while (!pages.isEmpty()) {
+            Page<?> page = pages.pop();
+            ALL_PAGE_INDEX.remove(getIndexKey(page));
+            for (Page<?> child : page.getAllChildren()) {
+                pages.push(child);
             }
         }
+    }
 
-        return null;
+    private Object getIndexKey(Page<?> page) {
+        Object carrier = page.getCarrier();
+        if (carrier instanceof SuperFragment) {
+            return ((SuperFragment<?>) carrier).getRealFragment();
+        }
+        return carrier;
     }
 
     private void reissuePageAttributes(Page<?> page) {
@@ -435,6 +493,10 @@ public class PageProvider implements IActivityLifecycle {
     }
 
     private void generatePageAttributesEvent(Page<?> page) {
+        if (!page.markAttributesEmitted()) {
+            Logger.d(TAG, "generatePageAttributesEvent: page = " + page.path() + " attributes is not changed");
+            return;
+        }
         TrackMainThread.trackMain().postEventToTrackMain(
                 new PageAttributesEvent.Builder()
                         .setPath(page.path())
@@ -447,26 +509,6 @@ public class PageProvider implements IActivityLifecycle {
     }
 
     public Page<?> findPage(View view) {
-        Page<?> page = ViewAttributeUtil.getViewPage(view);
-        if (page != null && (!page.isIgnored() || page instanceof ActivityPage)) {
-            return page;
-        }
-
-        if (view.getParent() instanceof View) {
-            return findPage((View) view.getParent());
-        }
-
-        //需要考虑其他Window的上面的View
-        Context viewContext = view.getContext();
-        Activity activity = ActivityUtil.findActivity(viewContext);
-        if (activity == null) {
-            activity = ActivityStateProvider.get().getForegroundActivity();
-        }
-        if (activity != null) {
-            return ALL_PAGE_TREE.get(activity);
-        }
-
-        // TODO: 2020/6/10 这种情况需要观察
-        throw new NullPointerException("Page is NULL");
+        return ViewTreeSnapshot.get().findPage(view);
     }
 }
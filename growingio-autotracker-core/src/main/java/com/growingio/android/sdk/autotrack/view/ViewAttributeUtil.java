@@ -110,6 +110,7 @@ public class ViewAttributeUtil {
 
     public static void setViewPage(View view, Page<?> page) {
         view.setTag(R.id.growing_tracker_view_page, page);
+        ViewTreeSnapshot.get().invalidate();
     }
 
     public static Page<?> getViewPage(View view) {
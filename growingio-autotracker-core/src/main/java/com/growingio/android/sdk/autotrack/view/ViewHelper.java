@@ -92,27 +92,7 @@ public class ViewHelper {
     }
 
     public static boolean viewVisibilityInParents(View view) {
-        if (view == null) {
-            return false;
-        }
-
-        if (!isViewSelfVisible(view)) {
-            return false;
-        }
-
-        ViewParent viewParent = view.getParent();
-        while (viewParent instanceof View) {
-            if (isViewSelfVisible((View) viewParent)) {
-                viewParent = viewParent.getParent();
-                if (viewParent == null) {
-                    Logger.d(TAG, "Hit detached view: ", viewParent);
-                    return false;
-                }
-            } else {
-                return false;
-            }
-        }
-        return true;
+        return ViewTreeSnapshot.get().isVisibleInParents(view);
     }
 
     public static ViewNode getMenuItemViewNode(Page<?> page, MenuItem menuItem) {
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.android.sdk.autotrack.view;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewParent;
+
+import com.growingio.android.sdk.autotrack.page.ActivityPage;
+import com.growingio.android.sdk.autotrack.page.Page;
+import com.growingio.android.sdk.autotrack.page.PageProvider;
+import com.growingio.android.sdk.track.providers.ActivityStateProvider;
+import com.growingio.android.sdk.track.utils.ActivityUtil;
+import com.growingio.android.sdk.track.utils.ThreadUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 当前帧的View树快照，缓存Window列表、View所属的Page和View的可见性，
+ * 供点击、change、曝光和圈选共享，避免同一帧内重复遍历View树和反射获取Window。
+ * <p>
+ * 快照在收到ViewTreeStatusProvider的任意状态变化或者下一帧开始时失效，只在UI线程缓存，其他线程直接计算。
+ * 其他线程调用{@link #invalidate()}时只做标记，UI线程下一次读取快照前清空。
+ */
+public class ViewTreeSnapshot implements OnViewStateChangedListener {
+    private List<DecorView> mWindowDecorViews;
+    private final Map<View, Page<?>> mPageCache = new WeakHashMap<>();
+    private final Map<View, Boolean> mVisibilityCache = new WeakHashMap<>();
+    private boolean mFrameCallbackPosted = false;
+    private volatile boolean mPendingInvalidate = false;
+
+    private final Choreographer.FrameCallback mInvalidateCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameCallbackPosted = false;
+            invalidate();
+        }
+    };
+
+    private static class SingleInstance {
+        private static final ViewTreeSnapshot INSTANCE = new ViewTreeSnapshot();
+    }
+
+    private ViewTreeSnapshot() {
+    }
+
+    public static ViewTreeSnapshot get() {
+        return SingleInstance.INSTANCE;
+    }
+
+    public void start() {
+        ViewTreeStatusProvider.get().register(this);
+    }
+
+    @Override
+    public void onViewStateChanged(ViewStateChangedEvent changedEvent) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        if (!ThreadUtils.runningOnUiThread()) {
+            mPendingInvalidate = true;
+            return;
+        }
+        mPendingInvalidate = false;
+        clear();
+    }
+
+    /**
+     * 在UI线程读取快照前调用，处理其他线程的invalidate
+     */
+    private void applyPendingInvalidate() {
+        if (mPendingInvalidate) {
+            mPendingInvalidate = false;
+            clear();
+        }
+    }
+
+    private void clear() {
+        mWindowDecorViews = null;
+        if (!mPageCache.isEmpty()) {
+            mPageCache.clear();
+        }
+        if (!mVisibilityCache.isEmpty()) {
+            mVisibilityCache.clear();
+        }
+    }
+
+    /**
+     * 快照有内容后，在下一帧开始时清空，保证快照最多存活一帧
+     */
+    private void invalidateOnNextFrame() {
+        if (!mFrameCallbackPosted) {
+            mFrameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(mInvalidateCallback);
+        }
+    }
+
+    public List<DecorView> getWindowDecorViews() {
+        if (!ThreadUtils.runningOnUiThread()) {
+            return WindowHelper.get().loadAllWindowDecorViews();
+        }
+        applyPendingInvalidate();
+        if (mWindowDecorViews == null) {
+            mWindowDecorViews = Collections.unmodifiableList(WindowHelper.get().loadAllWindowDecorViews());
+            invalidateOnNextFrame();
+        }
+        return mWindowDecorViews;
+    }
+
+    /**
+     * 查找View所属的Page，路径上每个View的结果都会被缓存，同一棵子树上的后续查找不再向上遍历
+     */
+    public Page<?> findPage(View view) {
+        boolean cacheable = ThreadUtils.runningOnUiThread();
+        if (cacheable) {
+            applyPendingInvalidate();
+            Page<?> cached = mPageCache.get(view);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Page<?> page = ViewAttributeUtil.getViewPage(view);
+        if (page == null || (page.isIgnored() && !(page instanceof ActivityPage))) {
+            if (view.getParent() instanceof View) {
+                page = findPage((View) view.getParent());
+            } else {
+                page = findWindowPage(view);
+            }
+        }
+
+        if (cacheable) {
+            mPageCache.put(view, page);
+            invalidateOnNextFrame();
+        }
+        return page;
+    }
+
+    private Page<?> findWindowPage(View rootView) {
+        //需要考虑其他Window的上面的View
+        Context viewContext = rootView.getContext();
+        Activity activity = ActivityUtil.findActivity(viewContext);
+        if (activity == null) {
+            activity = ActivityStateProvider.get().getForegroundActivity();
+        }
+        if (activity != null) {
+            Page<?> page = PageProvider.get().findPage(activity);
+            if (page != null) {
+                return page;
+            }
+        }
+
+        // TODO: 2020/6/10 这种情况需要观察
+        throw new NullPointerException("Page is NULL");
+    }
+
+    /**
+     * 与原有逻辑一致：View自身可见，且所有父View可见并且没有从View树上脱离
+     */
+    public boolean isVisibleInParents(View view) {
+        if (view == null || !ViewHelper.isViewSelfVisible(view)) {
+            return false;
+        }
+        boolean cacheable = ThreadUtils.runningOnUiThread();
+        if (cacheable) {
+            applyPendingInvalidate();
+        }
+        ViewParent parent = view.getParent();
+        return !(parent instanceof View) || isAttachedAndVisible((View) parent, cacheable);
+    }
+
+    private boolean isAttachedAndVisible(View view, boolean cacheable) {
+        if (cacheable) {
+            Boolean cached = mVisibilityCache.get(view);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        boolean visible = false;
+        if (ViewHelper.isViewSelfVisible(view)) {
+            ViewParent parent = view.getParent();
+            if (parent instanceof View) {
+                visible = isAttachedAndVisible((View) parent, cacheable);
+            } else {
+                visible = parent != null;
+            }
+        }
+
+        if (cacheable) {
+            mVisibilityCache.put(view, visible);
+            invalidateOnNextFrame();
+        }
+        return visible;
+    }
+}
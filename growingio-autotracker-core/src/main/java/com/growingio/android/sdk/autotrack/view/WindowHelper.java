@@ -124,17 +124,23 @@ public class WindowHelper {
         return topViews;
     }
 
+    /**
+     * 同一帧内复用ViewTreeSnapshot中缓存的Window列表，UI线程上返回的列表不可修改
+     */
     public List<DecorView> getAllWindowDecorViews() {
-        List<DecorView> decorViews = new ArrayList<>();
-        View[] allViews = WindowHelper.get().getWindowViews();
-        for (View view : allViews) {
-            int[] location = new int[2];
-            view.getLocationOnScreen(location);
-            int x = location[0];
-            int y = location[1];
+        return ViewTreeSnapshot.get().getWindowDecorViews();
+    }
 
-            Rect area = new Rect(x, y, x + view.getWidth(), y + view.getHeight());
+    List<DecorView> loadAllWindowDecorViews() {
+        View[] allViews = getWindowViews();
+        List<DecorView> decorViews = new ArrayList<>(allViews.length);
+        int[] location = new int[2];
+        for (View view : allViews) {
             if (view.getLayoutParams() instanceof WindowManager.LayoutParams) {
+                view.getLocationOnScreen(location);
+                int x = location[0];
+                int y = location[1];
+                Rect area = new Rect(x, y, x + view.getWidth(), y + view.getHeight());
                 WindowManager.LayoutParams windowParams = (WindowManager.LayoutParams) view.getLayoutParams();
                 decorViews.add(new DecorView(view, area, windowParams));
             }
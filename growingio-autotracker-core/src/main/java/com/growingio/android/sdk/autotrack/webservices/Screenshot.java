@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.webservices;
+
+import android.util.Base64;
+
+public class Screenshot {
+    private final byte[] mData;
+    private final String mMimeType;
+    private String mDataUrl;
+
+    public Screenshot(byte[] data, String mimeType) {
+        mData = data;
+        mMimeType = mimeType;
+    }
+
+    /**
+     * 压缩后的原始图片数据，二进制帧直接发送，不需要Base64
+     */
+    public byte[] getData() {
+        return mData;
+    }
+
+    public String getMimeType() {
+        return mMimeType;
+    }
+
+    public synchronized String toDataUrl() {
+        if (mDataUrl == null) {
+            mDataUrl = "data:" + mMimeType + ";base64," + Base64.encodeToString(mData, Base64.DEFAULT);
+        }
+        return mDataUrl;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.webservices;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * UI线程绘制的同时ScreenshotProvider线程可能还在压缩上一帧，所以最多缓存两个bitmap
+ */
+class ScreenshotBitmapPool {
+    private static final int MAX_POOL_SIZE = 2;
+
+    private final LinkedList<Bitmap> mBitmaps = new LinkedList<>();
+
+    synchronized Bitmap acquire(int width, int height) {
+        Iterator<Bitmap> iterator = mBitmaps.iterator();
+        while (iterator.hasNext()) {
+            Bitmap bitmap = iterator.next();
+            iterator.remove();
+            if (!bitmap.isRecycled() && bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                bitmap.eraseColor(Color.TRANSPARENT);
+                return bitmap;
+            }
+            bitmap.recycle();
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    synchronized void release(Bitmap bitmap) {
+        if (bitmap.isRecycled()) {
+            return;
+        }
+        if (mBitmaps.size() < MAX_POOL_SIZE) {
+            mBitmaps.add(bitmap);
+        } else {
+            bitmap.recycle();
+        }
+    }
+
+    synchronized void clear() {
+        for (Bitmap bitmap : mBitmaps) {
+            bitmap.recycle();
+        }
+        mBitmaps.clear();
+    }
+}
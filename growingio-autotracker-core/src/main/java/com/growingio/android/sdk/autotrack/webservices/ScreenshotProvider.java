@@ -16,8 +16,10 @@
 
 package com.growingio.android.sdk.autotrack.webservices;
 
+import android.graphics.Bitmap;
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.os.SystemClock;
 import android.util.DisplayMetrics;
 import android.view.View;
 
@@ -34,16 +36,35 @@ import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.utils.DeviceUtil;
 import com.growingio.android.sdk.track.webservices.widget.TipView;
 
-import java.io.IOException;
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 
-public class ScreenshotProvider extends ListenerContainer<ScreenshotProvider.OnScreenshotRefreshedListener, String> {
+public class ScreenshotProvider extends ListenerContainer<ScreenshotProvider.OnScreenshotRefreshedListener, Screenshot> {
     private static final String TAG = "ScreenshotProvider";
 
     private static final float SCREENSHOT_STANDARD_WIDTH = 720F;
     private static final long MIN_REFRESH_INTERVAL = 200L;
 
     private final float mScale;
+    private final ScreenshotBitmapPool mBitmapPool = new ScreenshotBitmapPool();
+    private final ByteArrayOutputStream mOutputStream;
+    private final int[] mRowPixels;
+    private volatile ScreenshotQuality mScreenshotQuality = ScreenshotQuality.JPEG_MAX;
+    private volatile boolean mForceRefresh = true;
+    private int mLastFrameHash;
+    /**
+     * 上一次发送的帧, 只在 mHandler 线程访问, hash 相同时逐像素确认后才跳过
+     */
+    private Bitmap mLastFrame;
+    private final Runnable mClearLastFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mLastFrame != null) {
+                mLastFrame.recycle();
+                mLastFrame = null;
+            }
+        }
+    };
     private final Handler mHandler;
     private final HandlerThread mHandlerThread;
     private final Runnable mRefreshScreenshotRunnable = new Runnable() {
@@ -60,6 +81,10 @@ public class ScreenshotProvider extends ListenerContainer<ScreenshotProvider.OnS
     private ScreenshotProvider() {
         DisplayMetrics metrics = DeviceUtil.getDisplayMetrics(ContextProvider.getApplicationContext());
         mScale = SCREENSHOT_STANDARD_WIDTH / Math.min(metrics.widthPixels, metrics.heightPixels);
+        int screenshotWidth = ScreenshotUtil.getScaledWidth(mScale);
+        int screenshotHeight = ScreenshotUtil.getScaledHeight(mScale);
+        mRowPixels = new int[Math.max(screenshotWidth, screenshotHeight)];
+        mOutputStream = new ByteArrayOutputStream(screenshotWidth * screenshotHeight / 4);
 
         mHandlerThread = new HandlerThread("ScreenshotProvider");
         mHandlerThread.start();
@@ -108,16 +133,35 @@ public class ScreenshotProvider extends ListenerContainer<ScreenshotProvider.OnS
         topView.post(new Runnable() {
             @Override
             public void run() {
-                try {
-                    String screenshotBase64 = ScreenshotUtil.getScreenshotBase64(mScale);
-                    dispatchActions(screenshotBase64);
-                } catch (IOException e) {
-                    Logger.e(TAG, e);
-                }
+                long startTime = SystemClock.uptimeMillis();
+                // 转屏后宽高互换，bitmap尺寸以当前屏幕方向为准
+                Bitmap bitmap = mBitmapPool.acquire(ScreenshotUtil.getScaledWidth(mScale), ScreenshotUtil.getScaledHeight(mScale));
+                ScreenshotUtil.drawScreenshot(bitmap, mScale);
+                mHandler.post(new EncodeScreenshotRunnable(bitmap, SystemClock.uptimeMillis() - startTime));
             }
         });
     }
 
+    private void encodeScreenshot(Bitmap bitmap, long drawTime) {
+        int frameHash = ScreenshotUtil.getPixelsHash(bitmap, mRowPixels);
+        // hash 可能冲突, 相同时再逐像素比较
+        if (!mForceRefresh && frameHash == mLastFrameHash && mLastFrame != null && bitmap.sameAs(mLastFrame)) {
+            Logger.d(TAG, "Screenshot is unchanged, skip this frame");
+            mBitmapPool.release(bitmap);
+            return;
+        }
+        mForceRefresh = false;
+        mLastFrameHash = frameHash;
+        if (mLastFrame != null) {
+            mBitmapPool.release(mLastFrame);
+        }
+        mLastFrame = bitmap;
+
+        Screenshot screenshot = ScreenshotUtil.encodeScreenshot(bitmap, mScreenshotQuality, mOutputStream);
+        Logger.d(TAG, "Screenshot drawn in %dms on UI thread, encoded to %d bytes", drawTime, screenshot.getData().length);
+        dispatchActions(screenshot);
+    }
+
     private void refreshScreenshot() {
         mHandler.removeCallbacks(mRefreshScreenshotRunnable);
         mHandler.postDelayed(mRefreshScreenshotRunnable, MIN_REFRESH_INTERVAL);
@@ -128,20 +172,53 @@ public class ScreenshotProvider extends ListenerContainer<ScreenshotProvider.OnS
     }
 
     @Override
-    protected void singleAction(OnScreenshotRefreshedListener listener, String action) {
+    protected void singleAction(OnScreenshotRefreshedListener listener, Screenshot action) {
         listener.onScreenshotRefreshed(action, mScale);
     }
 
     public void registerScreenshotRefreshedListener(OnScreenshotRefreshedListener listener) {
         register(listener);
+        // 新的监听者需要收到完整的一帧，即使画面没有变化
+        mForceRefresh = true;
         refreshScreenshot();
     }
 
     public void unregisterScreenshotRefreshedListener(OnScreenshotRefreshedListener listener) {
         unregister(listener);
+        // 还有其他监听者时继续复用缓存的 bitmap
+        if (getListenerCount() == 0) {
+            mBitmapPool.clear();
+            mHandler.post(mClearLastFrameRunnable);
+        }
+    }
+
+    public void setScreenshotQuality(ScreenshotQuality quality) {
+        if (quality != null && quality != mScreenshotQuality) {
+            mScreenshotQuality = quality;
+            mForceRefresh = true;
+        }
+    }
+
+    public ScreenshotQuality getScreenshotQuality() {
+        return mScreenshotQuality;
+    }
+
+    private final class EncodeScreenshotRunnable implements Runnable {
+        private final Bitmap mBitmap;
+        private final long mDrawTime;
+
+        EncodeScreenshotRunnable(Bitmap bitmap, long drawTime) {
+            mBitmap = bitmap;
+            mDrawTime = drawTime;
+        }
+
+        @Override
+        public void run() {
+            encodeScreenshot(mBitmap, mDrawTime);
+        }
     }
 
     public interface OnScreenshotRefreshedListener {
-        void onScreenshotRefreshed(String screenshotBase64, float scale);
+        void onScreenshotRefreshed(Screenshot screenshot, float scale);
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.webservices;
+
+import android.graphics.Bitmap;
+
+public enum ScreenshotQuality {
+    JPEG_LOW(Bitmap.CompressFormat.JPEG, 40),
+    JPEG_MEDIUM(Bitmap.CompressFormat.JPEG, 65),
+    JPEG_HIGH(Bitmap.CompressFormat.JPEG, 90),
+    /**
+     * 默认值, 和之前的截图质量一致
+     */
+    JPEG_MAX(Bitmap.CompressFormat.JPEG, 100),
+    WEBP_LOW(Bitmap.CompressFormat.WEBP, 40),
+    WEBP_MEDIUM(Bitmap.CompressFormat.WEBP, 65),
+    WEBP_HIGH(Bitmap.CompressFormat.WEBP, 90);
+
+    private final Bitmap.CompressFormat mFormat;
+    private final int mQuality;
+
+    ScreenshotQuality(Bitmap.CompressFormat format, int quality) {
+        mFormat = format;
+        mQuality = quality;
+    }
+
+    public Bitmap.CompressFormat getFormat() {
+        return mFormat;
+    }
+
+    public int getQuality() {
+        return mQuality;
+    }
+
+    public String getMimeType() {
+        return mFormat == Bitmap.CompressFormat.WEBP ? "image/webp" : "image/jpeg";
+    }
+}
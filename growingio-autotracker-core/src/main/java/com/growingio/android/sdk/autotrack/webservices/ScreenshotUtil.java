@@ -18,8 +18,6 @@ package com.growingio.android.sdk.autotrack.webservices;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Matrix;
-import android.util.Base64;
 import android.util.DisplayMetrics;
 import android.view.WindowManager;
 
@@ -30,37 +28,36 @@ import com.growingio.android.sdk.track.utils.DeviceUtil;
 import com.growingio.android.sdk.track.webservices.widget.TipView;
 
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.List;
 
 public class ScreenshotUtil {
     private ScreenshotUtil() {
     }
 
-    public static String getScreenshotBase64(float scale) throws IOException {
-        Bitmap screenshotBitmap = getScreenshotBitmap(scale);
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        screenshotBitmap.compress(Bitmap.CompressFormat.JPEG, 100, stream);
-        stream.flush();
-        stream.close();
-        screenshotBitmap.recycle();
-        byte[] bitmapBytes = stream.toByteArray();
-        return "data:image/jpeg;base64," + Base64.encodeToString(bitmapBytes, Base64.DEFAULT);
+    public static int getScaledWidth(float scale) {
+        DisplayMetrics metrics = DeviceUtil.getDisplayMetrics(ContextProvider.getApplicationContext());
+        return Math.max(1, Math.round(metrics.widthPixels * scale));
+    }
+
+    public static int getScaledHeight(float scale) {
+        DisplayMetrics metrics = DeviceUtil.getDisplayMetrics(ContextProvider.getApplicationContext());
+        return Math.max(1, Math.round(metrics.heightPixels * scale));
     }
 
     public static Bitmap getScreenshotBitmap(float scale) {
-        Bitmap originBitmap = getScreenshotBitmap();
-        Matrix matrix = new Matrix();
-        matrix.postScale(scale, scale);
-        Bitmap newBitmap = Bitmap.createBitmap(originBitmap, 0, 0, originBitmap.getWidth(), originBitmap.getHeight(), matrix, false);
-        if (newBitmap.equals(originBitmap)) {
-            return originBitmap;
-        }
-        originBitmap.recycle();
-        return newBitmap;
+        Bitmap bitmap = Bitmap.createBitmap(getScaledWidth(scale), getScaledHeight(scale), Bitmap.Config.ARGB_8888);
+        drawScreenshot(bitmap, scale);
+        return bitmap;
     }
 
     public static Bitmap getScreenshotBitmap() {
+        return getScreenshotBitmap(1F);
+    }
+
+    /**
+     * 需要在UI线程调用，直接通过Canvas的矩阵缩放绘制到bitmap中，bitmap可以是复用的
+     */
+    public static void drawScreenshot(Bitmap bitmap, float scale) {
         List<DecorView> decorViews = WindowHelper.get().getTopActivityViews();
         for (int i = decorViews.size() - 1; i >= 0; i--) {
             if (decorViews.get(i).getView() instanceof TipView) {
@@ -69,28 +66,44 @@ public class ScreenshotUtil {
             }
         }
 
-        DisplayMetrics metrics = DeviceUtil.getDisplayMetrics(ContextProvider.getApplicationContext());
-        Bitmap bitmap = Bitmap.createBitmap(metrics.widthPixels, metrics.heightPixels, Bitmap.Config.ARGB_8888);
-        drawDecorViewsToBitmap(decorViews, bitmap);
-        return bitmap;
-    }
-
-    private static void drawDecorViewsToBitmap(List<DecorView> decorViews, Bitmap bitmap) {
-        if (null != decorViews) {
-            for (DecorView decorView : decorViews) {
-                drawDecorViewToBitmap(decorView, bitmap);
-            }
+        Canvas canvas = new Canvas(bitmap);
+        canvas.scale(scale, scale);
+        for (DecorView decorView : decorViews) {
+            drawDecorView(decorView, canvas);
         }
+        canvas.setBitmap(null);
     }
 
-    private static void drawDecorViewToBitmap(final DecorView decorView, Bitmap bitmap) {
+    private static void drawDecorView(DecorView decorView, Canvas canvas) {
         if ((decorView.getLayoutParams().flags & WindowManager.LayoutParams.FLAG_DIM_BEHIND) == WindowManager.LayoutParams.FLAG_DIM_BEHIND) {
-            Canvas dimCanvas = new Canvas(bitmap);
             int alpha = (int) (255 * decorView.getLayoutParams().dimAmount);
-            dimCanvas.drawARGB(alpha, 0, 0, 0);
+            canvas.drawARGB(alpha, 0, 0, 0);
         }
-        final Canvas canvas = new Canvas(bitmap);
+        int saveCount = canvas.save();
         canvas.translate(decorView.getRect().left, decorView.getRect().top);
         decorView.getView().draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * 逐行读取像素计算hash，rowPixels长度至少为bitmap的宽度
+     */
+    public static int getPixelsHash(Bitmap bitmap, int[] rowPixels) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int hash = 1;
+        for (int y = 0; y < height; y++) {
+            bitmap.getPixels(rowPixels, 0, width, 0, y, width, 1);
+            for (int x = 0; x < width; x++) {
+                hash = 31 * hash + rowPixels[x];
+            }
+        }
+        return hash;
+    }
+
+    public static Screenshot encodeScreenshot(Bitmap bitmap, ScreenshotQuality quality, ByteArrayOutputStream stream) {
+        stream.reset();
+        bitmap.compress(quality.getFormat(), quality.getQuality(), stream);
+        return new Screenshot(stream.toByteArray(), quality.getMimeType());
     }
 }
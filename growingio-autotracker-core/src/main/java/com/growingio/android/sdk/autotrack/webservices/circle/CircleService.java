@@ -22,6 +22,7 @@ import android.content.DialogInterface;
 import android.view.View;
 
 import com.growingio.android.sdk.autotrack.R;
+import com.growingio.android.sdk.autotrack.webservices.Screenshot;
 import com.growingio.android.sdk.autotrack.webservices.ScreenshotProvider;
 import com.growingio.android.sdk.autotrack.webservices.circle.entity.CircleScreenshot;
 import com.growingio.android.sdk.track.SDKConfig;
@@ -164,20 +165,24 @@ public class CircleService extends BaseWebSocketService implements ScreenshotPro
     }
 
     @Override
-    public void onScreenshotRefreshed(String screenshotBase64, float scale) {
+    public void onScreenshotRefreshed(Screenshot screenshot, float scale) {
         if (mCircleScreenshotDisposable != null) {
             mCircleScreenshotDisposable.dispose();
         }
 
         mCircleScreenshotDisposable = new CircleScreenshot.Builder()
                 .setScale(scale)
-                .setScreenshot(screenshotBase64)
+                .setScreenshot(screenshot)
                 .setSnapshotKey(mSnapshotKey++)
                 .build(new Callback<CircleScreenshot>() {
                     @Override
                     public void onSuccess(CircleScreenshot result) {
                         Logger.d(TAG, "Create circle screenshot successfully");
-                        sendMessage(result.toJSONObject().toString());
+                        if (isBinaryFrameEnabled()) {
+                            sendBinaryMessage(result.toJSONObject(false).toString(), result.getScreenshot().getData());
+                        } else {
+                            sendMessage(result.toJSONObject().toString());
+                        }
                     }
 
                     @Override
@@ -16,6 +16,7 @@
 
 package com.growingio.android.sdk.autotrack.webservices.circle.entity;
 
+import android.os.SystemClock;
 import android.util.DisplayMetrics;
 import android.view.View;
 import android.view.ViewGroup;
@@ -30,6 +31,7 @@ import com.growingio.android.sdk.autotrack.view.ViewAttributeUtil;
 import com.growingio.android.sdk.autotrack.view.ViewHelper;
 import com.growingio.android.sdk.autotrack.view.ViewNode;
 import com.growingio.android.sdk.autotrack.view.WindowHelper;
+import com.growingio.android.sdk.autotrack.webservices.Screenshot;
 import com.growingio.android.sdk.autotrack.webservices.circle.ViewUtil;
 import com.growingio.android.sdk.track.ContextProvider;
 import com.growingio.android.sdk.track.async.Callback;
@@ -54,7 +56,7 @@ public class CircleScreenshot {
     private final int mScreenWidth;
     private final int mScreenHeight;
     private final float mScale;
-    private final String mScreenshot;
+    private final Screenshot mScreenshot;
     private final String mMsgType;
     private final long mSnapshotKey;
     private final List<ViewElement> mElements;
@@ -71,13 +73,30 @@ public class CircleScreenshot {
         mPages = Collections.unmodifiableList(builder.mPages);
     }
 
+    public Screenshot getScreenshot() {
+        return mScreenshot;
+    }
+
     public JSONObject toJSONObject() {
+        return toJSONObject(true);
+    }
+
+    /**
+     * @param embedScreenshot false时不带Base64截图，只带截图类型，截图数据由二进制帧的payload携带
+     */
+    public JSONObject toJSONObject(boolean embedScreenshot) {
         JSONObject json = new JSONObject();
         try {
             json.put("screenWidth", mScreenWidth);
             json.put("screenHeight", mScreenHeight);
             json.put("scale", mScale);
-            json.put("screenshot", mScreenshot);
+            if (mScreenshot != null) {
+                if (embedScreenshot) {
+                    json.put("screenshot", mScreenshot.toDataUrl());
+                } else {
+                    json.put("screenshotType", mScreenshot.getMimeType());
+                }
+            }
             json.put("msgType", mMsgType);
             json.put("snapshotKey", mSnapshotKey);
 
@@ -101,10 +120,11 @@ public class CircleScreenshot {
         private int mScreenWidth;
         private int mScreenHeight;
         private float mScale;
-        private String mScreenshot;
+        private Screenshot mScreenshot;
         private long mSnapshotKey;
         private final List<ViewElement> mViewElements = new ArrayList<>();
         private final List<PageElement> mPages = new ArrayList<>();
+        private final List<WebViewRequest> mWebViewRequests = new ArrayList<>();
         private final AtomicInteger mWebViewCount = new AtomicInteger(0);
         private int mViewCount = 0;
         private Callback<CircleScreenshot> mScreenshotResultCallback;
@@ -115,7 +135,7 @@ public class CircleScreenshot {
             return this;
         }
 
-        public Builder setScreenshot(String screenshot) {
+        public Builder setScreenshot(Screenshot screenshot) {
             mScreenshot = screenshot;
             return this;
         }
@@ -144,8 +164,10 @@ public class CircleScreenshot {
                 checkView2PageElement(decorView.getView());
                 checkView2ViewElement(decorView.getView());
             }
-            if (mWebViewCount.get() == 0) {
+            if (mWebViewRequests.isEmpty()) {
                 callResultOnSuccess();
+            } else {
+                requestWebViewDomTrees();
             }
             return mBuildDisposable;
         }
@@ -186,23 +208,41 @@ public class CircleScreenshot {
                     .setZLevel(mViewCount++);
         }
 
-        private void getWebViewDomTree(final SuperWebView<?> webView, final ViewNode viewNode) {
-            mWebViewCount.incrementAndGet();
-            HybridBridgeProvider.get().getWebViewDomTree(webView, new Callback<JSONObject>() {
-                @Override
-                public void onSuccess(JSONObject result) {
-                    ViewElement.Builder elementBuilder = createViewElementBuilder(viewNode);
-                    mViewElements.add(elementBuilder.setWebView(result).build());
-                    if (mWebViewCount.decrementAndGet() == 0) {
-                        callResultOnSuccess();
-                    }
-                }
+        private void getWebViewDomTree(SuperWebView<?> webView, ViewNode viewNode) {
+            mWebViewRequests.add(new WebViewRequest(webView, viewNode));
+        }
 
-                @Override
-                public void onFailed() {
-                    callResultOnFailed();
+        /**
+         * 遍历完所有 View 后再同时请求所有 WebView 的 DOM 树, 共用同一个超时时间, 缓存命中时会同步回调
+         */
+        private void requestWebViewDomTrees() {
+            mWebViewCount.set(mWebViewRequests.size());
+            long deadline = SystemClock.uptimeMillis() + HybridBridgeProvider.EVALUATE_JAVASCRIPT_TIMEOUT;
+            final List<Disposable> disposables = new ArrayList<>(mWebViewRequests.size());
+            for (final WebViewRequest request : mWebViewRequests) {
+                if (mBuildDisposable.isDisposed()) {
+                    break;
                 }
-            });
+                disposables.add(HybridBridgeProvider.get().getWebViewDomTree(request.mWebView, deadline, new Callback<JSONObject>() {
+                    @Override
+                    public void onSuccess(JSONObject result) {
+                        ViewElement.Builder elementBuilder = createViewElementBuilder(request.mViewNode);
+                        mViewElements.add(elementBuilder.setWebView(result).build());
+                        if (mWebViewCount.decrementAndGet() == 0) {
+                            callResultOnSuccess();
+                        }
+                    }
+
+                    @Override
+                    public void onFailed() {
+                        callResultOnFailed();
+                        // 已经失败, 不再等待其他 WebView
+                        for (Disposable disposable : disposables) {
+                            disposable.dispose();
+                        }
+                    }
+                }));
+            }
         }
 
         private void checkView2ViewElement(View view) {
@@ -274,5 +314,15 @@ public class CircleScreenshot {
                 }
             }
         }
+
+        private static final class WebViewRequest {
+            private final SuperWebView<?> mWebView;
+            private final ViewNode mViewNode;
+
+            WebViewRequest(SuperWebView<?> webView, ViewNode viewNode) {
+                mWebView = webView;
+                mViewNode = viewNode;
+            }
+        }
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.hybrid;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
+import com.growingio.android.sdk.track.log.Logger;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 录制的 Hybrid 事件逐个经过 dispatchEvent 和合并后经过 dispatchEvents 的对比。
+ * 两条路径每次 bridge 调用都打印一次日志, 吞吐对比默认不运行
+ */
+@RunWith(PowerMockRunner.class)
+public class HybridDispatchThroughputTest {
+    private static final String TAG = "HybridDispatchThroughputTest";
+    private static final int BATCH_SIZE = WebViewJavascriptBridgeConfiguration.BATCH_DISPATCH_MAX_SIZE;
+    private static final int WARM_UP_ROUNDS = 3;
+
+    @Test
+    public void batchDeliversSameEventsAsSingle() throws IOException {
+        int eventCount = BATCH_SIZE * 10 + 7;
+        List<String> payloads = payloads(eventCount);
+        List<String> batches = batches(payloads);
+        HybridTransformer transformer = new HybridTransformerImp();
+
+        List<BaseEvent.BaseBuilder<?>> single = new ArrayList<>();
+        int singleCalls = dispatchSingle(transformer, payloads, single);
+        List<BaseEvent.BaseBuilder<?>> batch = new ArrayList<>();
+        int batchCalls = dispatchBatches(transformer, batches, batch);
+
+        Truth.assertThat(singleCalls).isEqualTo(eventCount);
+        Truth.assertThat(batchCalls).isEqualTo((eventCount + BATCH_SIZE - 1) / BATCH_SIZE);
+        Truth.assertThat(batch).hasSize(eventCount);
+        Truth.assertThat(single).hasSize(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            Truth.assertThat(batch.get(i).getClass()).isEqualTo(single.get(i).getClass());
+            Truth.assertThat(batch.get(i).getEventType()).isEqualTo(single.get(i).getEventType());
+        }
+    }
+
+    @Ignore("吞吐基准, 需要时手动运行")
+    @Test
+    public void singleVersusBatchThroughput() throws IOException {
+        int eventCount = 20000;
+        List<String> payloads = payloads(eventCount);
+        // JS 端合并的开销不在 native 侧, 提前拼好
+        List<String> batches = batches(payloads);
+        HybridTransformer transformer = new HybridTransformerImp();
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            dispatchSingle(transformer, payloads, null);
+            dispatchBatches(transformer, batches, null);
+        }
+        long start = System.nanoTime();
+        int singleCalls = dispatchSingle(transformer, payloads, null);
+        long singleNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        int batchCalls = dispatchBatches(transformer, batches, null);
+        long batchNanos = System.nanoTime() - start;
+
+        System.out.println(String.format("single: %.0f events/s, %d bridge calls", eventCount / (singleNanos / 1e9), singleCalls));
+        System.out.println(String.format("batch:  %.0f events/s, %d bridge calls", eventCount / (batchNanos / 1e9), batchCalls));
+    }
+
+    private static List<String> payloads(int eventCount) throws IOException {
+        List<String> recorded = HybridPayloads.read();
+        List<String> payloads = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            payloads.add(recorded.get(i % recorded.size()));
+        }
+        return payloads;
+    }
+
+    private static List<String> batches(List<String> payloads) {
+        List<String> batches = new ArrayList<>();
+        for (int i = 0; i < payloads.size(); i += BATCH_SIZE) {
+            batches.add(HybridPayloads.toArray(payloads, i, Math.min(i + BATCH_SIZE, payloads.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * @return bridge 调用次数
+     */
+    private static int dispatchSingle(HybridTransformer transformer, List<String> payloads, List<BaseEvent.BaseBuilder<?>> delivered) {
+        int calls = 0;
+        for (String payload : payloads) {
+            calls++;
+            Logger.printJson(TAG, "dispatchEvent: ", payload);
+            BaseEvent.BaseBuilder<?> builder = transformer.transform(payload);
+            if (delivered != null && builder != null) {
+                delivered.add(builder);
+            }
+        }
+        return calls;
+    }
+
+    private static int dispatchBatches(HybridTransformer transformer, List<String> batches, List<BaseEvent.BaseBuilder<?>> delivered) {
+        int calls = 0;
+        for (String batch : batches) {
+            calls++;
+            Logger.printJson(TAG, "dispatchEvents: ", batch);
+            List<BaseEvent.BaseBuilder<?>> builders = transformer.transformEvents(batch);
+            if (delivered != null) {
+                delivered.addAll(builders);
+            }
+        }
+        return calls;
+    }
+}
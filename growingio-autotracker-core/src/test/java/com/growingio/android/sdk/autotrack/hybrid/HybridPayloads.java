@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.hybrid;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从 demo 的 Hybrid 页面录制的 dispatchEvent 参数, 每行一个事件
+ */
+final class HybridPayloads {
+    private static final String RECORDED_EVENTS = "hybrid/recorded_events.jsonl";
+
+    private HybridPayloads() {
+    }
+
+    static List<String> read() throws IOException {
+        List<String> payloads = new ArrayList<>();
+        try (InputStream inputStream = HybridPayloads.class.getClassLoader().getResourceAsStream(RECORDED_EVENTS);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    payloads.add(line);
+                }
+            }
+        }
+        return payloads;
+    }
+
+    /**
+     * 与 JS 端合并后传给 dispatchEvents 的格式相同
+     */
+    static String toArray(List<String> payloads, int from, int to) {
+        StringBuilder builder = new StringBuilder(payloads.get(from).length() * (to - from) + 2);
+        builder.append('[');
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                builder.append(',');
+            }
+            builder.append(payloads.get(i));
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.hybrid;
+
+import com.google.common.truth.Truth;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * 对比 HybridTransformerImp 和基于 JSONObject 的旧实现解析录制事件的吞吐和每个事件分配的内存
+ */
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"java.lang.management.*", "javax.management.*", "com.sun.management.*"})
+public class HybridTransformerBenchmarkTest {
+    private static final int ROUNDS = 2000;
+    private static final int WARM_UP_ROUNDS = 500;
+
+    @Test
+    public void streamingVersusJsonObject() throws IOException {
+        List<String> payloads = HybridPayloads.read();
+        HybridTransformer legacy = new LegacyHybridTransformer();
+        HybridTransformer streaming = new HybridTransformerImp();
+
+        run(legacy, payloads, WARM_UP_ROUNDS);
+        run(streaming, payloads, WARM_UP_ROUNDS);
+        Result legacyResult = measure(legacy, payloads);
+        Result streamingResult = measure(streaming, payloads);
+
+        Truth.assertThat(streamingResult.mCount).isEqualTo(legacyResult.mCount);
+        System.out.println("JSONObject: " + legacyResult);
+        System.out.println("streaming:  " + streamingResult);
+    }
+
+    private static Result measure(HybridTransformer transformer, List<String> payloads) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        int count = run(transformer, payloads, ROUNDS);
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        return new Result(count, nanos, allocated);
+    }
+
+    private static int run(HybridTransformer transformer, List<String> payloads, int rounds) {
+        int count = 0;
+        for (int i = 0; i < rounds; i++) {
+            for (String payload : payloads) {
+                if (transformer.transform(payload) != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return 当前线程累计分配的字节数, JVM 不支持时返回 -1
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static final class Result {
+        final int mCount;
+        final long mNanos;
+        final long mAllocated;
+
+        Result(int count, long nanos, long allocated) {
+            mCount = count;
+            mNanos = nanos;
+            mAllocated = allocated;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f events/s, %d bytes/event", mCount / (mNanos / 1e9), mAllocated / mCount);
+        }
+    }
+}
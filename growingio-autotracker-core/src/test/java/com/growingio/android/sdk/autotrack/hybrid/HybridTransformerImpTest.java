@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.hybrid;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.autotrack.hybrid.event.HybridCustomEvent;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.List;
+
+@RunWith(PowerMockRunner.class)
+public class HybridTransformerImpTest {
+
+    private static JSONObject toJson(BaseEvent.BaseBuilder<?> builder) {
+        JSONObject json = builder.build().toJSONObject();
+        // 非 page 事件的 timestamp 是创建 builder 的时间
+        json.remove("timestamp");
+        return json;
+    }
+
+    private static void assertSameBuilder(BaseEvent.BaseBuilder<?> actual, BaseEvent.BaseBuilder<?> expected) {
+        if (expected == null) {
+            Truth.assertThat(actual).isNull();
+            return;
+        }
+        Truth.assertThat(actual).isNotNull();
+        Truth.assertThat(actual.getClass()).isEqualTo(expected.getClass());
+        JSONObject expectedJson = toJson(expected);
+        JSONObject actualJson = toJson(actual);
+        Truth.assertWithMessage(actualJson + " != " + expectedJson).that(actualJson.similar(expectedJson)).isTrue();
+    }
+
+    @Test
+    public void transform_sameAsLegacy() throws IOException {
+        HybridTransformerImp transformer = new HybridTransformerImp();
+        LegacyHybridTransformer legacy = new LegacyHybridTransformer();
+        for (String payload : HybridPayloads.read()) {
+            assertSameBuilder(transformer.transform(payload), legacy.transform(payload));
+        }
+    }
+
+    @Test
+    public void transform_edgeCasesSameAsLegacy() {
+        HybridTransformerImp transformer = new HybridTransformerImp();
+        LegacyHybridTransformer legacy = new LegacyHybridTransformer();
+        String[] payloads = {
+                // eventType 在最后, 多余的空白和未知字段
+                " { \"path\" : \"/p\", \"unknown\": {\"a\": [1, {\"b\": null}]}, \"domain\": \"a.com\",\n"
+                        + "\"pageShowTimestamp\": 1602485626878, \"eventName\": \"buy\", \"eventType\": \"CUSTOM\" } ",
+                // 数字类型的属性值, 转义字符和嵌套的属性值
+                "{\"eventType\":\"CUSTOM\",\"path\":\"/p\",\"pageShowTimestamp\":1,\"eventName\":\"e\\u4e2d\\\"\\/\","
+                        + "\"attributes\":{\"int\":12,\"long\":12345678901,\"double\":1.50,\"exp\":1e3,\"bool\":true,"
+                        + "\"null\":null,\"nested\":{\"k\":[1,2]},\"\\u0041\":\"\\ud83d\\ude00\"}}",
+                // 数字写成字符串, 小数时间戳
+                "{\"eventType\":\"VIEW_CLICK\",\"path\":\"/p\",\"xpath\":\"/div\",\"index\":\"3\","
+                        + "\"pageShowTimestamp\":\"1602485626878\",\"textValue\":false}",
+                "{\"eventType\":\"VIEW_CHANGE\",\"path\":\"/p\",\"xpath\":\"/div\",\"index\":2.7,\"pageShowTimestamp\":1.6E12}",
+                "{\"eventType\":\"FORM_SUBMIT\",\"path\":\"/p\",\"xpath\":\"/div\",\"index\":\"x\",\"pageShowTimestamp\":1}",
+                // 缺少必须的字段或类型错误
+                "{\"eventType\":\"PAGE\",\"path\":\"/p\",\"protocolType\":\"https\"}",
+                "{\"eventType\":\"PAGE_ATTRIBUTES\",\"path\":\"/p\",\"pageShowTimestamp\":1,\"attributes\":\"a\"}",
+                "{\"eventType\":\"CUSTOM\",\"path\":\"/p\",\"pageShowTimestamp\":1,\"eventName\":\"e\",\"attributes\":[1]}",
+                "{\"eventType\":\"VISITOR_ATTRIBUTES\"}",
+                "{\"eventType\":\"LOGIN_USER_ATTRIBUTES\",\"attributes\":{}}",
+                "{\"eventType\":\"VIEW_CLICK\",\"path\":\"/p\",\"xpath\":\"/div\",\"pageShowTimestamp\":\"abc\"}",
+                "{\"eventType\":\"UNKNOWN\",\"path\":\"/p\"}",
+                "{\"path\":\"/p\"}",
+                // 语法错误
+                "{\"eventType\":\"CUSTOM\",\"path\":\"/p",
+                "{\"eventType\":\"CUSTOM\",\"path\":abc}",
+                "[]",
+                "",
+        };
+        for (String payload : payloads) {
+            assertSameBuilder(transformer.transform(payload), legacy.transform(payload));
+        }
+    }
+
+    @Test
+    public void transformEvents_stopsAtSyntaxError() {
+        HybridTransformerImp transformer = new HybridTransformerImp();
+        String custom = "{\"eventType\":\"CUSTOM\",\"domain\":\"a.com\",\"path\":\"/p\",\"pageShowTimestamp\":1,\"eventName\":\"buy\"}";
+        List<BaseEvent.BaseBuilder<?>> builders = transformer.transformEvents("[" + custom + ", {\"eventType\": }, " + custom + "]");
+        Truth.assertThat(builders).hasSize(1);
+    }
+
+    @Test
+    public void transformEvents_sameAsSingleEvents() throws IOException {
+        List<String> payloads = HybridPayloads.read();
+        HybridTransformerImp transformer = new HybridTransformerImp();
+
+        List<BaseEvent.BaseBuilder<?>> builders = transformer.transformEvents(HybridPayloads.toArray(payloads, 0, payloads.size()));
+        Truth.assertThat(builders).hasSize(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            BaseEvent.BaseBuilder<?> expected = transformer.transform(payloads.get(i));
+            Truth.assertThat(expected).isNotNull();
+            assertSameBuilder(builders.get(i), expected);
+        }
+    }
+
+    @Test
+    public void transformEvents_skipsInvalidEvents() {
+        HybridTransformerImp transformer = new HybridTransformerImp();
+        String custom = "{\"eventType\":\"CUSTOM\",\"domain\":\"a.com\",\"path\":\"/p\",\"pageShowTimestamp\":1,\"eventName\":\"buy\"}";
+        // 缺少 path 的事件, 非对象元素和未知类型都不影响同一批中的其他事件
+        String events = "[{\"eventType\":\"CUSTOM\",\"eventName\":\"buy\"}, 1, {\"eventType\":\"UNKNOWN\"}, " + custom + "]";
+
+        List<BaseEvent.BaseBuilder<?>> builders = transformer.transformEvents(events);
+        Truth.assertThat(builders).hasSize(1);
+        Truth.assertThat(builders.get(0)).isInstanceOf(HybridCustomEvent.Builder.class);
+
+        Truth.assertThat(transformer.transformEvents("{\"eventType\":\"CUSTOM\"}")).isEmpty();
+        Truth.assertThat(transformer.transformEvents("[]")).isEmpty();
+    }
+}
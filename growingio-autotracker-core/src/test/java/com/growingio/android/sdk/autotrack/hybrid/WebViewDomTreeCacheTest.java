@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.autotrack.hybrid;
+
+import android.os.Handler;
+import android.view.View;
+import android.webkit.ValueCallback;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.async.Callback;
+import com.growingio.android.sdk.track.async.Disposable;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(PowerMockRunner.class)
+public class WebViewDomTreeCacheTest {
+    private static final String DOM_TREE = "{\"domtree\":\"mock\"}";
+
+    @Test
+    public void concurrentRequestsShareOneEvaluation() {
+        WebViewDomTreeCache cache = new WebViewDomTreeCache();
+        FakeWebView webView = new FakeWebView();
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+
+        cache.get(webView, 0, first);
+        cache.get(webView, 0, second);
+        Truth.assertThat(webView.mScripts).hasSize(1);
+        Truth.assertThat(webView.mScripts.get(0)).endsWith("getDomTree(10, 20, 300, 400, 100)");
+
+        webView.respond(0, DOM_TREE);
+        Truth.assertThat(first.mResults).hasSize(1);
+        Truth.assertThat(second.mResults).hasSize(1);
+        Truth.assertThat(first.mResults.get(0).optString("domtree")).isEqualTo("mock");
+    }
+
+    @Test
+    public void staticPageUsesCache() {
+        WebViewDomTreeCache cache = new WebViewDomTreeCache();
+        FakeWebView webView = new FakeWebView();
+        cache.get(webView, 0, new RecordingCallback());
+        webView.respond(0, DOM_TREE);
+
+        RecordingCallback callback = new RecordingCallback();
+        Disposable disposable = cache.get(webView, 0, callback);
+        Truth.assertThat(webView.mScripts).hasSize(1);
+        Truth.assertThat(callback.mResults).hasSize(1);
+        Truth.assertThat(disposable.isDisposed()).isTrue();
+    }
+
+    @Test
+    public void domChangeAndScrollInvalidateCache() {
+        WebViewDomTreeCache cache = new WebViewDomTreeCache();
+        FakeWebView webView = new FakeWebView();
+        cache.get(webView, 0, new RecordingCallback());
+        webView.respond(0, DOM_TREE);
+
+        cache.invalidateAll();
+        cache.get(webView, 0, new RecordingCallback());
+        Truth.assertThat(webView.mScripts).hasSize(2);
+        webView.respond(1, DOM_TREE);
+
+        webView.mScrollY = 100;
+        cache.get(webView, 0, new RecordingCallback());
+        Truth.assertThat(webView.mScripts).hasSize(3);
+        webView.respond(2, DOM_TREE);
+
+        webView.mWidth = 600;
+        cache.get(webView, 0, new RecordingCallback());
+        Truth.assertThat(webView.mScripts).hasSize(4);
+        Truth.assertThat(webView.mScripts.get(3)).endsWith("getDomTree(10, 20, 600, 400, 100)");
+    }
+
+    @Test
+    public void resultOfInvalidatedRequestIsNotCached() {
+        WebViewDomTreeCache cache = new WebViewDomTreeCache();
+        FakeWebView webView = new FakeWebView();
+        RecordingCallback callback = new RecordingCallback();
+        cache.get(webView, 0, callback);
+        cache.invalidateAll();
+        webView.respond(0, DOM_TREE);
+        // 请求时的等待者仍然收到结果
+        Truth.assertThat(callback.mResults).hasSize(1);
+
+        cache.get(webView, 0, new RecordingCallback());
+        Truth.assertThat(webView.mScripts).hasSize(2);
+    }
+
+    @Test
+    public void failedResultIsNotCached() {
+        WebViewDomTreeCache cache = new WebViewDomTreeCache();
+        FakeWebView webView = new FakeWebView();
+        RecordingCallback callback = new RecordingCallback();
+        cache.get(webView, 0, callback);
+        webView.respond(0, "null");
+        Truth.assertThat(callback.mFailedCount).isEqualTo(1);
+
+        cache.get(webView, 0, new RecordingCallback());
+        Truth.assertThat(webView.mScripts).hasSize(2);
+    }
+
+    @Test
+    public void disposedWaiterIsNotCalled() {
+        WebViewDomTreeCache cache = new WebViewDomTreeCache();
+        FakeWebView webView = new FakeWebView();
+        RecordingCallback disposed = new RecordingCallback();
+        RecordingCallback waiting = new RecordingCallback();
+        cache.get(webView, 0, disposed).dispose();
+        cache.get(webView, 0, waiting);
+        webView.respond(0, DOM_TREE);
+
+        Truth.assertThat(disposed.mResults).isEmpty();
+        Truth.assertThat(disposed.mFailedCount).isEqualTo(0);
+        Truth.assertThat(waiting.mResults).hasSize(1);
+    }
+
+    @Test
+    public void timedOutRequestIsReissued() {
+        Handler handler = Mockito.mock(Handler.class);
+        WebViewDomTreeCache cache = new WebViewDomTreeCache(handler);
+        FakeWebView webView = new FakeWebView();
+        RecordingCallback callback = new RecordingCallback();
+        cache.get(webView, 0, callback);
+
+        // evaluateJavascript 一直没有回调
+        ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(handler).postAtTime(timeout.capture(), Mockito.eq(0L));
+        timeout.getValue().run();
+        Truth.assertThat(callback.mFailedCount).isEqualTo(1);
+
+        RecordingCallback retry = new RecordingCallback();
+        cache.get(webView, 0, retry);
+        Truth.assertThat(webView.mScripts).hasSize(2);
+        webView.respond(1, DOM_TREE);
+        Truth.assertThat(retry.mResults).hasSize(1);
+
+        // 被放弃的请求之后返回, 不覆盖更新的结果, 也不回调已超时的等待者
+        webView.respond(0, "{\"domtree\":\"stale\"}");
+        Truth.assertThat(callback.mResults).isEmpty();
+        RecordingCallback cached = new RecordingCallback();
+        cache.get(webView, 0, cached);
+        Truth.assertThat(webView.mScripts).hasSize(2);
+        Truth.assertThat(cached.mResults.get(0).optString("domtree")).isEqualTo("mock");
+    }
+
+    @Test
+    public void requestWithLiveWaiterIsNotAbandoned() {
+        Handler handler = Mockito.mock(Handler.class);
+        WebViewDomTreeCache cache = new WebViewDomTreeCache(handler);
+        FakeWebView webView = new FakeWebView();
+        RecordingCallback early = new RecordingCallback();
+        RecordingCallback late = new RecordingCallback();
+        cache.get(webView, 0, early);
+        cache.get(webView, 100, late);
+
+        ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(handler).postAtTime(timeout.capture(), Mockito.eq(0L));
+        timeout.getValue().run();
+
+        cache.get(webView, 100, new RecordingCallback());
+        Truth.assertThat(webView.mScripts).hasSize(1);
+        webView.respond(0, DOM_TREE);
+        Truth.assertThat(early.mResults).isEmpty();
+        Truth.assertThat(late.mResults).hasSize(1);
+    }
+
+    private static final class FakeWebView extends SuperWebView<View> {
+        private final List<String> mScripts = new ArrayList<>();
+        private final List<ValueCallback<String>> mCallbacks = new ArrayList<>();
+        private int mWidth = 300;
+        private int mScrollY;
+
+        FakeWebView() {
+            super(new View(null));
+        }
+
+        void respond(int index, String value) {
+            mCallbacks.get(index).onReceiveValue(value);
+        }
+
+        @Override
+        public void getLocationOnScreen(int[] outLocation) {
+            outLocation[0] = 10;
+            outLocation[1] = 20;
+        }
+
+        @Override
+        public int getWidth() {
+            return mWidth;
+        }
+
+        @Override
+        public int getHeight() {
+            return 400;
+        }
+
+        @Override
+        public int getScrollX() {
+            return 0;
+        }
+
+        @Override
+        public int getScrollY() {
+            return mScrollY;
+        }
+
+        @Override
+        public void setJavaScriptEnabled(boolean flag) {
+        }
+
+        @Override
+        public void addJavascriptInterface(Object obj, String interfaceName) {
+        }
+
+        @Override
+        public void evaluateJavascript(String script, ValueCallback<String> resultCallback) {
+            mScripts.add(script);
+            mCallbacks.add(resultCallback);
+        }
+    }
+
+    private static final class RecordingCallback implements Callback<JSONObject> {
+        private final List<JSONObject> mResults = new ArrayList<>();
+        private int mFailedCount;
+
+        @Override
+        public void onSuccess(JSONObject result) {
+            mResults.add(result);
+        }
+
+        @Override
+        public void onFailed() {
+            mFailedCount++;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.android.sdk.autotrack.page;
+
+import android.view.View;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.autotrack.events.PageEvent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+@RunWith(PowerMockRunner.class)
+public class PageEventCoalescerTest {
+    private static final long WINDOW = 300;
+
+    @Test
+    public void coalesceRepeatedTransition() {
+        PageEventCoalescer coalescer = new PageEventCoalescer(WINDOW);
+        TestPage page = new TestPage("A");
+
+        coalescer.beginBatch();
+        Truth.assertThat(coalescer.isDuplicate(page, PageEvent.ORIENTATION_PORTRAIT, 1000)).isFalse();
+        coalescer.onEmitted(page, PageEvent.ORIENTATION_PORTRAIT, 1000);
+
+        // setUserVisibleHint和onResume先后触发
+        coalescer.beginBatch();
+        Truth.assertThat(coalescer.isDuplicate(page, PageEvent.ORIENTATION_PORTRAIT, 1010)).isTrue();
+
+        // 超出合并窗口
+        coalescer.beginBatch();
+        Truth.assertThat(coalescer.isDuplicate(page, PageEvent.ORIENTATION_PORTRAIT, 1000 + WINDOW)).isFalse();
+
+        // 屏幕方向变化
+        coalescer.beginBatch();
+        Truth.assertThat(coalescer.isDuplicate(page, PageEvent.ORIENTATION_LANDSCAPE, 1010)).isFalse();
+    }
+
+    @Test
+    public void notCoalesceAfterOtherTransition() {
+        PageEventCoalescer coalescer = new PageEventCoalescer(WINDOW);
+        TestPage pageA = new TestPage("A");
+        TestPage pageB = new TestPage("B");
+
+        coalescer.beginBatch();
+        coalescer.onEmitted(pageA, PageEvent.ORIENTATION_PORTRAIT, 1000);
+        coalescer.beginBatch();
+        coalescer.onEmitted(pageB, PageEvent.ORIENTATION_PORTRAIT, 1050);
+
+        // A -> B -> A 是真实的页面切换
+        coalescer.beginBatch();
+        Truth.assertThat(coalescer.isDuplicate(pageA, PageEvent.ORIENTATION_PORTRAIT, 1100)).isFalse();
+        Truth.assertThat(coalescer.isDuplicate(pageB, PageEvent.ORIENTATION_PORTRAIT, 1100)).isTrue();
+
+        // 页面隐藏后再显示
+        coalescer.onPageLeft();
+        Truth.assertThat(coalescer.isDuplicate(pageB, PageEvent.ORIENTATION_PORTRAIT, 1100)).isFalse();
+    }
+
+    @Test
+    public void coalesceWholeSubtree() {
+        PageEventCoalescer coalescer = new PageEventCoalescer(WINDOW);
+        TestPage parent = new TestPage("Parent");
+        TestPage child = new TestPage("Child");
+
+        coalescer.beginBatch();
+        coalescer.onEmitted(parent, PageEvent.ORIENTATION_PORTRAIT, 1000);
+        coalescer.onEmitted(child, PageEvent.ORIENTATION_PORTRAIT, 1000);
+
+        coalescer.beginBatch();
+        Truth.assertThat(coalescer.isDuplicate(parent, PageEvent.ORIENTATION_PORTRAIT, 1020)).isTrue();
+        Truth.assertThat(coalescer.isDuplicate(child, PageEvent.ORIENTATION_PORTRAIT, 1020)).isTrue();
+    }
+
+    @Test
+    public void disabledWindow() {
+        PageEventCoalescer coalescer = new PageEventCoalescer(0);
+        TestPage page = new TestPage("A");
+
+        coalescer.beginBatch();
+        coalescer.onEmitted(page, PageEvent.ORIENTATION_PORTRAIT, 1000);
+        coalescer.beginBatch();
+        Truth.assertThat(coalescer.isDuplicate(page, PageEvent.ORIENTATION_PORTRAIT, 1000)).isFalse();
+    }
+
+    private static class TestPage extends Page<String> {
+        TestPage(String carrier) {
+            super(carrier);
+        }
+
+        @Override
+        public String getName() {
+            return getCarrier();
+        }
+
+        @Override
+        public View getView() {
+            return null;
+        }
+
+        @Override
+        String getTag() {
+            return null;
+        }
+    }
+}
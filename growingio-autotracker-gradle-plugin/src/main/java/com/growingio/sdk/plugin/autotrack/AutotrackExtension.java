@@ -20,6 +20,10 @@ public class AutotrackExtension {
     private boolean mIsLogEnabled = true;
     private boolean mIsDevelopment = false;
     private String[] mExcludePackages;
+    private boolean mIsTransformCacheEnabled = true;
+    private String mTransformCacheDir;
+    private boolean mIsInjectionReportEnabled = false;
+    private String mFrameMode = "skip";
 
     public boolean isLogEnabled() {
         return mIsLogEnabled;
@@ -44,4 +48,40 @@ public class AutotrackExtension {
     public void setExcludePackages(String[] excludePackages) {
         mExcludePackages = excludePackages;
     }
+
+    public boolean isTransformCacheEnabled() {
+        return mIsTransformCacheEnabled;
+    }
+
+    public void setTransformCacheEnabled(boolean transformCacheEnabled) {
+        mIsTransformCacheEnabled = transformCacheEnabled;
+    }
+
+    public String getTransformCacheDir() {
+        return mTransformCacheDir;
+    }
+
+    public void setTransformCacheDir(String transformCacheDir) {
+        mTransformCacheDir = transformCacheDir;
+    }
+
+    public boolean isInjectionReportEnabled() {
+        return mIsInjectionReportEnabled;
+    }
+
+    public void setInjectionReportEnabled(boolean injectionReportEnabled) {
+        mIsInjectionReportEnabled = injectionReportEnabled;
+    }
+
+    public String getFrameMode() {
+        return mFrameMode;
+    }
+
+    /**
+     * @param frameMode skip: 不输出 StackMapTable(默认, dex 不需要); maintain: 保留并更新原有的 frame;
+     *                  compute: 重新计算所有 frame。后续还有需要校验 class 的工具时使用 maintain
+     */
+    public void setFrameMode(String frameMode) {
+        mFrameMode = frameMode;
+    }
 }
@@ -34,7 +34,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.net.URL;
 import java.net.URLDecoder;
 import java.util.ArrayList;
 import java.util.List;
@@ -139,11 +138,7 @@ public class AutotrackPlugin implements Plugin<Project> {
             if (files == null || files.isEmpty()) {
                 throw new RuntimeException("GIO: get android.jar failed");
             }
-            List<URL> androidJars = new ArrayList<>();
-            for (File file : files) {
-                androidJars.add(file.toURL());
-            }
-            transform.setAndroidJars(androidJars);
+            transform.setAndroidJars(new ArrayList<>(files));
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("GIO: get android.jar failed");
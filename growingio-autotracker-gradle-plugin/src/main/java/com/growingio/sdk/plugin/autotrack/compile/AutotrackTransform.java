@@ -29,41 +29,43 @@ import com.android.build.gradle.internal.pipeline.TransformManager;
 import com.growingio.sdk.plugin.autotrack.AutotrackExtension;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.gradle.api.Project;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("ResultOfMethodCallIgnored")
 public class AutotrackTransform extends Transform {
 
     private Log mLog;
-    private List<URL> mAndroidJars;
+    private List<File> mAndroidJars;
 
     private TransformOutputProvider mOutputProvider;
     private DirectoryInput mDirectoryInput;
     private ClassRewriter mClassRewriter;
     private BuildExecutor mExecutor;
+    private TransformCache mTransformCache;
+    private DependencyIndex mDependencyIndex;
+    private Set<String> mAffectedUnits;
+    private Map<String, Set<String>> mAssignableTargets;
+    private ClassHierarchy mCacheKeyHierarchy;
     private final AutotrackExtension mAutotrackExtension;
+    private final File mDefaultCacheDir;
+    private final File mReportDir;
 
     public AutotrackTransform(final Project project) {
         mAutotrackExtension = project.getExtensions().getByType(AutotrackExtension.class);
+        mReportDir = new File(project.getBuildDir(), "outputs/growingio-autotracker");
+        mDefaultCacheDir = new File(project.getGradle().getGradleUserHomeDir(), "caches/growingio-autotracker/transforms");
     }
 
-    public void setAndroidJars(List<URL> androidJars) {
+    public void setAndroidJars(List<File> androidJars) {
         this.mAndroidJars = androidJars;
     }
 
@@ -87,6 +89,14 @@ public class AutotrackTransform extends Transform {
         return true;
     }
 
+    /**
+     * frame 模式改变时所有 class 的输出都会变化, 需要触发全量 transform
+     */
+    @Override
+    public Map<String, Object> getParameterInputs() {
+        return Collections.singletonMap("frameMode", mAutotrackExtension.getFrameMode());
+    }
+
     private void log(String msg) {
         mLog.info(msg);
     }
@@ -100,25 +110,45 @@ public class AutotrackTransform extends Transform {
         }
 
         mLog.info("transform task start: isIncremental = " + isIncremental);
+        ClassHierarchy classHierarchy = buildClassHierarchy(context, inputs, isIncremental);
         mExecutor = BuildExecutor.createExecutor();
-        ArrayList<URL> urlList = new ArrayList<>();
-        for (TransformInput input : inputs) {
-            for (DirectoryInput directoryInput : input.getDirectoryInputs()) {
-                urlList.add(directoryInput.getFile().toURL());
-            }
-
-            for (JarInput jarInput : input.getJarInputs()) {
-                urlList.add(jarInput.getFile().toURL());
-            }
-        }
-        urlList.addAll(mAndroidJars);
-        URL[] urlArray = new URL[urlList.size()];
-        urlList.toArray(urlArray);
-        URLClassLoader classLoader = new URLClassLoader(urlArray);
         mOutputProvider = outputProvider;
-        mClassRewriter = new ClassRewriter(mLog, classLoader, mAutotrackExtension.getExcludePackages());
+        mClassRewriter = new ClassRewriter(mLog, classHierarchy, mAutotrackExtension.getExcludePackages());
+        mClassRewriter.setFrameMode(ClassRewriter.parseFrameMode(mAutotrackExtension.getFrameMode()));
+        Map<String, Set<String>> assignableTargets = classHierarchy.getAssignableTargets(TransformCache.getHookClassNames());
+        mAssignableTargets = assignableTargets;
+        // 重新计算 frame 时输出还取决于引用类型的完整继承关系
+        mCacheKeyHierarchy = ClassRewriter.parseFrameMode(mAutotrackExtension.getFrameMode()) == ClassRewriter.FRAMES_COMPUTE ? classHierarchy : null;
+        mTransformCache = createTransformCache();
+        File dependencyIndexFile = new File(context.getTemporaryDir(), "dependencies.idx");
+        mDependencyIndex = isIncremental ? DependencyIndex.read(dependencyIndexFile) : null;
+        boolean canIncrement = isIncremental;
+        if (isIncremental && mDependencyIndex == null) {
+            // 上次编译没有保存索引(比如插件升级)时找不到受继承关系变化影响的输入, 改为全量 transform
+            mLog.info("dependency index is missing, fall back to non-incremental transform");
+            canIncrement = false;
+        }
+        if (mDependencyIndex == null) {
+            mDependencyIndex = new DependencyIndex();
+        }
+        mAffectedUnits = mDependencyIndex.updateAssignableTargets(assignableTargets);
+        if (!mAffectedUnits.isEmpty()) {
+            mLog.info("hook related supertypes changed, re-transforming " + mAffectedUnits.size() + " unchanged inputs");
+        }
+        // 重新计算 frame 时没有变化的类也可能依赖变化了的父类链
+        boolean supertypesChanged = mDependencyIndex.updateSupertypes(mCacheKeyHierarchy == null ? null : classHierarchy.getSupertypes());
+        if (canIncrement && supertypesChanged) {
+            mLog.info("supertypes changed while computing frames, fall back to non-incremental transform");
+            canIncrement = false;
+        }
+        final boolean incremental = canIncrement;
+        InjectionReport injectionReport = null;
+        if (mAutotrackExtension.isInjectionReportEnabled()) {
+            injectionReport = new InjectionReport();
+            mClassRewriter.setInjectionReport(injectionReport);
+        }
 
-        if (!isIncremental) {
+        if (!incremental) {
             // 1. 非增量模式下删除上次所有的编译产物
             try {
                 outputProvider.deleteAll();
@@ -130,7 +160,7 @@ public class AutotrackTransform extends Transform {
         for (TransformInput transformInput : inputs) {
             for (DirectoryInput directoryInput : transformInput.getDirectoryInputs()) {
                 mDirectoryInput = directoryInput;
-                if (isIncremental) {
+                if (incremental) {
                     // 2. 增量模式下处理directory
                     transformInputDirectoryIncrement();
                 } else {
@@ -143,8 +173,8 @@ public class AutotrackTransform extends Transform {
                 mExecutor.execute(new Runnable() {
                     @Override
                     public void run() {
-                        // 4. 处理jar包, 整个jar包暂时在同一个线程中处理, jar包更改的概率很小, 不会影响instant run
-                        transformJar(jarInput, isIncremental);
+                        // 4. 处理jar包, jar包中的class会继续分发到线程池中并行处理, 按原顺序写回
+                        transformJar(jarInput, incremental);
                     }
                 });
             }
@@ -153,50 +183,149 @@ public class AutotrackTransform extends Transform {
         mLog.info("has submit all gio task, and wait for all task complete");
         mExecutor.waitAllTaskComplete();
         mLog.info("transform task completed");
+        try {
+            mDependencyIndex.write(dependencyIndexFile);
+        } catch (IOException e) {
+            mLog.error("保存依赖索引失败: " + dependencyIndexFile, e);
+        }
+        if (injectionReport != null) {
+            File reportFile = new File(mReportDir, "injection-report-" + context.getVariantName() + ".jsonl");
+            try {
+                injectionReport.writeTo(reportFile);
+                mLog.info("injection report: " + injectionReport.getClassCount() + " classes written to " + reportFile);
+            } catch (IOException e) {
+                mLog.error("写入注入报告失败: " + reportFile, e);
+            }
+        }
+        if (mTransformCache != null) {
+            mLog.info(mTransformCache.getReport());
+            int evicted = mTransformCache.evict();
+            if (evicted > 0) {
+                mLog.info("transform cache: evicted " + evicted + " files");
+            }
+        }
 
         // reset tmp variable
-        if (classLoader != null) {
-            classLoader.close();
-        }
         this.mOutputProvider = null;
         this.mDirectoryInput = null;
         this.mClassRewriter = null;
         this.mExecutor = null;
+        this.mTransformCache = null;
+        this.mDependencyIndex = null;
+        this.mAffectedUnits = null;
+        this.mAssignableTargets = null;
+        this.mCacheKeyHierarchy = null;
     }
 
-    private void transformJar(JarInput jarInput, boolean isIncremental) {
-        File out = mOutputProvider.getContentLocation(
-                jarInput.getName(), jarInput.getContentTypes(), jarInput.getScopes(), Format.JAR);
-        out.getParentFile().mkdirs();
-        if (isIncremental && jarInput.getStatus() == Status.NOTCHANGED) {
-            return;
+    /**
+     * jar 的注入结果只取决于 jar 内容、注入配置和 jar 引用的类型中与 hook 类相关的继承关系, 这些都包含在缓存 key 中
+     */
+    private TransformCache createTransformCache() {
+        if (!mAutotrackExtension.isTransformCacheEnabled()) {
+            return null;
         }
-        if (out.exists()) {
-            out.delete();
+        String pluginVersion = TransformCache.getPluginVersion();
+        if (pluginVersion == null) {
+            mLog.info("transform cache disabled: unknown plugin version");
+            return null;
         }
-        if (isIncremental && jarInput.getStatus() == Status.REMOVED) {
-            return;
+        String cacheDir = mAutotrackExtension.getTransformCacheDir();
+        // frame 模式会改变输出, 和插件版本一起参与缓存 key
+        String fingerprint = TransformCache.computeFingerprint(pluginVersion + "/frames=" + mAutotrackExtension.getFrameMode(),
+                mAutotrackExtension.getExcludePackages());
+        return new TransformCache(cacheDir == null ? mDefaultCacheDir : new File(cacheDir), fingerprint);
+    }
+
+    /**
+     * 读取所有输入和 android.jar 的类头建立继承关系索引, 每个输入的索引持久化在 transform 的临时目录中,
+     * 增量编译时未变化的 jar 和目录中未变化的类会直接复用上次的索引
+     */
+    private ClassHierarchy buildClassHierarchy(Context context, Collection<TransformInput> inputs, final boolean isIncremental) throws InterruptedException {
+        final ClassHierarchy classHierarchy = new ClassHierarchy();
+        final File indexDir = new File(context.getTemporaryDir(), "hierarchy");
+        BuildExecutor executor = BuildExecutor.createExecutor();
+        for (final File androidJar : mAndroidJars) {
+            executor.execute(() -> addJarToHierarchy(classHierarchy, androidJar, getIndexFile(indexDir, androidJar)));
         }
-        log("transforming " + jarInput.getFile() + " to jar: " + out);
-        try (ZipOutputStream outJar = new ZipOutputStream(new FileOutputStream(out))) {
-            try (ZipInputStream jar = new ZipInputStream(new FileInputStream(jarInput.getFile()))) {
-                ZipEntry entry;
-                while ((entry = jar.getNextEntry()) != null) {
-                    ZipEntry outEntry = copyEntry(entry);
-                    outJar.putNextEntry(outEntry);
-                    if (!entry.isDirectory()
-                            && !entry.getName().equals("module-info.class")
-                            && entry.getName().endsWith(".class")) {
-                        if (mClassRewriter.transformClass(jar, outJar)) {
-                            log("transforming jar entry: " + entry.getName());
-                        }
-                    } else {
-                        IOUtils.copy(jar, outJar);
+        for (TransformInput input : inputs) {
+            for (final DirectoryInput directoryInput : input.getDirectoryInputs()) {
+                executor.execute(() -> {
+                    File dir = directoryInput.getFile();
+                    try {
+                        classHierarchy.addDirectory(dir, getIndexFile(indexDir, dir),
+                                isIncremental ? directoryInput.getChangedFiles().keySet() : null);
+                    } catch (IOException e) {
+                        mLog.error("建立类继承关系索引失败: " + dir, e);
                     }
+                });
+            }
+            for (final JarInput jarInput : input.getJarInputs()) {
+                if (isIncremental && jarInput.getStatus() == Status.REMOVED) {
+                    continue;
                 }
+                executor.execute(() -> addJarToHierarchy(classHierarchy, jarInput.getFile(), getIndexFile(indexDir, jarInput.getFile())));
             }
+        }
+        executor.waitAllTaskComplete();
+        return classHierarchy;
+    }
+
+    private void addJarToHierarchy(ClassHierarchy classHierarchy, File jar, File indexFile) {
+        try {
+            classHierarchy.addJar(jar, indexFile);
         } catch (IOException e) {
-            e.printStackTrace();
+            mLog.error("建立类继承关系索引失败: " + jar, e);
+        }
+    }
+
+    private static File getIndexFile(File indexDir, File input) {
+        String path = input.getAbsolutePath();
+        return new File(indexDir, input.getName() + "_" + Integer.toHexString(path.hashCode()) + ".idx");
+    }
+
+    private void transformJar(JarInput jarInput, boolean isIncremental) {
+        File out = mOutputProvider.getContentLocation(
+                jarInput.getName(), jarInput.getContentTypes(), jarInput.getScopes(), Format.JAR);
+        out.getParentFile().mkdirs();
+        String unit = jarInput.getFile().getAbsolutePath();
+        try {
+            if (isIncremental && jarInput.getStatus() == Status.NOTCHANGED) {
+                if (!mAffectedUnits.contains(unit)) {
+                    return;
+                }
+                log("re-transforming " + jarInput.getFile() + ": hook related supertypes changed");
+            }
+            if (out.exists()) {
+                out.delete();
+            }
+            // 增量编译退化为全量时输入中仍然有已删除的 jar
+            if (jarInput.getStatus() == Status.REMOVED) {
+                mDependencyIndex.remove(unit);
+                return;
+            }
+            log("transforming " + jarInput.getFile() + " to jar: " + out);
+            String cacheKey = null;
+            if (mTransformCache != null) {
+                Set<String> referencedTypes = DependencyIndex.collectJar(jarInput.getFile());
+                cacheKey = mTransformCache.getKey(jarInput.getFile(), referencedTypes, mAssignableTargets, mCacheKeyHierarchy);
+                if (mTransformCache.restore(cacheKey, out)) {
+                    log("restored " + jarInput.getFile() + " from transform cache");
+                    mDependencyIndex.record(unit, referencedTypes);
+                    return;
+                }
+            }
+            Set<String> dependencies = ConcurrentHashMap.newKeySet();
+            JarRewriter jarRewriter = new JarRewriter(mClassRewriter, mExecutor, mLog);
+            jarRewriter.setDependencies(dependencies);
+            jarRewriter.transform(jarInput.getFile(), out);
+            mDependencyIndex.record(unit, dependencies);
+            if (cacheKey != null) {
+                mTransformCache.store(cacheKey, out);
+            }
+        } catch (IOException e) {
+            // 不能留下不完整的 jar 继续构建
+            FileUtils.deleteQuietly(out);
+            throw new AutotrackBuildException("transform " + jarInput.getFile() + " failed", e);
         }
     }
 
@@ -206,6 +335,26 @@ public class AutotrackTransform extends Transform {
             Status status = changedFiles.get(file);
             actionOnFile(file, status != Status.REMOVED);
         }
+        // 没有变化, 但父类或调用的类型的 hook 相关继承关系变化了的 class 也需要重新注入
+        String dirPath = mDirectoryInput.getFile().getAbsolutePath() + File.separator;
+        for (String unit : mAffectedUnits) {
+            File file = new File(unit);
+            if (unit.startsWith(dirPath) && !changedFiles.containsKey(file) && file.isFile()) {
+                log("re-transforming " + file + ": hook related supertypes changed");
+                actionOnFile(file, true);
+            }
+        }
+    }
+
+    private void recordDependencies(File classFile) {
+        if (!classFile.getName().endsWith(".class")) {
+            return;
+        }
+        try {
+            mDependencyIndex.record(classFile.getAbsolutePath(), DependencyIndex.collect(FileUtils.readFileToByteArray(classFile)));
+        } catch (IOException | IllegalArgumentException e) {
+            mLog.warning("读取依赖失败: " + classFile, e);
+        }
     }
 
     // 5. 处理directoryInput中的文件, 可以单个在子线程中处理
@@ -219,9 +368,11 @@ public class AutotrackTransform extends Transform {
         mExecutor.execute(() -> {
             File outFile = new File(outDirPath, relativeClassPath);
             if (!added) {
+                mDependencyIndex.remove(file.getAbsolutePath());
                 FileUtils.deleteQuietly(outFile);
             } else {
                 if (relativeClassPath.endsWith(".class")) {
+                    recordDependencies(file);
                     if (mClassRewriter.transformClassFile(file, outFile)) {
                         log("transformed class file " + file + " to " + outFile);
                         return;
@@ -242,11 +393,4 @@ public class AutotrackTransform extends Transform {
         }
     }
 
-    private ZipEntry copyEntry(ZipEntry entry) {
-        ZipEntry newEntry = new ZipEntry(entry.getName());
-        newEntry.setComment(entry.getComment());
-        newEntry.setExtra(entry.getExtra());
-        return newEntry;
-    }
-
 }
\ No newline at end of file
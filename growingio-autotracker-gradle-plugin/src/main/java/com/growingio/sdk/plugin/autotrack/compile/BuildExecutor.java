@@ -102,12 +102,13 @@ abstract public class BuildExecutor implements Executor {
             checkAndThrow();
             synchronized (mLock) {
                 checkAndThrow();
-                mPoolExecutor.shutdown();
-                if (mWaitingTaskCount.get() != 0) {
+                // 任务中还可能继续提交子任务(比如 jar 中的 class), 所以等所有任务完成后再 shutdown
+                while (mWaitingTaskCount.get() != 0) {
                     mLock.wait();
                     checkAndThrow();
                 }
             }
+            mPoolExecutor.shutdown();
             mPoolExecutor.awaitTermination(0, TimeUnit.MILLISECONDS);
         }
 
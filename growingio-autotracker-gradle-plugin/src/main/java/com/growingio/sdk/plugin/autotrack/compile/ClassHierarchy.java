@@ -0,0 +1,423 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import org.apache.commons.io.IOUtils;
+import org.objectweb.asm.ClassReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 根据 class 文件头(父类和接口)建立的类继承关系索引, 用于替代 ClassLoader.loadClass 的 isAssignable 判断。
+ * 查询不会加载任何类, 祖先集合按需计算并缓存。
+ * 每个输入(jar 或目录)的索引会单独持久化, 增量编译时未变化的输入可以直接读取索引文件。
+ */
+public class ClassHierarchy {
+    private static final int INDEX_VERSION = 1;
+    private static final String[] EMPTY = new String[0];
+
+    private final Map<String, Header> mHeaders = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> mAncestors = new ConcurrentHashMap<>();
+    /**
+     * resourceLoader 中也找不到或无法解析的类, 避免 COMPUTE_FRAMES 等频繁查询时重复读取资源
+     */
+    private final Set<String> mMissing = ConcurrentHashMap.newKeySet();
+    private final ClassLoader mResourceLoader;
+
+    public ClassHierarchy() {
+        this(null);
+    }
+
+    /**
+     * @param resourceLoader 索引中找不到的类会通过 getResourceAsStream 读取 class 文件头补充, 不会触发类加载
+     */
+    public ClassHierarchy(ClassLoader resourceLoader) {
+        mResourceLoader = resourceLoader;
+    }
+
+    public void addClass(String name, String superName, String[] interfaces) {
+        mHeaders.put(name, new Header(name, superName, interfaces));
+        mAncestors.clear();
+        mMissing.clear();
+    }
+
+    public void addClass(byte[] classBytes) {
+        Header header = readHeader(classBytes);
+        mHeaders.put(header.mName, header);
+        mAncestors.clear();
+        mMissing.clear();
+    }
+
+    public boolean contains(String name) {
+        return findHeader(name) != null;
+    }
+
+    public String getSuperName(String name) {
+        Header header = findHeader(name);
+        return header == null ? null : header.mSuperName;
+    }
+
+    public boolean isAssignable(String subClassName, String superClassName) {
+        if (subClassName.equals(superClassName)) {
+            return true;
+        }
+        return getAncestors(subClassName).contains(superClassName);
+    }
+
+    /**
+     * 已读取的每个类的直接父类和接口, 格式为 "super;interface1;interface2", 用于比较两次编译之间的继承关系
+     */
+    public Map<String, String> getSupertypes() {
+        Map<String, String> supertypes = new HashMap<>(mHeaders.size() * 4 / 3 + 1);
+        for (Header header : mHeaders.values()) {
+            StringBuilder builder = new StringBuilder(String.valueOf(header.mSuperName));
+            for (String anInterface : header.mInterfaces) {
+                builder.append(';').append(anInterface);
+            }
+            supertypes.put(header.mName, builder.toString());
+        }
+        return supertypes;
+    }
+
+    /**
+     * 与 ClassWriter.getCommonSuperClass 语义相同: 一方可以赋值给另一方时返回另一方,
+     * 否则沿 type1 的父类链查找第一个 type2 可以赋值的类。接口和找不到的类最终返回 java/lang/Object
+     */
+    public String getCommonSuperClass(String type1, String type2) {
+        if (isAssignable(type2, type1)) {
+            return type1;
+        }
+        if (isAssignable(type1, type2)) {
+            return type2;
+        }
+        Set<String> visited = new HashSet<>();
+        String current = getSuperName(type1);
+        while (current != null && visited.add(current)) {
+            if (isAssignable(type2, current)) {
+                return current;
+            }
+            current = getSuperName(current);
+        }
+        return "java/lang/Object";
+    }
+
+    /**
+     * 返回该类所有的父类和接口(不包括自身), 找不到的类返回空集合。错误的 class 文件形成循环继承时也会结束
+     */
+    public Set<String> getAncestors(String name) {
+        Set<String> ancestors = mAncestors.get(name);
+        if (ancestors != null) {
+            return ancestors;
+        }
+        Header header = findHeader(name);
+        if (header == null) {
+            return Collections.emptySet();
+        }
+        ancestors = new HashSet<>();
+        ArrayDeque<String> pending = new ArrayDeque<>();
+        addParents(header, pending);
+        while (!pending.isEmpty()) {
+            String parent = pending.poll();
+            if (!ancestors.add(parent)) {
+                continue;
+            }
+            Set<String> cached = mAncestors.get(parent);
+            if (cached != null) {
+                ancestors.addAll(cached);
+                continue;
+            }
+            Header parentHeader = findHeader(parent);
+            if (parentHeader != null) {
+                addParents(parentHeader, pending);
+            }
+        }
+        ancestors.remove(name);
+        ancestors = Collections.unmodifiableSet(ancestors);
+        mAncestors.put(name, ancestors);
+        return ancestors;
+    }
+
+    private static void addParents(Header header, ArrayDeque<String> pending) {
+        if (header.mSuperName != null) {
+            pending.add(header.mSuperName);
+        }
+        Collections.addAll(pending, header.mInterfaces);
+    }
+
+    /**
+     * 返回所有可以赋值给 targets 中任意类的类(不包括 targets 自身), value 为该类可以赋值的 targets。
+     * 只记录与 targets 相关的部分, 不会为每个类缓存完整的祖先集合
+     */
+    public Map<String, Set<String>> getAssignableTargets(Collection<String> targets) {
+        Set<String> targetSet = new HashSet<>(targets);
+        Map<String, Set<String>> memo = new HashMap<>();
+        Map<String, Set<String>> result = new TreeMap<>();
+        for (String name : mHeaders.keySet()) {
+            Set<String> reached = findTargets(name, targetSet, memo);
+            if (!reached.isEmpty() && !targetSet.contains(name)) {
+                result.put(name, reached);
+            }
+        }
+        return result;
+    }
+
+    private Set<String> findTargets(String name, Set<String> targets, Map<String, Set<String>> memo) {
+        Set<String> reached = memo.get(name);
+        if (reached != null) {
+            return reached;
+        }
+        // 先占位, 防止错误的 class 文件形成循环继承
+        memo.put(name, Collections.emptySet());
+        Header header = mHeaders.get(name);
+        if (header == null) {
+            return Collections.emptySet();
+        }
+        reached = null;
+        int count = header.mInterfaces.length + 1;
+        for (int i = 0; i < count; i++) {
+            String parent = i == 0 ? header.mSuperName : header.mInterfaces[i - 1];
+            if (parent == null) {
+                continue;
+            }
+            Set<String> parentReached = findTargets(parent, targets, memo);
+            if (targets.contains(parent) || !parentReached.isEmpty()) {
+                if (reached == null) {
+                    reached = new TreeSet<>();
+                }
+                if (targets.contains(parent)) {
+                    reached.add(parent);
+                }
+                reached.addAll(parentReached);
+            }
+        }
+        if (reached == null) {
+            reached = Collections.emptySet();
+        }
+        memo.put(name, reached);
+        return reached;
+    }
+
+    /**
+     * 读取 jar 的类继承关系, indexFile 中记录的 jar 大小和修改时间一致时直接复用索引
+     */
+    public void addJar(File jar, File indexFile) throws IOException {
+        Map<String, Header> headers = null;
+        if (indexFile != null) {
+            headers = readIndex(indexFile, jar.length(), jar.lastModified());
+        }
+        if (headers == null) {
+            headers = scanJar(jar);
+            if (indexFile != null) {
+                writeIndex(indexFile, jar.length(), jar.lastModified(), headers);
+            }
+        }
+        addAll(headers);
+    }
+
+    /**
+     * 读取目录的类继承关系。changedFiles 为 null 时全量扫描,
+     * 否则在上次持久化的索引基础上只重新读取变化的文件
+     */
+    public void addDirectory(File dir, File indexFile, Collection<File> changedFiles) throws IOException {
+        Map<String, Header> headers = null;
+        if (indexFile != null && changedFiles != null) {
+            headers = readIndex(indexFile, 0, 0);
+        }
+        if (headers == null) {
+            headers = new LinkedHashMap<>();
+            scanDirectory(dir, headers);
+        } else {
+            String dirPath = dir.getAbsolutePath();
+            for (File file : changedFiles) {
+                String path = file.getAbsolutePath();
+                if (!path.endsWith(".class") || !path.startsWith(dirPath)) {
+                    continue;
+                }
+                String name = path.substring(dirPath.length() + 1, path.length() - ".class".length()).replace(File.separatorChar, '/');
+                headers.remove(name);
+                if (file.isFile()) {
+                    putHeader(headers, readBytes(file));
+                }
+            }
+        }
+        if (indexFile != null) {
+            writeIndex(indexFile, 0, 0, headers);
+        }
+        addAll(headers);
+    }
+
+    private void addAll(Map<String, Header> headers) {
+        mHeaders.putAll(headers);
+        mAncestors.clear();
+        mMissing.clear();
+    }
+
+    private Header findHeader(String name) {
+        Header header = mHeaders.get(name);
+        if (header != null || mResourceLoader == null || mMissing.contains(name)) {
+            return header;
+        }
+        try (InputStream inputStream = mResourceLoader.getResourceAsStream(name + ".class")) {
+            if (inputStream == null) {
+                mMissing.add(name);
+                return null;
+            }
+            header = readHeader(IOUtils.toByteArray(inputStream));
+            mHeaders.put(name, header);
+            return header;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            // 无法解析的 class 文件(比如更高版本的 class)
+            mMissing.add(name);
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, Header> scanJar(File jar) throws IOException {
+        Map<String, Header> headers = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(jar)))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (isClassEntry(entry.getName()) && !entry.isDirectory()) {
+                    putHeader(headers, IOUtils.toByteArray(zip));
+                }
+            }
+        }
+        return headers;
+    }
+
+    private static void scanDirectory(File dir, Map<String, Header> headers) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                scanDirectory(file, headers);
+            } else if (isClassEntry(file.getName())) {
+                putHeader(headers, readBytes(file));
+            }
+        }
+    }
+
+    private static boolean isClassEntry(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class");
+    }
+
+    private static void putHeader(Map<String, Header> headers, byte[] classBytes) {
+        try {
+            Header header = readHeader(classBytes);
+            headers.put(header.mName, header);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ignored) {
+            // 无法解析的 class 文件(比如更高版本或者损坏的 class)不参与索引
+        }
+    }
+
+    private static byte[] readBytes(File classFile) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(classFile)) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    /**
+     * ClassReader 只解析常量池和类头, 不访问方法体
+     */
+    private static Header readHeader(byte[] classBytes) {
+        ClassReader classReader = new ClassReader(classBytes);
+        return new Header(classReader.getClassName(), classReader.getSuperName(), classReader.getInterfaces());
+    }
+
+    private static Map<String, Header> readIndex(File indexFile, long inputLength, long inputLastModified) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_VERSION || in.readLong() != inputLength || in.readLong() != inputLastModified) {
+                return null;
+            }
+            int size = in.readInt();
+            Map<String, Header> headers = new LinkedHashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                String name = in.readUTF();
+                String superName = in.readBoolean() ? in.readUTF() : null;
+                String[] interfaces = new String[in.readUnsignedShort()];
+                for (int j = 0; j < interfaces.length; j++) {
+                    interfaces[j] = in.readUTF();
+                }
+                headers.put(name, new Header(name, superName, interfaces));
+            }
+            return headers;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeIndex(File indexFile, long inputLength, long inputLastModified, Map<String, Header> headers) throws IOException {
+        indexFile.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(inputLength);
+            out.writeLong(inputLastModified);
+            out.writeInt(headers.size());
+            for (Header header : headers.values()) {
+                out.writeUTF(header.mName);
+                out.writeBoolean(header.mSuperName != null);
+                if (header.mSuperName != null) {
+                    out.writeUTF(header.mSuperName);
+                }
+                out.writeShort(header.mInterfaces.length);
+                for (String anInterface : header.mInterfaces) {
+                    out.writeUTF(anInterface);
+                }
+            }
+        }
+    }
+
+    private static final class Header {
+        final String mName;
+        final String mSuperName;
+        final String[] mInterfaces;
+
+        Header(String name, String superName, String[] interfaces) {
+            mName = name;
+            mSuperName = superName;
+            mInterfaces = interfaces == null ? EMPTY : interfaces;
+        }
+    }
+}
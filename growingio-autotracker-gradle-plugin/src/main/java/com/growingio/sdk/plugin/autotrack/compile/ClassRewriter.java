@@ -16,16 +16,17 @@
 
 package com.growingio.sdk.plugin.autotrack.compile;
 
-import com.growingio.sdk.plugin.autotrack.compile.visitor.ContextClassVisitor;
 import com.growingio.sdk.plugin.autotrack.compile.visitor.DesugaredClassVisitor;
 import com.growingio.sdk.plugin.autotrack.compile.visitor.DesugaringClassVisitor;
 import com.growingio.sdk.plugin.autotrack.compile.visitor.InjectAroundClassVisitor;
 import com.growingio.sdk.plugin.autotrack.compile.visitor.InjectSuperClassVisitor;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
 
 import org.apache.commons.io.IOUtils;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -33,11 +34,29 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
 
 public class ClassRewriter {
+    /**
+     * 不输出 StackMapTable, dex 不需要 frame, 默认值
+     */
+    public static final int FRAMES_SKIP = 0;
+    /**
+     * 保留原有的 frame, 只把注入代码使用的临时变量在之后的 frame 中标记为 TOP
+     */
+    public static final int FRAMES_MAINTAIN = 1;
+    /**
+     * 使用 COMPUTE_FRAMES 重新计算所有 frame, 公共父类通过 ClassHierarchy 查询, 不加载类
+     */
+    public static final int FRAMES_COMPUTE = 2;
+
     private final Log mLog;
-    private final ClassLoader mClassLoader;
+    private final ClassHierarchy mClassHierarchy;
+    private final HookClassFilter mHookClassFilter;
     private final String[] mUserExcludePackages;
+    private InjectionReport mInjectionReport;
+    private int mFrameMode = FRAMES_SKIP;
     private static final String[] EXCLUDED_PACKAGES = new String[]{
             "com/growingio/android/sdk/",
             "com/alibaba/mobileim/extra/xblink/webview",
@@ -53,8 +72,17 @@ public class ClassRewriter {
 
 
     public ClassRewriter(final Log log, ClassLoader classLoader, String[] userExcludePackages) {
+        this(log, new ClassHierarchy(classLoader), userExcludePackages);
+    }
+
+    public ClassRewriter(final Log log, ClassHierarchy classHierarchy, String[] userExcludePackages) {
+        this(log, classHierarchy, userExcludePackages, true);
+    }
+
+    ClassRewriter(final Log log, ClassHierarchy classHierarchy, String[] userExcludePackages, boolean usePreFilter) {
         mLog = log;
-        mClassLoader = classLoader;
+        mClassHierarchy = classHierarchy;
+        mHookClassFilter = usePreFilter ? new HookClassFilter(classHierarchy) : null;
         if (userExcludePackages == null) {
             mUserExcludePackages = new String[0];
         } else {
@@ -65,6 +93,37 @@ public class ClassRewriter {
         }
     }
 
+    /**
+     * 设置后每个被修改的类的注入记录都会加入 report
+     */
+    public void setInjectionReport(InjectionReport injectionReport) {
+        mInjectionReport = injectionReport;
+    }
+
+    /**
+     * @param frameMode FRAMES_SKIP, FRAMES_MAINTAIN 或 FRAMES_COMPUTE
+     */
+    public void setFrameMode(int frameMode) {
+        if (frameMode != FRAMES_SKIP && frameMode != FRAMES_MAINTAIN && frameMode != FRAMES_COMPUTE) {
+            throw new IllegalArgumentException("unknown frame mode: " + frameMode);
+        }
+        mFrameMode = frameMode;
+    }
+
+    /**
+     * 把 AutotrackExtension 中的 frameMode("skip", "maintain", "compute")转换为对应的常量
+     */
+    public static int parseFrameMode(String frameMode) {
+        if (frameMode == null || "skip".equals(frameMode)) {
+            return FRAMES_SKIP;
+        } else if ("maintain".equals(frameMode)) {
+            return FRAMES_MAINTAIN;
+        } else if ("compute".equals(frameMode)) {
+            return FRAMES_COMPUTE;
+        }
+        throw new IllegalArgumentException("unknown frameMode '" + frameMode + "', expected skip, maintain or compute");
+    }
+
     private boolean isExcludedPackage(String packageName) {
         for (String exPackage : EXCLUDED_PACKAGES) {
             if (packageName.startsWith(exPackage)) {
@@ -102,6 +161,9 @@ public class ClassRewriter {
         toParent.mkdirs();
         try (FileInputStream fileInputStream = new FileInputStream(from); FileOutputStream fileOutputStream = new FileOutputStream(to)) {
             result = transformClass(fileInputStream, fileOutputStream);
+        } catch (AutotrackBuildException e) {
+            to.delete();
+            throw e;
         } catch (Exception e) {
             mLog.error(e.getMessage(), e);
             result = false;
@@ -109,39 +171,73 @@ public class ClassRewriter {
         return result;
     }
 
+    /**
+     * @return 修改后的 class, 不需要修改时返回 null
+     */
+    public byte[] transformClassBytes(byte[] bytes) {
+        return visitClassBytes(bytes);
+    }
+
     private byte[] visitClassBytes(byte[] bytes) {
+        int hookFlags = mHookClassFilter == null ? HookClassFilter.MAY_HOOK | HookClassFilter.HOOKED_LAMBDA : mHookClassFilter.classify(bytes);
+        if (hookFlags == HookClassFilter.NONE) {
+            // 常量池中没有任何 hook 相关的引用, 原样输出
+            return null;
+        }
         String className = null;
         try {
             ClassReader classReader = new ClassReader(bytes);
-            ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
-            Context context = new Context(mLog, mClassLoader);
-            classReader.accept(new ContextClassVisitor(context), ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
-            className = context.getClassName();
-            ClassVisitor classVisitor;
-            if (this.isExcludedPackage(context.getClassName())) {
+            className = classReader.getClassName();
+            if (this.isExcludedPackage(className)) {
                 return null;
             }
-            DesugaringClassVisitor desugaringClassVisitor = new DesugaringClassVisitor(
+            ClassWriter classWriter;
+            int readFlags;
+            if (mFrameMode == FRAMES_COMPUTE) {
+                classWriter = new HierarchyClassWriter(classReader, mClassHierarchy);
+                readFlags = ClassReader.SKIP_FRAMES;
+            } else {
+                classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
+                // LocalVariablesSorter 要求展开的 frame
+                readFlags = mFrameMode == FRAMES_MAINTAIN ? ClassReader.EXPAND_FRAMES : ClassReader.SKIP_FRAMES | ClassReader.EXPAND_FRAMES;
+            }
+            Context context = new Context(mLog, mClassHierarchy);
+            context.setClassName(className);
+            context.setSuperClassName(classReader.getSuperName());
+            context.setAbstract((classReader.getAccess() & Opcodes.ACC_ABSTRACT) != 0);
+            context.setRecordInjections(mInjectionReport != null);
+
+            ClassVisitor classVisitor = classWriter;
+            Set<TargetMethod> needInjectTargetMethods;
+            if ((hookFlags & HookClassFilter.HOOKED_LAMBDA) != 0) {
+                // lambda 的实现方法需要等整个类访问完才能确定, 只有这种类才缓存方法体
+                DesugaredClassVisitor desugaredClassVisitor = new DesugaredClassVisitor(classVisitor, context);
+                needInjectTargetMethods = desugaredClassVisitor.getNeedInjectTargetMethods();
+                classVisitor = desugaredClassVisitor;
+            } else {
+                needInjectTargetMethods = new HashSet<>();
+            }
+            classVisitor = new DesugaringClassVisitor(
                     new InjectAroundClassVisitor(
-                            new InjectSuperClassVisitor(classWriter, context),
+                            new InjectSuperClassVisitor(classVisitor, context),
                             context),
-                    context);
-            classVisitor = desugaringClassVisitor;
-            classReader.accept(classVisitor, ClassReader.SKIP_FRAMES | ClassReader.EXPAND_FRAMES);
-            if (!desugaringClassVisitor.getNeedInjectTargetMethods().isEmpty()) {
-                // lambda 表达式需要特殊处理两次
-                mLog.debug(String.format("GIO: deal with lambda second time:  %s", className));
-                ClassReader lambdaReader = new ClassReader(classWriter.toByteArray());
-                classWriter = new ClassWriter(lambdaReader, ClassWriter.COMPUTE_MAXS);
-                lambdaReader.accept(new DesugaredClassVisitor(classWriter, context, desugaringClassVisitor.getNeedInjectTargetMethods()), ClassReader.SKIP_FRAMES | ClassReader.EXPAND_FRAMES);
+                    context, needInjectTargetMethods);
+            classReader.accept(classVisitor, readFlags);
+            if (!needInjectTargetMethods.isEmpty() && (hookFlags & HookClassFilter.HOOKED_LAMBDA) == 0) {
+                throw new IllegalStateException("lambda implementation methods were not handled: " + needInjectTargetMethods);
             }
             if (context.isClassModified()) {
-                return classWriter.toByteArray();
+                byte[] result = classWriter.toByteArray();
+                if (mInjectionReport != null) {
+                    mInjectionReport.add(className, context.getInjections());
+                }
+                return result;
             }
         } catch (AutotrackBuildException e) {
-            throw new RuntimeException(e);
-        } catch (Throwable t) {
-            this.mLog.error("Unfortunately, an error has occurred while processing " + className + ". Please copy your build logs and the jar containing this class and visit https://www.growingio.com, thanks!\n" + t.getMessage(), t);
+            throw e;
+        } catch (RuntimeException e) {
+            // 改写失败的类不能原样输出, 否则埋点会静默缺失
+            throw new AutotrackBuildException("Unfortunately, an error has occurred while processing " + className + ". Please copy your build logs and the jar containing this class and visit https://www.growingio.com, thanks!", e);
         }
         return null;
     }
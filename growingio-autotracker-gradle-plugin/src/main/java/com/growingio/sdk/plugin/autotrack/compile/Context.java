@@ -16,28 +16,41 @@
 
 package com.growingio.sdk.plugin.autotrack.compile;
 
+import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
+
 import org.objectweb.asm.Opcodes;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 public class Context {
     private final Log mLog;
-    private final ClassLoader mClassLoader;
+    private final ClassHierarchy mClassHierarchy;
 
     private String mClassName;
     private String mSuperClassName;
     private boolean mClassModified;
     private boolean mIsAbstract;
+    private Set<InjectionReport.Injection> mInjections;
 
     public Context(Log log, ClassLoader classLoader) {
+        this(log, new ClassHierarchy(classLoader));
+    }
+
+    public Context(Log log, ClassHierarchy classHierarchy) {
         mLog = log;
-        mClassLoader = classLoader;
+        mClassHierarchy = classHierarchy;
     }
 
     public int getASMVersion() {
         return Opcodes.ASM5;
     }
 
-    public ClassLoader getClassLoader() {
-        return mClassLoader;
+    public ClassHierarchy getClassHierarchy() {
+        return mClassHierarchy;
     }
 
     public Log getLog() {
@@ -77,18 +90,26 @@ public class Context {
     }
 
     public boolean isAssignable(String subClassName, String superClassName) {
-        if (subClassName.contains("/")) {
-            subClassName = subClassName.replace("/", ".");
-        }
-        if (superClassName.contains("/")) {
-            superClassName = superClassName.replace("/", ".");
-        }
-        try {
-            Class<?> subClass = getClassLoader().loadClass(subClassName);
-            Class<?> superClass = getClassLoader().loadClass(superClassName);
-            return superClass.isAssignableFrom(subClass);
-        } catch (ClassNotFoundException ignored) {
+        return mClassHierarchy.isAssignable(subClassName, superClassName);
+    }
+
+    /**
+     * 关闭时 recordInjection 不会创建任何对象
+     */
+    public void setRecordInjections(boolean recordInjections) {
+        mInjections = recordInjections ? new LinkedHashSet<>() : null;
+    }
+
+    /**
+     * 同一个注入点在多个 return 处插入时只记录一次
+     */
+    public void recordInjection(String type, InjectMethod injectMethod, String targetOwner, String targetName, String targetDesc) {
+        if (mInjections != null) {
+            mInjections.add(new InjectionReport.Injection(type, injectMethod, targetOwner, targetName, targetDesc));
         }
-        return false;
+    }
+
+    public List<InjectionReport.Injection> getInjections() {
+        return mInjections == null ? Collections.<InjectionReport.Injection>emptyList() : new ArrayList<>(mInjections);
     }
 }
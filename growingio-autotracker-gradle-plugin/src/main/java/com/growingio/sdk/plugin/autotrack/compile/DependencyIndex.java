@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Type;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 增量编译的依赖索引。
+ * <p>
+ * 一个类是否需要注入不只取决于它自己的 class 文件: super hook 取决于父类和接口是否可以赋值给 hook 类,
+ * around hook 取决于调用处的 owner 是否可以赋值给 hook 类。所以父类改为继承 Fragment 之后, 没有变化的子类和调用方也需要重新注入。
+ * <p>
+ * 这里记录每个输入单元(目录中的 class 文件或 jar, 用绝对路径表示)引用的类型: 自身, 父类, 接口, 方法调用的 owner 和 lambda 的函数式接口,
+ * 以及上次编译时每个类型可以赋值的 hook 类。增量编译时比较两次的 hook 相关继承关系, 找出变化的类型, 再反查引用了这些类型的单元。
+ * <p>
+ * 重新计算 frame 时 getCommonSuperClass 依赖完整的父类链, 与 hook 无关的父类变化也会让没有变化的类的 frame 过期,
+ * 所以这时还记录所有类的直接父类和接口, 有变化时改为全量 transform。
+ */
+public class DependencyIndex {
+    private static final int INDEX_VERSION = 2;
+    private static final int METHODREF = 10;
+    private static final int INTERFACE_METHODREF = 11;
+    private static final int INVOKE_DYNAMIC = 18;
+
+    private final Map<String, Set<String>> mDependencies = new ConcurrentHashMap<>();
+    private volatile Map<String, Set<String>> mAssignableTargets = Collections.emptyMap();
+    private volatile Map<String, String> mSupertypes = Collections.emptyMap();
+
+    public void record(String unit, Set<String> types) {
+        mDependencies.put(unit, types);
+    }
+
+    public void remove(String unit) {
+        mDependencies.remove(unit);
+    }
+
+    public boolean contains(String unit) {
+        return mDependencies.containsKey(unit);
+    }
+
+    public Set<String> getDependencies(String unit) {
+        Set<String> types = mDependencies.get(unit);
+        return types == null ? Collections.<String>emptySet() : types;
+    }
+
+    /**
+     * 用本次编译的 hook 相关继承关系(ClassHierarchy.getAssignableTargets)替换上次的记录
+     *
+     * @return 引用了 hook 相关继承关系发生变化的类型的单元
+     */
+    public Set<String> updateAssignableTargets(Map<String, Set<String>> assignableTargets) {
+        Set<String> changedTypes = new HashSet<>();
+        Map<String, Set<String>> previous = mAssignableTargets;
+        for (Map.Entry<String, Set<String>> entry : assignableTargets.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                changedTypes.add(entry.getKey());
+            }
+        }
+        for (String type : previous.keySet()) {
+            if (!assignableTargets.containsKey(type)) {
+                changedTypes.add(type);
+            }
+        }
+        mAssignableTargets = assignableTargets;
+        if (changedTypes.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // 反查引用了变化类型的单元
+        Set<String> affected = new TreeSet<>();
+        for (Map.Entry<String, Set<String>> entry : mDependencies.entrySet()) {
+            if (!Collections.disjoint(entry.getValue(), changedTypes)) {
+                affected.add(entry.getKey());
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * 用本次编译所有类的直接父类和接口(ClassHierarchy.getSupertypes)替换上次的记录
+     *
+     * @param supertypes 不重新计算 frame 时传 null, 不需要记录
+     * @return 两次都存在的类中是否有父类或接口变化的; 上次没有记录时无法比较, 也返回 true
+     */
+    public boolean updateSupertypes(Map<String, String> supertypes) {
+        Map<String, String> previous = mSupertypes;
+        if (supertypes == null) {
+            mSupertypes = Collections.emptyMap();
+            return false;
+        }
+        mSupertypes = supertypes;
+        if (previous.isEmpty()) {
+            return !supertypes.isEmpty();
+        }
+        for (Map.Entry<String, String> entry : supertypes.entrySet()) {
+            String previousSupertypes = previous.get(entry.getKey());
+            if (previousSupertypes != null && !previousSupertypes.equals(entry.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取上次编译保存的索引, 文件不存在或版本不一致时返回 null
+     */
+    public static DependencyIndex read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != INDEX_VERSION) {
+                return null;
+            }
+            DependencyIndex index = new DependencyIndex();
+            int unitCount = in.readInt();
+            for (int i = 0; i < unitCount; i++) {
+                index.mDependencies.put(in.readUTF(), readSet(in));
+            }
+            int typeCount = in.readInt();
+            Map<String, Set<String>> assignableTargets = new HashMap<>(typeCount * 4 / 3 + 1);
+            for (int i = 0; i < typeCount; i++) {
+                assignableTargets.put(in.readUTF(), readSet(in));
+            }
+            index.mAssignableTargets = assignableTargets;
+            int supertypeCount = in.readInt();
+            Map<String, String> supertypes = new HashMap<>(supertypeCount * 4 / 3 + 1);
+            for (int i = 0; i < supertypeCount; i++) {
+                supertypes.put(in.readUTF(), in.readUTF());
+            }
+            index.mSupertypes = supertypes;
+            return index;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void write(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(mDependencies.size());
+            for (Map.Entry<String, Set<String>> entry : mDependencies.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeSet(out, entry.getValue());
+            }
+            Map<String, Set<String>> assignableTargets = mAssignableTargets;
+            out.writeInt(assignableTargets.size());
+            for (Map.Entry<String, Set<String>> entry : assignableTargets.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeSet(out, entry.getValue());
+            }
+            Map<String, String> supertypes = mSupertypes;
+            out.writeInt(supertypes.size());
+            for (Map.Entry<String, String> entry : supertypes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 读取 class 的常量池, 把可能影响注入结果的类型加入 types
+     */
+    public static void collect(byte[] classBytes, Collection<String> types) {
+        ClassReader classReader = new ClassReader(classBytes);
+        addType(types, classReader.getClassName());
+        addType(types, classReader.getSuperName());
+        for (String anInterface : classReader.getInterfaces()) {
+            addType(types, anInterface);
+        }
+        char[] buf = new char[classReader.getMaxStringLength()];
+        for (int i = 1; i < classReader.getItemCount(); i++) {
+            int offset = classReader.getItem(i);
+            if (offset == 0) {
+                // long 和 double 占用两个位置
+                continue;
+            }
+            int tag = classReader.readByte(offset - 1);
+            if (tag == METHODREF || tag == INTERFACE_METHODREF) {
+                addType(types, classReader.readClass(offset, buf));
+            } else if (tag == INVOKE_DYNAMIC) {
+                int nameAndType = classReader.getItem(classReader.readUnsignedShort(offset + 2));
+                Type returnType = Type.getReturnType(classReader.readUTF8(nameAndType + 2, buf));
+                if (returnType.getSort() == Type.OBJECT) {
+                    addType(types, returnType.getInternalName());
+                }
+            }
+        }
+    }
+
+    public static Set<String> collect(byte[] classBytes) {
+        Set<String> types = new HashSet<>();
+        collect(classBytes, types);
+        return types;
+    }
+
+    /**
+     * 读取 jar 中所有 class 引用的类型, 用于没有经过 JarRewriter 的 jar(比如从 TransformCache 恢复)
+     */
+    public static Set<String> collectJar(File jar) throws IOException {
+        Set<String> types = new HashSet<>();
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".class") || name.endsWith("module-info.class")) {
+                    continue;
+                }
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    collect(IOUtils.toByteArray(inputStream), types);
+                } catch (IllegalArgumentException ignored) {
+                    // 无法解析的 class 文件也不会被注入
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * JDK 中的类不会继承 Android 的 hook 类, 不需要记录
+     */
+    private static void addType(Collection<String> types, String type) {
+        if (type != null && !type.startsWith("java/") && !type.startsWith("[")) {
+            types.add(type);
+        }
+    }
+
+    private static Set<String> readSet(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Set<String> set = new HashSet<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            set.add(in.readUTF());
+        }
+        return set;
+    }
+
+    private static void writeSet(DataOutputStream out, Set<String> set) throws IOException {
+        out.writeInt(set.size());
+        for (String value : set) {
+            out.writeUTF(value);
+        }
+    }
+}
@@ -22,10 +22,19 @@ public final class ErrorLog extends SystemLog {
     public void info(String message) {
     }
 
+    @Override
+    public boolean isDebugEnabled() {
+        return false;
+    }
+
     @Override
     public void debug(String message) {
     }
 
+    @Override
+    public void debug(String format, Object... args) {
+    }
+
     @Override
     public void warning(String message) {
     }
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * COMPUTE_FRAMES 时通过 ClassHierarchy 计算公共父类, 默认实现会用 ClassLoader 加载类,
+ * 在 transform 中既慢又可能因为找不到类而失败
+ */
+class HierarchyClassWriter extends ClassWriter {
+    private final ClassHierarchy mClassHierarchy;
+
+    HierarchyClassWriter(ClassReader classReader, ClassHierarchy classHierarchy) {
+        super(classReader, ClassWriter.COMPUTE_FRAMES);
+        mClassHierarchy = classHierarchy;
+    }
+
+    @Override
+    protected String getCommonSuperClass(String type1, String type2) {
+        return mClassHierarchy.getCommonSuperClass(type1, type2);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
+import com.growingio.sdk.plugin.autotrack.hook.TargetClass;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 直接扫描 class 文件的常量池, 判断这个类是否可能需要注入, 不需要注入的类可以不经过 ASM 直接原样输出。
+ * <p>
+ * 可能需要注入的类满足以下任意条件:
+ * 1. 父类或接口是 SuperHookClasses 中的类
+ * 2. Methodref/InterfaceMethodref 的方法名是 AroundHookClasses 中的方法, 并且 owner 是对应 Around 类的子类
+ * 3. invokedynamic 生成的函数式接口是 SuperHookClasses 中的类
+ * <p>
+ * 判断是保守的: 遇到无法识别的常量池结构时都认为可能需要注入。
+ */
+public class HookClassFilter {
+    public static final int NONE = 0;
+    public static final int MAY_HOOK = 1;
+    /**
+     * 包含函数式接口为 SuperHookClasses 的 invokedynamic, 需要 DesugaredClassVisitor 处理
+     */
+    public static final int HOOKED_LAMBDA = 1 << 1;
+    private static final int UNKNOWN = MAY_HOOK | HOOKED_LAMBDA;
+
+    private static final int CLASS = 7;
+    private static final int FIELDREF = 9;
+    private static final int METHODREF = 10;
+    private static final int INTERFACE_METHODREF = 11;
+    private static final int NAME_AND_TYPE = 12;
+    private static final int INVOKE_DYNAMIC = 18;
+
+    private final ClassHierarchy mClassHierarchy;
+    private final Set<String> mSuperTargets;
+    private final Set<String> mAroundTargets;
+    private final Set<String> mAroundMethodNames = new HashSet<>();
+    private final Map<String, Boolean> mAroundOwnerCache = new ConcurrentHashMap<>();
+
+    public HookClassFilter(ClassHierarchy classHierarchy) {
+        mClassHierarchy = classHierarchy;
+        mSuperTargets = new HashSet<>(HookClassesConfig.getSuperHookClasses().keySet());
+        Map<String, TargetClass> aroundHookClasses = HookClassesConfig.getAroundHookClasses();
+        mAroundTargets = new HashSet<>(aroundHookClasses.keySet());
+        for (TargetClass targetClass : aroundHookClasses.values()) {
+            for (TargetMethod targetMethod : targetClass.getTargetMethods()) {
+                mAroundMethodNames.add(targetMethod.getName());
+            }
+        }
+    }
+
+    /**
+     * @return false 表示这个类一定不需要注入
+     */
+    public boolean mayContainHook(byte[] bytes) {
+        return classify(bytes) != NONE;
+    }
+
+    /**
+     * @return NONE 或 MAY_HOOK 与 HOOKED_LAMBDA 的组合
+     */
+    public int classify(byte[] bytes) {
+        try {
+            return scan(bytes);
+        } catch (RuntimeException | IOException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private int scan(byte[] bytes) throws IOException {
+        if (bytes.length < 10 || readInt(bytes, 0) != 0xCAFEBABE) {
+            return UNKNOWN;
+        }
+        int count = readUnsignedShort(bytes, 8);
+        int[] offsets = new int[count];
+        int[] tags = new int[count];
+        int offset = 10;
+        boolean hasRef = false;
+        boolean hasIndy = false;
+        for (int i = 1; i < count; i++) {
+            int tag = bytes[offset] & 0xFF;
+            tags[i] = tag;
+            offsets[i] = offset + 1;
+            switch (tag) {
+                case 1:
+                    offset += 3 + readUnsignedShort(bytes, offset + 1);
+                    break;
+                case CLASS:
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    offset += 3;
+                    break;
+                case 15:
+                    offset += 4;
+                    break;
+                case METHODREF:
+                case INTERFACE_METHODREF:
+                    hasRef = true;
+                    offset += 5;
+                    break;
+                case INVOKE_DYNAMIC:
+                    hasIndy = true;
+                    offset += 5;
+                    break;
+                case 3:
+                case 4:
+                case FIELDREF:
+                case NAME_AND_TYPE:
+                case 17:
+                    offset += 5;
+                    break;
+                case 5:
+                case 6:
+                    offset += 9;
+                    i++;
+                    break;
+                default:
+                    return UNKNOWN;
+            }
+        }
+
+        int result = NONE;
+        // access_flags, this_class, super_class, interfaces
+        int superIndex = readUnsignedShort(bytes, offset + 4);
+        if (superIndex != 0 && mSuperTargets.contains(readClassName(bytes, offsets, superIndex))) {
+            result = MAY_HOOK;
+        }
+        int interfacesCount = readUnsignedShort(bytes, offset + 6);
+        for (int i = 0; i < interfacesCount && result == NONE; i++) {
+            int interfaceIndex = readUnsignedShort(bytes, offset + 8 + i * 2);
+            if (mSuperTargets.contains(readClassName(bytes, offsets, interfaceIndex))) {
+                result = MAY_HOOK;
+            }
+        }
+
+        if (!hasRef && !hasIndy) {
+            return result;
+        }
+        for (int i = 1; i < count; i++) {
+            int tag = tags[i];
+            if (result == NONE && (tag == METHODREF || tag == INTERFACE_METHODREF)) {
+                int nameAndType = offsets[readUnsignedShort(bytes, offsets[i] + 2)];
+                String methodName = readUtf8(bytes, offsets, readUnsignedShort(bytes, nameAndType));
+                if (mAroundMethodNames.contains(methodName)
+                        && isAroundOwner(readClassName(bytes, offsets, readUnsignedShort(bytes, offsets[i])))) {
+                    result = MAY_HOOK;
+                }
+            } else if (tag == INVOKE_DYNAMIC) {
+                int nameAndType = offsets[readUnsignedShort(bytes, offsets[i] + 2)];
+                String desc = readUtf8(bytes, offsets, readUnsignedShort(bytes, nameAndType + 2));
+                int index = desc.lastIndexOf(")L");
+                if (index != -1 && mSuperTargets.contains(desc.substring(index + 2, desc.length() - 1))) {
+                    return MAY_HOOK | HOOKED_LAMBDA;
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isAroundOwner(String owner) {
+        Boolean result = mAroundOwnerCache.get(owner);
+        if (result == null) {
+            result = false;
+            for (String target : mAroundTargets) {
+                if (mClassHierarchy.isAssignable(owner, target)) {
+                    result = true;
+                    break;
+                }
+            }
+            mAroundOwnerCache.put(owner, result);
+        }
+        return result;
+    }
+
+    private static String readClassName(byte[] bytes, int[] offsets, int classIndex) throws IOException {
+        return readUtf8(bytes, offsets, readUnsignedShort(bytes, offsets[classIndex]));
+    }
+
+    private static String readUtf8(byte[] bytes, int[] offsets, int utf8Index) throws IOException {
+        int offset = offsets[utf8Index];
+        int length = readUnsignedShort(bytes, offset);
+        int start = offset + 2;
+        for (int i = start; i < start + length; i++) {
+            if ((bytes[i] & 0x80) != 0) {
+                // 非 ASCII 字符按 modified UTF-8 解码
+                return new DataInputStream(new ByteArrayInputStream(bytes, offset, length + 2)).readUTF();
+            }
+        }
+        return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int readUnsignedShort(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+}
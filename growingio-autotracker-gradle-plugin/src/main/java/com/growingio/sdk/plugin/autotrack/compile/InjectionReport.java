@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本次 transform 中每个类的注入记录, 在 transform 结束时按类名排序写入文件, 每行一个类的 JSON:
+ * <pre>
+ * {"class":"a/Foo","injections":[{"type":"SuperBefore","inject":"x/Injector#m(La/Foo;)V","target":"a/Foo#onClick(Landroid/view/View;)V"}]}
+ * </pre>
+ * 只包含本次实际改写的类, 增量编译中未变化的输入和从 TransformCache 恢复的 jar 不会出现在报告中。
+ */
+public class InjectionReport {
+    public static final String TYPE_BEFORE = "Before";
+    public static final String TYPE_AFTER = "After";
+    public static final String TYPE_SUPER_BEFORE = "SuperBefore";
+    public static final String TYPE_SUPER_AFTER = "SuperAfter";
+    public static final String TYPE_LAMBDA_BEFORE = "LambdaBefore";
+    public static final String TYPE_LAMBDA_AFTER = "LambdaAfter";
+
+    private final Map<String, List<Injection>> mClasses = new ConcurrentHashMap<>();
+
+    public void add(String className, List<Injection> injections) {
+        if (!injections.isEmpty()) {
+            mClasses.put(className, injections);
+        }
+    }
+
+    public int getClassCount() {
+        return mClasses.size();
+    }
+
+    public List<Injection> getInjections(String className) {
+        List<Injection> injections = mClasses.get(className);
+        return injections == null ? Collections.<Injection>emptyList() : injections;
+    }
+
+    public void writeTo(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, List<Injection>> entry : new TreeMap<>(mClasses).entrySet()) {
+                writer.write("{\"class\":");
+                writeString(writer, entry.getKey());
+                writer.write(",\"injections\":[");
+                writeInjections(writer, entry.getValue());
+                writer.write("]}\n");
+            }
+        }
+    }
+
+    private static void writeInjections(Writer writer, Collection<Injection> injections) throws IOException {
+        boolean first = true;
+        for (Injection injection : injections) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write("{\"type\":");
+            writeString(writer, injection.getType());
+            writer.write(",\"inject\":");
+            writeString(writer, injection.getInject());
+            writer.write(",\"target\":");
+            writeString(writer, injection.getTarget());
+            writer.write('}');
+        }
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+
+    public static final class Injection {
+        private final String mType;
+        private final String mInject;
+        private final String mTarget;
+
+        public Injection(String type, InjectMethod injectMethod, String targetOwner, String targetName, String targetDesc) {
+            mType = type;
+            mInject = injectMethod.getClassName() + "#" + injectMethod.getMethodName() + injectMethod.getMethodDesc();
+            mTarget = targetOwner + "#" + targetName + targetDesc;
+        }
+
+        public String getType() {
+            return mType;
+        }
+
+        public String getInject() {
+            return mInject;
+        }
+
+        public String getTarget() {
+            return mTarget;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Injection that = (Injection) o;
+
+            return mType.equals(that.mType) && mInject.equals(that.mInject) && mTarget.equals(that.mTarget);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mType.hashCode();
+            result = 31 * result + mInject.hashCode();
+            result = 31 * result + mTarget.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return mType + ": " + mInject + " ===> " + mTarget;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 并行改写 jar 中的 class。
+ * <p>
+ * 读取线程按 jar 中的物理顺序提交 class 到线程池, 写入线程按原顺序取回结果,
+ * 中间最多缓存 mWindowSize 个 entry。非 class 文件和没有修改的 class 直接复制压缩后的原始数据, 不重新压缩。
+ * <p>
+ * 写入线程等待的 entry 如果还没有被线程池执行, 会在当前线程直接执行, 所以在同一个线程池的任务中调用也不会死锁。
+ */
+public class JarRewriter {
+    private final ClassRewriter mClassRewriter;
+    private final Executor mExecutor;
+    private final Log mLog;
+    private final int mWindowSize;
+    private Collection<String> mDependencies;
+
+    public JarRewriter(ClassRewriter classRewriter, Executor executor, Log log) {
+        this(classRewriter, executor, log, Math.max(16, Runtime.getRuntime().availableProcessors() * 8));
+    }
+
+    public JarRewriter(ClassRewriter classRewriter, Executor executor, Log log, int windowSize) {
+        mClassRewriter = classRewriter;
+        mExecutor = executor;
+        mLog = log;
+        mWindowSize = windowSize;
+    }
+
+    /**
+     * 设置后所有 class 引用的类型都会加入 dependencies, 见 DependencyIndex, 需要是线程安全的集合
+     */
+    public void setDependencies(Collection<String> dependencies) {
+        mDependencies = dependencies;
+    }
+
+    /**
+     * 任意 class 改写失败时删除不完整的输出并抛出 AutotrackBuildException, 读写失败时抛出 IOException
+     *
+     * @return 被修改的 class 数量
+     */
+    public int transform(File from, File to) throws IOException {
+        try {
+            return doTransform(from, to);
+        } catch (IOException | RuntimeException | Error e) {
+            if (to.exists() && !to.delete()) {
+                mLog.error("删除不完整的输出失败: " + to);
+            }
+            throw e;
+        }
+    }
+
+    private int doTransform(File from, File to) throws IOException {
+        int modifiedCount = 0;
+        ArrayDeque<PendingEntry> window = new ArrayDeque<>(mWindowSize);
+        try (ZipFile zipFile = new ZipFile(from); ZipArchiveOutputStream out = new ZipArchiveOutputStream(to)) {
+            Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                FutureTask<byte[]> task = null;
+                if (isClassEntry(entry)) {
+                    task = new FutureTask<>(new RewriteTask(zipFile, entry));
+                    mExecutor.execute(task);
+                }
+                window.addLast(new PendingEntry(entry, task));
+                if (window.size() >= mWindowSize) {
+                    modifiedCount += write(zipFile, out, window.pollFirst());
+                }
+            }
+            while (!window.isEmpty()) {
+                modifiedCount += write(zipFile, out, window.pollFirst());
+            }
+        }
+        return modifiedCount;
+    }
+
+    private int write(ZipFile zipFile, ZipArchiveOutputStream out, PendingEntry pendingEntry) throws IOException {
+        FutureTask<byte[]> task = pendingEntry.mTask;
+        ZipArchiveEntry entry = pendingEntry.mEntry;
+        byte[] modified = null;
+        if (task != null) {
+            // 还没被线程池执行时在当前线程执行, 已经在执行时 run() 直接返回
+            task.run();
+            try {
+                modified = task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                // 改写失败不是 IO 错误, 需要让构建失败
+                Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new AutotrackBuildException("transform " + entry.getName() + " failed", (Exception) cause);
+            }
+        }
+
+        if (modified == null) {
+            try (InputStream rawInputStream = zipFile.getRawInputStream(entry)) {
+                out.addRawArchiveEntry(entry, rawInputStream);
+            }
+            return 0;
+        }
+        mLog.info("transforming jar entry: " + entry.getName());
+        ZipArchiveEntry outEntry = new ZipArchiveEntry(entry.getName());
+        outEntry.setComment(entry.getComment());
+        outEntry.setTime(entry.getTime());
+        outEntry.setMethod(ZipArchiveEntry.DEFLATED);
+        out.putArchiveEntry(outEntry);
+        out.write(modified);
+        out.closeArchiveEntry();
+        return 1;
+    }
+
+    private static boolean isClassEntry(ZipArchiveEntry entry) {
+        String name = entry.getName();
+        return !entry.isDirectory() && name.endsWith(".class") && !name.equals("module-info.class");
+    }
+
+    private static final class PendingEntry {
+        final ZipArchiveEntry mEntry;
+        final FutureTask<byte[]> mTask;
+
+        PendingEntry(ZipArchiveEntry entry, FutureTask<byte[]> task) {
+            mEntry = entry;
+            mTask = task;
+        }
+    }
+
+    private final class RewriteTask implements Callable<byte[]> {
+        private final ZipFile mZipFile;
+        private final ZipArchiveEntry mEntry;
+
+        RewriteTask(ZipFile zipFile, ZipArchiveEntry entry) {
+            mZipFile = zipFile;
+            mEntry = entry;
+        }
+
+        @Override
+        public byte[] call() throws Exception {
+            byte[] bytes;
+            try (InputStream inputStream = mZipFile.getInputStream(mEntry)) {
+                bytes = IOUtils.toByteArray(inputStream);
+            }
+            if (mDependencies != null) {
+                try {
+                    DependencyIndex.collect(bytes, mDependencies);
+                } catch (IllegalArgumentException ignored) {
+                    // 无法解析的 class 也不会被注入
+                }
+            }
+            return mClassRewriter.transformClassBytes(bytes);
+        }
+    }
+}
@@ -17,8 +17,18 @@
 package com.growingio.sdk.plugin.autotrack.compile;
 
 public interface Log {
+    /**
+     * 拼接 debug 日志前先判断, 关闭时不产生任何字符串
+     */
+    boolean isDebugEnabled();
+
     void debug(String str);
 
+    /**
+     * 只有 isDebugEnabled 时才会按 String.format 格式化
+     */
+    void debug(String format, Object... args);
+
     void error(String str);
 
     void error(String str, Throwable th);
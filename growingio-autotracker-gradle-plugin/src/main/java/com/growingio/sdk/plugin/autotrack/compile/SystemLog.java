@@ -23,11 +23,23 @@ public class SystemLog implements Log {
         System.out.println("[Autotrack.info] " + message);
     }
 
+    @Override
+    public boolean isDebugEnabled() {
+        return true;
+    }
+
     @Override
     public void debug(String message) {
         System.out.println("[Autotrack.debug] " + message);
     }
 
+    @Override
+    public void debug(String format, Object... args) {
+        if (isDebugEnabled()) {
+            debug(String.format(format, args));
+        }
+    }
+
     @Override
     public void warning(String message) {
         System.err.println("[Autotrack.warn] " + message);
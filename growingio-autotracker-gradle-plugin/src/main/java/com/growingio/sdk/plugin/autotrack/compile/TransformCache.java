@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
+import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
+import com.growingio.sdk.plugin.autotrack.hook.TargetClass;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.Manifest;
+
+/**
+ * 按内容寻址的 transform 产物缓存, 在 clean build、切换 variant 之间共享。
+ * <p>
+ * key 为 SHA-256(fingerprint + 输入文件内容 + 该 jar 引用的类型的继承关系), fingerprint 包含插件版本、frame 模式、
+ * HookClassesConfig 的注入表和 excludePackages。继承关系只取 jar 自己引用的类型(见 DependencyIndex),
+ * 所以工程中新增 Activity 或者 variant 之间的差异不会让没有引用这些类的库 jar 失效。命中时优先使用硬链接, 不支持时复制。
+ * 缓存文件的修改时间在命中时更新, 按 maxAge 和 maxSize 淘汰最久未使用的文件。
+ */
+public class TransformCache {
+    public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE = TimeUnit.DAYS.toMillis(7);
+
+    private static final String CACHE_VERSION = "2";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final File mCacheDir;
+    private final byte[] mFingerprint;
+    private final long mMaxSize;
+    private final long mMaxAge;
+    private final AtomicInteger mHitCount = new AtomicInteger();
+    private final AtomicInteger mMissCount = new AtomicInteger();
+    private final AtomicLong mHitBytes = new AtomicLong();
+    private boolean mUseHardLink = true;
+
+    public TransformCache(File cacheDir, String fingerprint) {
+        this(cacheDir, fingerprint, DEFAULT_MAX_SIZE, DEFAULT_MAX_AGE);
+    }
+
+    public TransformCache(File cacheDir, String fingerprint, long maxSize, long maxAge) {
+        mCacheDir = cacheDir;
+        mFingerprint = (CACHE_VERSION + "\n" + fingerprint).getBytes(StandardCharsets.UTF_8);
+        mMaxSize = maxSize;
+        mMaxAge = maxAge;
+    }
+
+    public void setUseHardLink(boolean useHardLink) {
+        mUseHardLink = useHardLink;
+    }
+
+    public String getKey(File input) throws IOException {
+        return getKey(input, Collections.<String>emptySet(), Collections.<String, Set<String>>emptyMap(), null);
+    }
+
+    /**
+     * @param referencedTypes   DependencyIndex.collectJar(input)
+     * @param assignableTargets ClassHierarchy.getAssignableTargets(), 只取 referencedTypes 中的类型
+     * @param classHierarchy    不为 null 时同时包含 referencedTypes 的所有父类和接口, 用于 FRAMES_COMPUTE 模式
+     */
+    public String getKey(File input, Set<String> referencedTypes, Map<String, Set<String>> assignableTargets,
+                         ClassHierarchy classHierarchy) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(mFingerprint);
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = new FileInputStream(input)) {
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        StringBuilder builder = new StringBuilder();
+        for (String type : new TreeSet<>(referencedTypes)) {
+            Set<String> targets = assignableTargets.get(type);
+            if (targets != null) {
+                builder.append(type).append('=').append(targets).append('\n');
+            }
+            if (classHierarchy != null) {
+                builder.append(type).append('<').append(new TreeSet<>(classHierarchy.getAncestors(type))).append('\n');
+            }
+        }
+        digest.update(builder.toString().getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 把缓存的产物输出到 output
+     *
+     * @return false 表示没有命中
+     */
+    public boolean restore(String key, File output) {
+        File cached = getCacheFile(key);
+        if (!cached.isFile()) {
+            mMissCount.incrementAndGet();
+            return false;
+        }
+        try {
+            output.getParentFile().mkdirs();
+            Files.deleteIfExists(output.toPath());
+            if (!mUseHardLink || !createLink(output, cached)) {
+                Files.copy(cached.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            cached.setLastModified(System.currentTimeMillis());
+            mHitCount.incrementAndGet();
+            mHitBytes.addAndGet(cached.length());
+            return true;
+        } catch (IOException e) {
+            // 可能被其他构建同时淘汰了, 按未命中处理
+            mMissCount.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * 保存 output 到缓存。先写临时文件再重命名, 多个构建同时写入同一个 key 时不会读到不完整的文件
+     */
+    public void store(String key, File output) throws IOException {
+        File cached = getCacheFile(key);
+        if (cached.isFile()) {
+            return;
+        }
+        cached.getParentFile().mkdirs();
+        File tmp = new File(cached.getParentFile(), cached.getName() + "." + Thread.currentThread().getId() + TMP_SUFFIX);
+        try {
+            Files.copy(output.toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp.toPath(), cached.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException ignored) {
+            // 其他构建已经写入
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * 删除超过 maxAge 未使用的文件, 剩余文件超过 maxSize 时从最久未使用的开始删除
+     *
+     * @return 删除的文件数
+     */
+    public int evict() {
+        List<File> files = new ArrayList<>();
+        File[] dirs = mCacheDir.listFiles();
+        if (dirs == null) {
+            return 0;
+        }
+        for (File dir : dirs) {
+            File[] children = dir.listFiles();
+            if (children != null) {
+                files.addAll(Arrays.asList(children));
+            }
+        }
+        long now = System.currentTimeMillis();
+        // 按最近使用时间从新到旧排序, 先读出修改时间避免排序过程中变化
+        TreeMap<Long, List<File>> byTime = new TreeMap<>();
+        for (File file : files) {
+            byTime.computeIfAbsent(file.lastModified(), time -> new ArrayList<>()).add(file);
+        }
+        int deleted = 0;
+        long totalSize = 0;
+        for (Map.Entry<Long, List<File>> entry : byTime.descendingMap().entrySet()) {
+            for (File file : entry.getValue()) {
+                long length = file.length();
+                boolean expired = now - entry.getKey() > mMaxAge;
+                // 临时文件超过一天说明写入的构建已经中断
+                boolean staleTmp = file.getName().endsWith(TMP_SUFFIX) && now - entry.getKey() > TimeUnit.DAYS.toMillis(1);
+                if (expired || staleTmp || totalSize + length > mMaxSize) {
+                    if (file.delete()) {
+                        deleted++;
+                    }
+                } else {
+                    totalSize += length;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    public int getHitCount() {
+        return mHitCount.get();
+    }
+
+    public int getMissCount() {
+        return mMissCount.get();
+    }
+
+    public String getReport() {
+        int hit = mHitCount.get();
+        int total = hit + mMissCount.get();
+        double rate = total == 0 ? 0 : hit * 100.0 / total;
+        return String.format("transform cache: hit %d/%d (%.1f%%), %d KB served from %s",
+                hit, total, rate, mHitBytes.get() / 1024, mCacheDir);
+    }
+
+    private File getCacheFile(String key) {
+        return new File(new File(mCacheDir, key.substring(0, 2)), key.substring(2));
+    }
+
+    private static boolean createLink(File link, File existing) {
+        try {
+            Files.createLink(link.toPath(), existing.toPath());
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // 跨文件系统或文件系统不支持硬链接
+            return false;
+        }
+    }
+
+    /**
+     * 计算影响注入结果的配置指纹, 不包含继承关系, 继承关系按 jar 引用的类型加入 key
+     *
+     * @param pluginVersion   插件版本和 frame 模式
+     * @param excludePackages AutotrackExtension.getExcludePackages()
+     */
+    public static String computeFingerprint(String pluginVersion, String[] excludePackages) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("version=").append(pluginVersion).append('\n');
+        builder.append("exclude=");
+        if (excludePackages != null) {
+            builder.append(new TreeSet<>(Arrays.asList(excludePackages)));
+        }
+        builder.append('\n');
+        appendHookClasses(builder, "super", HookClassesConfig.getSuperHookClasses());
+        appendHookClasses(builder, "around", HookClassesConfig.getAroundHookClasses());
+        MessageDigest digest = newDigest();
+        digest.update(builder.toString().getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 所有 hook 类名, 用于 ClassHierarchy.getAssignableTargets()
+     */
+    public static Collection<String> getHookClassNames() {
+        Set<String> names = new TreeSet<>(HookClassesConfig.getSuperHookClasses().keySet());
+        names.addAll(HookClassesConfig.getAroundHookClasses().keySet());
+        return names;
+    }
+
+    private static void appendHookClasses(StringBuilder builder, String type, Map<String, TargetClass> hookClasses) {
+        for (Map.Entry<String, TargetClass> classEntry : new TreeMap<>(hookClasses).entrySet()) {
+            TreeSet<String> methods = new TreeSet<>();
+            for (TargetMethod targetMethod : classEntry.getValue().getTargetMethods()) {
+                TreeSet<String> injectMethods = new TreeSet<>();
+                for (InjectMethod injectMethod : targetMethod.getInjectMethods()) {
+                    injectMethods.add(injectMethod.getClassName() + "." + injectMethod.getMethodName()
+                            + injectMethod.getMethodDesc() + (injectMethod.isAfter() ? "#after" : "#before"));
+                }
+                methods.add(targetMethod.getName() + targetMethod.getDesc() + injectMethods);
+            }
+            builder.append(type).append(':').append(classEntry.getKey()).append(methods).append('\n');
+        }
+    }
+
+    /**
+     * 从插件 jar 的 MANIFEST 中读取 Gradle-Plugin-Version, 读取不到时返回 null
+     */
+    public static String getPluginVersion() {
+        try {
+            URL location = TransformCache.class.getProtectionDomain().getCodeSource().getLocation();
+            if (location == null || !location.getPath().endsWith(".jar")) {
+                return null;
+            }
+            URLConnection connection = new URL("jar:" + location + "!/META-INF/MANIFEST.MF").openConnection();
+            // 不缓存 JarFile, 避免插件 jar 被一直占用
+            connection.setUseCaches(false);
+            try (InputStream inputStream = connection.getInputStream()) {
+                return new Manifest(inputStream).getMainAttributes().getValue("Gradle-Plugin-Version");
+            }
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
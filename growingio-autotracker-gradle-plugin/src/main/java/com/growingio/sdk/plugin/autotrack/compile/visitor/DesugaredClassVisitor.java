@@ -17,6 +17,7 @@
 package com.growingio.sdk.plugin.autotrack.compile.visitor;
 
 import com.growingio.sdk.plugin.autotrack.compile.Context;
+import com.growingio.sdk.plugin.autotrack.compile.InjectionReport;
 import com.growingio.sdk.plugin.autotrack.compile.Log;
 import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
 import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
@@ -26,27 +27,61 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.AdviceAdapter;
 import org.objectweb.asm.commons.Method;
+import org.objectweb.asm.tree.MethodNode;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.objectweb.asm.Opcodes.ASM5;
 
+/**
+ * 放在 ClassWriter 之前, 为 lambda 在本类中的实现方法插入代码。
+ * 需要插入的方法由上游的 DesugaringClassVisitor 在访问 invokedynamic 时才能确定, 而实现方法可能出现在调用处之前,
+ * 所以这里先把方法缓存为 MethodNode, 到 visitEnd 时再依次输出, 只对包含 hook lambda 的类使用
+ */
 public class DesugaredClassVisitor extends ClassVisitor {
     private final Context mContext;
     private final Log mLog;
-    private final Set<TargetMethod> mNeedInjectTargetMethods;
+    private final Set<TargetMethod> mNeedInjectTargetMethods = new HashSet<>();
+    private final List<MethodNode> mMethodNodes = new ArrayList<>();
 
-    public DesugaredClassVisitor(ClassVisitor cv, Context context, Set<TargetMethod> needInjectTargetMethods) {
+    public DesugaredClassVisitor(ClassVisitor cv, Context context) {
         super(context.getASMVersion(), cv);
         mContext = context;
         mLog = context.getLog();
-        mNeedInjectTargetMethods = needInjectTargetMethods;
+    }
+
+    /**
+     * 由 DesugaringClassVisitor 填充
+     */
+    public Set<TargetMethod> getNeedInjectTargetMethods() {
+        return mNeedInjectTargetMethods;
     }
 
     @Override
     public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
-        MethodVisitor methodVisitor = super.visitMethod(access, name, desc, signature, exceptions);
-        return new DesugaredMethodVisitor(ASM5, methodVisitor, access, name, desc);
+        MethodNode methodNode = new MethodNode(api, access, name, desc, signature, exceptions);
+        mMethodNodes.add(methodNode);
+        return methodNode;
+    }
+
+    @Override
+    public void visitEnd() {
+        for (MethodNode methodNode : mMethodNodes) {
+            String[] exceptions = methodNode.exceptions.toArray(new String[0]);
+            MethodVisitor methodVisitor = super.visitMethod(methodNode.access, methodNode.name, methodNode.desc, methodNode.signature, exceptions);
+            if (methodVisitor == null) {
+                continue;
+            }
+            if (findTargetMethod(methodNode.name, methodNode.desc) != null) {
+                methodVisitor = new DesugaredMethodVisitor(ASM5, methodVisitor, methodNode.access, methodNode.name, methodNode.desc);
+            }
+            methodNode.accept(methodVisitor);
+        }
+        mMethodNodes.clear();
+        super.visitEnd();
     }
 
     private TargetMethod findTargetMethod(String name, String desc) {
@@ -88,6 +123,7 @@ public class DesugaredClassVisitor extends ClassVisitor {
                         loadArgs(originArgsLen - injectArgsLen, injectArgsLen);
                     }
                     invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
+                    mContext.recordInjection(InjectionReport.TYPE_LAMBDA_BEFORE, injectMethod, mContext.getClassName(), mName, mDesc);
                 }
             }
             mContext.markModified();
@@ -108,6 +144,7 @@ public class DesugaredClassVisitor extends ClassVisitor {
                         loadArgs(originArgsLen - injectArgsLen, injectArgsLen);
                     }
                     invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
+                    mContext.recordInjection(InjectionReport.TYPE_LAMBDA_AFTER, injectMethod, mContext.getClassName(), mName, mDesc);
                 }
             }
             mNeedInjectTargetMethods.remove(targetMethod);
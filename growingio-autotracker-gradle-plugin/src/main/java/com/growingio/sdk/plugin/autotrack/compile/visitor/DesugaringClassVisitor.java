@@ -17,6 +17,7 @@
 package com.growingio.sdk.plugin.autotrack.compile.visitor;
 
 import com.growingio.sdk.plugin.autotrack.compile.Context;
+import com.growingio.sdk.plugin.autotrack.compile.InjectionReport;
 import com.growingio.sdk.plugin.autotrack.compile.Log;
 import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
 import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
@@ -45,14 +46,22 @@ public class DesugaringClassVisitor extends ClassVisitor {
     private final Context mContext;
     private final Log mLog;
 
-    private final Set<TargetMethod> mNeedInjectTargetMethods = new HashSet<>();
+    private final Set<TargetMethod> mNeedInjectTargetMethods;
     private final HashMap<String, GenerateMethodBlock> mGenerateMethodBlocks = new HashMap<>();
     private int mGenerateMethodIndex = 0;
 
     public DesugaringClassVisitor(ClassVisitor cv, Context context) {
+        this(cv, context, new HashSet<TargetMethod>());
+    }
+
+    /**
+     * @param needInjectTargetMethods 本类中需要插入代码的 lambda 实现方法会加入这个集合, 一般是下游 DesugaredClassVisitor 的集合
+     */
+    public DesugaringClassVisitor(ClassVisitor cv, Context context, Set<TargetMethod> needInjectTargetMethods) {
         super(ASM5, cv);
         mContext = context;
         mLog = context.getLog();
+        mNeedInjectTargetMethods = needInjectTargetMethods;
     }
 
     @Override
@@ -80,7 +89,7 @@ public class DesugaringClassVisitor extends ClassVisitor {
     }
 
     private void generateMethod(GenerateMethodBlock methodBlock) {
-        mLog.debug(TAG + ": generateMethod: " + methodBlock.mMethodName + "#" + methodBlock.mMethodDesc);
+        mLog.debug("%s: generateMethod: %s#%s", TAG, methodBlock.mMethodName, methodBlock.mMethodDesc);
         int access = Opcodes.ACC_PRIVATE + Opcodes.ACC_STATIC + Opcodes.ACC_SYNTHETIC;
         MethodVisitor visitor = super.visitMethod(access, methodBlock.mMethodName, methodBlock.mMethodDesc, null, null);
         GeneratorAdapter adapter = new GeneratorAdapter(visitor, access, methodBlock.mMethodName, methodBlock.mMethodDesc);
@@ -98,6 +107,7 @@ public class DesugaringClassVisitor extends ClassVisitor {
                     }
                 }
                 adapter.invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
+                mContext.recordInjection(InjectionReport.TYPE_LAMBDA_BEFORE, injectMethod, mContext.getClassName(), methodBlock.mMethodName, methodBlock.mMethodDesc);
             }
         }
 
@@ -131,6 +141,7 @@ public class DesugaringClassVisitor extends ClassVisitor {
                     }
                 }
                 adapter.invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
+                mContext.recordInjection(InjectionReport.TYPE_LAMBDA_AFTER, injectMethod, mContext.getClassName(), methodBlock.mMethodName, methodBlock.mMethodDesc);
             }
         }
 
@@ -171,7 +182,7 @@ public class DesugaringClassVisitor extends ClassVisitor {
             if (lambdaMethodName.equals(handle.getName())) {
                 // 校验实现方法是不是实现了对应接口的实现方法， 如果是则过滤，交给 InjectSuperClassVisitor 进行处理
                 if (mContext.isAssignable(handle.getOwner(), interfaceClazzName)) {
-                    mLog.debug(String.format("DesugaringClassVisitor(%s): skipped on method %s", mContext.getClassName(), mName));
+                    mLog.debug("DesugaringClassVisitor(%s): skipped on method %s", mContext.getClassName(), mName);
                     super.visitInvokeDynamicInsn(lambdaMethodName, desc, bsm, bsmArgs);
                     return;
                 }
@@ -17,6 +17,7 @@
 package com.growingio.sdk.plugin.autotrack.compile.visitor;
 
 import com.growingio.sdk.plugin.autotrack.compile.Context;
+import com.growingio.sdk.plugin.autotrack.compile.InjectionReport;
 import com.growingio.sdk.plugin.autotrack.compile.Log;
 import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
 import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
@@ -30,6 +31,7 @@ import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.GeneratorAdapter;
 import org.objectweb.asm.commons.Method;
 
+import java.util.Arrays;
 import java.util.Map;
 
 public class InjectAroundClassVisitor extends ClassVisitor {
@@ -61,6 +63,15 @@ public class InjectAroundClassVisitor extends ClassVisitor {
             super(mContext.getASMVersion(), mv, access, name, desc);
         }
 
+        /**
+         * newLocal 创建的临时变量只在 hook 调用前后紧挨着的指令中使用, 注入的代码没有跳转,
+         * 所以之后的 frame 中这些变量都是 TOP。否则从注入点之前跳转过来的分支会因为变量未初始化而无法通过校验
+         */
+        @Override
+        protected void updateNewLocals(Object[] newLocals) {
+            Arrays.fill(newLocals, Opcodes.TOP);
+        }
+
         @Override
         public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
             TargetMethod targetMethod = findTargetMethod(owner, name, desc);
@@ -86,7 +97,8 @@ public class InjectAroundClassVisitor extends ClassVisitor {
                             loadLocal(tmpLocal);
                         }
                         invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
-                        mLog.debug(mCurrentClass + ": " + injectMethod.getClassName() + "#" + injectMethod.getMethodName() + injectMethod.getMethodDesc() + " ===Before===> " + owner + "#" + name + desc);
+                        mContext.recordInjection(InjectionReport.TYPE_BEFORE, injectMethod, owner, name, desc);
+                        mLog.debug("%s: %s#%s%s ===Before===> %s#%s%s", mCurrentClass, injectMethod.getClassName(), injectMethod.getMethodName(), injectMethod.getMethodDesc(), owner, name, desc);
                     }
                 }
 
@@ -108,7 +120,8 @@ public class InjectAroundClassVisitor extends ClassVisitor {
                             loadLocal(tmpLocal);
                         }
                         invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
-                        mLog.debug(mCurrentClass + ": " + injectMethod.getClassName() + "#" + injectMethod.getMethodName() + injectMethod.getMethodDesc() + " ===After===> " + owner + "#" + name + desc);
+                        mContext.recordInjection(InjectionReport.TYPE_AFTER, injectMethod, owner, name, desc);
+                        mLog.debug("%s: %s#%s%s ===After===> %s#%s%s", mCurrentClass, injectMethod.getClassName(), injectMethod.getMethodName(), injectMethod.getMethodDesc(), owner, name, desc);
                     }
                 }
                 mContext.markModified();
@@ -129,26 +142,10 @@ public class InjectAroundClassVisitor extends ClassVisitor {
     private TargetClass findTargetClass(String className) {
         Map<String, TargetClass> aroundHookClasses = HookClassesConfig.getAroundHookClasses();
         for (String clazz : aroundHookClasses.keySet()) {
-            if (isAssignable(className, clazz)) {
+            if (mContext.isAssignable(className, clazz)) {
                 return aroundHookClasses.get(clazz);
             }
         }
         return null;
     }
-
-    private boolean isAssignable(String subClassName, String superClassName) {
-        if (subClassName.contains("/")) {
-            subClassName = subClassName.replace("/", ".");
-        }
-        if (superClassName.contains("/")) {
-            superClassName = superClassName.replace("/", ".");
-        }
-        try {
-            Class<?> subClass = mContext.getClassLoader().loadClass(subClassName);
-            Class<?> superClass = mContext.getClassLoader().loadClass(superClassName);
-            return superClass.isAssignableFrom(subClass);
-        } catch (ClassNotFoundException | NoClassDefFoundError ignored) {
-        }
-        return false;
-    }
 }
@@ -17,6 +17,7 @@
 package com.growingio.sdk.plugin.autotrack.compile.visitor;
 
 import com.growingio.sdk.plugin.autotrack.compile.Context;
+import com.growingio.sdk.plugin.autotrack.compile.InjectionReport;
 import com.growingio.sdk.plugin.autotrack.compile.Log;
 import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
 import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
@@ -96,7 +97,8 @@ public class InjectSuperClassVisitor extends ClassVisitor {
                             mg.loadThis();
                             mg.loadArgs();
                             mg.invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
-                            mLog.debug("Method Add: " + injectMethod.getClassName() + "#" + injectMethod.getMethodName() + injectMethod.getMethodDesc() + " ===SuperBefore===> " + mCurrentClass + "#" + targetMethod.getName() + targetMethod.getDesc());
+                            mContext.recordInjection(InjectionReport.TYPE_SUPER_BEFORE, injectMethod, mCurrentClass, targetMethod.getName(), targetMethod.getDesc());
+                            mLog.debug("Method Add: %s#%s%s ===SuperBefore===> %s#%s%s", injectMethod.getClassName(), injectMethod.getMethodName(), injectMethod.getMethodDesc(), mCurrentClass, targetMethod.getName(), targetMethod.getDesc());
                         }
                     }
                     mg.loadThis();
@@ -107,7 +109,8 @@ public class InjectSuperClassVisitor extends ClassVisitor {
                             mg.loadThis();
                             mg.loadArgs();
                             mg.invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
-                            mLog.debug("Method Add: " + injectMethod.getClassName() + "#" + injectMethod.getMethodName() + injectMethod.getMethodDesc() + " ===SuperAfter===> " + mCurrentClass + "#" + targetMethod.getName() + targetMethod.getDesc());
+                            mContext.recordInjection(InjectionReport.TYPE_SUPER_AFTER, injectMethod, mCurrentClass, targetMethod.getName(), targetMethod.getDesc());
+                            mLog.debug("Method Add: %s#%s%s ===SuperAfter===> %s#%s%s", injectMethod.getClassName(), injectMethod.getMethodName(), injectMethod.getMethodDesc(), mCurrentClass, targetMethod.getName(), targetMethod.getDesc());
                         }
                     }
                     mg.returnValue();
@@ -138,7 +141,8 @@ public class InjectSuperClassVisitor extends ClassVisitor {
                     loadThis();
                     loadArgs();
                     invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
-                    mLog.debug("Method Insert: " + injectMethod.getClassName() + "#" + injectMethod.getMethodName() + injectMethod.getMethodDesc() + " ===SuperBefore===> " + mCurrentClass + "#" + mTargetMethodName + mTargetMethodDesc);
+                    mContext.recordInjection(InjectionReport.TYPE_SUPER_BEFORE, injectMethod, mCurrentClass, mTargetMethodName, mTargetMethodDesc);
+                    mLog.debug("Method Insert: %s#%s%s ===SuperBefore===> %s#%s%s", injectMethod.getClassName(), injectMethod.getMethodName(), injectMethod.getMethodDesc(), mCurrentClass, mTargetMethodName, mTargetMethodDesc);
                 }
             }
         }
@@ -150,8 +154,9 @@ public class InjectSuperClassVisitor extends ClassVisitor {
                     loadThis();
                     loadArgs();
                     invokeStatic(Type.getObjectType(injectMethod.getClassName()), new Method(injectMethod.getMethodName(), injectMethod.getMethodDesc()));
+                    mContext.recordInjection(InjectionReport.TYPE_SUPER_AFTER, injectMethod, mCurrentClass, mTargetMethodName, mTargetMethodDesc);
+                    mLog.debug("Method Insert: %s#%s%s ===SuperAfter===> %s#%s%s", injectMethod.getClassName(), injectMethod.getMethodName(), injectMethod.getMethodDesc(), mCurrentClass, mTargetMethodName, mTargetMethodDesc);
                 }
-                mLog.debug("Method Insert: " + injectMethod.getClassName() + "#" + injectMethod.getMethodName() + injectMethod.getMethodDesc() + " ===SuperAfter===> " + mCurrentClass + "#" + mTargetMethodName + mTargetMethodDesc);
             }
             super.onMethodExit(opcode);
         }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.hook;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * inject-compiler 生成的 hook 类查找表, 以只读 Map 的形式提供给原有的调用方。
+ * <p>
+ * keys 是按完美哈希排好的槽位, 每个类名对应唯一的槽位: (hashCode * seed) >>> shift,
+ * get 只需要一次乘法和一次 equals, 没有冲突链。seed 和 shift 由 inject-compiler 在编译期搜索得到,
+ * 计算方式必须和 inject-compiler 的 PerfectHash 保持一致。
+ */
+public final class HookClassTable extends AbstractMap<String, TargetClass> {
+    private final String[] mKeys;
+    private final TargetClass[] mValues;
+    private final int mSeed;
+    private final int mShift;
+    private volatile Set<Entry<String, TargetClass>> mEntrySet;
+
+    /**
+     * @param values 和 keys 同样大小, 可以在生成类的 static 代码块中再填充
+     */
+    public HookClassTable(String[] keys, TargetClass[] values, int seed, int shift) {
+        mKeys = keys;
+        mValues = values;
+        mSeed = seed;
+        mShift = shift;
+    }
+
+    public static int slot(String key, int seed, int shift) {
+        return (key.hashCode() * seed) >>> shift;
+    }
+
+    @Override
+    public TargetClass get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int slot = slot((String) key, mSeed, mShift);
+        return key.equals(mKeys[slot]) ? mValues[slot] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Set<Entry<String, TargetClass>> entrySet() {
+        // values 在生成类的 static 代码块中填充, 所以不能在构造时创建。JarRewriter 的多个线程可能同时调用,
+        // 通过 volatile 安全发布, 并发时最多重复创建一个相同的只读集合
+        Set<Entry<String, TargetClass>> entrySet = mEntrySet;
+        if (entrySet == null) {
+            List<Entry<String, TargetClass>> entries = new ArrayList<>();
+            for (int i = 0; i < mKeys.length; i++) {
+                if (mKeys[i] != null && mValues[i] != null) {
+                    entries.add(new SimpleImmutableEntry<>(mKeys[i], mValues[i]));
+                }
+            }
+            entrySet = Collections.unmodifiableSet(new LinkedHashSet<>(entries));
+            mEntrySet = entrySet;
+        }
+        return entrySet;
+    }
+}
@@ -15,132 +15,694 @@
  */
 package com.growingio.sdk.plugin.autotrack.hook;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * 该Class是由 inject-compiler 自动生成的，请不要随意更改！ */
 public class HookClassesConfig {
-  private static final Map<String, TargetClass> AROUND_HOOK_CLASSES = new HashMap<>();
+  private static final TargetMethod[] TARGET_METHODS = new TargetMethod[76];
 
-  private static final Map<String, TargetClass> SUPER_HOOK_CLASSES = new HashMap<>();
+  private static final String[] AROUND_HOOK_KEYS = {"android/webkit/WebView", "android/app/AlertDialog", "com/tencent/smtt/sdk/WebView", "com/uc/webview/export/WebView", null, null, null, null};
+
+  private static final TargetClass[] AROUND_HOOK_VALUES = new TargetClass[8];
+
+  private static final Map<String, TargetClass> AROUND_HOOK_CLASSES = new HookClassTable(AROUND_HOOK_KEYS, AROUND_HOOK_VALUES, 0x9e3779b9, 29);
+
+  private static final String[] SUPER_HOOK_KEYS = {null, "android/widget/ExpandableListView$OnChildClickListener", "android/app/Activity", null, "android/widget/RadioGroup$OnCheckedChangeListener", null, null, "android/app/DialogFragment", "android/app/AliasActivity", "android/preference/PreferenceActivity", null, "android/app/ListActivity", "android/support/v4/app/Fragment", null, null, "android/widget/AdapterView$OnItemSelectedListener", null, "android/app/NativeActivity", "android/app/Fragment", null, "android/widget/PopupMenu$OnMenuItemClickListener", null, null, "android/widget/RatingBar$OnRatingBarChangeListener", "android/widget/AdapterView$OnItemClickListener", "android/preference/PreferenceFragment", null, null, "android/app/ListFragment", "android/widget/Toolbar$OnMenuItemClickListener", null, null, null, null, null, "android/widget/CompoundButton$OnCheckedChangeListener", null, null, null, "android/content/DialogInterface$OnClickListener", null, null, null, "android/app/TabActivity", null, "android/view/View$OnClickListener", "android/app/LauncherActivity", null, "android/widget/ActionMenuView$OnMenuItemClickListener", "android/app/ActivityGroup", null, "android/app/ExpandableListActivity", "android/accounts/AccountAuthenticatorActivity", null, "android/webkit/WebViewFragment", null, null, null, "androidx/fragment/app/Fragment", "android/widget/ExpandableListView$OnGroupClickListener", null, null, null, "android/widget/SeekBar$OnSeekBarChangeListener"};
+
+  private static final TargetClass[] SUPER_HOOK_VALUES = new TargetClass[64];
+
+  private static final Map<String, TargetClass> SUPER_HOOK_CLASSES = new HookClassTable(SUPER_HOOK_KEYS, SUPER_HOOK_VALUES, 0x9e37a421, 26);
 
   static {
-    putAroundHookMethod("android/webkit/WebView", "loadUrl", "(Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "webkitWebViewLoadUrl", "(Landroid/webkit/WebView;Ljava/lang/String;)V", false);
-    putAroundHookMethod("android/webkit/WebView", "loadUrl", "(Ljava/lang/String;Ljava/util/Map;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "webkitWebViewLoadUrl", "(Landroid/webkit/WebView;Ljava/lang/String;Ljava/util/Map;)V", false);
-    putAroundHookMethod("android/webkit/WebView", "loadData", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "webkitWebViewLoadData", "(Landroid/webkit/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
-    putAroundHookMethod("com/tencent/smtt/sdk/WebView", "loadUrl", "(Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "x5WebViewLoadUrl", "(Lcom/tencent/smtt/sdk/WebView;Ljava/lang/String;)V", false);
-    putAroundHookMethod("com/tencent/smtt/sdk/WebView", "loadUrl", "(Ljava/lang/String;Ljava/util/Map;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "x5WebViewLoadUrl", "(Lcom/tencent/smtt/sdk/WebView;Ljava/lang/String;Ljava/util/Map;)V", false);
-    putAroundHookMethod("com/tencent/smtt/sdk/WebView", "loadData", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "x5WebViewLoadData", "(Lcom/tencent/smtt/sdk/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
-    putAroundHookMethod("com/uc/webview/export/WebView", "loadUrl", "(Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "ucWebViewLoadUrl", "(Lcom/uc/webview/export/WebView;Ljava/lang/String;)V", false);
-    putAroundHookMethod("com/uc/webview/export/WebView", "loadUrl", "(Ljava/lang/String;Ljava/util/Map;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "ucWebViewLoadUrl", "(Lcom/uc/webview/export/WebView;Ljava/lang/String;Ljava/util/Map;)V", false);
-    putAroundHookMethod("com/uc/webview/export/WebView", "loadData", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "ucWebViewLoadData", "(Lcom/uc/webview/export/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
-    putAroundHookMethod("android/webkit/WebView", "loadDataWithBaseURL", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "webkitWebViewLoadDataWithBaseURL", "(Landroid/webkit/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
-    putAroundHookMethod("com/tencent/smtt/sdk/WebView", "loadDataWithBaseURL", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "x5WebViewLoadDataWithBaseURL", "(Lcom/tencent/smtt/sdk/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
-    putAroundHookMethod("com/uc/webview/export/WebView", "loadDataWithBaseURL", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "ucWebViewLoadDataWithBaseURL", "(Lcom/uc/webview/export/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
-    putAroundHookMethod("android/app/AlertDialog", "show", "()V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "alertDialogShow", "(Landroid/app/AlertDialog;)V", true);
-    putSuperHookMethod("android/view/View$OnClickListener", "onClick", "(Landroid/view/View;)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "viewOnClick", "(Landroid/view/View$OnClickListener;Landroid/view/View;)V", false);
-    putSuperHookMethod("android/content/DialogInterface$OnClickListener", "onClick", "(Landroid/content/DialogInterface;I)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "dialogOnClick", "(Landroid/content/DialogInterface$OnClickListener;Landroid/content/DialogInterface;I)V", false);
-    putSuperHookMethod("android/widget/AdapterView$OnItemClickListener", "onItemClick", "(Landroid/widget/AdapterView;Landroid/view/View;IJ)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "adapterViewOnItemClick", "(Landroid/widget/AdapterView$OnItemClickListener;Landroid/widget/AdapterView;Landroid/view/View;IJ)V", false);
-    putSuperHookMethod("android/widget/AdapterView$OnItemSelectedListener", "onItemSelected", "(Landroid/widget/AdapterView;Landroid/view/View;IJ)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "adapterViewOnItemSelected", "(Landroid/widget/AdapterView$OnItemSelectedListener;Landroid/widget/AdapterView;Landroid/view/View;IJ)V", false);
-    putSuperHookMethod("android/widget/ExpandableListView$OnGroupClickListener", "onGroupClick", "(Landroid/widget/ExpandableListView;Landroid/view/View;IJ)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "expandableListViewOnGroupClick", "(Landroid/widget/ExpandableListView$OnGroupClickListener;Landroid/widget/ExpandableListView;Landroid/view/View;IJ)V", false);
-    putSuperHookMethod("android/widget/ExpandableListView$OnChildClickListener", "onChildClick", "(Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "expandableListViewOnChildClick", "(Landroid/widget/ExpandableListView$OnChildClickListener;Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)V", false);
-    putSuperHookMethod("android/app/ExpandableListActivity", "onChildClick", "(Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "expandableListActivityOnChildClick", "(Landroid/app/ExpandableListActivity;Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)V", false);
-    putSuperHookMethod("android/app/ListActivity", "onListItemClick", "(Landroid/widget/ListView;Landroid/view/View;IJ)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "listActivityOnListItemClick", "(Landroid/app/ListActivity;Landroid/widget/ListView;Landroid/view/View;IJ)V", false);
-    putSuperHookMethod("android/widget/CompoundButton$OnCheckedChangeListener", "onCheckedChanged", "(Landroid/widget/CompoundButton;Z)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "compoundButtonOnChecked", "(Landroid/widget/CompoundButton$OnCheckedChangeListener;Landroid/widget/CompoundButton;Z)V", false);
-    putSuperHookMethod("android/widget/RadioGroup$OnCheckedChangeListener", "onCheckedChanged", "(Landroid/widget/RadioGroup;I)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "radioGroupOnChecked", "(Landroid/widget/RadioGroup$OnCheckedChangeListener;Landroid/widget/RadioGroup;I)V", false);
-    putSuperHookMethod("android/widget/RatingBar$OnRatingBarChangeListener", "onRatingChanged", "(Landroid/widget/RatingBar;FZ)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "ratingBarOnRatingBarChange", "(Landroid/widget/RatingBar$OnRatingBarChangeListener;Landroid/widget/RatingBar;FZ)V", false);
-    putSuperHookMethod("android/widget/SeekBar$OnSeekBarChangeListener", "onStopTrackingTouch", "(Landroid/widget/SeekBar;)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "seekBarOnSeekBarChange", "(Landroid/widget/SeekBar$OnSeekBarChangeListener;Landroid/widget/SeekBar;)V", false);
-    putSuperHookMethod("android/widget/Toolbar$OnMenuItemClickListener", "onMenuItemClick", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "toolbarOnMenuItemClick", "(Landroid/widget/Toolbar$OnMenuItemClickListener;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/widget/ActionMenuView$OnMenuItemClickListener", "onMenuItemClick", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "actionMenuViewOnMenuItemClick", "(Landroid/widget/ActionMenuView$OnMenuItemClickListener;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/widget/PopupMenu$OnMenuItemClickListener", "onMenuItemClick", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "popupMenuOnMenuItemClick", "(Landroid/widget/PopupMenu$OnMenuItemClickListener;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/support/v4/app/Fragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "v4FragmentOnResume", "(Landroid/support/v4/app/Fragment;)V", true);
-    putSuperHookMethod("android/support/v4/app/Fragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "v4FragmentSetUserVisibleHint", "(Landroid/support/v4/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/support/v4/app/Fragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "v4FragmentOnHiddenChanged", "(Landroid/support/v4/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/support/v4/app/Fragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "v4FragmentOnDestroyView", "(Landroid/support/v4/app/Fragment;)V", true);
-    putSuperHookMethod("androidx/fragment/app/Fragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "androidxFragmentOnResume", "(Landroidx/fragment/app/Fragment;)V", true);
-    putSuperHookMethod("androidx/fragment/app/Fragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "androidxFragmentSetUserVisibleHint", "(Landroidx/fragment/app/Fragment;Z)V", true);
-    putSuperHookMethod("androidx/fragment/app/Fragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "androidxFragmentOnHiddenChanged", "(Landroidx/fragment/app/Fragment;Z)V", true);
-    putSuperHookMethod("androidx/fragment/app/Fragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "androidxFragmentOnDestroyView", "(Landroidx/fragment/app/Fragment;)V", true);
-    putSuperHookMethod("android/app/Activity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/accounts/AccountAuthenticatorActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/app/ActivityGroup", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/app/AliasActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/app/ExpandableListActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/app/LauncherActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/app/ListActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/app/NativeActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/app/TabActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/preference/PreferenceActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
-    putSuperHookMethod("android/app/Activity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/accounts/AccountAuthenticatorActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/app/ActivityGroup", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/app/AliasActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/app/ExpandableListActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/app/LauncherActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/app/ListActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/app/NativeActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/app/TabActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/preference/PreferenceActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
-    putSuperHookMethod("android/app/Fragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
-    putSuperHookMethod("android/app/DialogFragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
-    putSuperHookMethod("android/app/ListFragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
-    putSuperHookMethod("android/preference/PreferenceFragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
-    putSuperHookMethod("android/webkit/WebViewFragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
-    putSuperHookMethod("android/app/Fragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/app/DialogFragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/app/ListFragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/preference/PreferenceFragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/webkit/WebViewFragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/app/Fragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/app/DialogFragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/app/ListFragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/preference/PreferenceFragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/webkit/WebViewFragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
-    putSuperHookMethod("android/app/Fragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
-    putSuperHookMethod("android/app/DialogFragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
-    putSuperHookMethod("android/app/ListFragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
-    putSuperHookMethod("android/preference/PreferenceFragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
-    putSuperHookMethod("android/webkit/WebViewFragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(AROUND_HOOK_VALUES, 0, 0, 0, "android/webkit/WebView", "loadUrl", "(Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "webkitWebViewLoadUrl", "(Landroid/webkit/WebView;Ljava/lang/String;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 0, 0, 1, "android/webkit/WebView", "loadUrl", "(Ljava/lang/String;Ljava/util/Map;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "webkitWebViewLoadUrl", "(Landroid/webkit/WebView;Ljava/lang/String;Ljava/util/Map;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 0, 0, 2, "android/webkit/WebView", "loadData", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "webkitWebViewLoadData", "(Landroid/webkit/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 2, 1, 3, "com/tencent/smtt/sdk/WebView", "loadUrl", "(Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "x5WebViewLoadUrl", "(Lcom/tencent/smtt/sdk/WebView;Ljava/lang/String;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 2, 1, 4, "com/tencent/smtt/sdk/WebView", "loadUrl", "(Ljava/lang/String;Ljava/util/Map;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "x5WebViewLoadUrl", "(Lcom/tencent/smtt/sdk/WebView;Ljava/lang/String;Ljava/util/Map;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 2, 1, 5, "com/tencent/smtt/sdk/WebView", "loadData", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "x5WebViewLoadData", "(Lcom/tencent/smtt/sdk/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 3, 2, 6, "com/uc/webview/export/WebView", "loadUrl", "(Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "ucWebViewLoadUrl", "(Lcom/uc/webview/export/WebView;Ljava/lang/String;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 3, 2, 7, "com/uc/webview/export/WebView", "loadUrl", "(Ljava/lang/String;Ljava/util/Map;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "ucWebViewLoadUrl", "(Lcom/uc/webview/export/WebView;Ljava/lang/String;Ljava/util/Map;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 3, 2, 8, "com/uc/webview/export/WebView", "loadData", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "ucWebViewLoadData", "(Lcom/uc/webview/export/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 0, 0, 9, "android/webkit/WebView", "loadDataWithBaseURL", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "webkitWebViewLoadDataWithBaseURL", "(Landroid/webkit/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 2, 1, 10, "com/tencent/smtt/sdk/WebView", "loadDataWithBaseURL", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "x5WebViewLoadDataWithBaseURL", "(Lcom/tencent/smtt/sdk/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 3, 2, 11, "com/uc/webview/export/WebView", "loadDataWithBaseURL", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", "com/growingio/android/sdk/autotrack/hybrid/WebViewInjector", "ucWebViewLoadDataWithBaseURL", "(Lcom/uc/webview/export/WebView;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
+    putHookMethod(AROUND_HOOK_VALUES, 1, 3, 12, "android/app/AlertDialog", "show", "()V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "alertDialogShow", "(Landroid/app/AlertDialog;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 45, 4, 13, "android/view/View$OnClickListener", "onClick", "(Landroid/view/View;)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "viewOnClick", "(Landroid/view/View$OnClickListener;Landroid/view/View;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 39, 5, 14, "android/content/DialogInterface$OnClickListener", "onClick", "(Landroid/content/DialogInterface;I)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "dialogOnClick", "(Landroid/content/DialogInterface$OnClickListener;Landroid/content/DialogInterface;I)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 24, 6, 15, "android/widget/AdapterView$OnItemClickListener", "onItemClick", "(Landroid/widget/AdapterView;Landroid/view/View;IJ)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "adapterViewOnItemClick", "(Landroid/widget/AdapterView$OnItemClickListener;Landroid/widget/AdapterView;Landroid/view/View;IJ)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 15, 7, 16, "android/widget/AdapterView$OnItemSelectedListener", "onItemSelected", "(Landroid/widget/AdapterView;Landroid/view/View;IJ)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "adapterViewOnItemSelected", "(Landroid/widget/AdapterView$OnItemSelectedListener;Landroid/widget/AdapterView;Landroid/view/View;IJ)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 59, 8, 17, "android/widget/ExpandableListView$OnGroupClickListener", "onGroupClick", "(Landroid/widget/ExpandableListView;Landroid/view/View;IJ)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "expandableListViewOnGroupClick", "(Landroid/widget/ExpandableListView$OnGroupClickListener;Landroid/widget/ExpandableListView;Landroid/view/View;IJ)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 1, 9, 18, "android/widget/ExpandableListView$OnChildClickListener", "onChildClick", "(Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "expandableListViewOnChildClick", "(Landroid/widget/ExpandableListView$OnChildClickListener;Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 51, 10, 19, "android/app/ExpandableListActivity", "onChildClick", "(Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "expandableListActivityOnChildClick", "(Landroid/app/ExpandableListActivity;Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 11, 11, 20, "android/app/ListActivity", "onListItemClick", "(Landroid/widget/ListView;Landroid/view/View;IJ)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "listActivityOnListItemClick", "(Landroid/app/ListActivity;Landroid/widget/ListView;Landroid/view/View;IJ)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 35, 12, 21, "android/widget/CompoundButton$OnCheckedChangeListener", "onCheckedChanged", "(Landroid/widget/CompoundButton;Z)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "compoundButtonOnChecked", "(Landroid/widget/CompoundButton$OnCheckedChangeListener;Landroid/widget/CompoundButton;Z)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 4, 13, 22, "android/widget/RadioGroup$OnCheckedChangeListener", "onCheckedChanged", "(Landroid/widget/RadioGroup;I)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "radioGroupOnChecked", "(Landroid/widget/RadioGroup$OnCheckedChangeListener;Landroid/widget/RadioGroup;I)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 23, 14, 23, "android/widget/RatingBar$OnRatingBarChangeListener", "onRatingChanged", "(Landroid/widget/RatingBar;FZ)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "ratingBarOnRatingBarChange", "(Landroid/widget/RatingBar$OnRatingBarChangeListener;Landroid/widget/RatingBar;FZ)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 63, 15, 24, "android/widget/SeekBar$OnSeekBarChangeListener", "onStopTrackingTouch", "(Landroid/widget/SeekBar;)V", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "seekBarOnSeekBarChange", "(Landroid/widget/SeekBar$OnSeekBarChangeListener;Landroid/widget/SeekBar;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 29, 16, 25, "android/widget/Toolbar$OnMenuItemClickListener", "onMenuItemClick", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "toolbarOnMenuItemClick", "(Landroid/widget/Toolbar$OnMenuItemClickListener;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 48, 17, 26, "android/widget/ActionMenuView$OnMenuItemClickListener", "onMenuItemClick", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "actionMenuViewOnMenuItemClick", "(Landroid/widget/ActionMenuView$OnMenuItemClickListener;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 20, 18, 27, "android/widget/PopupMenu$OnMenuItemClickListener", "onMenuItemClick", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "popupMenuOnMenuItemClick", "(Landroid/widget/PopupMenu$OnMenuItemClickListener;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 12, 19, 28, "android/support/v4/app/Fragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "v4FragmentOnResume", "(Landroid/support/v4/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 12, 19, 29, "android/support/v4/app/Fragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "v4FragmentSetUserVisibleHint", "(Landroid/support/v4/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 12, 19, 30, "android/support/v4/app/Fragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "v4FragmentOnHiddenChanged", "(Landroid/support/v4/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 12, 19, 31, "android/support/v4/app/Fragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "v4FragmentOnDestroyView", "(Landroid/support/v4/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 58, 20, 32, "androidx/fragment/app/Fragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "androidxFragmentOnResume", "(Landroidx/fragment/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 58, 20, 33, "androidx/fragment/app/Fragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "androidxFragmentSetUserVisibleHint", "(Landroidx/fragment/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 58, 20, 34, "androidx/fragment/app/Fragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "androidxFragmentOnHiddenChanged", "(Landroidx/fragment/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 58, 20, 35, "androidx/fragment/app/Fragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "androidxFragmentOnDestroyView", "(Landroidx/fragment/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 2, 21, 36, "android/app/Activity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 52, 22, 37, "android/accounts/AccountAuthenticatorActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 49, 23, 38, "android/app/ActivityGroup", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 8, 24, 39, "android/app/AliasActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 51, 10, 40, "android/app/ExpandableListActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 46, 25, 41, "android/app/LauncherActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 11, 11, 42, "android/app/ListActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 17, 26, 43, "android/app/NativeActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 43, 27, 44, "android/app/TabActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 9, 28, 45, "android/preference/PreferenceActivity", "onNewIntent", "(Landroid/content/Intent;)V", "com/growingio/android/sdk/autotrack/inject/ActivityInjector", "onActivityNewIntent", "(Landroid/app/Activity;Landroid/content/Intent;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 2, 21, 46, "android/app/Activity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 52, 22, 47, "android/accounts/AccountAuthenticatorActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 49, 23, 48, "android/app/ActivityGroup", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 8, 24, 49, "android/app/AliasActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 51, 10, 50, "android/app/ExpandableListActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 46, 25, 51, "android/app/LauncherActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 11, 11, 52, "android/app/ListActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 17, 26, 53, "android/app/NativeActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 43, 27, 54, "android/app/TabActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 9, 28, 55, "android/preference/PreferenceActivity", "onOptionsItemSelected", "(Landroid/view/MenuItem;)Z", "com/growingio/android/sdk/autotrack/click/ViewClickInjector", "menuItemOnOptionsItemSelected", "(Landroid/app/Activity;Landroid/view/MenuItem;)V", false);
+    putHookMethod(SUPER_HOOK_VALUES, 18, 29, 56, "android/app/Fragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 7, 30, 57, "android/app/DialogFragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 28, 31, 58, "android/app/ListFragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 25, 32, 59, "android/preference/PreferenceFragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 54, 33, 60, "android/webkit/WebViewFragment", "onResume", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnResume", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 18, 29, 61, "android/app/Fragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 7, 30, 62, "android/app/DialogFragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 28, 31, 63, "android/app/ListFragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 25, 32, 64, "android/preference/PreferenceFragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 54, 33, 65, "android/webkit/WebViewFragment", "setUserVisibleHint", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentSetUserVisibleHint", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 18, 29, 66, "android/app/Fragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 7, 30, 67, "android/app/DialogFragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 28, 31, 68, "android/app/ListFragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 25, 32, 69, "android/preference/PreferenceFragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 54, 33, 70, "android/webkit/WebViewFragment", "onHiddenChanged", "(Z)V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnHiddenChanged", "(Landroid/app/Fragment;Z)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 18, 29, 71, "android/app/Fragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 7, 30, 72, "android/app/DialogFragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 28, 31, 73, "android/app/ListFragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 25, 32, 74, "android/preference/PreferenceFragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
+    putHookMethod(SUPER_HOOK_VALUES, 54, 33, 75, "android/webkit/WebViewFragment", "onDestroyView", "()V", "com/growingio/android/sdk/autotrack/page/FragmentInjector", "systemFragmentOnDestroyView", "(Landroid/app/Fragment;)V", true);
   }
 
   private HookClassesConfig() {
   }
 
-  private static void putAroundHookMethod(String targetClassName, String targetMethodName,
-      String targetMethodDesc, String injectClassName, String injectMethodName,
-      String injectMethodDesc, boolean isAfter) {
-    putHookMethod(AROUND_HOOK_CLASSES, targetClassName, targetMethodName, targetMethodDesc, injectClassName, injectMethodName, injectMethodDesc, isAfter);
+  private static void putHookMethod(TargetClass[] table, int slot, int classIndex, int methodIndex,
+      String targetClassName, String targetMethodName, String targetMethodDesc,
+      String injectClassName, String injectMethodName, String injectMethodDesc, boolean isAfter) {
+    TargetClass targetClass = table[slot];
+    if (targetClass == null) {
+      targetClass = new GeneratedTargetClass(targetClassName, classIndex);
+      table[slot] = targetClass;
+    }
+    TargetMethod targetMethod = TARGET_METHODS[methodIndex];
+    if (targetMethod == null) {
+      targetMethod = new TargetMethod(targetMethodName, targetMethodDesc);
+      TARGET_METHODS[methodIndex] = targetMethod;
+      targetClass.addTargetMethod(targetMethod);
+    }
+    targetMethod.addInjectMethod(new InjectMethod(injectClassName, injectMethodName, injectMethodDesc, isAfter));
   }
 
-  private static void putSuperHookMethod(String targetClassName, String targetMethodName,
-      String targetMethodDesc, String injectClassName, String injectMethodName,
-      String injectMethodDesc, boolean isAfter) {
-    putHookMethod(SUPER_HOOK_CLASSES, targetClassName, targetMethodName, targetMethodDesc, injectClassName, injectMethodName, injectMethodDesc, isAfter);
-  }
-
-  private static void putHookMethod(Map<String, TargetClass> classMap, String targetClassName,
-      String targetMethodName, String targetMethodDesc, String injectClassName,
-      String injectMethodName, String injectMethodDesc, boolean isAfter) {
-    TargetClass targetClass = classMap.get(targetClassName);
-        if (targetClass == null) {
-            targetClass = new TargetClass(targetClassName);
-            classMap.put(targetClassName, targetClass);
+  private static TargetMethod findTargetMethod(int classIndex, String name, String desc) {
+    switch (classIndex) {
+      case 0:
+        switch (name) {
+          case "loadUrl":
+            if ("(Ljava/lang/String;)V".equals(desc)) {
+              return TARGET_METHODS[0];
+            }
+            if ("(Ljava/lang/String;Ljava/util/Map;)V".equals(desc)) {
+              return TARGET_METHODS[1];
+            }
+            return null;
+          case "loadData":
+            if ("(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V".equals(desc)) {
+              return TARGET_METHODS[2];
+            }
+            return null;
+          case "loadDataWithBaseURL":
+            if ("(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V".equals(desc)) {
+              return TARGET_METHODS[9];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 1:
+        switch (name) {
+          case "loadUrl":
+            if ("(Ljava/lang/String;)V".equals(desc)) {
+              return TARGET_METHODS[3];
+            }
+            if ("(Ljava/lang/String;Ljava/util/Map;)V".equals(desc)) {
+              return TARGET_METHODS[4];
+            }
+            return null;
+          case "loadData":
+            if ("(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V".equals(desc)) {
+              return TARGET_METHODS[5];
+            }
+            return null;
+          case "loadDataWithBaseURL":
+            if ("(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V".equals(desc)) {
+              return TARGET_METHODS[10];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 2:
+        switch (name) {
+          case "loadUrl":
+            if ("(Ljava/lang/String;)V".equals(desc)) {
+              return TARGET_METHODS[6];
+            }
+            if ("(Ljava/lang/String;Ljava/util/Map;)V".equals(desc)) {
+              return TARGET_METHODS[7];
+            }
+            return null;
+          case "loadData":
+            if ("(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V".equals(desc)) {
+              return TARGET_METHODS[8];
+            }
+            return null;
+          case "loadDataWithBaseURL":
+            if ("(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V".equals(desc)) {
+              return TARGET_METHODS[11];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 3:
+        switch (name) {
+          case "show":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[12];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 4:
+        switch (name) {
+          case "onClick":
+            if ("(Landroid/view/View;)V".equals(desc)) {
+              return TARGET_METHODS[13];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 5:
+        switch (name) {
+          case "onClick":
+            if ("(Landroid/content/DialogInterface;I)V".equals(desc)) {
+              return TARGET_METHODS[14];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 6:
+        switch (name) {
+          case "onItemClick":
+            if ("(Landroid/widget/AdapterView;Landroid/view/View;IJ)V".equals(desc)) {
+              return TARGET_METHODS[15];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 7:
+        switch (name) {
+          case "onItemSelected":
+            if ("(Landroid/widget/AdapterView;Landroid/view/View;IJ)V".equals(desc)) {
+              return TARGET_METHODS[16];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 8:
+        switch (name) {
+          case "onGroupClick":
+            if ("(Landroid/widget/ExpandableListView;Landroid/view/View;IJ)Z".equals(desc)) {
+              return TARGET_METHODS[17];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 9:
+        switch (name) {
+          case "onChildClick":
+            if ("(Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)Z".equals(desc)) {
+              return TARGET_METHODS[18];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 10:
+        switch (name) {
+          case "onChildClick":
+            if ("(Landroid/widget/ExpandableListView;Landroid/view/View;IIJ)Z".equals(desc)) {
+              return TARGET_METHODS[19];
+            }
+            return null;
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[40];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[50];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 11:
+        switch (name) {
+          case "onListItemClick":
+            if ("(Landroid/widget/ListView;Landroid/view/View;IJ)V".equals(desc)) {
+              return TARGET_METHODS[20];
+            }
+            return null;
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[42];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[52];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 12:
+        switch (name) {
+          case "onCheckedChanged":
+            if ("(Landroid/widget/CompoundButton;Z)V".equals(desc)) {
+              return TARGET_METHODS[21];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 13:
+        switch (name) {
+          case "onCheckedChanged":
+            if ("(Landroid/widget/RadioGroup;I)V".equals(desc)) {
+              return TARGET_METHODS[22];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 14:
+        switch (name) {
+          case "onRatingChanged":
+            if ("(Landroid/widget/RatingBar;FZ)V".equals(desc)) {
+              return TARGET_METHODS[23];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 15:
+        switch (name) {
+          case "onStopTrackingTouch":
+            if ("(Landroid/widget/SeekBar;)V".equals(desc)) {
+              return TARGET_METHODS[24];
+            }
+            return null;
+          default:
+            return null;
         }
-        TargetMethod targetMethod = targetClass.getTargetMethod(targetMethodName, targetMethodDesc);
-        if (targetMethod == null) {
-            targetMethod = new TargetMethod(targetMethodName, targetMethodDesc);
-            targetClass.addTargetMethod(targetMethod);
+      case 16:
+        switch (name) {
+          case "onMenuItemClick":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[25];
+            }
+            return null;
+          default:
+            return null;
         }
-        targetMethod.addInjectMethod(new InjectMethod(injectClassName, injectMethodName, injectMethodDesc, isAfter));
+      case 17:
+        switch (name) {
+          case "onMenuItemClick":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[26];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 18:
+        switch (name) {
+          case "onMenuItemClick":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[27];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 19:
+        switch (name) {
+          case "onResume":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[28];
+            }
+            return null;
+          case "setUserVisibleHint":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[29];
+            }
+            return null;
+          case "onHiddenChanged":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[30];
+            }
+            return null;
+          case "onDestroyView":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[31];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 20:
+        switch (name) {
+          case "onResume":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[32];
+            }
+            return null;
+          case "setUserVisibleHint":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[33];
+            }
+            return null;
+          case "onHiddenChanged":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[34];
+            }
+            return null;
+          case "onDestroyView":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[35];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 21:
+        switch (name) {
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[36];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[46];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 22:
+        switch (name) {
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[37];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[47];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 23:
+        switch (name) {
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[38];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[48];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 24:
+        switch (name) {
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[39];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[49];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 25:
+        switch (name) {
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[41];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[51];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 26:
+        switch (name) {
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[43];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[53];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 27:
+        switch (name) {
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[44];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[54];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 28:
+        switch (name) {
+          case "onNewIntent":
+            if ("(Landroid/content/Intent;)V".equals(desc)) {
+              return TARGET_METHODS[45];
+            }
+            return null;
+          case "onOptionsItemSelected":
+            if ("(Landroid/view/MenuItem;)Z".equals(desc)) {
+              return TARGET_METHODS[55];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 29:
+        switch (name) {
+          case "onResume":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[56];
+            }
+            return null;
+          case "setUserVisibleHint":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[61];
+            }
+            return null;
+          case "onHiddenChanged":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[66];
+            }
+            return null;
+          case "onDestroyView":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[71];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 30:
+        switch (name) {
+          case "onResume":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[57];
+            }
+            return null;
+          case "setUserVisibleHint":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[62];
+            }
+            return null;
+          case "onHiddenChanged":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[67];
+            }
+            return null;
+          case "onDestroyView":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[72];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 31:
+        switch (name) {
+          case "onResume":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[58];
+            }
+            return null;
+          case "setUserVisibleHint":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[63];
+            }
+            return null;
+          case "onHiddenChanged":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[68];
+            }
+            return null;
+          case "onDestroyView":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[73];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 32:
+        switch (name) {
+          case "onResume":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[59];
+            }
+            return null;
+          case "setUserVisibleHint":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[64];
+            }
+            return null;
+          case "onHiddenChanged":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[69];
+            }
+            return null;
+          case "onDestroyView":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[74];
+            }
+            return null;
+          default:
+            return null;
+        }
+      case 33:
+        switch (name) {
+          case "onResume":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[60];
+            }
+            return null;
+          case "setUserVisibleHint":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[65];
+            }
+            return null;
+          case "onHiddenChanged":
+            if ("(Z)V".equals(desc)) {
+              return TARGET_METHODS[70];
+            }
+            return null;
+          case "onDestroyView":
+            if ("()V".equals(desc)) {
+              return TARGET_METHODS[75];
+            }
+            return null;
+          default:
+            return null;
+        }
+      default:
+        return null;
+    }
   }
 
   public static Map<String, TargetClass> getAroundHookClasses() {
-    return Collections.unmodifiableMap(AROUND_HOOK_CLASSES);
+    return AROUND_HOOK_CLASSES;
   }
 
   public static Map<String, TargetClass> getSuperHookClasses() {
-    return Collections.unmodifiableMap(SUPER_HOOK_CLASSES);
+    return SUPER_HOOK_CLASSES;
+  }
+
+  private static final class GeneratedTargetClass extends TargetClass {
+    private final int mIndex;
+
+    GeneratedTargetClass(String name, int index) {
+      super(name);
+      mIndex = index;
+    }
+
+    @Override
+    public TargetMethod getTargetMethod(String name, String desc) {
+      return findTargetMethod(mIndex, name, desc);
+    }
   }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.google.common.truth.Truth;
+import com.growingio.sdk.plugin.autotrack.ClassUtils;
+import com.growingio.sdk.plugin.autotrack.tmp.LambdaInterface;
+import com.growingio.sdk.plugin.autotrack.tmp.LambdaInterfaceExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SubExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SuperExample;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ClassHierarchyTest {
+    private static final String SUPER = ClassUtils.getClassName(SuperExample.class);
+    private static final String SUB = ClassUtils.getClassName(SubExample.class);
+    private static final String LAMBDA_EXAMPLE = ClassUtils.getClassName(LambdaInterfaceExample.class);
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void isAssignable_fromHeaders() {
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.addClass("a/Base", "java/lang/Object", new String[]{"a/Listener"});
+        hierarchy.addClass("a/Listener", "java/lang/Object", new String[]{"a/Callback"});
+        hierarchy.addClass("a/Sub", "a/Base", null);
+
+        Truth.assertThat(hierarchy.isAssignable("a/Sub", "a/Base")).isTrue();
+        Truth.assertThat(hierarchy.isAssignable("a/Sub", "a/Callback")).isTrue();
+        Truth.assertThat(hierarchy.isAssignable("a/Sub", "java/lang/Object")).isTrue();
+        Truth.assertThat(hierarchy.isAssignable("a/Base", "a/Sub")).isFalse();
+        Truth.assertThat(hierarchy.isAssignable("a/Unknown", "a/Base")).isFalse();
+        Truth.assertThat(hierarchy.getAncestors("a/Sub")).containsExactly("a/Base", "a/Listener", "a/Callback", "java/lang/Object");
+    }
+
+    @Test
+    public void isAssignable_invalidatedByNewClass() {
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.addClass("a/Sub", "a/Base", null);
+        Truth.assertThat(hierarchy.isAssignable("a/Sub", "a/Callback")).isFalse();
+
+        hierarchy.addClass("a/Base", "java/lang/Object", new String[]{"a/Callback"});
+        Truth.assertThat(hierarchy.isAssignable("a/Sub", "a/Callback")).isTrue();
+    }
+
+    @Test
+    public void getCommonSuperClass_withoutClassLoading() {
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.addClass("a/Base", "java/lang/Object", new String[]{"a/Listener"});
+        hierarchy.addClass("a/Listener", "java/lang/Object", null);
+        hierarchy.addClass("a/Left", "a/Base", null);
+        hierarchy.addClass("a/Right", "a/Base", null);
+        hierarchy.addClass("a/DeepRight", "a/Right", null);
+        hierarchy.addClass("a/Other", "java/lang/Object", new String[]{"a/Listener"});
+
+        Truth.assertThat(hierarchy.getCommonSuperClass("a/Left", "a/DeepRight")).isEqualTo("a/Base");
+        Truth.assertThat(hierarchy.getCommonSuperClass("a/DeepRight", "a/Right")).isEqualTo("a/Right");
+        Truth.assertThat(hierarchy.getCommonSuperClass("a/Listener", "a/Left")).isEqualTo("a/Listener");
+        // 只实现了相同接口的类, 与 ClassWriter 的默认实现一样返回 Object
+        Truth.assertThat(hierarchy.getCommonSuperClass("a/Left", "a/Other")).isEqualTo("java/lang/Object");
+        Truth.assertThat(hierarchy.getCommonSuperClass("a/Left", "a/Unknown")).isEqualTo("java/lang/Object");
+    }
+
+    @Test
+    public void cyclicHierarchy_terminates() {
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.addClass("a/A", "a/B", new String[]{"a/I"});
+        hierarchy.addClass("a/B", "a/A", null);
+        hierarchy.addClass("a/I", null, new String[]{"a/I"});
+
+        Truth.assertThat(hierarchy.getAncestors("a/A")).containsExactly("a/B", "a/I");
+        Truth.assertThat(hierarchy.getAncestors("a/B")).containsExactly("a/A", "a/I");
+        Truth.assertThat(hierarchy.isAssignable("a/A", "java/lang/Object")).isFalse();
+        Truth.assertThat(hierarchy.getCommonSuperClass("a/A", "a/Other")).isEqualTo("java/lang/Object");
+    }
+
+    @Test
+    public void getAssignableTargets_onlyRelatedClasses() {
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.addClass("a/WebView", "java/lang/Object", null);
+        hierarchy.addClass("a/MyWebView", "a/WebView", new String[]{"a/Listener"});
+        hierarchy.addClass("a/DeepWebView", "a/MyWebView", null);
+        hierarchy.addClass("a/Pojo", "java/lang/Object", null);
+
+        Map<String, Set<String>> targets = hierarchy.getAssignableTargets(Arrays.asList("a/WebView", "a/Listener"));
+        Truth.assertThat(targets.keySet()).containsExactly("a/MyWebView", "a/DeepWebView");
+        Truth.assertThat(targets.get("a/DeepWebView")).containsExactly("a/Listener", "a/WebView");
+    }
+
+    @Test
+    public void resourceLoader_readsHeaderWithoutLoading() {
+        ClassHierarchy hierarchy = new ClassHierarchy(getClass().getClassLoader());
+        Truth.assertThat(hierarchy.isAssignable(SUB, SUPER)).isTrue();
+        Truth.assertThat(hierarchy.getSuperName(LAMBDA_EXAMPLE)).isEqualTo(SUPER);
+        Truth.assertThat(hierarchy.isAssignable(LAMBDA_EXAMPLE, ClassUtils.getClassName(LambdaInterface.class))).isFalse();
+    }
+
+    @Test
+    public void addJar_reusesPersistedIndex() throws IOException {
+        File jar = mTemporaryFolder.newFile("classes.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            putClass(zip, SuperExample.class);
+            putClass(zip, SubExample.class);
+        }
+        File indexFile = new File(mTemporaryFolder.getRoot(), "index/classes.idx");
+
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.addJar(jar, indexFile);
+        Truth.assertThat(indexFile.isFile()).isTrue();
+        Truth.assertThat(hierarchy.isAssignable(SUB, SUPER)).isTrue();
+
+        // 索引有效时不再读取 jar 内容
+        long lastModified = jar.lastModified();
+        long length = jar.length();
+        FileUtils.writeByteArrayToFile(jar, new byte[(int) length]);
+        jar.setLastModified(lastModified);
+        ClassHierarchy reused = new ClassHierarchy();
+        reused.addJar(jar, indexFile);
+        Truth.assertThat(reused.isAssignable(SUB, SUPER)).isTrue();
+    }
+
+    @Test
+    public void addDirectory_appliesChangedFiles() throws IOException {
+        File dir = mTemporaryFolder.newFolder("classes");
+        File subFile = writeClass(dir, SubExample.class);
+        writeClass(dir, SuperExample.class);
+        File indexFile = new File(mTemporaryFolder.getRoot(), "index/classes.idx");
+
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.addDirectory(dir, indexFile, null);
+        Truth.assertThat(hierarchy.isAssignable(SUB, SUPER)).isTrue();
+
+        subFile.delete();
+        File lambdaFile = writeClass(dir, LambdaInterfaceExample.class);
+        ClassHierarchy incremental = new ClassHierarchy();
+        incremental.addDirectory(dir, indexFile, Arrays.asList(subFile, lambdaFile));
+        Truth.assertThat(incremental.contains(SUB)).isFalse();
+        Truth.assertThat(incremental.isAssignable(LAMBDA_EXAMPLE, SUPER)).isTrue();
+
+        ClassHierarchy unchanged = new ClassHierarchy();
+        unchanged.addDirectory(dir, indexFile, Collections.<File>emptyList());
+        Truth.assertThat(unchanged.contains(SUB)).isFalse();
+        Truth.assertThat(unchanged.contains(LAMBDA_EXAMPLE)).isTrue();
+    }
+
+    @Test
+    public void addDirectory_skipsMalformedClass() throws IOException {
+        File dir = mTemporaryFolder.newFolder("malformed");
+        writeClass(dir, SubExample.class);
+        writeClass(dir, SuperExample.class);
+        File broken = new File(dir, "com/example/Broken.class");
+        FileUtils.writeByteArrayToFile(broken, new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0});
+        File indexFile = new File(mTemporaryFolder.getRoot(), "index/malformed.idx");
+
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.addDirectory(dir, indexFile, null);
+        Truth.assertThat(hierarchy.isAssignable(SUB, SUPER)).isTrue();
+        Truth.assertThat(hierarchy.contains("com/example/Broken")).isFalse();
+
+        ClassHierarchy incremental = new ClassHierarchy();
+        incremental.addDirectory(dir, indexFile, Collections.singletonList(broken));
+        Truth.assertThat(incremental.isAssignable(SUB, SUPER)).isTrue();
+    }
+
+    private static void putClass(ZipOutputStream zip, Class<?> clazz) throws IOException {
+        zip.putNextEntry(new ZipEntry(ClassUtils.getClassName(clazz) + ".class"));
+        zip.write(ClassUtils.classToByteArray(clazz));
+        zip.closeEntry();
+    }
+
+    private static File writeClass(File dir, Class<?> clazz) throws IOException {
+        File file = new File(dir, ClassUtils.getClassName(clazz).replace('/', File.separatorChar) + ".class");
+        FileUtils.writeByteArrayToFile(file, ClassUtils.classToByteArray(clazz));
+        return file;
+    }
+}
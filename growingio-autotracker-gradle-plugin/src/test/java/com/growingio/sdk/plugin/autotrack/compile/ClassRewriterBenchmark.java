@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 对比常量池预过滤前后 ClassRewriter 的吞吐量。
+ * <p>
+ * 用法: ClassRewriterBenchmark [jar/aar ...], 不传参数时使用当前 classpath 中的 jar 作为样本
+ */
+public class ClassRewriterBenchmark {
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    private ClassRewriterBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<File> inputs = new ArrayList<>();
+        if (args.length == 0) {
+            for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                if (path.endsWith(".jar")) {
+                    inputs.add(new File(path));
+                }
+            }
+        } else {
+            for (String path : args) {
+                inputs.add(new File(path));
+            }
+        }
+
+        List<byte[]> classes = new ArrayList<>();
+        ClassHierarchy classHierarchy = new ClassHierarchy(ClassRewriterBenchmark.class.getClassLoader());
+        for (File input : inputs) {
+            try (InputStream inputStream = new FileInputStream(input)) {
+                readClasses(inputStream, input.getName().endsWith(".aar"), classes);
+            }
+        }
+        for (byte[] bytes : classes) {
+            classHierarchy.addClass(bytes);
+        }
+        System.out.println("corpus: " + classes.size() + " classes from " + inputs.size() + " files");
+
+        Log log = new ErrorLog();
+        ClassRewriter fullRewriter = new ClassRewriter(log, classHierarchy, null, false);
+        ClassRewriter filteredRewriter = new ClassRewriter(log, classHierarchy, null, true);
+        int fullModified = run("full ASM pass", fullRewriter, classes);
+        int filteredModified = run("pre-filtered", filteredRewriter, classes);
+        if (fullModified != filteredModified) {
+            throw new IllegalStateException("pre-filter skipped classes that need injection: " + fullModified + " != " + filteredModified);
+        }
+    }
+
+    private static int run(String name, ClassRewriter rewriter, List<byte[]> classes) {
+        int modified = 0;
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            modified = transformAll(rewriter, classes);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            transformAll(rewriter, classes);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%-14s %10.0f classes/s, %d modified", name, classes.size() * ROUNDS / seconds, modified));
+        return modified;
+    }
+
+    private static int transformAll(ClassRewriter rewriter, List<byte[]> classes) {
+        int modified = 0;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64 * 1024);
+        for (byte[] bytes : classes) {
+            outputStream.reset();
+            if (rewriter.transformClass(new ByteArrayInputStream(bytes), outputStream)) {
+                modified++;
+            }
+        }
+        return modified;
+    }
+
+    static void readClasses(InputStream inputStream, boolean isAar, List<byte[]> classes) throws IOException {
+        ZipInputStream zip = new ZipInputStream(inputStream);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (isAar && name.endsWith(".jar")) {
+                readClasses(new ByteArrayInputStream(IOUtils.toByteArray(zip)), false, classes);
+            } else if (name.endsWith(".class") && !name.endsWith("module-info.class")) {
+                classes.add(IOUtils.toByteArray(zip));
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.google.common.truth.Truth;
+import com.growingio.sdk.plugin.autotrack.ByteCodeClassLoader;
+import com.growingio.sdk.plugin.autotrack.ClassUtils;
+import com.growingio.sdk.plugin.autotrack.compile.visitor.ContextClassVisitor;
+import com.growingio.sdk.plugin.autotrack.compile.visitor.DesugaredClassVisitor;
+import com.growingio.sdk.plugin.autotrack.compile.visitor.DesugaringClassVisitor;
+import com.growingio.sdk.plugin.autotrack.compile.visitor.InjectAroundClassVisitor;
+import com.growingio.sdk.plugin.autotrack.compile.visitor.InjectSuperClassVisitor;
+import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
+import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
+import com.growingio.sdk.plugin.autotrack.hook.TargetClass;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+import com.growingio.sdk.plugin.autotrack.tmp.LambdaExample;
+import com.growingio.sdk.plugin.autotrack.tmp.LambdaInterface;
+import com.growingio.sdk.plugin.autotrack.tmp.LambdaInterfaceExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SubExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SubOverrideExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SuperExample;
+import com.growingio.sdk.plugin.autotrack.tmp.inject.InjectAgent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.util.Textifier;
+import org.objectweb.asm.util.TraceClassVisitor;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单次访问的 ClassRewriter 和原先两次访问(lambda 实现方法在第二次访问中插入代码)的输出字节码必须一致
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({HookClassesConfig.class})
+public class ClassRewriterGoldenTest {
+    private static final String INJECT_AGENT = ClassUtils.getClassName(InjectAgent.class);
+
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(HookClassesConfig.class);
+
+        Map<String, TargetClass> superHookClasses = new HashMap<>();
+        addHook(superHookClasses, ClassUtils.getClassName(SuperExample.class), "onExecute", "()V", false);
+        addHook(superHookClasses, ClassUtils.getClassName(LambdaInterface.class), "onExecute", "()V", true);
+        PowerMockito.when(HookClassesConfig.getSuperHookClasses()).thenReturn(superHookClasses);
+
+        Map<String, TargetClass> aroundHookClasses = new HashMap<>();
+        String superExample = ClassUtils.getClassName(SuperExample.class);
+        TargetClass targetClass = new TargetClass(superExample);
+        TargetMethod targetMethod = new TargetMethod("originExecuteWithArg", "(Ljava/lang/String;)V");
+        targetMethod.addInjectMethod(new InjectMethod(INJECT_AGENT, "onExecute", "(L" + superExample + ";Ljava/lang/String;)V", false));
+        targetClass.addTargetMethod(targetMethod);
+        aroundHookClasses.put(superExample, targetClass);
+        PowerMockito.when(HookClassesConfig.getAroundHookClasses()).thenReturn(aroundHookClasses);
+    }
+
+    private static void addHook(Map<String, TargetClass> hookClasses, String className, String methodName, String methodDesc, boolean isAfter) {
+        TargetClass targetClass = new TargetClass(className);
+        TargetMethod targetMethod = new TargetMethod(methodName, methodDesc);
+        targetMethod.addInjectMethod(new InjectMethod(INJECT_AGENT, "onExecute", "(L" + className + ";)V", isAfter));
+        targetClass.addTargetMethod(targetMethod);
+        hookClasses.put(className, targetClass);
+    }
+
+    @Test
+    public void lambdaClasses_sameAsTwoPass() throws Exception {
+        String lambdaExample = textify(singlePass(LambdaExample.class));
+        // 外部类的方法引用生成桥接方法, 本类中的实现方法插入代码
+        Truth.assertThat(lambdaExample).contains("lambda$GIO$0");
+        Truth.assertThat(lambdaExample).contains("INVOKESTATIC " + INJECT_AGENT + ".onExecute (L" + ClassUtils.getClassName(LambdaInterface.class) + ";)V");
+        assertSameAsTwoPass(LambdaExample.class);
+        assertSameAsTwoPass(LambdaInterfaceExample.class);
+    }
+
+    @Test
+    public void plainClasses_sameAsTwoPass() throws Exception {
+        assertSameAsTwoPass(SubExample.class);
+        assertSameAsTwoPass(SubOverrideExample.class);
+    }
+
+    @Test
+    public void lambdaExample_runs() throws Exception {
+        byte[] bytes = singlePass(LambdaExample.class);
+        Class<?> aClass = new ByteCodeClassLoader(getClass().getClassLoader()).defineClass(LambdaExample.class.getName(), bytes);
+        SuperExample example = (SuperExample) aClass.newInstance();
+        example.onExecute();
+        Truth.assertThat(example.isExecuted()).isTrue();
+    }
+
+    private void assertSameAsTwoPass(Class<?> clazz) throws IOException {
+        Truth.assertThat(textify(singlePass(clazz))).isEqualTo(textify(twoPass(clazz)));
+    }
+
+    private byte[] singlePass(Class<?> clazz) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new ClassRewriter(new SystemLog(), getClass().getClassLoader(), null)
+                .transformClass(new ByteArrayInputStream(ClassUtils.classToByteArray(clazz)), outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 原先的实现: 先完整访问一次, 有需要插入的 lambda 实现方法时再解析输出结果访问第二次
+     */
+    private byte[] twoPass(Class<?> clazz) throws IOException {
+        ClassReader classReader = new ClassReader(ClassUtils.classToByteArray(clazz));
+        ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
+        Context context = new Context(new SystemLog(), getClass().getClassLoader());
+        classReader.accept(new ContextClassVisitor(context), ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        DesugaringClassVisitor desugaringClassVisitor = new DesugaringClassVisitor(
+                new InjectAroundClassVisitor(new InjectSuperClassVisitor(classWriter, context), context), context);
+        classReader.accept(desugaringClassVisitor, ClassReader.SKIP_FRAMES | ClassReader.EXPAND_FRAMES);
+        if (!desugaringClassVisitor.getNeedInjectTargetMethods().isEmpty()) {
+            ClassReader lambdaReader = new ClassReader(classWriter.toByteArray());
+            classWriter = new ClassWriter(lambdaReader, ClassWriter.COMPUTE_MAXS);
+            DesugaredClassVisitor desugaredClassVisitor = new DesugaredClassVisitor(classWriter, context);
+            desugaredClassVisitor.getNeedInjectTargetMethods().addAll(desugaringClassVisitor.getNeedInjectTargetMethods());
+            lambdaReader.accept(desugaredClassVisitor, ClassReader.SKIP_FRAMES | ClassReader.EXPAND_FRAMES);
+        }
+        return classWriter.toByteArray();
+    }
+
+    private static String textify(byte[] bytes) {
+        StringWriter stringWriter = new StringWriter();
+        new ClassReader(bytes).accept(new TraceClassVisitor(null, new Textifier(), new PrintWriter(stringWriter)), 0);
+        return stringWriter.toString();
+    }
+}
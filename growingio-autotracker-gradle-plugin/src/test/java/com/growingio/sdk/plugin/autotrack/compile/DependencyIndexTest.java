@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.google.common.truth.Truth;
+import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
+import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
+import com.growingio.sdk.plugin.autotrack.hook.TargetClass;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({HookClassesConfig.class})
+public class DependencyIndexTest {
+    private static final String WEB_BASE = "a/WebBase";
+    private static final String MY_WEB = "a/MyWeb";
+    private static final String CALLER = "a/Caller";
+    private static final String OTHER = "a/Other";
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(HookClassesConfig.class);
+        TargetClass targetClass = new TargetClass(WEB_BASE);
+        TargetMethod targetMethod = new TargetMethod("load", "(Ljava/lang/String;)V");
+        targetMethod.addInjectMethod(new InjectMethod("a/Injector", "onLoad", "(L" + WEB_BASE + ";Ljava/lang/String;)V", false));
+        targetClass.addTargetMethod(targetMethod);
+        PowerMockito.when(HookClassesConfig.getAroundHookClasses()).thenReturn(Collections.singletonMap(WEB_BASE, targetClass));
+        PowerMockito.when(HookClassesConfig.getSuperHookClasses()).thenReturn(Collections.<String, TargetClass>emptyMap());
+    }
+
+    /**
+     * MyWeb 改为继承 WebBase 后, 没有变化的 Caller 中对 MyWeb.load 的调用需要重新注入
+     */
+    @Test
+    public void supertypeChanged_reTransformsUnchangedCaller() throws IOException {
+        byte[] caller = createCaller();
+        byte[] other = createClass(OTHER, "java/lang/Object");
+        File indexFile = new File(mTemporaryFolder.getRoot(), "dependencies.idx");
+
+        // 第一次编译: MyWeb 和 WebBase 没有关系, Caller 不需要注入
+        byte[] myWeb = createClass(MY_WEB, "java/lang/Object");
+        ClassHierarchy classHierarchy = createClassHierarchy(myWeb, caller, other);
+        Truth.assertThat(new ClassRewriter(new ErrorLog(), classHierarchy, null).transformClassBytes(caller)).isNull();
+        DependencyIndex index = new DependencyIndex();
+        index.record(unit(MY_WEB), DependencyIndex.collect(myWeb));
+        index.record(unit(CALLER), DependencyIndex.collect(caller));
+        index.record(unit(OTHER), DependencyIndex.collect(other));
+        Truth.assertThat(index.updateAssignableTargets(getAssignableTargets(classHierarchy))).isEmpty();
+        index.write(indexFile);
+
+        // 第二次编译: 只有 MyWeb 变化
+        byte[] changedMyWeb = createClass(MY_WEB, WEB_BASE);
+        classHierarchy = createClassHierarchy(changedMyWeb, caller, other);
+        index = DependencyIndex.read(indexFile);
+        Truth.assertThat(index).isNotNull();
+        Set<String> affected = index.updateAssignableTargets(getAssignableTargets(classHierarchy));
+        Truth.assertThat(affected).containsExactly(unit(MY_WEB), unit(CALLER));
+
+        InjectionReport report = new InjectionReport();
+        ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), classHierarchy, null);
+        classRewriter.setInjectionReport(report);
+        Truth.assertThat(classRewriter.transformClassBytes(caller)).isNotNull();
+        Truth.assertThat(report.getInjections(CALLER)).hasSize(1);
+        Truth.assertThat(report.getInjections(CALLER).get(0).getTarget()).isEqualTo(MY_WEB + "#load(Ljava/lang/String;)V");
+        index.write(indexFile);
+
+        // 第三次编译: 改回去之后, 上次注入的 Caller 也需要重新生成
+        classHierarchy = createClassHierarchy(myWeb, caller, other);
+        index = DependencyIndex.read(indexFile);
+        Truth.assertThat(index.updateAssignableTargets(getAssignableTargets(classHierarchy))).containsExactly(unit(MY_WEB), unit(CALLER));
+        Truth.assertThat(new ClassRewriter(new ErrorLog(), classHierarchy, null).transformClassBytes(caller)).isNull();
+
+        // 继承关系没有变化时不需要重新注入
+        Truth.assertThat(index.updateAssignableTargets(getAssignableTargets(classHierarchy))).isEmpty();
+    }
+
+    /**
+     * 重新计算 frame 时, 与 hook 无关的父类变化也需要全量 transform
+     */
+    @Test
+    public void computeFrames_nonHookSupertypeChangeForcesFullTransform() throws IOException {
+        byte[] caller = createCaller();
+        File indexFile = new File(mTemporaryFolder.getRoot(), "frames.idx");
+        ClassHierarchy classHierarchy = createClassHierarchy(caller);
+        DependencyIndex index = new DependencyIndex();
+        index.record(unit(CALLER), DependencyIndex.collect(caller));
+        index.updateAssignableTargets(getAssignableTargets(classHierarchy));
+        // 第一次没有可以比较的记录
+        Truth.assertThat(index.updateSupertypes(classHierarchy.getSupertypes())).isTrue();
+        index.write(indexFile);
+
+        // 继承关系没有变化
+        index = DependencyIndex.read(indexFile);
+        Truth.assertThat(index.updateAssignableTargets(getAssignableTargets(classHierarchy))).isEmpty();
+        Truth.assertThat(index.updateSupertypes(classHierarchy.getSupertypes())).isFalse();
+        index.write(indexFile);
+
+        // Caller 的父类 a/Base 改为继承 a/Mid, 与 hook 无关
+        classHierarchy = createClassHierarchy(caller);
+        classHierarchy.addClass("a/Mid", "java/lang/Object", null);
+        classHierarchy.addClass("a/Base", "a/Mid", null);
+        index = DependencyIndex.read(indexFile);
+        Truth.assertThat(index.updateAssignableTargets(getAssignableTargets(classHierarchy))).isEmpty();
+        Truth.assertThat(index.updateSupertypes(classHierarchy.getSupertypes())).isTrue();
+
+        // 不重新计算 frame 时不记录
+        Truth.assertThat(index.updateSupertypes(null)).isFalse();
+        index.write(indexFile);
+        Truth.assertThat(DependencyIndex.read(indexFile).updateSupertypes(null)).isFalse();
+    }
+
+    @Test
+    public void removedUnit_isNotAffected() {
+        DependencyIndex index = new DependencyIndex();
+        index.record(unit(CALLER), DependencyIndex.collect(createCaller()));
+        index.remove(unit(CALLER));
+        Truth.assertThat(index.contains(unit(CALLER))).isFalse();
+        Truth.assertThat(index.updateAssignableTargets(Collections.singletonMap(MY_WEB, Collections.singleton(WEB_BASE)))).isEmpty();
+    }
+
+    @Test
+    public void collect_referencedTypes() {
+        Set<String> types = DependencyIndex.collect(createCaller());
+        // 自身, 父类, 接口, 调用的 owner 和 lambda 的函数式接口, 不包括 JDK 中的类
+        Truth.assertThat(types).containsExactly(CALLER, "a/Base", "a/Listener", MY_WEB, "a/Callback");
+    }
+
+    @Test
+    public void read_missingOrCorruptedIndex() throws IOException {
+        Truth.assertThat(DependencyIndex.read(new File(mTemporaryFolder.getRoot(), "missing.idx"))).isNull();
+        Truth.assertThat(DependencyIndex.read(mTemporaryFolder.newFile("empty.idx"))).isNull();
+    }
+
+    private static String unit(String className) {
+        return "/project/build/classes/" + className + ".class";
+    }
+
+    private static Map<String, Set<String>> getAssignableTargets(ClassHierarchy classHierarchy) {
+        return classHierarchy.getAssignableTargets(Collections.singleton(WEB_BASE));
+    }
+
+    private static ClassHierarchy createClassHierarchy(byte[]... classes) {
+        ClassHierarchy classHierarchy = new ClassHierarchy();
+        classHierarchy.addClass(WEB_BASE, "java/lang/Object", null);
+        classHierarchy.addClass("a/Base", "java/lang/Object", null);
+        classHierarchy.addClass("a/Listener", null, null);
+        for (byte[] bytes : classes) {
+            classHierarchy.addClass(bytes);
+        }
+        return classHierarchy;
+    }
+
+    private static byte[] createClass(String name, String superName) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Caller extends a/Base implements a/Listener, 调用 MyWeb.load 并创建一个 a/Callback 的 lambda
+     */
+    private static byte[] createCaller() {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, CALLER, null, "a/Base", new String[]{"a/Listener"});
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "open", "(L" + MY_WEB + ";)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitLdcInsn("https://www.growingio.com");
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, MY_WEB, "load", "(Ljava/lang/String;)V", false);
+        mv.visitInvokeDynamicInsn("call", "()La/Callback;", new Handle(Opcodes.H_INVOKESTATIC,
+                        "java/lang/invoke/LambdaMetafactory", "metafactory",
+                        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+                                + "Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)"
+                                + "Ljava/lang/invoke/CallSite;", false),
+                Type.getType("()V"), new Handle(Opcodes.H_INVOKESTATIC, CALLER, "lambda$open$0", "()V", false), Type.getType("()V"));
+        mv.visitInsn(Opcodes.POP);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System", "currentTimeMillis", "()J", false);
+        mv.visitInsn(Opcodes.POP2);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, "lambda$open$0", "()V", null, null);
+        mv.visitCode();
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
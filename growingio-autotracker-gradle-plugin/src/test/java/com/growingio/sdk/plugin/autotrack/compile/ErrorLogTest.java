@@ -27,6 +27,7 @@ public class ErrorLogTest {
     public void testErrorLog() {
         ErrorLog errorLog = new ErrorLog();
         errorLog.debug("debug");
+        errorLog.debug("debug %s#%s", "a/Foo", "onClick");
         errorLog.info("info");
         errorLog.warning("warning");
         errorLog.warning("warning", new Exception("exception message"));
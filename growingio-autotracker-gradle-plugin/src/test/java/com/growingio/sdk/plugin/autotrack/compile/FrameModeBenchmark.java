@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对比三种 frame 模式下 ClassRewriter 的吞吐量, 关闭常量池预过滤, 每个 class 都完整经过 ASM。
+ * compute 模式的公共父类通过 ClassHierarchy 查询, 与 transform 中的行为一致。
+ * <p>
+ * 用法: FrameModeBenchmark [jar/aar ...], 不传参数时使用当前 classpath 中的 jar 作为样本
+ */
+public class FrameModeBenchmark {
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final String[] MODE_NAMES = {"skip", "maintain", "compute"};
+
+    private FrameModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<File> inputs = new ArrayList<>();
+        if (args.length == 0) {
+            for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                if (path.endsWith(".jar")) {
+                    inputs.add(new File(path));
+                }
+            }
+        } else {
+            for (String path : args) {
+                inputs.add(new File(path));
+            }
+        }
+
+        List<byte[]> classes = new ArrayList<>();
+        ClassHierarchy classHierarchy = new ClassHierarchy(FrameModeBenchmark.class.getClassLoader());
+        for (File input : inputs) {
+            try (InputStream inputStream = new FileInputStream(input)) {
+                ClassRewriterBenchmark.readClasses(inputStream, input.getName().endsWith(".aar"), classes);
+            }
+        }
+        for (byte[] bytes : classes) {
+            classHierarchy.addClass(bytes);
+        }
+        System.out.println("corpus: " + classes.size() + " classes from " + inputs.size() + " files");
+
+        ClassRewriter[] rewriters = new ClassRewriter[MODE_NAMES.length];
+        for (int mode = 0; mode < MODE_NAMES.length; mode++) {
+            rewriters[mode] = new ClassRewriter(new ErrorLog(), classHierarchy, null, false);
+            rewriters[mode].setFrameMode(ClassRewriter.parseFrameMode(MODE_NAMES[mode]));
+        }
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            for (ClassRewriter rewriter : rewriters) {
+                transformAll(rewriter, classes);
+            }
+        }
+        // 各模式交替执行, 减少 JIT 和 GC 状态对结果的影响
+        long[] elapsed = new long[MODE_NAMES.length];
+        for (int i = 0; i < ROUNDS; i++) {
+            for (int mode = 0; mode < MODE_NAMES.length; mode++) {
+                long start = System.nanoTime();
+                transformAll(rewriters[mode], classes);
+                elapsed[mode] += System.nanoTime() - start;
+            }
+        }
+        for (int mode = 0; mode < MODE_NAMES.length; mode++) {
+            System.out.println(String.format("%-9s %10.0f classes/s, %.2fx skip", MODE_NAMES[mode],
+                    classes.size() * ROUNDS / (elapsed[mode] / 1e9), (double) elapsed[mode] / elapsed[0]));
+        }
+    }
+
+    private static void transformAll(ClassRewriter rewriter, List<byte[]> classes) {
+        for (byte[] bytes : classes) {
+            rewriter.transformClassBytes(bytes);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.truth.Truth;
+import com.growingio.sdk.plugin.autotrack.ByteCodeClassLoader;
+import com.growingio.sdk.plugin.autotrack.ClassUtils;
+import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
+import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
+import com.growingio.sdk.plugin.autotrack.hook.TargetClass;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+import com.growingio.sdk.plugin.autotrack.tmp.FrameExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SuperExample;
+import com.growingio.sdk.plugin.autotrack.tmp.inject.InjectAgent;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({HookClassesConfig.class})
+public class FrameModeTest {
+    private final int[] mCallbackCount = new int[1];
+
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(HookClassesConfig.class);
+        InjectAgent.setCallback(example -> mCallbackCount[0]++);
+    }
+
+    @After
+    public void tearDown() {
+        InjectAgent.setCallback(null);
+    }
+
+    private static void mockAroundHook(String owner, String name, String desc, InjectMethod... injectMethods) {
+        Map<String, TargetClass> targetClassMap = new HashMap<>();
+        TargetClass targetClass = new TargetClass(owner);
+        targetClassMap.put(owner, targetClass);
+        TargetMethod targetMethod = new TargetMethod(name, desc);
+        targetClass.addTargetMethod(targetMethod);
+        for (InjectMethod injectMethod : injectMethods) {
+            targetMethod.addInjectMethod(injectMethod);
+        }
+        PowerMockito.when(HookClassesConfig.getAroundHookClasses()).thenReturn(targetClassMap);
+    }
+
+    private static void mockSuperExampleHook() {
+        String superExample = ClassUtils.getClassName(SuperExample.class);
+        mockAroundHook(superExample, "originExecuteWithArg", "(Ljava/lang/String;)V",
+                new InjectMethod(ClassUtils.getClassName(InjectAgent.class), "onExecute", "(L" + superExample + ";Ljava/lang/String;)V", false));
+    }
+
+    private byte[] transformFrameExample(int frameMode) throws IOException {
+        ClassRewriter classRewriter = new ClassRewriter(new SystemLog(), getClass().getClassLoader(), null);
+        classRewriter.setFrameMode(frameMode);
+        byte[] bytes = classRewriter.transformClassBytes(ClassUtils.classToByteArray(FrameExample.class));
+        Truth.assertThat(bytes).isNotNull();
+        return bytes;
+    }
+
+    /**
+     * 由 JVM 加载并执行, 校验器会检查所有 frame
+     */
+    private void runFrameExample(byte[] bytes) throws Exception {
+        Class<?> clazz = new ByteCodeClassLoader(getClass().getClassLoader()).defineClass(FrameExample.class.getName(), bytes);
+        Object instance = clazz.newInstance();
+        Method loop = clazz.getMethod("loop", SuperExample.class, String[].class);
+        Method branch = clazz.getMethod("branch", SuperExample.class, boolean.class, long.class, double.class);
+
+        Truth.assertThat(loop.invoke(instance, new SuperExample(), new String[]{"a", null, "b"})).isEqualTo(2);
+        Truth.assertThat(branch.invoke(instance, new SuperExample(), false, 1L, 2.0)).isEqualTo(5L);
+        Truth.assertThat(branch.invoke(instance, new SuperExample(), true, 1L, 2.0)).isEqualTo(6L);
+        Truth.assertThat(mCallbackCount[0]).isEqualTo(7);
+    }
+
+    @Test
+    public void malformedHook_failsTransform() throws IOException {
+        String superExample = ClassUtils.getClassName(SuperExample.class);
+        mockAroundHook(superExample, "originExecuteWithArg", "(Ljava/lang/String;)V",
+                new InjectMethod(ClassUtils.getClassName(InjectAgent.class), "onExecute", "(L" + superExample, false));
+        ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), getClass().getClassLoader(), null);
+        try {
+            classRewriter.transformClassBytes(ClassUtils.classToByteArray(FrameExample.class));
+            Truth.assertWithMessage("malformed hook should fail the transform").fail();
+        } catch (AutotrackBuildException expected) {
+            Truth.assertThat(expected).hasMessageThat().contains(ClassUtils.getClassName(FrameExample.class));
+            Truth.assertThat(expected).hasCauseThat().isNotNull();
+        }
+    }
+
+    @Test
+    public void skipFrames_failsVerification() throws Exception {
+        mockSuperExampleHook();
+
+        byte[] bytes = transformFrameExample(ClassRewriter.FRAMES_SKIP);
+        try {
+            runFrameExample(bytes);
+            Truth.assertWithMessage("class without stack map frames should not pass verification").fail();
+        } catch (VerifyError expected) {
+            Truth.assertThat(expected).isInstanceOf(VerifyError.class);
+        }
+    }
+
+    @Test
+    public void maintainFrames_passesVerification() throws Exception {
+        mockSuperExampleHook();
+
+        byte[] bytes = transformFrameExample(ClassRewriter.FRAMES_MAINTAIN);
+        Truth.assertThat(FrameVerifier.verify(bytes, ClassLoader.getSystemClassLoader())).isEmpty();
+        runFrameExample(bytes);
+    }
+
+    @Test
+    public void computeFrames_passesVerification() throws Exception {
+        mockSuperExampleHook();
+
+        byte[] bytes = transformFrameExample(ClassRewriter.FRAMES_COMPUTE);
+        Truth.assertThat(FrameVerifier.verify(bytes, ClassLoader.getSystemClassLoader())).isEmpty();
+        runFrameExample(bytes);
+    }
+
+    /**
+     * 在 guava 的所有 class 中 hook StringBuilder.append(String), 注入点前后有大量的分支、循环和异常处理
+     */
+    @Test
+    public void corpus_passesCheckClassAdapter() throws IOException {
+        mockAroundHook("java/lang/StringBuilder", "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;",
+                new InjectMethod("a/Injector", "beforeAppend", "(Ljava/lang/StringBuilder;Ljava/lang/String;)V", false),
+                new InjectMethod("a/Injector", "afterAppend", "(Ljava/lang/StringBuilder;Ljava/lang/String;)V", true));
+        List<byte[]> corpus = readJarClasses(ImmutableList.class);
+        Truth.assertThat(corpus.size()).isGreaterThan(1000);
+
+        ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+        ClassHierarchy classHierarchy = new ClassHierarchy(classLoader);
+        for (int frameMode : new int[]{ClassRewriter.FRAMES_MAINTAIN, ClassRewriter.FRAMES_COMPUTE}) {
+            ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), classHierarchy, null);
+            classRewriter.setFrameMode(frameMode);
+            int modified = 0;
+            List<String> errors = new ArrayList<>();
+            for (byte[] bytes : corpus) {
+                byte[] result = classRewriter.transformClassBytes(bytes);
+                if (result != null) {
+                    modified++;
+                    errors.addAll(FrameVerifier.verify(result, classLoader));
+                }
+            }
+            Truth.assertThat(modified).isGreaterThan(100);
+            Truth.assertWithMessage("frame mode " + frameMode).that(errors).isEmpty();
+        }
+    }
+
+    private static List<byte[]> readJarClasses(Class<?> classInJar) throws IOException {
+        // jar:file:/path/to/x.jar!/com/example/Foo.class
+        String path = ClassLoader.getSystemResource(ClassUtils.getClassName(classInJar) + ".class").getPath();
+        File jar = FileUtils.toFile(new URL(path.substring(0, path.indexOf("!/"))));
+        List<byte[]> classes = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new FileInputStream(jar))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().endsWith(".class") && !entry.getName().endsWith("module-info.class")) {
+                    classes.add(IOUtils.toByteArray(zip));
+                }
+            }
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.BasicValue;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.SimpleVerifier;
+import org.objectweb.asm.util.CheckClassAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 先用 CheckClassAdapter 检查 class 结构, 再用数据流分析检查 class 中声明的 StackMapTable frame:
+ * 与 JVM 的 type checker 一样, frame 中声明的每个类型都必须可以由所有到达该位置的实际类型赋值。
+ * 类型之间的关系通过 classLoader 加载类判断, 只用于测试
+ */
+final class FrameVerifier {
+    private FrameVerifier() {
+    }
+
+    /**
+     * @return 错误信息, 校验通过时为空
+     */
+    static List<String> verify(byte[] classBytes, ClassLoader classLoader) {
+        List<String> errors = new ArrayList<>();
+        ClassNode classNode = new ClassNode();
+        try {
+            new ClassReader(classBytes).accept(new CheckClassAdapter(classNode, false), ClassReader.EXPAND_FRAMES);
+        } catch (RuntimeException e) {
+            errors.add(classNode.name + ": " + e);
+            return errors;
+        }
+
+        List<Type> interfaces = new ArrayList<>();
+        for (String anInterface : classNode.interfaces) {
+            interfaces.add(Type.getObjectType(anInterface));
+        }
+        for (MethodNode method : classNode.methods) {
+            if (method.instructions.size() == 0) {
+                continue;
+            }
+            String location = classNode.name + "." + method.name + method.desc;
+            TypeVerifier verifier = new TypeVerifier(Type.getObjectType(classNode.name),
+                    classNode.superName == null ? null : Type.getObjectType(classNode.superName),
+                    interfaces, (classNode.access & Opcodes.ACC_INTERFACE) != 0);
+            verifier.setClassLoader(classLoader);
+            Frame<BasicValue>[] frames;
+            try {
+                frames = new Analyzer<>(verifier).analyze(classNode.name, method);
+            } catch (AnalyzerException | RuntimeException e) {
+                errors.add(location + ": " + e);
+                continue;
+            }
+            for (int i = 0; i < method.instructions.size(); i++) {
+                AbstractInsnNode insn = method.instructions.get(i);
+                if (insn instanceof FrameNode && frames[i] != null) {
+                    checkFrame(location + " frame@" + i, (FrameNode) insn, frames[i], verifier, errors);
+                }
+            }
+        }
+        return errors;
+    }
+
+    private static void checkFrame(String location, FrameNode frameNode, Frame<BasicValue> actual, TypeVerifier verifier, List<String> errors) {
+        int slot = 0;
+        if (frameNode.local != null) {
+            for (Object declared : frameNode.local) {
+                checkValue(location + " local " + slot, declared, actual.getLocal(slot), verifier, errors);
+                slot += declared == Opcodes.LONG || declared == Opcodes.DOUBLE ? 2 : 1;
+            }
+        }
+        int stackSize = frameNode.stack == null ? 0 : frameNode.stack.size();
+        if (stackSize != actual.getStackSize()) {
+            errors.add(location + ": declared stack size " + stackSize + " but was " + actual.getStackSize());
+            return;
+        }
+        for (int i = 0; i < stackSize; i++) {
+            checkValue(location + " stack " + i, frameNode.stack.get(i), actual.getStack(i), verifier, errors);
+        }
+    }
+
+    private static void checkValue(String location, Object declared, BasicValue actual, TypeVerifier verifier, List<String> errors) {
+        boolean valid;
+        if (declared == Opcodes.TOP || declared == Opcodes.UNINITIALIZED_THIS || !(declared instanceof Integer || declared instanceof String)) {
+            // 未初始化的 new 对象(LabelNode)不在检查范围内
+            valid = true;
+        } else if (declared == Opcodes.INTEGER) {
+            valid = actual == BasicValue.INT_VALUE;
+        } else if (declared == Opcodes.FLOAT) {
+            valid = actual == BasicValue.FLOAT_VALUE;
+        } else if (declared == Opcodes.LONG) {
+            valid = actual == BasicValue.LONG_VALUE;
+        } else if (declared == Opcodes.DOUBLE) {
+            valid = actual == BasicValue.DOUBLE_VALUE;
+        } else if (declared == Opcodes.NULL) {
+            valid = actual.isReference();
+        } else {
+            valid = actual.isReference() && verifier.isAssignable((String) declared, actual);
+        }
+        if (!valid) {
+            errors.add(location + ": declared " + declared + " but was " + actual);
+        }
+    }
+
+    private static final class TypeVerifier extends SimpleVerifier {
+        TypeVerifier(Type currentClass, Type currentSuperClass, List<Type> currentClassInterfaces, boolean isInterface) {
+            super(Opcodes.ASM5, currentClass, currentSuperClass, currentClassInterfaces, isInterface);
+        }
+
+        boolean isAssignable(String declared, BasicValue actual) {
+            return isSubTypeOf(actual, newValue(Type.getObjectType(declared)));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.google.common.truth.Truth;
+import com.growingio.sdk.plugin.autotrack.ClassUtils;
+import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
+import com.growingio.sdk.plugin.autotrack.hook.TargetClass;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+import com.growingio.sdk.plugin.autotrack.tmp.LambdaInterface;
+import com.growingio.sdk.plugin.autotrack.tmp.LambdaInterfaceExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SubExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SubOverrideExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SuperExample;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({HookClassesConfig.class})
+public class HookClassFilterTest {
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(HookClassesConfig.class);
+        PowerMockito.when(HookClassesConfig.getSuperHookClasses()).thenReturn(Collections.<String, TargetClass>emptyMap());
+        PowerMockito.when(HookClassesConfig.getAroundHookClasses()).thenReturn(Collections.<String, TargetClass>emptyMap());
+    }
+
+    private static Map<String, TargetClass> targetClasses(Class<?> clazz, String methodName, String methodDesc) {
+        TargetClass targetClass = new TargetClass(ClassUtils.getClassName(clazz));
+        targetClass.addTargetMethod(new TargetMethod(methodName, methodDesc));
+        return Collections.singletonMap(targetClass.getName(), targetClass);
+    }
+
+    private HookClassFilter newFilter() {
+        return new HookClassFilter(new ClassHierarchy(getClass().getClassLoader()));
+    }
+
+    @Test
+    public void superHook_matchesSuperName() throws IOException {
+        PowerMockito.when(HookClassesConfig.getSuperHookClasses()).thenReturn(targetClasses(SuperExample.class, "onExecute", "()V"));
+        HookClassFilter filter = newFilter();
+
+        Truth.assertThat(filter.mayContainHook(ClassUtils.classToByteArray(SubExample.class))).isTrue();
+        Truth.assertThat(filter.mayContainHook(ClassUtils.classToByteArray(SuperExample.class))).isFalse();
+    }
+
+    @Test
+    public void aroundHook_matchesMethodrefOfSubclass() throws IOException {
+        PowerMockito.when(HookClassesConfig.getAroundHookClasses()).thenReturn(targetClasses(SuperExample.class, "originExecuteWithArg", "(Ljava/lang/String;)V"));
+        HookClassFilter filter = newFilter();
+
+        // SubOverrideExample 调用的是 SubOverrideExample.originExecuteWithArg, owner 是 SuperExample 的子类
+        Truth.assertThat(filter.mayContainHook(ClassUtils.classToByteArray(SubOverrideExample.class))).isTrue();
+        Truth.assertThat(filter.mayContainHook(ClassUtils.classToByteArray(SubExample.class))).isFalse();
+    }
+
+    @Test
+    public void aroundHook_ignoresOtherMethodNames() throws IOException {
+        PowerMockito.when(HookClassesConfig.getAroundHookClasses()).thenReturn(targetClasses(SuperExample.class, "notCalled", "()V"));
+        HookClassFilter filter = newFilter();
+
+        Truth.assertThat(filter.mayContainHook(ClassUtils.classToByteArray(SubOverrideExample.class))).isFalse();
+    }
+
+    @Test
+    public void superHook_matchesInvokeDynamicInterface() throws IOException {
+        PowerMockito.when(HookClassesConfig.getSuperHookClasses()).thenReturn(targetClasses(LambdaInterface.class, "onExecute", "()V"));
+        HookClassFilter filter = newFilter();
+
+        Truth.assertThat(filter.mayContainHook(ClassUtils.classToByteArray(LambdaInterfaceExample.class))).isTrue();
+    }
+
+    @Test
+    public void invalidBytes_areConservative() {
+        HookClassFilter filter = newFilter();
+
+        Truth.assertThat(filter.mayContainHook(new byte[]{1, 2, 3})).isTrue();
+        Truth.assertThat(filter.mayContainHook(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 52, 0, 5, 99})).isTrue();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.google.common.truth.Truth;
+import com.growingio.sdk.plugin.autotrack.ClassUtils;
+import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
+import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
+import com.growingio.sdk.plugin.autotrack.hook.TargetClass;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+import com.growingio.sdk.plugin.autotrack.tmp.SubExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SuperExample;
+import com.growingio.sdk.plugin.autotrack.tmp.inject.InjectAgent;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({HookClassesConfig.class})
+public class InjectionReportTest {
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+    private String mSuperName;
+    private String mSubName;
+    private InjectMethod mInjectMethod;
+
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(HookClassesConfig.class);
+        mSuperName = ClassUtils.getClassName(SuperExample.class);
+        mSubName = ClassUtils.getClassName(SubExample.class);
+        TargetClass targetClass = new TargetClass(mSuperName);
+        TargetMethod targetMethod = new TargetMethod("onExecute", "()V");
+        mInjectMethod = new InjectMethod(ClassUtils.getClassName(InjectAgent.class), "onExecute", "(L" + mSuperName + ";)V", false);
+        targetMethod.addInjectMethod(mInjectMethod);
+        targetClass.addTargetMethod(targetMethod);
+        PowerMockito.when(HookClassesConfig.getSuperHookClasses()).thenReturn(Collections.singletonMap(mSuperName, targetClass));
+        PowerMockito.when(HookClassesConfig.getAroundHookClasses()).thenReturn(Collections.<String, TargetClass>emptyMap());
+    }
+
+    @Test
+    public void transformClass_recordsInjections() throws IOException {
+        InjectionReport report = new InjectionReport();
+        ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), new ClassHierarchy(), null);
+        classRewriter.setInjectionReport(report);
+
+        Truth.assertThat(classRewriter.transformClassBytes(ClassUtils.classToByteArray(SuperExample.class))).isNull();
+        Truth.assertThat(classRewriter.transformClassBytes(ClassUtils.classToByteArray(SubExample.class))).isNotNull();
+
+        Truth.assertThat(report.getClassCount()).isEqualTo(1);
+        List<InjectionReport.Injection> injections = report.getInjections(mSubName);
+        Truth.assertThat(injections).containsExactly(
+                new InjectionReport.Injection(InjectionReport.TYPE_SUPER_BEFORE, mInjectMethod, mSubName, "onExecute", "()V"));
+        Truth.assertThat(report.getInjections(mSuperName)).isEmpty();
+
+        File file = new File(mTemporaryFolder.getRoot(), "report/injection-report.jsonl");
+        report.writeTo(file);
+        List<String> lines = FileUtils.readLines(file, StandardCharsets.UTF_8);
+        Truth.assertThat(lines).containsExactly("{\"class\":\"" + mSubName + "\",\"injections\":[{\"type\":\"SuperBefore\","
+                + "\"inject\":\"" + mInjectMethod.getClassName() + "#onExecute(L" + mSuperName + ";)V\","
+                + "\"target\":\"" + mSubName + "#onExecute()V\"}]}");
+    }
+
+    @Test
+    public void transformClass_withoutReport() throws IOException {
+        ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), new ClassHierarchy(), null);
+        Truth.assertThat(classRewriter.transformClassBytes(ClassUtils.classToByteArray(SubExample.class))).isNotNull();
+    }
+}
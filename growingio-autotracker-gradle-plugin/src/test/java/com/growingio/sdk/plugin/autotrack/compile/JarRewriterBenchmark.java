@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import org.apache.commons.io.IOUtils;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 对比逐个 entry 顺序改写 jar 和 JarRewriter 并行改写的耗时。
+ * <p>
+ * 用法: JarRewriterBenchmark [class 数量, 默认 20000], 生成的 jar 中每 10 个类有一个 View.OnClickListener 的实现类
+ */
+public class JarRewriterBenchmark {
+    private static final int ROUNDS = 5;
+
+    private JarRewriterBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int classCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        File dir = new File(System.getProperty("java.io.tmpdir"), "jar-rewriter-benchmark");
+        dir.mkdirs();
+        File jar = new File(dir, "synthetic.jar");
+        createJar(jar, classCount);
+        File out = new File(dir, "out.jar");
+
+        Log log = new ErrorLog();
+        ClassRewriter classRewriter = new ClassRewriter(log, new ClassHierarchy(), null);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            System.out.println(String.format("synthetic jar: %d classes, %d KB, %d threads", classCount, jar.length() / 1024, threads));
+            for (int i = 0; i < 2; i++) {
+                sequential(classRewriter, jar, out);
+                new JarRewriter(classRewriter, executor, log).transform(jar, out);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                sequential(classRewriter, jar, out);
+            }
+            report("sequential", start, classCount);
+
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                new JarRewriter(classRewriter, Runnable::run, log).transform(jar, out);
+            }
+            report("raw copy", start, classCount);
+
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                new JarRewriter(classRewriter, executor, log).transform(jar, out);
+            }
+            report("parallel", start, classCount);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void report(String name, long start, int classCount) {
+        double millis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+        System.out.println(String.format("%-10s %8.1f ms/jar, %10.0f classes/s", name, millis, classCount * 1000 / millis));
+    }
+
+    /**
+     * 原先 transformJar 的实现: ZipInputStream 读取, 每个 entry 重新压缩写入
+     */
+    private static void sequential(ClassRewriter classRewriter, File from, File to) throws IOException {
+        try (ZipOutputStream outJar = new ZipOutputStream(new FileOutputStream(to));
+             ZipInputStream jar = new ZipInputStream(new FileInputStream(from))) {
+            ZipEntry entry;
+            while ((entry = jar.getNextEntry()) != null) {
+                outJar.putNextEntry(new ZipEntry(entry.getName()));
+                if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+                    classRewriter.transformClass(jar, outJar);
+                } else {
+                    IOUtils.copy(jar, outJar);
+                }
+            }
+        }
+    }
+
+    private static void createJar(File jar, int classCount) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (int i = 0; i < classCount; i++) {
+                String name = "com/example/synthetic/C" + i;
+                zip.putNextEntry(new ZipEntry(name + ".class"));
+                zip.write(createClass(name, i % 10 == 0));
+                zip.closeEntry();
+                if (i % 100 == 0) {
+                    zip.putNextEntry(new ZipEntry("assets/a" + i + ".txt"));
+                    zip.write(("asset " + i).getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+            }
+        }
+    }
+
+    private static byte[] createClass(String name, boolean isClickListener) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        String[] interfaces = isClickListener ? new String[]{"android/view/View$OnClickListener"} : null;
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", interfaces);
+        cw.visitField(Opcodes.ACC_PRIVATE, "mValue", "I", null, null).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        for (int m = 0; m < 8; m++) {
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "compute" + m, "(I)I", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, name, "mValue", "I");
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitInsn(Opcodes.IADD);
+            mv.visitLdcInsn(m);
+            mv.visitInsn(Opcodes.IMUL);
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        if (isClickListener) {
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "onClick", "(Landroid/view/View;)V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitInsn(Opcodes.ICONST_1);
+            mv.visitFieldInsn(Opcodes.PUTFIELD, name, "mValue", "I");
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
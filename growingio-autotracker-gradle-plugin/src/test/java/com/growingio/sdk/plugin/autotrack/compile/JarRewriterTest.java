@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.google.common.truth.Truth;
+import com.growingio.sdk.plugin.autotrack.ClassUtils;
+import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
+import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
+import com.growingio.sdk.plugin.autotrack.hook.TargetClass;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+import com.growingio.sdk.plugin.autotrack.tmp.SubExample;
+import com.growingio.sdk.plugin.autotrack.tmp.SuperExample;
+import com.growingio.sdk.plugin.autotrack.tmp.inject.InjectAgent;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({HookClassesConfig.class})
+public class JarRewriterTest {
+    private static final int CLASS_PAIRS = 100;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(HookClassesConfig.class);
+        String className = ClassUtils.getClassName(SuperExample.class);
+        TargetClass targetClass = new TargetClass(className);
+        TargetMethod targetMethod = new TargetMethod("onExecute", "()V");
+        targetMethod.addInjectMethod(new InjectMethod(ClassUtils.getClassName(InjectAgent.class), "onExecute", "(L" + className + ";)V", false));
+        targetClass.addTargetMethod(targetMethod);
+        PowerMockito.when(HookClassesConfig.getSuperHookClasses()).thenReturn(Collections.singletonMap(className, targetClass));
+        PowerMockito.when(HookClassesConfig.getAroundHookClasses()).thenReturn(Collections.<String, TargetClass>emptyMap());
+        mExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void transform_keepsOrderAndCopiesRaw() throws IOException {
+        File from = createJar();
+        File to = new File(mTemporaryFolder.getRoot(), "out.jar");
+        ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), new ClassHierarchy(), null);
+
+        // 窗口比 entry 数量小, 覆盖写入线程追赶线程池的情况
+        int modified = new JarRewriter(classRewriter, mExecutor, new ErrorLog(), 8).transform(from, to);
+        Truth.assertThat(modified).isEqualTo(CLASS_PAIRS);
+
+        try (ZipFile input = new ZipFile(from); ZipFile output = new ZipFile(to)) {
+            List<ZipArchiveEntry> inputEntries = Collections.list(input.getEntriesInPhysicalOrder());
+            List<ZipArchiveEntry> outputEntries = Collections.list(output.getEntriesInPhysicalOrder());
+            Truth.assertThat(names(outputEntries)).containsExactlyElementsIn(names(inputEntries)).inOrder();
+            for (int i = 0; i < inputEntries.size(); i++) {
+                ZipArchiveEntry in = inputEntries.get(i);
+                ZipArchiveEntry out = outputEntries.get(i);
+                if (in.getName().contains("/Sub")) {
+                    Truth.assertThat(out.getCrc()).isNotEqualTo(in.getCrc());
+                } else {
+                    // 原样复制: 压缩方式, 压缩后大小和 crc 都不变
+                    Truth.assertThat(out.getMethod()).isEqualTo(in.getMethod());
+                    Truth.assertThat(out.getCompressedSize()).isEqualTo(in.getCompressedSize());
+                    Truth.assertThat(out.getCrc()).isEqualTo(in.getCrc());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void transform_callerThreadRunsPendingTasks() throws IOException {
+        File from = createJar();
+        File to = new File(mTemporaryFolder.getRoot(), "out.jar");
+        ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), new ClassHierarchy(), null);
+
+        // 线程池永远不执行任务时, 写入线程需要自己执行
+        int modified = new JarRewriter(classRewriter, runnable -> {
+        }, new ErrorLog()).transform(from, to);
+        Truth.assertThat(modified).isEqualTo(CLASS_PAIRS);
+    }
+
+    @Test
+    public void transform_collectsDependencies() throws IOException {
+        File from = createJar();
+        File to = new File(mTemporaryFolder.getRoot(), "out.jar");
+        ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), new ClassHierarchy(), null);
+        Set<String> dependencies = ConcurrentHashMap.newKeySet();
+        JarRewriter jarRewriter = new JarRewriter(classRewriter, mExecutor, new ErrorLog());
+        jarRewriter.setDependencies(dependencies);
+        jarRewriter.transform(from, to);
+        Truth.assertThat(dependencies).containsAtLeast(ClassUtils.getClassName(SubExample.class), ClassUtils.getClassName(SuperExample.class));
+        Truth.assertThat(dependencies).containsExactlyElementsIn(DependencyIndex.collectJar(from));
+    }
+
+    @Test
+    public void transform_failedClassFailsJarAndDeletesOutput() throws IOException {
+        File from = createJar();
+        File to = new File(mTemporaryFolder.getRoot(), "out.jar");
+        ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), new ClassHierarchy(), null) {
+            @Override
+            public byte[] transformClassBytes(byte[] bytes) {
+                throw new AutotrackBuildException("broken class");
+            }
+        };
+
+        try {
+            new JarRewriter(classRewriter, mExecutor, new ErrorLog()).transform(from, to);
+            throw new AssertionError("transform should fail");
+        } catch (AutotrackBuildException e) {
+            Truth.assertThat(e).hasMessageThat().contains("a/Sub0.class");
+            Truth.assertThat(e).hasCauseThat().hasMessageThat().isEqualTo("broken class");
+        }
+        Truth.assertThat(to.exists()).isFalse();
+    }
+
+    private static List<String> names(List<ZipArchiveEntry> entries) {
+        List<String> names = new ArrayList<>();
+        for (ZipArchiveEntry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    private File createJar() throws IOException {
+        File jar = mTemporaryFolder.newFile("in.jar");
+        byte[] sub = ClassUtils.classToByteArray(SubExample.class);
+        byte[] sup = ClassUtils.classToByteArray(SuperExample.class);
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            zip.putNextEntry(new ZipEntry("META-INF/"));
+            zip.closeEntry();
+            byte[] manifest = "Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8);
+            ZipEntry stored = new ZipEntry("META-INF/MANIFEST.MF");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(manifest.length);
+            CRC32 crc32 = new CRC32();
+            crc32.update(manifest);
+            stored.setCrc(crc32.getValue());
+            zip.putNextEntry(stored);
+            zip.write(manifest);
+            zip.closeEntry();
+            for (int i = 0; i < CLASS_PAIRS; i++) {
+                zip.putNextEntry(new ZipEntry("a/Sub" + i + ".class"));
+                zip.write(sub);
+                zip.closeEntry();
+                zip.putNextEntry(new ZipEntry("a/Super" + i + ".class"));
+                zip.write(sup);
+                zip.closeEntry();
+                zip.putNextEntry(new ZipEntry("res/raw" + i + ".txt"));
+                zip.write(("resource " + i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
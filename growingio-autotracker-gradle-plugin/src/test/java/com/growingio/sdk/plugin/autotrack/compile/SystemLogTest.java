@@ -26,6 +26,7 @@ public class SystemLogTest {
     public void testSystemLog() {
         SystemLog systemLog = new SystemLog();
         systemLog.debug("debug");
+        systemLog.debug("debug %s#%s", "a/Foo", "onClick");
         systemLog.error("error");
         systemLog.error("error", new Exception("exception message"));
         systemLog.info("info");
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.compile;
+
+import com.google.common.truth.Truth;
+import com.growingio.sdk.plugin.autotrack.hook.HookClassesConfig;
+import com.growingio.sdk.plugin.autotrack.hook.InjectMethod;
+import com.growingio.sdk.plugin.autotrack.hook.TargetClass;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({HookClassesConfig.class})
+public class TransformCacheTest {
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+    private TargetMethod mTargetMethod;
+
+    @Before
+    public void setUp() {
+        PowerMockito.mockStatic(HookClassesConfig.class);
+        TargetClass targetClass = new TargetClass("android/view/View$OnClickListener");
+        mTargetMethod = new TargetMethod("onClick", "(Landroid/view/View;)V");
+        mTargetMethod.addInjectMethod(new InjectMethod("a/Injector", "onClick", "(Landroid/view/View;)V", false));
+        targetClass.addTargetMethod(mTargetMethod);
+        PowerMockito.when(HookClassesConfig.getSuperHookClasses()).thenReturn(Collections.singletonMap(targetClass.getName(), targetClass));
+        PowerMockito.when(HookClassesConfig.getAroundHookClasses()).thenReturn(Collections.<String, TargetClass>emptyMap());
+    }
+
+    @Test
+    public void restore_afterStore() throws IOException {
+        File cacheDir = mTemporaryFolder.newFolder("cache");
+        File input = writeFile("input.jar", "input");
+        File output = writeFile("out/first.jar", "transformed");
+
+        TransformCache cache = new TransformCache(cacheDir, fingerprint());
+        String key = cache.getKey(input);
+        File restored = new File(mTemporaryFolder.getRoot(), "out/second.jar");
+        Truth.assertThat(cache.restore(key, restored)).isFalse();
+        cache.store(key, output);
+
+        // 另一次构建(clean build 或其他 variant)使用同一个缓存目录
+        TransformCache other = new TransformCache(cacheDir, fingerprint());
+        Truth.assertThat(other.getKey(input)).isEqualTo(key);
+        Truth.assertThat(other.restore(key, restored)).isTrue();
+        Truth.assertThat(read(restored)).isEqualTo("transformed");
+        Truth.assertThat(other.getHitCount()).isEqualTo(1);
+        Truth.assertThat(other.getMissCount()).isEqualTo(0);
+        Truth.assertThat(other.getReport()).contains("hit 1/1 (100.0%)");
+        Truth.assertThat(cache.getReport()).contains("hit 0/1 (0.0%)");
+    }
+
+    @Test
+    public void restore_copyIsIndependent() throws IOException {
+        File cacheDir = mTemporaryFolder.newFolder("cache");
+        File input = writeFile("input.jar", "input");
+        TransformCache cache = new TransformCache(cacheDir, fingerprint());
+        cache.setUseHardLink(false);
+        String key = cache.getKey(input);
+        cache.store(key, writeFile("out/first.jar", "transformed"));
+
+        File restored = new File(mTemporaryFolder.getRoot(), "out/second.jar");
+        Truth.assertThat(cache.restore(key, restored)).isTrue();
+        FileUtils.writeStringToFile(restored, "modified", StandardCharsets.UTF_8);
+        File again = new File(mTemporaryFolder.getRoot(), "out/third.jar");
+        Truth.assertThat(cache.restore(key, again)).isTrue();
+        Truth.assertThat(read(again)).isEqualTo("transformed");
+    }
+
+    @Test
+    public void key_dependsOnContentAndConfig() throws IOException {
+        File cacheDir = mTemporaryFolder.newFolder("cache");
+        File input = writeFile("input.jar", "input");
+        File changed = writeFile("changed.jar", "changed");
+        String fingerprint = fingerprint();
+        String key = new TransformCache(cacheDir, fingerprint).getKey(input);
+
+        Truth.assertThat(new TransformCache(cacheDir, fingerprint).getKey(changed)).isNotEqualTo(key);
+        Truth.assertThat(TransformCache.computeFingerprint("1.0.1", null)).isNotEqualTo(fingerprint);
+        Truth.assertThat(TransformCache.computeFingerprint("1.0.0", new String[]{"com.example"})).isNotEqualTo(fingerprint);
+
+        mTargetMethod.addInjectMethod(new InjectMethod("a/Injector", "onClick", "(Landroid/view/View;)V", true));
+        Truth.assertThat(fingerprint()).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    public void key_onlyDependsOnReferencedHierarchy() throws IOException {
+        File input = writeFile("input.jar", "input");
+        TransformCache cache = new TransformCache(mTemporaryFolder.newFolder("cache"), fingerprint());
+        Set<String> referenced = new HashSet<>(Arrays.asList("lib/MyListener", "lib/Helper"));
+        Map<String, Set<String>> targets = new HashMap<>();
+        targets.put("lib/MyListener", Collections.singleton("android/view/View$OnClickListener"));
+        String key = cache.getKey(input, referenced, targets, null);
+
+        // 工程中新增的 Activity 子类和 jar 无关
+        targets.put("app/NewActivity", Collections.singleton("android/app/Activity"));
+        Truth.assertThat(cache.getKey(input, referenced, targets, null)).isEqualTo(key);
+
+        // jar 引用的类型的继承关系变化
+        targets.put("lib/Helper", Collections.singleton("android/app/Fragment"));
+        Truth.assertThat(cache.getKey(input, referenced, targets, null)).isNotEqualTo(key);
+        targets.remove("lib/Helper");
+        targets.remove("lib/MyListener");
+        Truth.assertThat(cache.getKey(input, referenced, targets, null)).isNotEqualTo(key);
+    }
+
+    @Test
+    public void key_computeFramesIncludesAncestors() throws IOException {
+        File input = writeFile("input.jar", "input");
+        TransformCache cache = new TransformCache(mTemporaryFolder.newFolder("cache"), fingerprint());
+        Set<String> referenced = Collections.singleton("lib/Sub");
+        Map<String, Set<String>> targets = Collections.emptyMap();
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.addClass("lib/Sub", "lib/Base", null);
+        hierarchy.addClass("lib/Base", "java/lang/Object", null);
+        String key = cache.getKey(input, referenced, targets, hierarchy);
+
+        ClassHierarchy changed = new ClassHierarchy();
+        changed.addClass("lib/Sub", "lib/Base", null);
+        changed.addClass("lib/Base", "lib/Root", null);
+        Truth.assertThat(cache.getKey(input, referenced, targets, changed)).isNotEqualTo(key);
+        Truth.assertThat(cache.getKey(input, referenced, targets, null)).isNotEqualTo(key);
+    }
+
+    @Test
+    public void evict_byAgeAndSize() throws IOException {
+        File cacheDir = mTemporaryFolder.newFolder("cache");
+        TransformCache cache = new TransformCache(cacheDir, fingerprint(), 25, TimeUnit.DAYS.toMillis(7));
+        cache.setUseHardLink(false);
+        long now = System.currentTimeMillis();
+        String expired = storeEntry(cache, "expired", now - TimeUnit.DAYS.toMillis(8));
+        String oldest = storeEntry(cache, "oldest", now - TimeUnit.HOURS.toMillis(3));
+        String older = storeEntry(cache, "older", now - TimeUnit.HOURS.toMillis(2));
+        String newest = storeEntry(cache, "newest", now - TimeUnit.HOURS.toMillis(1));
+
+        Truth.assertThat(cache.evict()).isEqualTo(2);
+        File restored = new File(mTemporaryFolder.getRoot(), "restored");
+        Truth.assertThat(cache.restore(expired, restored)).isFalse();
+        Truth.assertThat(cache.restore(oldest, restored)).isFalse();
+        Truth.assertThat(cache.restore(older, restored)).isTrue();
+        Truth.assertThat(cache.restore(newest, restored)).isTrue();
+    }
+
+    private String storeEntry(TransformCache cache, String name, long lastUsed) throws IOException {
+        // 每个缓存文件 10 个字节
+        String key = cache.getKey(writeFile(name + ".jar", name));
+        cache.store(key, writeFile("out/" + name + ".jar", "0123456789"));
+        new File(new File(mTemporaryFolder.getRoot(), "cache/" + key.substring(0, 2)), key.substring(2)).setLastModified(lastUsed);
+        return key;
+    }
+
+    private static String fingerprint() {
+        return TransformCache.computeFingerprint("1.0.0", null);
+    }
+
+    private File writeFile(String path, String content) throws IOException {
+        File file = new File(mTemporaryFolder.getRoot(), path);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.sdk.plugin.autotrack.compile.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * TransformBenchmark 的结果。
+ * <p>
+ * 完整结果写成 JSON, 用于机器读取和归档; 基线只保存与硬件关系较小的 relativeCost
+ * (相对 ASM 原样读写同样的类的耗时倍数), 以 properties 格式提交到仓库中。
+ */
+public class BenchmarkReport {
+    public static final String KEY_RELATIVE_COST = "relativeCost";
+
+    private final Map<String, Map<String, Object>> mSections = new LinkedHashMap<>();
+
+    public Map<String, Object> section(String name) {
+        Map<String, Object> section = mSections.get(name);
+        if (section == null) {
+            section = new LinkedHashMap<>();
+            mSections.put(name, section);
+        }
+        return section;
+    }
+
+    /**
+     * @return 参与回归比较的指标, key 为 "section.relativeCost"
+     */
+    public Map<String, Double> getRegressionMetrics() {
+        Map<String, Double> metrics = new TreeMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : mSections.entrySet()) {
+            Object value = entry.getValue().get(KEY_RELATIVE_COST);
+            if (value instanceof Number) {
+                metrics.put(entry.getKey() + "." + KEY_RELATIVE_COST, ((Number) value).doubleValue());
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return 超过 baseline * (1 + threshold) 的指标描述, 为空表示没有回归。基线中没有的指标不参与比较
+     */
+    public List<String> compare(Map<String, Double> baseline, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : getRegressionMetrics().entrySet()) {
+            Double expected = baseline.get(entry.getKey());
+            if (expected == null) {
+                continue;
+            }
+            double actual = entry.getValue();
+            if (actual > expected * (1 + threshold)) {
+                regressions.add(String.format(Locale.US, "%s: %.3f > baseline %.3f (+%.0f%%, threshold %.0f%%)",
+                        entry.getKey(), actual, expected, (actual / expected - 1) * 100, threshold * 100));
+            }
+        }
+        return regressions;
+    }
+
+    public static Map<String, Double> readBaseline(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            properties.load(inputStream);
+        }
+        Map<String, Double> baseline = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            baseline.put(key, Double.parseDouble(properties.getProperty(key)));
+        }
+        return baseline;
+    }
+
+    public void writeBaseline(File file) throws IOException {
+        mkdirs(file);
+        StringBuilder builder = new StringBuilder("# TransformBenchmark baseline, regenerate with -PupdateTransformBaseline\n");
+        for (Map.Entry<String, Double> entry : getRegressionMetrics().entrySet()) {
+            builder.append(entry.getKey()).append('=').append(String.format(Locale.US, "%.3f", entry.getValue())).append('\n');
+        }
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(builder.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    public void writeJson(File file) throws IOException {
+        mkdirs(file);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+    }
+
+    public String toJson() {
+        StringBuilder builder = new StringBuilder("{\n");
+        int sectionIndex = 0;
+        for (Map.Entry<String, Map<String, Object>> section : mSections.entrySet()) {
+            builder.append("  \"").append(section.getKey()).append("\": {");
+            int valueIndex = 0;
+            for (Map.Entry<String, Object> value : section.getValue().entrySet()) {
+                builder.append(valueIndex++ == 0 ? "" : ",").append("\n    \"").append(value.getKey()).append("\": ");
+                appendValue(builder, value.getValue());
+            }
+            builder.append("\n  }").append(++sectionIndex < mSections.size() ? ",\n" : "\n");
+        }
+        return builder.append("}\n").toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void appendValue(StringBuilder builder, Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            builder.append(String.format(Locale.US, "%.3f", ((Number) value).doubleValue()));
+        } else if (value instanceof Number || value instanceof Boolean) {
+            builder.append(value);
+        } else if (value instanceof Map) {
+            builder.append('{');
+            int index = 0;
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                builder.append(index++ == 0 ? "" : ", ").append('"').append(entry.getKey()).append("\": ");
+                appendValue(builder, entry.getValue());
+            }
+            builder.append('}');
+        } else {
+            builder.append('"').append(String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+    }
+
+    private static void mkdirs(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+    }
+}
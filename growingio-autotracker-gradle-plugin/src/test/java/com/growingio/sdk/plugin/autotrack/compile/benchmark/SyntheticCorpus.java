@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.sdk.plugin.autotrack.compile.benchmark;
+
+import com.growingio.sdk.plugin.autotrack.compile.ClassHierarchy;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 用 ASM 生成不同形态的类, 作为 transform 基准测试的输入。
+ * 同样的参数每次生成的字节完全一致, 不同机器上的结果可以对比。
+ */
+public final class SyntheticCorpus {
+    private static final String PACKAGE = "com/example/synthetic/";
+    private static final String CLICK_LISTENER = "android/view/View$OnClickListener";
+    private static final String VIEW = "android/view/View";
+    private static final String WEB_VIEW = "android/webkit/WebView";
+    private static final String FRAGMENT = "androidx/fragment/app/Fragment";
+    private static final String[][] FRAGMENT_METHODS = {
+            {"onResume", "()V"}, {"onDestroyView", "()V"}, {"setUserVisibleHint", "(Z)V"}, {"onHiddenChanged", "(Z)V"},
+    };
+    private static final int DEEP_HIERARCHY_DEPTH = 12;
+    private static final Handle LAMBDA_METAFACTORY = new Handle(Opcodes.H_INVOKESTATIC,
+            "java/lang/invoke/LambdaMetafactory", "metafactory",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+                    + "Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)"
+                    + "Ljava/lang/invoke/CallSite;", false);
+
+    public enum Shape {
+        /**
+         * 普通数据类, 不包含任何 hook, 会被常量池预过滤直接跳过
+         */
+        POJO("pojo"),
+        /**
+         * 实现 View.OnClickListener, 方法很多, 只有 onClick 需要注入
+         */
+        CLICK_LISTENER("click-listener"),
+        /**
+         * 类似 Kotlin 编译结果, 大量 lambda 生成 OnClickListener 和普通 Runnable
+         */
+        LAMBDA_DENSE("lambda-dense"),
+        /**
+         * WebView 的子类及其 loadUrl/loadData 调用方
+         */
+        WEB_VIEW("webview"),
+        /**
+         * Fragment 的多层继承, 每层都覆写生命周期方法并调用 super
+         */
+        DEEP_HIERARCHY("deep-hierarchy");
+
+        private final String mName;
+
+        Shape(String name) {
+            mName = name;
+        }
+
+        public String getName() {
+            return mName;
+        }
+    }
+
+    private SyntheticCorpus() {
+    }
+
+    /**
+     * @return 类名到 class 字节的映射, 保持生成顺序
+     */
+    public static Map<String, byte[]> generate(Shape shape, int count) {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        String prefix = PACKAGE + shape.getName().replace('-', '_') + "/";
+        for (int i = 0; i < count; i++) {
+            switch (shape) {
+                case POJO:
+                    putClass(classes, createPojo(prefix + "Pojo" + i));
+                    break;
+                case CLICK_LISTENER:
+                    putClass(classes, createClickListener(prefix + "Listener" + i));
+                    break;
+                case LAMBDA_DENSE:
+                    putClass(classes, createLambdaDense(prefix + "Screen" + i));
+                    break;
+                case WEB_VIEW:
+                    // 偶数位置是 WebView 子类, 奇数位置是调用前一个子类的类
+                    if (i % 2 == 0) {
+                        putClass(classes, createWebView(prefix + "Web" + i));
+                    } else {
+                        putClass(classes, createWebViewCaller(prefix + "WebCaller" + i, prefix + "Web" + (i - 1)));
+                    }
+                    break;
+                case DEEP_HIERARCHY:
+                    String superName = i % DEEP_HIERARCHY_DEPTH == 0 ? FRAGMENT : prefix + "Fragment" + (i - 1);
+                    putClass(classes, createFragment(prefix + "Fragment" + i, superName));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown shape: " + shape);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * 所有形态各占相同数量, 用于端到端的 jar 测试
+     */
+    public static Map<String, byte[]> generateMixed(int count) {
+        Shape[] shapes = Shape.values();
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (Shape shape : shapes) {
+            classes.putAll(generate(shape, count / shapes.length));
+        }
+        return classes;
+    }
+
+    /**
+     * 补充生成的类和它们依赖的 Android 类的继承关系, 基准测试中没有 android.jar
+     */
+    public static ClassHierarchy createClassHierarchy(Map<String, byte[]> classes) {
+        ClassHierarchy classHierarchy = new ClassHierarchy();
+        classHierarchy.addClass(VIEW, "java/lang/Object", null);
+        classHierarchy.addClass("android/widget/AbsoluteLayout", "android/view/ViewGroup", null);
+        classHierarchy.addClass("android/view/ViewGroup", VIEW, null);
+        classHierarchy.addClass(WEB_VIEW, "android/widget/AbsoluteLayout", null);
+        classHierarchy.addClass(CLICK_LISTENER, "java/lang/Object", null);
+        classHierarchy.addClass(FRAGMENT, "java/lang/Object", null);
+        for (byte[] bytes : classes.values()) {
+            classHierarchy.addClass(bytes);
+        }
+        return classHierarchy;
+    }
+
+    public static void writeJar(Map<String, byte[]> classes, File jar) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            int index = 0;
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey() + ".class"));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+                if (index++ % 100 == 0) {
+                    zip.putNextEntry(new ZipEntry("assets/a" + index + ".txt"));
+                    zip.write(("asset " + index).getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+            }
+        }
+    }
+
+    public static long totalSize(Map<String, byte[]> classes) {
+        long size = 0;
+        for (byte[] bytes : classes.values()) {
+            size += bytes.length;
+        }
+        return size;
+    }
+
+    private static void putClass(Map<String, byte[]> classes, ClassWriter cw) {
+        cw.visitEnd();
+        byte[] bytes = cw.toByteArray();
+        classes.put(new ClassReader(bytes).getClassName(), bytes);
+    }
+
+    private static ClassWriter begin(String name, String superName, String... interfaces) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, interfaces.length == 0 ? null : interfaces);
+        cw.visitField(Opcodes.ACC_PRIVATE, "mValue", "I", null, null).visitEnd();
+        cw.visitField(Opcodes.ACC_PRIVATE, "mName", "Ljava/lang/String;", null, null).visitEnd();
+        addConstructor(cw, superName, "()V");
+        return cw;
+    }
+
+    private static void addConstructor(ClassWriter cw, String superName, String desc) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", desc, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        Type[] arguments = Type.getArgumentTypes(desc);
+        for (int i = 0; i < arguments.length; i++) {
+            mv.visitVarInsn(arguments[i].getOpcode(Opcodes.ILOAD), i + 1);
+        }
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", desc, false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * getter/setter 和一些带分支的计算方法
+     */
+    private static void addBusinessMethods(ClassWriter cw, String owner, int count) {
+        for (int m = 0; m < count; m++) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "getValue" + m, "()I", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, owner, "mValue", "I");
+            mv.visitLdcInsn(m);
+            mv.visitInsn(Opcodes.IADD);
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "describe" + m, "(I)Ljava/lang/String;", null, null);
+            mv.visitCode();
+            mv.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder");
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V", false);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, owner, "mName", "Ljava/lang/String;");
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;", false);
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(I)Ljava/lang/StringBuilder;", false);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+    }
+
+    private static ClassWriter createPojo(String name) {
+        ClassWriter cw = begin(name, "java/lang/Object");
+        addBusinessMethods(cw, name, 10);
+        return cw;
+    }
+
+    private static ClassWriter createClickListener(String name) {
+        ClassWriter cw = begin(name, "java/lang/Object", CLICK_LISTENER);
+        addBusinessMethods(cw, name, 20);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "onClick", "(L" + VIEW + ";)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, name, "mValue", "I");
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitInsn(Opcodes.IADD);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, name, "mValue", "I");
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        return cw;
+    }
+
+    /**
+     * 每个类 8 个 OnClickListener lambda 和 8 个 Runnable lambda, Runnable 不需要注入
+     */
+    private static ClassWriter createLambdaDense(String name) {
+        ClassWriter cw = begin(name, "java/lang/Object");
+        addBusinessMethods(cw, name, 4);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "bind", "(L" + VIEW + ";)V", null, null);
+        mv.visitCode();
+        for (int i = 0; i < 8; i++) {
+            String clickImpl = "lambda$bind$" + (i * 2);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitInvokeDynamicInsn("onClick", "(L" + name + ";)L" + CLICK_LISTENER + ";", LAMBDA_METAFACTORY,
+                    Type.getType("(L" + VIEW + ";)V"),
+                    new Handle(Opcodes.H_INVOKESPECIAL, name, clickImpl, "(L" + VIEW + ";)V", false),
+                    Type.getType("(L" + VIEW + ";)V"));
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, VIEW, "setOnClickListener", "(L" + CLICK_LISTENER + ";)V", false);
+
+            String runImpl = "lambda$bind$" + (i * 2 + 1);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitInvokeDynamicInsn("run", "(L" + name + ";)Ljava/lang/Runnable;", LAMBDA_METAFACTORY,
+                    Type.getType("()V"),
+                    new Handle(Opcodes.H_INVOKESPECIAL, name, runImpl, "()V", false),
+                    Type.getType("()V"));
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, VIEW, "post", "(Ljava/lang/Runnable;)Z", false);
+            mv.visitInsn(Opcodes.POP);
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        for (int i = 0; i < 16; i++) {
+            boolean isClick = i % 2 == 0;
+            mv = cw.visitMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC, "lambda$bind$" + i,
+                    isClick ? "(L" + VIEW + ";)V" : "()V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, name, "mValue", "I");
+            mv.visitLdcInsn(i);
+            mv.visitInsn(Opcodes.IADD);
+            mv.visitFieldInsn(Opcodes.PUTFIELD, name, "mValue", "I");
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        return cw;
+    }
+
+    private static ClassWriter createWebView(String name) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, WEB_VIEW, null);
+        addConstructor(cw, WEB_VIEW, "(Landroid/content/Context;)V");
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "reload", "(Ljava/lang/String;)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, name, "loadUrl", "(Ljava/lang/String;)V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        return cw;
+    }
+
+    /**
+     * 通过子类和 WebView 本身两种 owner 调用 loadUrl/loadData
+     */
+    private static ClassWriter createWebViewCaller(String name, String webView) {
+        ClassWriter cw = begin(name, "java/lang/Object");
+        addBusinessMethods(cw, name, 6);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "open", "(L" + webView + ";L" + WEB_VIEW + ";Ljava/lang/String;)V", null, null);
+        mv.visitCode();
+        for (int i = 0; i < 4; i++) {
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitVarInsn(Opcodes.ALOAD, 3);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, webView, "loadUrl", "(Ljava/lang/String;)V", false);
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            mv.visitVarInsn(Opcodes.ALOAD, 3);
+            mv.visitLdcInsn("text/html");
+            mv.visitLdcInsn("utf-8");
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WEB_VIEW, "loadData", "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        return cw;
+    }
+
+    private static ClassWriter createFragment(String name, String superName) {
+        ClassWriter cw = begin(name, superName);
+        addBusinessMethods(cw, name, 4);
+        for (String[] method : FRAGMENT_METHODS) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, method[0], method[1], null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            if (method[1].startsWith("(Z")) {
+                mv.visitVarInsn(Opcodes.ILOAD, 1);
+            }
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, method[0], method[1], false);
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        return cw;
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.sdk.plugin.autotrack.compile.benchmark;
+
+import com.growingio.sdk.plugin.autotrack.compile.ClassHierarchy;
+import com.growingio.sdk.plugin.autotrack.compile.ClassRewriter;
+import com.growingio.sdk.plugin.autotrack.compile.Context;
+import com.growingio.sdk.plugin.autotrack.compile.ErrorLog;
+import com.growingio.sdk.plugin.autotrack.compile.HookClassFilter;
+import com.growingio.sdk.plugin.autotrack.compile.JarRewriter;
+import com.growingio.sdk.plugin.autotrack.compile.Log;
+import com.growingio.sdk.plugin.autotrack.compile.visitor.DesugaredClassVisitor;
+import com.growingio.sdk.plugin.autotrack.compile.visitor.DesugaringClassVisitor;
+import com.growingio.sdk.plugin.autotrack.compile.visitor.InjectAroundClassVisitor;
+import com.growingio.sdk.plugin.autotrack.compile.visitor.InjectSuperClassVisitor;
+import com.growingio.sdk.plugin.autotrack.hook.TargetMethod;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ClassRewriter 和 JarRewriter 的性能基准与回归检查, 由 gradle 任务 transformBenchmark 运行。
+ * <p>
+ * 对 SyntheticCorpus 的每种形态分别测量:
+ * 1. transformClass 的吞吐量和每个类的内存分配量
+ * 2. 各阶段的耗时: 常量池预过滤, 读取类头建立 Context, ASM 原样读写, 以及依次加上 DesugaringClassVisitor,
+ * InjectAroundClassVisitor, InjectSuperClassVisitor, DesugaredClassVisitor(lambda 方法体缓存) 后增加的耗时
+ * <p>
+ * 最后对混合了所有形态的 jar 做端到端的 JarRewriter.transform。
+ * <p>
+ * 参数: --report 文件, --baseline 文件, --threshold 允许的回归比例(默认 0.2),
+ * --update-baseline 用本次结果覆盖基线, --classes 每种形态的类数量, --jar-classes jar 中的类数量
+ */
+public final class TransformBenchmark {
+    private static final String[] PHASES = {"filter", "context", "asm-copy", "desugaring", "around-inject", "super-inject", "lambda-pass"};
+    private static final int PHASE_ASM_COPY = 2;
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final int JAR_ROUNDS = 5;
+    private static final long MIN_PASS_NANOS = 50_000_000L;
+
+    private final Log mLog = new ErrorLog();
+    private final ThreadMXBean mThreadMXBean = ManagementFactory.getThreadMXBean();
+
+    private TransformBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        File reportFile = new File("build/reports/transform-benchmark/report.json");
+        File baselineFile = null;
+        double threshold = 0.2;
+        boolean updateBaseline = false;
+        int classCount = 2000;
+        int jarClassCount = 20000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--report":
+                    reportFile = new File(args[++i]);
+                    break;
+                case "--baseline":
+                    baselineFile = new File(args[++i]);
+                    break;
+                case "--threshold":
+                    threshold = Double.parseDouble(args[++i]);
+                    break;
+                case "--update-baseline":
+                    updateBaseline = true;
+                    break;
+                case "--classes":
+                    classCount = Integer.parseInt(args[++i]);
+                    break;
+                case "--jar-classes":
+                    jarClassCount = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument: " + args[i]);
+            }
+        }
+
+        BenchmarkReport report = new TransformBenchmark().run(classCount, jarClassCount);
+        report.writeJson(reportFile);
+        System.out.println("report: " + reportFile.getAbsolutePath());
+
+        if (baselineFile == null) {
+            return;
+        }
+        if (updateBaseline) {
+            report.writeBaseline(baselineFile);
+            System.out.println("baseline updated: " + baselineFile.getAbsolutePath());
+            return;
+        }
+        if (!baselineFile.isFile()) {
+            System.out.println("baseline " + baselineFile + " not found, skip regression check");
+            return;
+        }
+        List<String> regressions = report.compare(BenchmarkReport.readBaseline(baselineFile), threshold);
+        if (!regressions.isEmpty()) {
+            for (String regression : regressions) {
+                System.err.println("transform regression: " + regression);
+            }
+            System.exit(1);
+        }
+        System.out.println("no regression beyond " + Math.round(threshold * 100) + "%");
+    }
+
+    public BenchmarkReport run(int classCount, int jarClassCount) throws IOException, InterruptedException {
+        BenchmarkReport report = new BenchmarkReport();
+        Map<String, Object> environment = report.section("environment");
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("processors", Runtime.getRuntime().availableProcessors());
+        environment.put("classesPerShape", classCount);
+
+        for (SyntheticCorpus.Shape shape : SyntheticCorpus.Shape.values()) {
+            Map<String, byte[]> corpus = SyntheticCorpus.generate(shape, classCount);
+            measureCorpus(shape.getName(), corpus, report.section(shape.getName()));
+        }
+        measureJar(jarClassCount, report.section("jar"));
+        return report;
+    }
+
+    private void measureCorpus(String name, Map<String, byte[]> corpus, Map<String, Object> section) {
+        final List<byte[]> classes = new ArrayList<>(corpus.values());
+        final ClassHierarchy classHierarchy = SyntheticCorpus.createClassHierarchy(corpus);
+        final HookClassFilter hookClassFilter = new HookClassFilter(classHierarchy);
+        final ClassRewriter classRewriter = new ClassRewriter(mLog, classHierarchy, null);
+
+        int modified = 0;
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            modified = transformAll(classRewriter, classes);
+            for (int level = 0; level < PHASES.length; level++) {
+                runPipeline(level, classes, hookClassFilter, classHierarchy);
+            }
+        }
+
+        // 各阶段轮流执行, 避免 JIT 和 GC 的波动集中在某一个阶段。
+        // relativeCost 取每轮中 transform 与 ASM 原样读写耗时之比的中位数, 两者在同一轮中测量, 机器负载的变化可以抵消
+        double[] cumulative = new double[PHASES.length];
+        Arrays.fill(cumulative, Double.MAX_VALUE);
+        double transformNanos = Double.MAX_VALUE;
+        double[] relativeCosts = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            double asmCopy = 0;
+            for (int level = 0; level < PHASES.length; level++) {
+                final int pipelineLevel = level;
+                double nanos = timePass(() -> runPipeline(pipelineLevel, classes, hookClassFilter, classHierarchy)) / classes.size();
+                cumulative[level] = Math.min(cumulative[level], nanos);
+                if (level == PHASE_ASM_COPY) {
+                    asmCopy = nanos;
+                }
+            }
+            double nanos = timePass(() -> transformAll(classRewriter, classes)) / classes.size();
+            transformNanos = Math.min(transformNanos, nanos);
+            relativeCosts[i] = nanos / asmCopy;
+        }
+        Arrays.sort(relativeCosts);
+
+        System.gc();
+        long allocatedStart = allocatedBytes();
+        transformAll(classRewriter, classes);
+        long allocated = allocatedStart < 0 ? -1 : allocatedBytes() - allocatedStart;
+        long totalSize = SyntheticCorpus.totalSize(corpus);
+
+        section.put("classes", classes.size());
+        section.put("bytes", totalSize);
+        section.put("modifiedClasses", modified);
+        section.put("nanosPerClass", transformNanos);
+        section.put("classesPerSecond", 1e9 / transformNanos);
+        section.put("megabytesPerSecond", totalSize / (transformNanos * classes.size() / 1e9) / (1024 * 1024));
+        section.put("allocatedBytesPerClass", allocated < 0 ? -1.0 : (double) allocated / classes.size());
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (int level = 0; level < PHASES.length; level++) {
+            phases.put(PHASES[level], level == 0 ? cumulative[0] : cumulative[level] - cumulative[level - 1]);
+        }
+        section.put("phaseNanosPerClass", phases);
+        section.put(BenchmarkReport.KEY_RELATIVE_COST, relativeCosts[ROUNDS / 2]);
+
+        System.out.println(String.format(Locale.US, "%-16s %10.0f classes/s, %8.0f B/class, %5d/%d modified, phases(ns) %s",
+                name, 1e9 / transformNanos, (double) allocated / classes.size(), modified, classes.size(), phases));
+    }
+
+    private void measureJar(int jarClassCount, Map<String, Object> section) throws IOException, InterruptedException {
+        Map<String, byte[]> corpus = SyntheticCorpus.generateMixed(jarClassCount);
+        File dir = new File(System.getProperty("java.io.tmpdir"), "transform-benchmark");
+        dir.mkdirs();
+        File jar = new File(dir, "synthetic.jar");
+        File out = new File(dir, "out.jar");
+        SyntheticCorpus.writeJar(corpus, jar);
+        ClassHierarchy classHierarchy = SyntheticCorpus.createClassHierarchy(corpus);
+        HookClassFilter hookClassFilter = new HookClassFilter(classHierarchy);
+        ClassRewriter classRewriter = new ClassRewriter(mLog, classHierarchy, null);
+        List<byte[]> classes = new ArrayList<>(corpus.values());
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            JarRewriter sequential = new JarRewriter(classRewriter, Runnable::run, mLog);
+            JarRewriter parallel = new JarRewriter(classRewriter, executor, mLog);
+            int modified = 0;
+            for (int i = 0; i < 2; i++) {
+                modified = sequential.transform(jar, out);
+                parallel.transform(jar, out);
+            }
+            long sequentialBest = Long.MAX_VALUE;
+            long parallelBest = Long.MAX_VALUE;
+            double[] relativeCosts = new double[JAR_ROUNDS];
+            for (int i = 0; i < JAR_ROUNDS; i++) {
+                System.gc();
+                long start = System.nanoTime();
+                runPipeline(PHASE_ASM_COPY, classes, hookClassFilter, classHierarchy);
+                long asmCopy = System.nanoTime() - start;
+                System.gc();
+                start = System.nanoTime();
+                sequential.transform(jar, out);
+                long sequentialNanos = System.nanoTime() - start;
+                sequentialBest = Math.min(sequentialBest, sequentialNanos);
+                // 顺序执行的耗时不受核数影响, 用它和同一轮中 ASM 原样读写所有类的耗时对比
+                relativeCosts[i] = (double) sequentialNanos / asmCopy;
+                System.gc();
+                start = System.nanoTime();
+                parallel.transform(jar, out);
+                parallelBest = Math.min(parallelBest, System.nanoTime() - start);
+            }
+            Arrays.sort(relativeCosts);
+
+            section.put("classes", corpus.size());
+            section.put("jarBytes", jar.length());
+            section.put("modifiedClasses", modified);
+            section.put("sequentialMillis", sequentialBest / 1e6);
+            section.put("parallelMillis", parallelBest / 1e6);
+            section.put("threads", threads);
+            section.put("classesPerSecond", corpus.size() * 1e9 / parallelBest);
+            section.put(BenchmarkReport.KEY_RELATIVE_COST, relativeCosts[JAR_ROUNDS / 2]);
+            System.out.println(String.format(Locale.US, "jar %d classes %d KB: sequential %.1f ms, parallel %.1f ms (%d threads), %d modified",
+                    corpus.size(), jar.length() / 1024, sequentialBest / 1e6, parallelBest / 1e6, threads, modified));
+        } finally {
+            executor.shutdownNow();
+            out.delete();
+        }
+    }
+
+    /**
+     * 重复执行直到耗时超过 MIN_PASS_NANOS, 避免单次执行太短时计时误差过大
+     *
+     * @return 平均每次执行的耗时(ns)
+     */
+    private static double timePass(Runnable pass) {
+        System.gc();
+        int count = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            pass.run();
+            count++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MIN_PASS_NANOS);
+        return (double) elapsed / count;
+    }
+
+    private static int transformAll(ClassRewriter classRewriter, List<byte[]> classes) {
+        int modified = 0;
+        for (byte[] bytes : classes) {
+            if (classRewriter.transformClassBytes(bytes) != null) {
+                modified++;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * 与 ClassRewriter 相同的处理流程, level 决定执行到哪个阶段为止, 所有的类都会经过每个阶段
+     */
+    private int runPipeline(int level, List<byte[]> classes, HookClassFilter hookClassFilter, ClassHierarchy classHierarchy) {
+        int sink = 0;
+        for (byte[] bytes : classes) {
+            sink += hookClassFilter.classify(bytes);
+            if (level == 0) {
+                continue;
+            }
+            ClassReader classReader = new ClassReader(bytes);
+            Context context = new Context(mLog, classHierarchy);
+            context.setClassName(classReader.getClassName());
+            context.setSuperClassName(classReader.getSuperName());
+            context.setAbstract((classReader.getAccess() & Opcodes.ACC_ABSTRACT) != 0);
+            if (level == 1) {
+                sink += context.getClassName().length();
+                continue;
+            }
+            ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
+            ClassVisitor classVisitor = classWriter;
+            Set<TargetMethod> needInjectTargetMethods = new HashSet<>();
+            if (level >= 6) {
+                DesugaredClassVisitor desugaredClassVisitor = new DesugaredClassVisitor(classVisitor, context);
+                needInjectTargetMethods = desugaredClassVisitor.getNeedInjectTargetMethods();
+                classVisitor = desugaredClassVisitor;
+            }
+            if (level >= 5) {
+                classVisitor = new InjectSuperClassVisitor(classVisitor, context);
+            }
+            if (level >= 4) {
+                classVisitor = new InjectAroundClassVisitor(classVisitor, context);
+            }
+            if (level >= 3) {
+                classVisitor = new DesugaringClassVisitor(classVisitor, context, needInjectTargetMethods);
+            }
+            classReader.accept(classVisitor, ClassReader.SKIP_FRAMES | ClassReader.EXPAND_FRAMES);
+            sink += classWriter.toByteArray().length;
+        }
+        return sink;
+    }
+
+    private long allocatedBytes() {
+        if (mThreadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) mThreadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.sdk.plugin.autotrack.compile.benchmark;
+
+import com.google.common.truth.Truth;
+import com.growingio.sdk.plugin.autotrack.compile.ClassHierarchy;
+import com.growingio.sdk.plugin.autotrack.compile.ClassRewriter;
+import com.growingio.sdk.plugin.autotrack.compile.ErrorLog;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class TransformBenchmarkTest {
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void syntheticCorpus_hitsExpectedHooks() {
+        Truth.assertThat(countModified(SyntheticCorpus.Shape.POJO, 10)).isEqualTo(0);
+        Truth.assertThat(countModified(SyntheticCorpus.Shape.CLICK_LISTENER, 10)).isEqualTo(10);
+        Truth.assertThat(countModified(SyntheticCorpus.Shape.LAMBDA_DENSE, 10)).isEqualTo(10);
+        // WebView 子类和调用方都有 loadUrl/loadData 调用
+        Truth.assertThat(countModified(SyntheticCorpus.Shape.WEB_VIEW, 10)).isEqualTo(10);
+        // 只有直接继承 Fragment 的类需要注入, 每 12 层一个
+        Truth.assertThat(countModified(SyntheticCorpus.Shape.DEEP_HIERARCHY, 24)).isEqualTo(2);
+    }
+
+    @Test
+    public void syntheticCorpus_isDeterministic() {
+        Map<String, byte[]> first = SyntheticCorpus.generateMixed(50);
+        Map<String, byte[]> second = SyntheticCorpus.generateMixed(50);
+        Truth.assertThat(first.keySet()).containsExactlyElementsIn(second.keySet()).inOrder();
+        for (Map.Entry<String, byte[]> entry : first.entrySet()) {
+            Truth.assertThat(second.get(entry.getKey())).isEqualTo(entry.getValue());
+        }
+    }
+
+    @Test
+    public void report_comparesWithBaseline() throws IOException {
+        BenchmarkReport report = new BenchmarkReport();
+        report.section("pojo").put(BenchmarkReport.KEY_RELATIVE_COST, 1.0);
+        report.section("jar").put(BenchmarkReport.KEY_RELATIVE_COST, 2.0);
+        File baselineFile = new File(mTemporaryFolder.getRoot(), "baseline/transform-baseline.properties");
+        report.writeBaseline(baselineFile);
+        Map<String, Double> baseline = BenchmarkReport.readBaseline(baselineFile);
+        Truth.assertThat(baseline).containsExactly("jar.relativeCost", 2.0, "pojo.relativeCost", 1.0);
+
+        BenchmarkReport slower = new BenchmarkReport();
+        slower.section("pojo").put(BenchmarkReport.KEY_RELATIVE_COST, 1.1);
+        slower.section("jar").put(BenchmarkReport.KEY_RELATIVE_COST, 3.0);
+        slower.section("webview").put(BenchmarkReport.KEY_RELATIVE_COST, 100.0);
+        List<String> regressions = slower.compare(baseline, 0.2);
+        Truth.assertThat(regressions).hasSize(1);
+        Truth.assertThat(regressions.get(0)).startsWith("jar.relativeCost");
+        Truth.assertThat(slower.compare(baseline, 0.6)).isEmpty();
+        Truth.assertThat(slower.compare(Collections.<String, Double>emptyMap(), 0)).isEmpty();
+    }
+
+    @Test
+    public void report_writesJson() {
+        BenchmarkReport report = new BenchmarkReport();
+        report.section("environment").put("java", "1.8");
+        Map<String, Object> pojo = report.section("pojo");
+        pojo.put("classes", 10);
+        pojo.put("phaseNanosPerClass", Collections.singletonMap("filter", 1.5));
+        Truth.assertThat(report.toJson()).isEqualTo("{\n"
+                + "  \"environment\": {\n    \"java\": \"1.8\"\n  },\n"
+                + "  \"pojo\": {\n    \"classes\": 10,\n    \"phaseNanosPerClass\": {\"filter\": 1.500}\n  }\n"
+                + "}\n");
+    }
+
+    private static int countModified(SyntheticCorpus.Shape shape, int count) {
+        Map<String, byte[]> classes = SyntheticCorpus.generate(shape, count);
+        ClassHierarchy classHierarchy = SyntheticCorpus.createClassHierarchy(classes);
+        ClassRewriter classRewriter = new ClassRewriter(new ErrorLog(), classHierarchy, null);
+        int modified = 0;
+        for (byte[] bytes : classes.values()) {
+            if (classRewriter.transformClassBytes(bytes) != null) {
+                modified++;
+            }
+        }
+        return modified;
+    }
+}
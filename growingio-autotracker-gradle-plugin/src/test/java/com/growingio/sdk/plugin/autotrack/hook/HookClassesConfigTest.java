@@ -22,6 +22,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @RunWith(PowerMockRunner.class)
 public class HookClassesConfigTest {
 
@@ -30,4 +33,60 @@ public class HookClassesConfigTest {
         Truth.assertThat(HookClassesConfig.getAroundHookClasses().isEmpty()).isFalse();
         Truth.assertThat(HookClassesConfig.getSuperHookClasses().isEmpty()).isFalse();
     }
+
+    @Test
+    public void generatedTables_resolveAllHooks() {
+        assertTableConsistent(HookClassesConfig.getAroundHookClasses());
+        assertTableConsistent(HookClassesConfig.getSuperHookClasses());
+        Truth.assertThat(HookClassesConfig.getSuperHookClasses()).containsKey("android/view/View$OnClickListener");
+        Truth.assertThat(HookClassesConfig.getAroundHookClasses()).containsKey("android/webkit/WebView");
+    }
+
+    @Test
+    public void generatedTables_missReturnsNull() {
+        Map<String, TargetClass> superHookClasses = HookClassesConfig.getSuperHookClasses();
+        Truth.assertThat(superHookClasses.get("java/lang/Object")).isNull();
+        Truth.assertThat(superHookClasses.get(null)).isNull();
+        Truth.assertThat(superHookClasses.containsKey("android/webkit/WebView")).isFalse();
+
+        TargetClass clickListener = superHookClasses.get("android/view/View$OnClickListener");
+        Truth.assertThat(clickListener.getTargetMethod("onClick", "(Landroid/view/View;)V")).isNotNull();
+        Truth.assertThat(clickListener.getTargetMethod("onClick", "()V")).isNull();
+        Truth.assertThat(clickListener.getTargetMethod("onLongClick", "(Landroid/view/View;)V")).isNull();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void generatedTables_readOnly() {
+        HookClassesConfig.getSuperHookClasses().put("a/B", new TargetClass("a/B"));
+    }
+
+    @Test
+    public void hookClassTable_slotLookup() {
+        String[] keys = new String[4];
+        TargetClass[] values = new TargetClass[4];
+        int seed = 0x9e3779b9;
+        int shift = 30;
+        keys[HookClassTable.slot("a/A", seed, shift)] = "a/A";
+        values[HookClassTable.slot("a/A", seed, shift)] = new TargetClass("a/A");
+        HookClassTable table = new HookClassTable(keys, values, seed, shift);
+
+        Truth.assertThat(table.get("a/A").getName()).isEqualTo("a/A");
+        Truth.assertThat(table.get("a/B")).isNull();
+        Truth.assertThat(table).hasSize(1);
+    }
+
+    private static void assertTableConsistent(Map<String, TargetClass> table) {
+        Map<String, TargetClass> copy = new HashMap<>(table);
+        Truth.assertThat(copy).hasSize(table.size());
+        for (Map.Entry<String, TargetClass> entry : copy.entrySet()) {
+            TargetClass targetClass = table.get(entry.getKey());
+            Truth.assertThat(targetClass).isSameInstanceAs(entry.getValue());
+            Truth.assertThat(targetClass.getName()).isEqualTo(entry.getKey());
+            Truth.assertThat(targetClass.getTargetMethods()).isNotEmpty();
+            for (TargetMethod targetMethod : targetClass.getTargetMethods()) {
+                Truth.assertThat(targetClass.getTargetMethod(targetMethod.getName(), targetMethod.getDesc())).isSameInstanceAs(targetMethod);
+                Truth.assertThat(targetMethod.getInjectMethods()).isNotEmpty();
+            }
+        }
+    }
 }
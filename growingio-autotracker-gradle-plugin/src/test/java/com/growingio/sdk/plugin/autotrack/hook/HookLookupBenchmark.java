@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.hook;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对比生成的完美哈希查找表和原来的 HashMap + 遍历方法集合的 hook 查找吞吐。
+ * <p>
+ * 查询混合了命中、类名未命中和方法未命中, 模拟 visitor 对每个 super 类/接口和方法的查找
+ */
+public class HookLookupBenchmark {
+    private static final int ROUNDS = 10;
+    private static final int ITERATIONS = 2000;
+
+    private HookLookupBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, TargetClass> generated = HookClassesConfig.getSuperHookClasses();
+        Map<String, TargetClass> legacy = new HashMap<>();
+        for (Map.Entry<String, TargetClass> entry : generated.entrySet()) {
+            TargetClass targetClass = new TargetClass(entry.getKey());
+            for (TargetMethod targetMethod : entry.getValue().getTargetMethods()) {
+                targetClass.addTargetMethod(targetMethod);
+            }
+            legacy.put(entry.getKey(), targetClass);
+        }
+
+        List<String[]> queries = new ArrayList<>();
+        for (TargetClass targetClass : generated.values()) {
+            for (TargetMethod targetMethod : targetClass.getTargetMethods()) {
+                queries.add(new String[]{copy(targetClass.getName()), copy(targetMethod.getName()), copy(targetMethod.getDesc())});
+                queries.add(new String[]{copy(targetClass.getName()), "toString", "()Ljava/lang/String;"});
+            }
+            queries.add(new String[]{copy(targetClass.getName()) + "$Impl", "onClick", "(Landroid/view/View;)V"});
+        }
+        for (int i = 0; i < queries.size() / 2; i++) {
+            queries.add(new String[]{"com/example/app/Class" + i, "run", "()V"});
+        }
+        String[][] queryArray = queries.toArray(new String[0][]);
+
+        for (int i = 0; i < 10; i++) {
+            run(legacy, queryArray);
+            run(generated, queryArray);
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            report("HashMap", legacy, queryArray);
+            report("generated", generated, queryArray);
+        }
+    }
+
+    /**
+     * 每次查询都使用新的 String 对象, 避免 equals 直接命中同一引用
+     */
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static void report(String name, Map<String, TargetClass> table, String[][] queries) {
+        long start = System.nanoTime();
+        int found = run(table, queries);
+        double nanos = (System.nanoTime() - start) / (double) ITERATIONS / queries.length;
+        System.out.println(String.format("%-10s %6.1f ns/lookup (%d hits)", name, nanos, found));
+    }
+
+    private static int run(Map<String, TargetClass> table, String[][] queries) {
+        int found = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String[] query : queries) {
+                TargetClass targetClass = table.get(query[0]);
+                if (targetClass != null && targetClass.getTargetMethod(query[1], query[2]) != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+}
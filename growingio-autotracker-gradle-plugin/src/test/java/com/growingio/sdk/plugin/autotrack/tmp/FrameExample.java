@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.plugin.autotrack.tmp;
+
+public class FrameExample {
+    public int loop(SuperExample example, String[] args) {
+        int count = 0;
+        for (String arg : args) {
+            if (arg == null) {
+                continue;
+            }
+            example.originExecuteWithArg(arg);
+            count++;
+        }
+        return count;
+    }
+
+    public long branch(SuperExample example, boolean flag, long start, double factor) {
+        long result = start;
+        if (flag) {
+            example.originExecuteWithArg("flag");
+            result += 1;
+        }
+        try {
+            example.originExecuteWithArg(String.valueOf(factor));
+        } catch (RuntimeException e) {
+            result = -1;
+        }
+        String tail = flag ? "flag" : "none";
+        example.originExecuteWithArg(tail);
+        return result + tail.length();
+    }
+}
@@ -21,6 +21,7 @@ import android.text.TextUtils;
 import androidx.annotation.NonNull;
 
 import com.growingio.android.sdk.track.base.Configurable;
+import com.growingio.android.sdk.track.encrypt.PayloadEncryptor;
 
 public class TrackConfiguration implements Cloneable, Configurable {
     private final String mProjectId;
@@ -35,6 +36,8 @@ public class TrackConfiguration implements Cloneable, Configurable {
     private boolean mUploadExceptionEnabled = true;
     private String mDataCollectionServerHost = "http://api.growingio.com";
     private boolean mOaidEnabled = false;
+    private boolean mHttp2Enabled = true;
+    private PayloadEncryptor mPayloadEncryptor;
 
     public TrackConfiguration(String projectId, String urlScheme) {
         mProjectId = projectId;
@@ -132,6 +135,30 @@ public class TrackConfiguration implements Cloneable, Configurable {
         return this;
     }
 
+    public boolean isHttp2Enabled() {
+        return mHttp2Enabled;
+    }
+
+    /**
+     * 数据上报为 https 时是否使用 HTTP/2, 默认开启
+     */
+    public TrackConfiguration setHttp2Enabled(boolean enabled) {
+        this.mHttp2Enabled = enabled;
+        return this;
+    }
+
+    public PayloadEncryptor getPayloadEncryptor() {
+        return mPayloadEncryptor;
+    }
+
+    /**
+     * 上报数据压缩后再用 encryptor 加密, 例如 AeadPayloadEncryptor.create(keyId, publicKey), 默认为 null 不加密
+     */
+    public TrackConfiguration setPayloadEncryptor(PayloadEncryptor encryptor) {
+        this.mPayloadEncryptor = encryptor;
+        return this;
+    }
+
     @NonNull
     @Override
     public TrackConfiguration clone() {
@@ -144,6 +171,8 @@ public class TrackConfiguration implements Cloneable, Configurable {
         clone.mUploadExceptionEnabled = this.mUploadExceptionEnabled;
         clone.mDataCollectionServerHost = this.mDataCollectionServerHost;
         clone.mOaidEnabled = this.mOaidEnabled;
+        clone.mHttp2Enabled = this.mHttp2Enabled;
+        clone.mPayloadEncryptor = this.mPayloadEncryptor;
         return clone;
     }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.encrypt;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 使用 AES-256-GCM 或 ChaCha20-Poly1305 加密上传数据。
+ * <p>
+ * 每个实例随机生成一个会话密钥, 用服务端的 RSA 公钥(OAEP SHA-256)包装后放在每个请求的 header 中,
+ * 服务端通过 keyId 找到对应的私钥解开会话密钥。每次加密使用随机的 12 字节 nonce, header 作为附加认证数据。
+ * <pre>
+ * u1 version, u1 algorithm, u4 keyId, u2 wrappedKeyLength, wrappedKey, u1 nonceLength, nonce, ciphertext, tag(16)
+ * </pre>
+ * AES-GCM 需要 API 19, ChaCha20-Poly1305 需要 API 28。
+ */
+public class AeadPayloadEncryptor implements PayloadEncryptor {
+    public static final int VERSION = 1;
+    public static final int ALGORITHM_AES_GCM = 1;
+    public static final int ALGORITHM_CHACHA20_POLY1305 = 2;
+
+    public static final String KEY_WRAP_TRANSFORMATION = "RSA/ECB/OAEPWithSHA-256AndMGF1Padding";
+    public static final OAEPParameterSpec KEY_WRAP_SPEC = new OAEPParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA1, PSource.PSpecified.DEFAULT);
+    public static final int NONCE_LENGTH = 12;
+    public static final int TAG_LENGTH = 16;
+    private static final int SESSION_KEY_LENGTH = 32;
+
+    private final int mAlgorithm;
+    private final SecretKey mSessionKey;
+    private final Cipher mCipher;
+    private final SecureRandom mRandom = new SecureRandom();
+    private final byte[] mHeaderPrefix;
+    private final byte[] mNonce = new byte[NONCE_LENGTH];
+
+    public AeadPayloadEncryptor(int algorithm, int keyId, PublicKey wrappingKey) throws GeneralSecurityException {
+        if (algorithm != ALGORITHM_AES_GCM && algorithm != ALGORITHM_CHACHA20_POLY1305) {
+            throw new NoSuchAlgorithmException("unknown algorithm: " + algorithm);
+        }
+        mAlgorithm = algorithm;
+        mCipher = createCipher(algorithm);
+
+        byte[] keyBytes = new byte[SESSION_KEY_LENGTH];
+        mRandom.nextBytes(keyBytes);
+        mSessionKey = new SecretKeySpec(keyBytes, algorithm == ALGORITHM_AES_GCM ? "AES" : "ChaCha20");
+
+        Cipher wrapCipher = Cipher.getInstance(KEY_WRAP_TRANSFORMATION);
+        wrapCipher.init(Cipher.WRAP_MODE, wrappingKey, KEY_WRAP_SPEC);
+        byte[] wrappedKey = wrapCipher.wrap(mSessionKey);
+
+        mHeaderPrefix = ByteBuffer.allocate(1 + 1 + 4 + 2 + wrappedKey.length + 1)
+                .put((byte) VERSION)
+                .put((byte) algorithm)
+                .putInt(keyId)
+                .putShort((short) wrappedKey.length)
+                .put(wrappedKey)
+                .put((byte) NONCE_LENGTH)
+                .array();
+    }
+
+    /**
+     * @param x509PublicKey X.509 编码的 RSA 公钥
+     */
+    public static AeadPayloadEncryptor create(int keyId, byte[] x509PublicKey) throws GeneralSecurityException {
+        PublicKey publicKey = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(x509PublicKey));
+        return new AeadPayloadEncryptor(ALGORITHM_AES_GCM, keyId, publicKey);
+    }
+
+    static Cipher createCipher(int algorithm) throws NoSuchAlgorithmException, NoSuchPaddingException {
+        if (algorithm == ALGORITHM_AES_GCM) {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        }
+        try {
+            // Android 的名称
+            return Cipher.getInstance("ChaCha20/Poly1305/NoPadding");
+        } catch (NoSuchAlgorithmException e) {
+            return Cipher.getInstance("ChaCha20-Poly1305");
+        }
+    }
+
+    static AlgorithmParameterSpec parameterSpec(int algorithm, byte[] nonce) {
+        if (algorithm == ALGORITHM_AES_GCM) {
+            return new GCMParameterSpec(TAG_LENGTH * 8, nonce);
+        }
+        return new IvParameterSpec(nonce);
+    }
+
+    @Override
+    public int getHeaderLength() {
+        return mHeaderPrefix.length + NONCE_LENGTH;
+    }
+
+    @Override
+    public int getTrailerLength() {
+        return TAG_LENGTH;
+    }
+
+    @Override
+    public String getCodec() {
+        return mAlgorithm == ALGORITHM_AES_GCM ? "aes-256-gcm" : "chacha20-poly1305";
+    }
+
+    @Override
+    public int encrypt(byte[] buffer, int length) throws GeneralSecurityException {
+        int headerLength = getHeaderLength();
+        System.arraycopy(mHeaderPrefix, 0, buffer, 0, mHeaderPrefix.length);
+        mRandom.nextBytes(mNonce);
+        System.arraycopy(mNonce, 0, buffer, mHeaderPrefix.length, NONCE_LENGTH);
+
+        mCipher.init(Cipher.ENCRYPT_MODE, mSessionKey, parameterSpec(mAlgorithm, mNonce));
+        mCipher.updateAAD(buffer, 0, headerLength);
+        return headerLength + mCipher.doFinal(buffer, headerLength, length, buffer, headerLength);
+    }
+}
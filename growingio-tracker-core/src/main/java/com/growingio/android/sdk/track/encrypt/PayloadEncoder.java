@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.encrypt;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * 先 deflate 压缩再加密, 压缩和加密都在同一个可复用的 buffer 中进行, 不会为每批数据分配新的数组。
+ * 不是线程安全的, 只在上传线程使用
+ */
+public class PayloadEncoder {
+    public static final String HEADER_COMPRESS_CODEC = "X-Compress-Codec";
+    public static final String HEADER_CRYPT_CODEC = "X-Crypt-Codec";
+    public static final String COMPRESS_CODEC_DEFLATE = "deflate";
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    private final PayloadEncryptor mEncryptor;
+    private final Deflater mDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private byte[] mBuffer = new byte[INITIAL_BUFFER_SIZE];
+
+    public PayloadEncoder(PayloadEncryptor encryptor) {
+        mEncryptor = encryptor;
+    }
+
+    public PayloadEncryptor getEncryptor() {
+        return mEncryptor;
+    }
+
+    /**
+     * @return 编码后的数据在 {@link #getBuffer()} 的 [0, 返回值)
+     */
+    public int encode(byte[] data) throws GeneralSecurityException {
+        int headerLength = mEncryptor.getHeaderLength();
+        int trailerLength = mEncryptor.getTrailerLength();
+        mDeflater.reset();
+        mDeflater.setInput(data);
+        mDeflater.finish();
+        int position = headerLength;
+        while (!mDeflater.finished()) {
+            if (mBuffer.length - trailerLength - position <= 0) {
+                mBuffer = Arrays.copyOf(mBuffer, mBuffer.length * 2);
+            }
+            position += mDeflater.deflate(mBuffer, position, mBuffer.length - trailerLength - position);
+        }
+        return mEncryptor.encrypt(mBuffer, position - headerLength);
+    }
+
+    /**
+     * 下一次 encode 之前有效
+     */
+    public byte[] getBuffer() {
+        return mBuffer;
+    }
+}
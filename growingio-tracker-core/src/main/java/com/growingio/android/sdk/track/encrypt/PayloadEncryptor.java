@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.encrypt;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * 上传数据的加密方式, 通过 TrackConfiguration.setPayloadEncryptor 设置。
+ * <p>
+ * 加密在调用方提供的 buffer 中原地进行, buffer 需要在明文之前预留 {@link #getHeaderLength()},
+ * 之后预留 {@link #getTrailerLength()}。同一个实例只会在上传线程使用。
+ */
+public interface PayloadEncryptor {
+    int getHeaderLength();
+
+    int getTrailerLength();
+
+    /**
+     * @return 放在 X-Crypt-Codec 请求头中, 服务端据此选择解密方式
+     */
+    String getCodec();
+
+    /**
+     * @param buffer 明文在 [headerLength, headerLength + length)
+     * @return 加密后的数据在 buffer 的 [0, 返回值)
+     */
+    int encrypt(byte[] buffer, int length) throws GeneralSecurityException;
+}
@@ -16,11 +16,8 @@
 
 package com.growingio.android.sdk.track.events;
 
-import android.content.Context;
-
-import com.growingio.android.sdk.track.ContextProvider;
 import com.growingio.android.sdk.track.events.base.BaseEvent;
-import com.growingio.android.sdk.track.utils.NetworkUtil;
+import com.growingio.android.sdk.track.providers.NetworkStateProvider;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -61,8 +58,7 @@ public class AppClosedEvent extends BaseEvent {
         @Override
         public void readPropertyInTrackThread() {
             super.readPropertyInTrackThread();
-            Context context = ContextProvider.getApplicationContext();
-            mNetworkState = NetworkUtil.getActiveNetworkState(context).getNetworkName();
+            mNetworkState = NetworkStateProvider.get().getNetworkState().getNetworkName();
         }
     }
 }
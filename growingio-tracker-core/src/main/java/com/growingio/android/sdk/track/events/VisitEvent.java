@@ -16,15 +16,13 @@
 
 package com.growingio.android.sdk.track.events;
 
-import android.content.Context;
 import android.text.TextUtils;
 
-import com.growingio.android.sdk.track.ContextProvider;
 import com.growingio.android.sdk.track.SDKConfig;
 import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.providers.AppInfoProvider;
 import com.growingio.android.sdk.track.providers.DeviceInfoProvider;
-import com.growingio.android.sdk.track.utils.NetworkUtil;
+import com.growingio.android.sdk.track.providers.NetworkStateProvider;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -233,8 +231,7 @@ public final class VisitEvent extends BaseEvent {
         public void readPropertyInTrackThread() {
             super.readPropertyInTrackThread();
 
-            Context context = ContextProvider.getApplicationContext();
-            mNetworkState = NetworkUtil.getActiveNetworkState(context).getNetworkName();
+            mNetworkState = NetworkStateProvider.get().getNetworkState().getNetworkName();
 
             DeviceInfoProvider deviceInfo = DeviceInfoProvider.get();
             mScreenHeight = deviceInfo.getScreenHeight();
@@ -21,6 +21,8 @@ import android.text.TextUtils;
 import java.util.HashMap;
 import java.util.Map;
 
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 
@@ -87,13 +89,26 @@ public abstract class BaseRequestBuilder<T extends BaseRequestBuilder> {
                     .post(requestBody);
         }
 
+        requestBuilder.headers(buildHeaders());
+        requestBuilder.tag(RequestExtra.class, new RequestExtra(mRetryTimes, mEnableGzip));
+        return new HttpRequest(requestBuilder.build());
+    }
+
+    /**
+     * 把当前的 url, header 等固定下来, 用于需要反复发送的请求, body 不会包含在模板中
+     */
+    public RequestTemplate buildTemplate() {
+        return new RequestTemplate(HttpUrl.get(mUrl.toString()), buildHeaders(), new RequestExtra(mRetryTimes, mEnableGzip));
+    }
+
+    private Headers buildHeaders() {
+        Headers.Builder headersBuilder = new Headers.Builder();
         for (String key : mHeaders.keySet()) {
             String value = mHeaders.get(key);
             if (!TextUtils.isEmpty(value)) {
-                requestBuilder.addHeader(key, value);
+                headersBuilder.add(key, value);
             }
         }
-        requestBuilder.tag(RequestExtra.class, new RequestExtra(mRetryTimes, mEnableGzip));
-        return new HttpRequest(requestBuilder.build());
+        return headersBuilder.build();
     }
 }
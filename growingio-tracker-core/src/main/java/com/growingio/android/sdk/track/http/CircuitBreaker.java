@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import com.growingio.android.sdk.track.log.Logger;
+
+/**
+ * 单个 host 的熔断器。
+ * <p>
+ * 连续失败 failureThreshold 次(每次包括所有重试)后打开, 打开期间请求直接失败;
+ * 打开时间结束后只放行一个请求试探, 成功则关闭, 失败则再次打开并把打开时间加倍, 最多 maxOpenMillis。
+ */
+public class CircuitBreaker {
+    private static final String TAG = "CircuitBreaker";
+
+    private static final int STATE_CLOSED = 0;
+    private static final int STATE_OPEN = 1;
+    private static final int STATE_HALF_OPEN = 2;
+
+    private final String mHost;
+    private final int mFailureThreshold;
+    private final long mOpenMillis;
+    private final long mMaxOpenMillis;
+
+    private int mState = STATE_CLOSED;
+    private int mFailureCount;
+    private long mCurrentOpenMillis;
+    private long mOpenUntil;
+    private boolean mTrialInFlight;
+
+    public CircuitBreaker(String host, int failureThreshold, long openMillis, long maxOpenMillis) {
+        mHost = host;
+        mFailureThreshold = failureThreshold;
+        mOpenMillis = openMillis;
+        mMaxOpenMillis = maxOpenMillis;
+        mCurrentOpenMillis = openMillis;
+    }
+
+    /**
+     * @param now SystemClock.elapsedRealtime() 或测试中的时间
+     * @return false 表示熔断器打开, 不应该发送请求
+     */
+    public synchronized boolean allowRequest(long now) {
+        if (mState == STATE_OPEN) {
+            if (now < mOpenUntil) {
+                return false;
+            }
+            mState = STATE_HALF_OPEN;
+            mTrialInFlight = false;
+        }
+        if (mState == STATE_HALF_OPEN) {
+            if (mTrialInFlight) {
+                return false;
+            }
+            mTrialInFlight = true;
+        }
+        return true;
+    }
+
+    /**
+     * @return 距离可以再次请求的时间, 0 表示现在可以请求
+     */
+    public synchronized long getRemainingOpenMillis(long now) {
+        return mState == STATE_OPEN ? Math.max(0, mOpenUntil - now) : 0;
+    }
+
+    public synchronized void onSuccess() {
+        if (mState != STATE_CLOSED) {
+            Logger.d(TAG, "circuit closed for " + mHost);
+        }
+        mState = STATE_CLOSED;
+        mFailureCount = 0;
+        mCurrentOpenMillis = mOpenMillis;
+        mTrialInFlight = false;
+    }
+
+    /**
+     * 请求被取消, 没有结果, 试探中的请求可以重新发出
+     */
+    public synchronized void onCanceled() {
+        mTrialInFlight = false;
+    }
+
+    public synchronized void onFailure(long now) {
+        if (mState == STATE_HALF_OPEN) {
+            mCurrentOpenMillis = Math.min(mMaxOpenMillis, mCurrentOpenMillis * 2);
+            open(now);
+        } else if (mState == STATE_CLOSED && ++mFailureCount >= mFailureThreshold) {
+            open(now);
+        }
+    }
+
+    private void open(long now) {
+        mState = STATE_OPEN;
+        mOpenUntil = now + mCurrentOpenMillis;
+        mTrialInFlight = false;
+        Logger.e(TAG, "circuit opened for " + mHost + ", " + mCurrentOpenMillis + "ms");
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import com.growingio.android.sdk.track.listener.IActivityLifecycle;
+import com.growingio.android.sdk.track.listener.event.ActivityLifecycleEvent;
+import com.growingio.android.sdk.track.log.Logger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 管理数据上报 host 的连接。
+ * <p>
+ * 连接池的 keep-alive 按上报间隔设置, 保证两次上报之间连接不会被回收;
+ * SDK 初始化和应用回到前台时预先建立连接, 第一批数据不需要等待 dns, tcp 和 tls;
+ * 通过 EventListener 统计每次请求的 dns, connect, tls 和首字节耗时。
+ */
+public class ConnectionManager implements IActivityLifecycle {
+    private static final String TAG = "ConnectionManager";
+
+    static final long MIN_KEEP_ALIVE_MILLIS = 60 * 1000L;
+    static final long MAX_KEEP_ALIVE_MILLIS = 5 * 60 * 1000L;
+    /**
+     * 只连接一个 host, HTTP/2 时一个连接就够了
+     */
+    private static final int MAX_IDLE_CONNECTIONS = 2;
+
+    private final String mServerHost;
+    private final HttpUrl mWarmUpUrl;
+    private final long mKeepAliveMillis;
+    private final ConnectionPool mConnectionPool;
+    private final OkHttpClient mClient;
+    private final AtomicBoolean mWarmingUp = new AtomicBoolean(false);
+    private volatile ConnectionTiming mLastTiming;
+    private volatile OnTimingListener mOnTimingListener;
+
+    public interface OnTimingListener {
+        void onTiming(ConnectionTiming timing);
+    }
+
+    /**
+     * @param uploadIntervalMillis 数据上报间隔
+     * @param http2Enabled         false 时只使用 HTTP/1.1, 否则 https 下通过 ALPN 协商 HTTP/2, 多个请求复用一个连接
+     */
+    public ConnectionManager(String serverHost, long uploadIntervalMillis, boolean http2Enabled) {
+        this(serverHost, uploadIntervalMillis, http2Enabled, HttpRequest.getDefaultClient());
+    }
+
+    ConnectionManager(String serverHost, long uploadIntervalMillis, boolean http2Enabled, OkHttpClient baseClient) {
+        mServerHost = serverHost;
+        HttpUrl serverUrl = serverHost == null ? null : HttpUrl.parse(serverHost);
+        mWarmUpUrl = serverUrl == null ? null : serverUrl.resolve("/");
+        mKeepAliveMillis = keepAliveMillis(uploadIntervalMillis);
+        mConnectionPool = new ConnectionPool(MAX_IDLE_CONNECTIONS, mKeepAliveMillis, TimeUnit.MILLISECONDS);
+        OkHttpClient.Builder builder = baseClient.newBuilder()
+                .connectionPool(mConnectionPool)
+                .eventListenerFactory(TimingEventListener.factory(this));
+        if (!http2Enabled) {
+            builder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+        }
+        mClient = builder.build();
+    }
+
+    /**
+     * keep-alive 取上报间隔的两倍, 一次上报失败后下一次仍然可以复用连接
+     */
+    static long keepAliveMillis(long uploadIntervalMillis) {
+        return Math.min(MAX_KEEP_ALIVE_MILLIS, Math.max(MIN_KEEP_ALIVE_MILLIS, uploadIntervalMillis * 2));
+    }
+
+    public long getKeepAliveMillis() {
+        return mKeepAliveMillis;
+    }
+
+    public OkHttpClient getClient() {
+        return mClient;
+    }
+
+    /**
+     * 之后 HttpRequest 发出的请求都使用这里的连接池
+     */
+    public void install() {
+        HttpRequest.setHttpClient(mClient);
+    }
+
+    public void setOnTimingListener(OnTimingListener listener) {
+        mOnTimingListener = listener;
+    }
+
+    /**
+     * @return 最近一次请求的耗时, 还没有请求时为 null
+     */
+    public ConnectionTiming getLastTiming() {
+        return mLastTiming;
+    }
+
+    public int getIdleConnectionCount() {
+        return mConnectionPool.idleConnectionCount();
+    }
+
+    /**
+     * 连接池中没有可用连接时, 异步发送一个 HEAD 请求建立连接
+     *
+     * @return 是否发起了预连接
+     */
+    public boolean warmUp() {
+        if (mWarmUpUrl == null || mWarmingUp.get() || mConnectionPool.idleConnectionCount() > 0) {
+            return false;
+        }
+        if (HttpRequest.getUnavailableMillis(mServerHost) > 0) {
+            return false;
+        }
+        if (!mWarmingUp.compareAndSet(false, true)) {
+            return false;
+        }
+        Request request = new Request.Builder()
+                .url(mWarmUpUrl)
+                .head()
+                .tag(RequestExtra.class, new RequestExtra(0, false))
+                .build();
+        Logger.d(TAG, "warm up connection to " + mWarmUpUrl.host());
+        mClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                mWarmingUp.set(false);
+                Logger.d(TAG, "warm up failed: " + e.getMessage());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                mWarmingUp.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 应用回到前台时预连接, 见 {@link #warmUp()}
+     */
+    @Override
+    public void onActivityLifecycle(ActivityLifecycleEvent event) {
+        if (event.eventType == ActivityLifecycleEvent.EVENT_TYPE.ON_STARTED) {
+            warmUp();
+        }
+    }
+
+    void onTiming(ConnectionTiming timing) {
+        mLastTiming = timing;
+        Logger.d(TAG, timing.toString());
+        OnTimingListener listener = mOnTimingListener;
+        if (listener != null) {
+            listener.onTiming(timing);
+        }
+    }
+}
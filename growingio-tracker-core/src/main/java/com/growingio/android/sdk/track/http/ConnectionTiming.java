@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import okhttp3.Protocol;
+
+/**
+ * 一次请求各阶段的耗时, 单位毫秒, 没有经历的阶段(比如复用连接时的 dns, connect, tls)为 -1
+ */
+public class ConnectionTiming {
+    private final String mHost;
+    private final Protocol mProtocol;
+    private final boolean mConnectionReused;
+    private final long mDnsMillis;
+    private final long mConnectMillis;
+    private final long mTlsMillis;
+    private final long mTtfbMillis;
+    private final long mTotalMillis;
+    private final boolean mSuccessful;
+
+    ConnectionTiming(String host, Protocol protocol, boolean connectionReused, long dnsMillis, long connectMillis,
+                     long tlsMillis, long ttfbMillis, long totalMillis, boolean successful) {
+        mHost = host;
+        mProtocol = protocol;
+        mConnectionReused = connectionReused;
+        mDnsMillis = dnsMillis;
+        mConnectMillis = connectMillis;
+        mTlsMillis = tlsMillis;
+        mTtfbMillis = ttfbMillis;
+        mTotalMillis = totalMillis;
+        mSuccessful = successful;
+    }
+
+    public String getHost() {
+        return mHost;
+    }
+
+    /**
+     * @return 使用的协议, 没有获取到连接时为 null
+     */
+    public Protocol getProtocol() {
+        return mProtocol;
+    }
+
+    public boolean isConnectionReused() {
+        return mConnectionReused;
+    }
+
+    public long getDnsMillis() {
+        return mDnsMillis;
+    }
+
+    /**
+     * @return 建立连接的耗时, 包含 tls 握手
+     */
+    public long getConnectMillis() {
+        return mConnectMillis;
+    }
+
+    public long getTlsMillis() {
+        return mTlsMillis;
+    }
+
+    /**
+     * @return 开始发送请求头到收到响应头的耗时
+     */
+    public long getTtfbMillis() {
+        return mTtfbMillis;
+    }
+
+    public long getTotalMillis() {
+        return mTotalMillis;
+    }
+
+    public boolean isSuccessful() {
+        return mSuccessful;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionTiming{host=" + mHost
+                + ", protocol=" + mProtocol
+                + ", reused=" + mConnectionReused
+                + ", dns=" + mDnsMillis
+                + ", connect=" + mConnectMillis
+                + ", tls=" + mTlsMillis
+                + ", ttfb=" + mTtfbMillis
+                + ", total=" + mTotalMillis
+                + ", successful=" + mSuccessful
+                + "}";
+    }
+}
@@ -18,12 +18,12 @@ package com.growingio.android.sdk.track.http;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
 
 import com.growingio.android.sdk.track.log.Logger;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.List;
@@ -32,6 +32,7 @@ import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
 import okhttp3.Callback;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -43,22 +44,23 @@ public class HttpRequest {
     private static final int DEFAULT_CONNECT_TIMEOUT = 5;
     private static final int DEFAULT_READ_TIMEOUT = 10;
 
+    private static final RetryInterceptor RETRY_INTERCEPTOR = new RetryInterceptor();
     private static final OkHttpClient HTTP_CLIENT = new OkHttpClient.Builder()
             .connectTimeout(DEFAULT_CONNECT_TIMEOUT, TimeUnit.SECONDS)
             .readTimeout(DEFAULT_READ_TIMEOUT, TimeUnit.SECONDS)
             .addInterceptor(new GzipRequestInterceptor())
-            .addInterceptor(new RetryInterceptor())
+            .addInterceptor(RETRY_INTERCEPTOR)
             .addInterceptor(new SecurityExceptionInterceptor())
             .build();
+    private static volatile OkHttpClient sHttpClient = HTTP_CLIENT;
 
-    private final Handler mUiHandler;
     private final Request mRequest;
+    private Handler mUiHandler;
     private Call mCall;
     private volatile boolean mIsCancel = false;
 
     HttpRequest(Request request) {
         mRequest = request;
-        mUiHandler = new Handler(Looper.getMainLooper());
     }
 
     public Request getRequest() {
@@ -77,12 +79,36 @@ public class HttpRequest {
         return new JsonPostRequestBuilder(url);
     }
 
+    static OkHttpClient getDefaultClient() {
+        return HTTP_CLIENT;
+    }
+
+    /**
+     * 替换发送请求使用的 OkHttpClient, 见 ConnectionManager.install
+     */
+    static void setHttpClient(OkHttpClient client) {
+        sHttpClient = client;
+    }
+
+    /**
+     * @return url 所在 host 的熔断器还要打开多久, 0 表示可以发送请求
+     */
+    public static long getUnavailableMillis(String url) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            return 0;
+        }
+        return RETRY_INTERCEPTOR.getCircuitBreaker(httpUrl.host()).getRemainingOpenMillis(SystemClock.elapsedRealtime());
+    }
+
     void cancel() {
         if (mIsCancel) {
             return;
         }
         mIsCancel = true;
-        mUiHandler.removeCallbacksAndMessages(null);
+        if (mUiHandler != null) {
+            mUiHandler.removeCallbacksAndMessages(null);
+        }
         if (mCall != null) {
             mCall.cancel();
         }
@@ -94,16 +120,51 @@ public class HttpRequest {
 
     public Response execute() {
         try {
-            return HTTP_CLIENT.newCall(mRequest).execute();
+            return sHttpClient.newCall(mRequest).execute();
         } catch (IOException e) {
             Logger.e(TAG, "execute ERROR", e);
         }
         return null;
     }
 
+    /**
+     * 响应类型从 callback 的泛型参数中解析, 建议使用 {@link #enqueue(Class, DataCallback)}。
+     * 解析不到类型时 (lambda, 没有泛型参数等) onSuccess 收到 null
+     */
     public <T> HttpRequestTask enqueue(final DataCallback<T> callback) {
+        return enqueue(HttpRequest.<T>getResponseType(callback), callback);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Class<T> getResponseType(DataCallback<T> callback) {
+        if (callback == null) {
+            return null;
+        }
+        try {
+            for (Type interfaceType : callback.getClass().getGenericInterfaces()) {
+                if (interfaceType instanceof ParameterizedType
+                        && ((ParameterizedType) interfaceType).getRawType() == DataCallback.class) {
+                    Type argument = ((ParameterizedType) interfaceType).getActualTypeArguments()[0];
+                    if (argument instanceof Class) {
+                        return (Class<T>) argument;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            Logger.e(TAG, e, "getResponseType ERROR");
+        }
+        Logger.e(TAG, "cannot resolve response type of " + callback.getClass().getName());
+        return null;
+    }
+
+    /**
+     * @param type 响应 body 的类型, 为 null 时 onSuccess 收到 null
+     */
+    public <T> HttpRequestTask enqueue(Class<T> type, final DataCallback<T> callback) {
+        final ResponseDecoder<T> decoder = type == null ? null : ResponseDecoders.get(type);
+        mUiHandler = new Handler(Looper.getMainLooper());
         Call call;
-        call = HTTP_CLIENT.newCall(mRequest);
+        call = sHttpClient.newCall(mRequest);
         call.enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
@@ -119,7 +180,7 @@ public class HttpRequest {
                     ResponseBody body = response.body();
                     if (body != null) {
                         if (callback != null) {
-                            onSuccessInUiThread(callback, body.string(), response.headers().toMultimap());
+                            onSuccessInUiThread(callback, decoder, body.string(), response.headers().toMultimap());
                         }
                     } else {
                         Logger.e(TAG, "call is ERROR, body is NULL");
@@ -155,23 +216,15 @@ public class HttpRequest {
         });
     }
 
-    private <T> void onSuccessInUiThread(final DataCallback<T> callback, final String body, final Map<String, List<String>> headers) {
+    private <T> void onSuccessInUiThread(final DataCallback<T> callback, ResponseDecoder<T> decoder, final String body, final Map<String, List<String>> headers) {
         if (isCancel()) {
             return;
         }
 
         try {
             T result = null;
-            if (!TextUtils.isEmpty(body)) {
-                Type[] interfacesTypes = callback.getClass().getGenericInterfaces();
-                Type[] genericType2 = ((ParameterizedType) interfacesTypes[0]).getActualTypeArguments();
-                Class clazz = (Class) genericType2[0];
-                if (clazz == String.class) {
-                    result = (T) body;
-                } else {
-                    Method method = clazz.getMethod("fromJson", String.class);
-                    result = (T) method.invoke(null, body);
-                }
+            if (decoder != null && !TextUtils.isEmpty(body)) {
+                result = decoder.decode(body);
             }
 
             final T finalResult = result;
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+/**
+ * 预先构建好的请求骨架, url 的 path, header 和 RequestExtra 只解析一次,
+ * 每次请求只追加变化的参数和 body。通过 BaseRequestBuilder.buildTemplate 创建
+ */
+public class RequestTemplate {
+    private final HttpUrl mUrl;
+    private final Headers mHeaders;
+    private final RequestExtra mRequestExtra;
+
+    RequestTemplate(HttpUrl url, Headers headers, RequestExtra requestExtra) {
+        mUrl = url;
+        mHeaders = headers;
+        mRequestExtra = requestExtra;
+    }
+
+    public HttpUrl getUrl() {
+        return mUrl;
+    }
+
+    public HttpRequest postJson(String key, String param, String json) {
+        return post(key, param, RequestBody.create(JsonPostRequestBuilder.CONTENT_TYPE, json));
+    }
+
+    public HttpRequest post(String key, String param, RequestBody body) {
+        HttpUrl url = key == null ? mUrl : mUrl.newBuilder().addQueryParameter(key, param).build();
+        Request request = new Request.Builder()
+                .url(url)
+                .headers(mHeaders)
+                .post(body)
+                .tag(RequestExtra.class, mRequestExtra)
+                .build();
+        return new HttpRequest(request);
+    }
+}
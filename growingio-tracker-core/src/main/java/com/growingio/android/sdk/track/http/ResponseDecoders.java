@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按类型缓存的 ResponseDecoder, 解析响应时不需要反射。
+ * <p>
+ * 内置 String, 其他类型查找一次静态方法 fromJson(String) 并缓存, 兼容之前的约定。
+ */
+final class ResponseDecoders {
+    private static final ConcurrentHashMap<Class<?>, ResponseDecoder<?>> DECODERS = new ConcurrentHashMap<>();
+
+    static {
+        register(String.class, new ResponseDecoder<String>() {
+            @Override
+            public String decode(String body) {
+                return body;
+            }
+        });
+    }
+
+    private ResponseDecoders() {
+    }
+
+    static <T> void register(Class<T> type, ResponseDecoder<T> decoder) {
+        DECODERS.put(type, decoder);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ResponseDecoder<T> get(Class<T> type) {
+        ResponseDecoder<T> decoder = (ResponseDecoder<T>) DECODERS.get(type);
+        if (decoder == null) {
+            decoder = new FromJsonDecoder<>(type);
+            ResponseDecoder<T> previous = (ResponseDecoder<T>) DECODERS.putIfAbsent(type, decoder);
+            if (previous != null) {
+                decoder = previous;
+            }
+        }
+        return decoder;
+    }
+
+    private static final class FromJsonDecoder<T> implements ResponseDecoder<T> {
+        private final Class<T> mType;
+        private volatile Method mFromJson;
+
+        FromJsonDecoder(Class<T> type) {
+            mType = type;
+        }
+
+        @Override
+        public T decode(String body) throws Exception {
+            Method fromJson = mFromJson;
+            if (fromJson == null) {
+                fromJson = mType.getMethod("fromJson", String.class);
+                mFromJson = fromJson;
+            }
+            return mType.cast(fromJson.invoke(null, body));
+        }
+    }
+}
@@ -16,35 +16,129 @@
 
 package com.growingio.android.sdk.track.http;
 
+import android.os.SystemClock;
 
 import com.growingio.android.sdk.track.log.Logger;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
 
+/**
+ * 按 RetryPolicy 重试 RequestExtra.getRetryTimes() 次, 并维护每个 host 的熔断器。
+ * <p>
+ * 只有网络错误和 RetryPolicy 认为可以重试的响应码会重试, 重试前关闭上一次的响应。
+ * 重试在调用线程中等待, 所以只应该用于后台线程的同步请求。
+ */
 public class RetryInterceptor implements Interceptor {
     private static final String TAG = "RetryInterceptor";
 
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    private static final long CIRCUIT_OPEN_MILLIS = 30 * 1000L;
+    private static final long CIRCUIT_MAX_OPEN_MILLIS = 10 * 60 * 1000L;
+
+    private final RetryPolicy mRetryPolicy;
+    private final Random mRandom;
+    private final ConcurrentHashMap<String, CircuitBreaker> mCircuitBreakers = new ConcurrentHashMap<>();
+
+    public RetryInterceptor() {
+        this(RetryPolicy.DEFAULT, new Random());
+    }
+
+    RetryInterceptor(RetryPolicy retryPolicy, Random random) {
+        mRetryPolicy = retryPolicy;
+        mRandom = random;
+    }
+
+    public CircuitBreaker getCircuitBreaker(String host) {
+        CircuitBreaker circuitBreaker = mCircuitBreakers.get(host);
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(host, CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_MILLIS, CIRCUIT_MAX_OPEN_MILLIS);
+            CircuitBreaker previous = mCircuitBreakers.putIfAbsent(host, circuitBreaker);
+            if (previous != null) {
+                circuitBreaker = previous;
+            }
+        }
+        return circuitBreaker;
+    }
+
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Response response = chain.proceed(request);
-        if (response.isSuccessful()) {
-            return response;
+        String host = request.url().host();
+        CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+        if (!circuitBreaker.allowRequest(elapsedRealtime())) {
+            throw new IOException("Circuit breaker is open for " + host);
         }
 
-        RequestExtra extra = request.tag(RequestExtra.class);
-        if (extra != null && extra.getRetryTimes() > 0) {
-            int retryNum = 0;
-            while (!response.isSuccessful() && retryNum <= extra.getRetryTimes()) {
-                retryNum++;
-                Logger.e(TAG, "HTTP request retry " + retryNum + " times");
-                response = chain.proceed(request);
+        // 没有报告结果就结束时(取消, 中断或者 RuntimeException)释放试探, 否则半开的熔断器会一直拒绝请求
+        boolean reported = false;
+        try {
+            RequestExtra extra = request.tag(RequestExtra.class);
+            int retryTimes = extra == null ? 0 : extra.getRetryTimes();
+            for (int retryCount = 0; ; retryCount++) {
+                Response response = null;
+                IOException error = null;
+                try {
+                    response = chain.proceed(request);
+                } catch (IOException e) {
+                    if (chain.call().isCanceled()) {
+                        throw e;
+                    }
+                    error = e;
+                }
+
+                if (response != null && (response.isSuccessful() || !mRetryPolicy.isRetryable(response.code()))) {
+                    // 4xx 说明服务端可以访问, 不计入熔断
+                    circuitBreaker.onSuccess();
+                    reported = true;
+                    return response;
+                }
+
+                long delay = -1;
+                if (response != null) {
+                    delay = mRetryPolicy.getRetryAfterMillis(response, System.currentTimeMillis());
+                }
+                if (retryCount >= retryTimes || (delay >= 0 && !mRetryPolicy.isRetryAfterAcceptable(delay))) {
+                    circuitBreaker.onFailure(elapsedRealtime());
+                    reported = true;
+                    if (error != null) {
+                        throw error;
+                    }
+                    return response;
+                }
+                if (delay < 0) {
+                    delay = mRetryPolicy.getBackoffMillis(retryCount, mRandom);
+                }
+                if (response != null) {
+                    response.close();
+                }
+                Logger.e(TAG, "HTTP request retry " + (retryCount + 1) + " times after " + delay + "ms, "
+                        + (error != null ? error.getMessage() : "code = " + response.code()));
+                sleep(delay);
             }
+        } finally {
+            if (!reported) {
+                circuitBreaker.onCanceled();
+            }
+        }
+    }
+
+    long elapsedRealtime() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("retry interrupted");
         }
-        return response;
     }
 }
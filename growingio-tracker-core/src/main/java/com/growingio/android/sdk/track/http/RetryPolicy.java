@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import java.util.Date;
+import java.util.Random;
+
+import okhttp3.Response;
+
+/**
+ * 重试策略: 指数退避 + full jitter, 支持服务端返回的 Retry-After
+ */
+public class RetryPolicy {
+    public static final RetryPolicy DEFAULT = new RetryPolicy(1000L, 10000L, 30000L);
+
+    private final long mBaseDelayMillis;
+    private final long mMaxDelayMillis;
+    private final long mMaxRetryAfterMillis;
+
+    /**
+     * @param baseDelayMillis     第一次重试的最大等待时间
+     * @param maxDelayMillis      退避时间的上限
+     * @param maxRetryAfterMillis Retry-After 超过这个时间时不再重试
+     */
+    public RetryPolicy(long baseDelayMillis, long maxDelayMillis, long maxRetryAfterMillis) {
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+        mMaxRetryAfterMillis = maxRetryAfterMillis;
+    }
+
+    /**
+     * 408, 429 和除 501, 505 外的 5xx 可以重试, 其他 4xx 重试也不会成功
+     */
+    public boolean isRetryable(int code) {
+        if (code == 408 || code == 429) {
+            return true;
+        }
+        return code >= 500 && code != 501 && code != 505;
+    }
+
+    /**
+     * @param retryCount 已经重试的次数, 从 0 开始
+     * @return [0, min(maxDelay, baseDelay * 2^retryCount)] 中的随机值
+     */
+    public long getBackoffMillis(int retryCount, Random random) {
+        long ceiling = mMaxDelayMillis;
+        if (retryCount < 31) {
+            ceiling = Math.min(mMaxDelayMillis, mBaseDelayMillis << retryCount);
+        }
+        if (ceiling <= 0) {
+            return 0;
+        }
+        return (long) (random.nextDouble() * (ceiling + 1));
+    }
+
+    /**
+     * @return Retry-After 要求的等待时间, 没有或无法解析时返回 -1
+     */
+    public long getRetryAfterMillis(Response response, long nowMillis) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000L);
+        } catch (NumberFormatException ignored) {
+            // HTTP-date 格式
+        }
+        Date date = response.headers().getDate("Retry-After");
+        if (date == null) {
+            return -1;
+        }
+        return Math.max(0, date.getTime() - nowMillis);
+    }
+
+    /**
+     * 等待时间过长时直接返回失败, 由下一次发送或熔断器处理
+     */
+    public boolean isRetryAfterAcceptable(long retryAfterMillis) {
+        return retryAfterMillis <= mMaxRetryAfterMillis;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+
+/**
+ * 记录一次 Call 的 dns, connect, tls 和首字节耗时, 结束时交给 ConnectionManager。
+ * 每个 Call 对应一个实例, 重试时以最后一次为准
+ */
+class TimingEventListener extends EventListener {
+    private final ConnectionManager mConnectionManager;
+    private final String mHost;
+    private long mCallStart;
+    private long mDnsStart = -1;
+    private long mDnsMillis = -1;
+    private long mConnectStart = -1;
+    private long mConnectMillis = -1;
+    private long mSecureConnectStart = -1;
+    private long mTlsMillis = -1;
+    private long mRequestStart = -1;
+    private long mTtfbMillis = -1;
+    private Protocol mProtocol;
+
+    TimingEventListener(ConnectionManager connectionManager, String host) {
+        mConnectionManager = connectionManager;
+        mHost = host;
+    }
+
+    static Factory factory(final ConnectionManager connectionManager) {
+        return new Factory() {
+            @Override
+            public EventListener create(Call call) {
+                return new TimingEventListener(connectionManager, call.request().url().host());
+            }
+        };
+    }
+
+    private static long now() {
+        return System.nanoTime();
+    }
+
+    private static long millisSince(long start) {
+        return (now() - start) / 1000000L;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        mCallStart = now();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        mDnsStart = now();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        mDnsMillis = millisSince(mDnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        mConnectStart = now();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        mSecureConnectStart = now();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        mTlsMillis = millisSince(mSecureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        mConnectMillis = millisSince(mConnectStart);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+        mConnectMillis = millisSince(mConnectStart);
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        mProtocol = connection.protocol();
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        mRequestStart = now();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        mTtfbMillis = millisSince(mRequestStart);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        report(true);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        report(false);
+    }
+
+    private void report(boolean successful) {
+        mConnectionManager.onTiming(new ConnectionTiming(mHost, mProtocol, mProtocol != null && mConnectStart == -1,
+                mDnsMillis, mConnectMillis, mTlsMillis, mTtfbMillis, millisSince(mCallStart), successful));
+    }
+}
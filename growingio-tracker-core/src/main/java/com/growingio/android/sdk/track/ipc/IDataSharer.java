@@ -43,4 +43,12 @@ public interface IDataSharer {
     long getAndIncrement(String key, long startValue);
 
     long getAndAdd(String key, long delta, long startValue);
+
+    /**
+     * 当前值(不存在时为 0)等于 expect 时设置为 update, 多进程间是原子的。
+     * 没有空间保存新的 key 时抛出 IllegalStateException
+     *
+     * @return 是否设置成功
+     */
+    boolean compareAndSetLong(String key, long expect, long update);
 }
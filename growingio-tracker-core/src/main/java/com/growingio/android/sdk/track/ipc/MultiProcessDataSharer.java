@@ -138,6 +138,7 @@ public class MultiProcessDataSharer implements IDataSharer {
                 incrementLoadFromDisk();
                 SharedEntry entry = mSharedEntries.get(key);
                 if (entry == null) {
+                    checkCapacityLocked(key);
                     entry = new SharedEntry(mMappedByteBuffer, mCurrentPosition, key);
                     mSharedEntries.put(key, entry);
                 }
@@ -146,6 +147,15 @@ public class MultiProcessDataSharer implements IDataSharer {
         });
     }
 
+    /**
+     * 新 key 需要一个空闲的位置, 所有位置都用完时抛出 IllegalStateException, 而不是写到映射区域之外
+     */
+    private void checkCapacityLocked(String key) {
+        if (mCurrentPosition + SharedEntry.MAX_SIZE > mMaxSize * SharedEntry.MAX_SIZE) {
+            throw new IllegalStateException(mName + " is full, maxSize = " + mMaxSize + ", can not add key " + key);
+        }
+    }
+
     private Object incrementGetValue(String key) {
         final Object[] result = {null};
         lockedRun(new Runnable() {
@@ -307,4 +317,47 @@ public class MultiProcessDataSharer implements IDataSharer {
             }
         }
     }
+
+    @Override
+    public boolean compareAndSetLong(String key, long expect, long update) {
+        synchronized (this) {
+            awaitLoadedLocked();
+            final boolean[] result = new boolean[1];
+            final SharedEntry entry = mSharedEntries.get(key);
+            if (entry != null) {
+                lockedRun(new Runnable() {
+                    @Override
+                    public void run() {
+                        result[0] = compareAndSetLocked(entry, key, expect, update);
+                    }
+                }, entry.getPosition(), SharedEntry.MAX_SIZE);
+            } else {
+                // 其他进程可能已经创建了这个 key, 锁住整个文件后重新加载
+                lockedRun(new Runnable() {
+                    @Override
+                    public void run() {
+                        incrementLoadFromDisk();
+                        result[0] = compareAndSetLocked(mSharedEntries.get(key), key, expect, update);
+                    }
+                });
+            }
+            return result[0];
+        }
+    }
+
+    private boolean compareAndSetLocked(@Nullable SharedEntry entry, String key, long expect, long update) {
+        Object value = entry == null ? null : entry.getValue(mMappedByteBuffer);
+        long current = value instanceof Long ? (Long) value : 0L;
+        if (current != expect) {
+            return false;
+        }
+        if (entry == null) {
+            checkCapacityLocked(key);
+            entry = new SharedEntry(mMappedByteBuffer, mCurrentPosition, key);
+            mSharedEntries.put(key, entry);
+            mCurrentPosition = mCurrentPosition + SharedEntry.MAX_SIZE;
+        }
+        entry.putLong(mMappedByteBuffer, update);
+        return true;
+    }
 }
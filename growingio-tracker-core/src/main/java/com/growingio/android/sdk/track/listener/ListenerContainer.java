@@ -59,6 +59,12 @@ public abstract class ListenerContainer<L, A> {
         }
     }
 
+    protected int getListenerCount() {
+        synchronized (mListeners) {
+            return mListeners.size();
+        }
+    }
+
     protected void dispatchActions(A action) {
         synchronized (mListeners) {
             Iterator<L> refIter = mListeners.iterator();
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.middleware;
+
+import com.growingio.android.sdk.track.ipc.IDataSharer;
+import com.growingio.android.sdk.track.log.Logger;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * 统计当天移动网络发送的数据量, 每个发送策略可以设置自己的预算。
+ * <p>
+ * 所有策略的用量累加到同一个计数中, 与之前一样 SEND_POLICY_INSTANT 不受限制但是计入总量。
+ * 用量保存在 IDataSharer 的一个 long 中, 高 24 位是本地时区的 epoch day, 低 40 位是字节数,
+ * 通过 compareAndSetLong 更新, 多个进程同时累加或者跨天清零都不会丢失数据。
+ * 没有设置预算的策略不限制。
+ */
+public class CellularDataBudget {
+    private static final String TAG = "CellularDataBudget";
+
+    private static final String KEY = "cellular_bytes";
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    private static final int BYTES_BITS = 40;
+    private static final long BYTES_MASK = (1L << BYTES_BITS) - 1;
+
+    public interface Clock {
+        long currentTimeMillis();
+
+        TimeZone getTimeZone();
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public TimeZone getTimeZone() {
+            return TimeZone.getDefault();
+        }
+    };
+
+    private final IDataSharer mDataSharer;
+    private final Clock mClock;
+    private final Map<Integer, Long> mLimits = new HashMap<>();
+
+    public CellularDataBudget(IDataSharer dataSharer) {
+        this(dataSharer, SYSTEM_CLOCK);
+    }
+
+    CellularDataBudget(IDataSharer dataSharer, Clock clock) {
+        mDataSharer = dataSharer;
+        mClock = clock;
+    }
+
+    /**
+     * @param limitBytes 每天的预算, 小于 0 表示不限制
+     */
+    public synchronized void setLimit(int policy, long limitBytes) {
+        if (limitBytes < 0) {
+            mLimits.remove(policy);
+        } else {
+            mLimits.put(policy, limitBytes);
+        }
+    }
+
+    public boolean isExhausted(int policy) {
+        Long limit;
+        synchronized (this) {
+            limit = mLimits.get(policy);
+        }
+        return limit != null && getUsedBytes() >= limit;
+    }
+
+    /**
+     * @return 今天所有策略已经使用的字节数
+     */
+    public long getUsedBytes() {
+        long packed = mDataSharer.getLong(KEY, 0L);
+        return dayOf(packed) == resolveDay(dayOf(packed)) ? bytesOf(packed) : 0L;
+    }
+
+    /**
+     * 累加今天使用的字节数
+     *
+     * @return 累加后今天的用量
+     */
+    public long add(long bytes) {
+        while (true) {
+            long current = mDataSharer.getLong(KEY, 0L);
+            long storedDay = dayOf(current);
+            long day = resolveDay(storedDay);
+            long used = day == storedDay ? bytesOf(current) : 0L;
+            long next = pack(day, Math.min(BYTES_MASK, used + Math.max(0L, bytes)));
+            if (mDataSharer.compareAndSetLong(KEY, current, next)) {
+                return bytesOf(next);
+            }
+            Logger.d(TAG, "add: concurrent update, retry");
+        }
+    }
+
+    /**
+     * 导入旧版本 SharedPreferences 中保存的当天用量, 只在今天还没有记录时导入, 多个进程重复导入也只计一次
+     *
+     * @param legacyDay 旧版本记录的日期, 格式为 yyyyMMdd
+     */
+    public void importLegacyUsage(String legacyDay, long bytes) {
+        if (bytes <= 0 || parseLegacyDay(legacyDay) != today()) {
+            return;
+        }
+        while (true) {
+            long current = mDataSharer.getLong(KEY, 0L);
+            if (dayOf(current) == resolveDay(dayOf(current)) && bytesOf(current) > 0) {
+                return;
+            }
+            if (mDataSharer.compareAndSetLong(KEY, current, pack(today(), Math.min(BYTES_MASK, bytes)))) {
+                Logger.d(TAG, "importLegacyUsage: " + bytes);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return yyyyMMdd 对应的 epoch day, 格式不对时返回 -1
+     */
+    static long parseLegacyDay(String legacyDay) {
+        if (legacyDay == null || legacyDay.length() != 8) {
+            return -1L;
+        }
+        try {
+            int date = Integer.parseInt(legacyDay);
+            Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+            calendar.clear();
+            calendar.set(date / 10000, date / 100 % 100 - 1, date % 100);
+            return calendar.getTimeInMillis() / MILLIS_PER_DAY;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    long today() {
+        long now = mClock.currentTimeMillis();
+        return (now + mClock.getTimeZone().getOffset(now)) / MILLIS_PER_DAY;
+    }
+
+    /**
+     * 时区向西调整时日期可能倒退一天, 这时继续记在已保存的那一天, 避免同一天的预算被重置两次;
+     * 倒退超过一天说明时间被修改过, 以当前时间为准
+     */
+    private long resolveDay(long storedDay) {
+        long today = today();
+        if (today < storedDay && storedDay - today <= 1) {
+            return storedDay;
+        }
+        return today;
+    }
+
+    static long pack(long day, long bytes) {
+        return (day << BYTES_BITS) | (bytes & BYTES_MASK);
+    }
+
+    static long dayOf(long packed) {
+        return packed >>> BYTES_BITS;
+    }
+
+    static long bytesOf(long packed) {
+        return packed & BYTES_MASK;
+    }
+}
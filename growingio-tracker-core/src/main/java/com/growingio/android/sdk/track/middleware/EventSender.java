@@ -16,7 +16,6 @@
 
 package com.growingio.android.sdk.track.middleware;
 
-import android.annotation.SuppressLint;
 import android.app.ActivityManager;
 import android.content.Context;
 import android.content.SharedPreferences;
@@ -27,14 +26,14 @@ import android.os.Message;
 
 import androidx.annotation.NonNull;
 
+import com.growingio.android.sdk.track.ipc.MultiProcessDataSharer;
 import com.growingio.android.sdk.track.ipc.ProcessLock;
 import com.growingio.android.sdk.track.log.Logger;
+import com.growingio.android.sdk.track.providers.NetworkStateProvider;
 import com.growingio.android.sdk.track.utils.NetworkUtil;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 import static com.growingio.android.sdk.track.middleware.GEvent.SEND_POLICY_INSTANT;
@@ -44,7 +43,7 @@ import static com.growingio.android.sdk.track.middleware.GEvent.SEND_POLICY_INST
  * - 多个进程公用同一个EventSender
  * - EventSender为单例模型，防止销毁后计数器归零
  */
-public class EventSender {
+public class EventSender implements NetworkStateProvider.OnNetworkStateChangedListener {
     private static final String TAG = "EventSender";
 
     private static final int EVENTS_BULK_SIZE = 100;
@@ -52,12 +51,14 @@ public class EventSender {
     private final Context mContext;
     private final EventsSQLite mEventsSQLite;
     private final IEventNetSender mEventNetSender;
-    private final SharedPreferences mSharedPreferences;
+    private final CellularDataBudget mCellularDataBudget;
     private final SendHandler mSendHandler;
+    private final UploadCoordinator mUploadCoordinator;
     private final ProcessLock mProcessLock;
+    private final NetworkStateProvider mNetworkStateProvider;
+    private volatile NetworkUtil.NetworkState mLastNetworkState;
 
     private final long mDataUploadInterval;
-    private final long mCellularDataLimit;
 
     private int mCacheEventNum = 0;
 
@@ -71,70 +72,77 @@ public class EventSender {
      */
     public EventSender(Context context, IEventNetSender sender, long dataUploadInterval, long cellularDataLimit) {
         mContext = context;
-        mCellularDataLimit = cellularDataLimit * 1024L * 1024L;
         mDataUploadInterval = dataUploadInterval * 1000L;
         mEventsSQLite = new EventsSQLite(context);
         mEventNetSender = sender;
         mProcessLock = new ProcessLock(context, EventSender.class.getName());
-        mSharedPreferences = context.getSharedPreferences("growing3_sender", Context.MODE_PRIVATE);
+        mCellularDataBudget = new CellularDataBudget(new MultiProcessDataSharer(context, CellularDataBudget.class.getSimpleName(), 4));
+        mCellularDataBudget.setLimit(GEvent.SEND_POLICY_MOBILE_DATA, cellularDataLimit * 1024L * 1024L);
+        importLegacyCellularUsage();
+        mNetworkStateProvider = NetworkStateProvider.get();
+        mLastNetworkState = mNetworkStateProvider.getNetworkState();
         HandlerThread thread = new HandlerThread(EventSender.class.getName());
         thread.start();
         mSendHandler = new SendHandler(thread.getLooper());
+        mUploadCoordinator = new UploadCoordinator(new UploadCoordinator.Uploader() {
+            @Override
+            public void upload(int lane) {
+                sendEvents(lane == UploadCoordinator.LANE_INSTANT);
+            }
+        }, mSendHandler);
+        mSendHandler.startPeriodicUpload();
+        mNetworkStateProvider.registerNetworkStateChangedListener(this);
+    }
+
+    /**
+     * 网络恢复或者切换到 WIFI 时立即发送积压的事件, 不用等下一个发送周期
+     */
+    @Override
+    public void onNetworkStateChanged(NetworkUtil.NetworkState networkState) {
+        NetworkUtil.NetworkState previous = mLastNetworkState;
+        mLastNetworkState = networkState;
+        if (!networkState.isConnected()) {
+            return;
+        }
+        if (!previous.isConnected() || (networkState.isWifi() && !previous.isWifi())) {
+            Logger.d(TAG, "network becomes available, toggle one send action");
+            mUploadCoordinator.request(UploadCoordinator.LANE_ALL);
+        }
     }
 
     public void sendEvent(GEvent event) {
         mEventsSQLite.insertEvent(event);
         if (event.getSendPolicy() == SEND_POLICY_INSTANT) {
-            mSendHandler.uploadInstantEvents();
+            mUploadCoordinator.request(UploadCoordinator.LANE_INSTANT);
         } else {
             if (mDataUploadInterval > 0) {
                 mCacheEventNum++;
                 if (mCacheEventNum >= EVENTS_BULK_SIZE) {
                     Logger.d(TAG, "cacheEventNum >= EVENTS_BULK_SIZE, toggle one send action");
-                    mSendHandler.uploadUninstantEvents();
+                    mUploadCoordinator.request(UploadCoordinator.LANE_ALL);
                     mCacheEventNum = 0;
                 }
             } else {
-                mSendHandler.uploadUninstantEvents();
+                mUploadCoordinator.request(UploadCoordinator.LANE_ALL);
             }
         }
     }
 
-    void removeAllEvents() {
-        Logger.d(TAG, "action: removeAllEvents");
-        mEventsSQLite.removeAllEvents();
-    }
-
     /**
-     * @param delta 变化量
-     * @return 今日移动网络数据发送量
+     * 旧版本把当天的移动网络用量保存在 growing3_sender 中, 导入后删除, 升级当天预算不会被重置
      */
-    private long todayBytes(long delta) {
-        String dateKey = "today";
-        String usedBytesKey = "today_bytes";
-        String todayStr = mSharedPreferences.getString(dateKey, "");
-
-        @SuppressLint("SimpleDateFormat")
-        SimpleDateFormat dayFormat = new SimpleDateFormat("yyyyMMdd");
-        String realDayTime = dayFormat.format(new Date());
-
-        long usedBytes;
-        if (!realDayTime.equals(todayStr)) {
-            // 新的一天， 重新计算
-            SharedPreferences.Editor editor = mSharedPreferences.edit();
-            editor.putString(dateKey, realDayTime);
-            editor.putLong(usedBytesKey, 0);
-            editor.apply();
-            usedBytes = 0;
-        } else {
-            // 与记录数据是同一天
-            usedBytes = mSharedPreferences.getLong(usedBytesKey, 0);
-        }
-        if (delta > 0) {
-            usedBytes = usedBytes + delta;
-            mSharedPreferences.edit().putLong(usedBytesKey, usedBytes).apply();
+    private void importLegacyCellularUsage() {
+        SharedPreferences preferences = mContext.getSharedPreferences("growing3_sender", Context.MODE_PRIVATE);
+        if (!preferences.contains("today")) {
+            return;
         }
-        return usedBytes;
+        mCellularDataBudget.importLegacyUsage(preferences.getString("today", ""), preferences.getLong("today_bytes", 0L));
+        preferences.edit().clear().apply();
+    }
+
+    void removeAllEvents() {
+        Logger.d(TAG, "action: removeAllEvents");
+        mEventsSQLite.removeAllEvents();
     }
 
     public void removeOverdueEvents() {
@@ -174,11 +182,24 @@ public class EventSender {
             return;
         }
 
-        NetworkUtil.NetworkState networkState = NetworkUtil.getActiveNetworkState(mContext);
+        NetworkUtil.NetworkState networkState = mNetworkStateProvider.getNetworkState();
         if (!networkState.isConnected()) {
             return;
         }
 
+        long unavailableMillis = mEventNetSender instanceof IServerAvailability
+                ? ((IServerAvailability) mEventNetSender).getUnavailableMillis() : 0;
+        if (unavailableMillis > 0) {
+            // 服务端熔断中, 等熔断结束后再发送, 周期发送会自己重新触发
+            Logger.e(TAG, "sendEvents: server is unavailable, retry after " + unavailableMillis + "ms");
+            if (onlyInstant) {
+                mUploadCoordinator.request(UploadCoordinator.LANE_INSTANT, unavailableMillis);
+            } else if (mDataUploadInterval <= 0) {
+                mUploadCoordinator.request(UploadCoordinator.LANE_ALL, unavailableMillis);
+            }
+            return;
+        }
+
         int[] uploadEvents;
         if (onlyInstant) {
             uploadEvents = new int[]{SEND_POLICY_INSTANT};
@@ -191,10 +212,8 @@ public class EventSender {
         for (int policy : uploadEvents) {
             boolean succeeded;
             do {
-                if (policy != SEND_POLICY_INSTANT
-                        && networkState.isMobileData()
-                        && mCellularDataLimit < todayBytes(0)) {
-                    Logger.e(TAG, "Today's mobile data is exhausted");
+                if (networkState.isMobileData() && mCellularDataBudget.isExhausted(policy)) {
+                    Logger.e(TAG, "Today's mobile data is exhausted, policy = " + policy);
                     break;
                 }
                 List<GEvent> resultEvents = new ArrayList<>();
@@ -206,10 +225,14 @@ public class EventSender {
                         String eventType = resultEvents.get(0).getEventType();
                         mEventsSQLite.removeEvents(lastId, policy, eventType);
                         if (networkState.isMobileData()) {
-                            todayBytes(sendResponse.getUsedBytes());
+                            mCellularDataBudget.add(sendResponse.getUsedBytes());
                         }
                     }
                     Logger.d(TAG, "upload event succeeded is " + succeeded);
+                    if (succeeded && policy != SEND_POLICY_INSTANT) {
+                        // 大批量的非实时数据之间让等待中的实时数据先发送
+                        mUploadCoordinator.yieldToInstant();
+                    }
                 } else {
                     Logger.d(TAG, "SQLite has NO events");
                     break;
@@ -219,39 +242,41 @@ public class EventSender {
     }
 
     // 由于数据发送是耗时操作，网络端更有可能被block，所以这里另起一个线程处理
-    private final class SendHandler extends Handler {
+    private final class SendHandler extends Handler implements UploadCoordinator.Scheduler {
         private static final int MSG_SEND_INSTANT_EVENTS = 1;
         private static final int MSG_SEND_UNINSTANT_EVENTS = 2;
+        private static final int MSG_PERIODIC_UPLOAD = 3;
 
         private SendHandler(@NonNull Looper looper) {
             super(looper);
-            if (mDataUploadInterval > 0) {
-                sendEmptyMessageDelayed(MSG_SEND_UNINSTANT_EVENTS, mDataUploadInterval);
-            }
         }
 
-        private void uploadInstantEvents() {
-            removeMessages(MSG_SEND_INSTANT_EVENTS);
-            sendEmptyMessage(MSG_SEND_INSTANT_EVENTS);
+        private void startPeriodicUpload() {
+            if (mDataUploadInterval > 0) {
+                sendEmptyMessageDelayed(MSG_PERIODIC_UPLOAD, mDataUploadInterval);
+            }
         }
 
-        private void uploadUninstantEvents() {
-            removeMessages(MSG_SEND_UNINSTANT_EVENTS);
-            sendEmptyMessage(MSG_SEND_UNINSTANT_EVENTS);
+        @Override
+        public void schedule(int lane, long delayMillis) {
+            int what = lane == UploadCoordinator.LANE_INSTANT ? MSG_SEND_INSTANT_EVENTS : MSG_SEND_UNINSTANT_EVENTS;
+            removeMessages(what);
+            sendEmptyMessageDelayed(what, delayMillis);
         }
 
         @Override
         public void handleMessage(@NonNull Message msg) {
             switch (msg.what) {
                 case MSG_SEND_INSTANT_EVENTS:
-                    sendEvents(true);
+                    mUploadCoordinator.onScheduled(UploadCoordinator.LANE_INSTANT);
                     break;
                 case MSG_SEND_UNINSTANT_EVENTS:
-                    removeMessages(MSG_SEND_UNINSTANT_EVENTS);
-                    sendEvents(false);
-                    if (mDataUploadInterval > 0) {
-                        sendEmptyMessageDelayed(MSG_SEND_UNINSTANT_EVENTS, mDataUploadInterval);
-                    }
+                    mUploadCoordinator.onScheduled(UploadCoordinator.LANE_ALL);
+                    break;
+                case MSG_PERIODIC_UPLOAD:
+                    mUploadCoordinator.request(UploadCoordinator.LANE_ALL);
+                    Logger.d(TAG, mUploadCoordinator.toString());
+                    sendEmptyMessageDelayed(MSG_PERIODIC_UPLOAD, mDataUploadInterval);
                     break;
                 default:
                     Logger.e(TAG, "Unexpected value: " + msg.what);
@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.android.sdk.track.middleware;
+
+/**
+ * IEventNetSender 可以选择实现, 服务端持续出错时 EventSender 暂停发送
+ */
+public interface IServerAvailability {
+    /**
+     * @return 服务端持续出错时还需要等待多久才能再次发送, 单位 ms, 0 表示现在可以发送
+     */
+    long getUnavailableMillis();
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.middleware;
+
+import android.os.SystemClock;
+
+import com.growingio.android.sdk.track.log.Logger;
+
+/**
+ * 合并各处触发的上传请求。
+ * <p>
+ * 分为 INSTANT 和 ALL 两个通道, 每个通道同一时间最多只有一次等待中的上传, 重复的请求只计数;
+ * 上传进行中收到的请求在结束后再执行一次。同一通道两次上传之间至少间隔 minInterval。
+ * ALL 通道每发送完一批数据调用 {@link #yieldToInstant()}, 等待中的 INSTANT 上传可以插队执行,
+ * 不需要等所有 WIFI 数据发送完。
+ * <p>
+ * 所有上传都在 Scheduler 所在的线程执行。
+ */
+public class UploadCoordinator {
+    private static final String TAG = "UploadCoordinator";
+
+    public static final int LANE_INSTANT = 0;
+    public static final int LANE_ALL = 1;
+    private static final int LANE_COUNT = 2;
+
+    static final long MIN_INTERVAL_INSTANT = 200L;
+    static final long MIN_INTERVAL_ALL = 1000L;
+
+    public interface Uploader {
+        void upload(int lane);
+    }
+
+    /**
+     * delayMillis 之后在上传线程调用 {@link #onScheduled(int)}, 同一个通道之前的调度需要被替换
+     */
+    public interface Scheduler {
+        void schedule(int lane, long delayMillis);
+    }
+
+    public interface Clock {
+        long uptimeMillis();
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long uptimeMillis() {
+            return SystemClock.uptimeMillis();
+        }
+    };
+
+    private final Uploader mUploader;
+    private final Scheduler mScheduler;
+    private final Clock mClock;
+    private final long[] mMinIntervals;
+
+    private final boolean[] mPending = new boolean[LANE_COUNT];
+    private final long[] mDueTime = new long[LANE_COUNT];
+    private final boolean[] mRunning = new boolean[LANE_COUNT];
+    private final boolean[] mRerun = new boolean[LANE_COUNT];
+    private final long[] mRerunDelay = new long[LANE_COUNT];
+    private final long[] mLastRunEnd = new long[LANE_COUNT];
+    private final boolean[] mHasRun = new boolean[LANE_COUNT];
+
+    private final long[] mRequestCount = new long[LANE_COUNT];
+    private final long[] mCoalescedCount = new long[LANE_COUNT];
+    private final long[] mRunCount = new long[LANE_COUNT];
+    private long mPreemptionCount;
+
+    public UploadCoordinator(Uploader uploader, Scheduler scheduler) {
+        this(uploader, scheduler, SYSTEM_CLOCK, MIN_INTERVAL_INSTANT, MIN_INTERVAL_ALL);
+    }
+
+    UploadCoordinator(Uploader uploader, Scheduler scheduler, Clock clock, long instantMinInterval, long allMinInterval) {
+        mUploader = uploader;
+        mScheduler = scheduler;
+        mClock = clock;
+        mMinIntervals = new long[]{instantMinInterval, allMinInterval};
+    }
+
+    public void request(int lane) {
+        request(lane, 0L);
+    }
+
+    /**
+     * @param delayMillis 至少延迟多久执行, 已经有等待中的上传时忽略
+     */
+    public synchronized void request(int lane, long delayMillis) {
+        mRequestCount[lane]++;
+        if (mRunning[lane]) {
+            if (mRerun[lane]) {
+                mCoalescedCount[lane]++;
+            }
+            mRerun[lane] = true;
+            mRerunDelay[lane] = Math.max(mRerunDelay[lane], delayMillis);
+            return;
+        }
+        if (mPending[lane]) {
+            mCoalescedCount[lane]++;
+            return;
+        }
+        scheduleLocked(lane, delayMillis);
+    }
+
+    private void scheduleLocked(int lane, long delayMillis) {
+        long now = mClock.uptimeMillis();
+        long dueTime = now + Math.max(0L, delayMillis);
+        if (mHasRun[lane]) {
+            dueTime = Math.max(dueTime, mLastRunEnd[lane] + mMinIntervals[lane]);
+        }
+        mPending[lane] = true;
+        mDueTime[lane] = dueTime;
+        mScheduler.schedule(lane, dueTime - now);
+    }
+
+    /**
+     * 由 Scheduler 在上传线程调用
+     */
+    public void onScheduled(int lane) {
+        synchronized (this) {
+            if (!mPending[lane] || mRunning[lane]) {
+                // 已经通过 yieldToInstant 执行过了
+                return;
+            }
+            mPending[lane] = false;
+            mRunning[lane] = true;
+        }
+        run(lane);
+    }
+
+    /**
+     * 在 ALL 通道的上传过程中调用, 有到期的 INSTANT 上传时立即在当前线程执行
+     *
+     * @return 是否执行了 INSTANT 上传
+     */
+    public boolean yieldToInstant() {
+        synchronized (this) {
+            if (!mPending[LANE_INSTANT] || mRunning[LANE_INSTANT] || mClock.uptimeMillis() < mDueTime[LANE_INSTANT]) {
+                return false;
+            }
+            mPending[LANE_INSTANT] = false;
+            mRunning[LANE_INSTANT] = true;
+            mPreemptionCount++;
+        }
+        Logger.d(TAG, "instant upload preempts the running batch");
+        run(LANE_INSTANT);
+        return true;
+    }
+
+    private void run(int lane) {
+        try {
+            mUploader.upload(lane);
+        } finally {
+            synchronized (this) {
+                mRunning[lane] = false;
+                mRunCount[lane]++;
+                mHasRun[lane] = true;
+                mLastRunEnd[lane] = mClock.uptimeMillis();
+                if (mRerun[lane]) {
+                    mRerun[lane] = false;
+                    long delay = mRerunDelay[lane];
+                    mRerunDelay[lane] = 0L;
+                    scheduleLocked(lane, delay);
+                }
+            }
+        }
+    }
+
+    public synchronized boolean isPending(int lane) {
+        return mPending[lane];
+    }
+
+    /**
+     * @return 收到的上传请求数
+     */
+    public synchronized long getRequestCount(int lane) {
+        return mRequestCount[lane];
+    }
+
+    /**
+     * @return 被合并到已有上传中的请求数
+     */
+    public synchronized long getCoalescedCount(int lane) {
+        return mCoalescedCount[lane];
+    }
+
+    /**
+     * @return 实际执行的上传次数, 包含插队执行的 INSTANT 上传
+     */
+    public synchronized long getRunCount(int lane) {
+        return mRunCount[lane];
+    }
+
+    /**
+     * @return INSTANT 上传插队执行的次数
+     */
+    public synchronized long getPreemptionCount() {
+        return mPreemptionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "UploadCoordinator{instant: requests=" + mRequestCount[LANE_INSTANT]
+                + ", coalesced=" + mCoalescedCount[LANE_INSTANT]
+                + ", runs=" + mRunCount[LANE_INSTANT]
+                + "; all: requests=" + mRequestCount[LANE_ALL]
+                + ", coalesced=" + mCoalescedCount[LANE_ALL]
+                + ", runs=" + mRunCount[LANE_ALL]
+                + "; preemptions=" + mPreemptionCount
+                + "}";
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.providers;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+import com.growingio.android.sdk.track.ContextProvider;
+import com.growingio.android.sdk.track.listener.ListenerContainer;
+import com.growingio.android.sdk.track.log.Logger;
+import com.growingio.android.sdk.track.utils.NetworkUtil;
+
+/**
+ * 缓存当前的网络状态, 只在网络变化时查询 ConnectivityManager。
+ * <p>
+ * Android N 及以上使用 registerDefaultNetworkCallback, 网络状态直接从回调的 Network 和 NetworkCapabilities 得到,
+ * 回调中不再查询 getActiveNetworkInfo(), 那时默认网络的状态可能还没有更新;
+ * 之前的版本监听 CONNECTIVITY_ACTION 广播。注册失败时退回到每次读取都查询 ConnectivityManager。
+ */
+public class NetworkStateProvider extends ListenerContainer<NetworkStateProvider.OnNetworkStateChangedListener, NetworkUtil.NetworkState> {
+    private static final String TAG = "NetworkStateProvider";
+
+    private final Context mContext;
+    private volatile NetworkUtil.NetworkState mNetworkState;
+    private final boolean mMonitoring;
+
+    public interface OnNetworkStateChangedListener {
+        void onNetworkStateChanged(NetworkUtil.NetworkState networkState);
+    }
+
+    private static class SingleInstance {
+        private static final NetworkStateProvider INSTANCE = new NetworkStateProvider(ContextProvider.getApplicationContext());
+    }
+
+    NetworkStateProvider(Context context) {
+        mContext = context;
+        mNetworkState = NetworkUtil.getActiveNetworkState(context);
+        mMonitoring = startMonitoring();
+    }
+
+    public static NetworkStateProvider get() {
+        return SingleInstance.INSTANCE;
+    }
+
+    @NonNull
+    public NetworkUtil.NetworkState getNetworkState() {
+        if (!mMonitoring) {
+            return NetworkUtil.getActiveNetworkState(mContext);
+        }
+        return mNetworkState;
+    }
+
+    public void registerNetworkStateChangedListener(OnNetworkStateChangedListener listener) {
+        register(listener);
+    }
+
+    public void unregisterNetworkStateChangedListener(OnNetworkStateChangedListener listener) {
+        unregister(listener);
+    }
+
+    private boolean startMonitoring() {
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                ConnectivityManager manager = (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+                if (manager == null) {
+                    return false;
+                }
+                manager.registerDefaultNetworkCallback(new DefaultNetworkCallback(manager));
+            } else {
+                mContext.registerReceiver(new ConnectivityReceiver(), new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+            }
+            return true;
+        } catch (Exception e) {
+            Logger.e(TAG, e, "monitor network state failed");
+            return false;
+        }
+    }
+
+    /**
+     * 重新查询网络状态, 变化时通知监听者
+     */
+    void refresh() {
+        update(NetworkUtil.getActiveNetworkState(mContext));
+    }
+
+    /**
+     * 更新网络状态, 变化时通知监听者
+     */
+    synchronized void update(NetworkUtil.NetworkState current) {
+        NetworkUtil.NetworkState previous = mNetworkState;
+        mNetworkState = current;
+        if (!current.equals(previous)) {
+            Logger.d(TAG, "network state changed: " + current);
+            dispatchActions(current);
+        }
+    }
+
+    @Override
+    protected void singleAction(OnNetworkStateChangedListener listener, NetworkUtil.NetworkState action) {
+        listener.onNetworkStateChanged(action);
+    }
+
+    /**
+     * 只在默认网络或者它的 transport 变化时更新状态, 信号强度, 带宽等变化引起的 onCapabilitiesChanged 直接忽略
+     */
+    @TargetApi(Build.VERSION_CODES.N)
+    final class DefaultNetworkCallback extends ConnectivityManager.NetworkCallback {
+        private final ConnectivityManager mManager;
+        private Network mNetwork;
+        private boolean mIsWifi;
+
+        DefaultNetworkCallback(ConnectivityManager manager) {
+            mManager = manager;
+        }
+
+        @Override
+        public void onAvailable(@NonNull Network network) {
+            // Android O 开始 onAvailable 之后一定会回调 onCapabilitiesChanged
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+                NetworkCapabilities capabilities = mManager.getNetworkCapabilities(network);
+                if (capabilities != null) {
+                    onCapabilitiesChanged(network, capabilities);
+                }
+            }
+        }
+
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
+            boolean isWifi = networkCapabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI);
+            synchronized (NetworkStateProvider.this) {
+                if (network.equals(mNetwork) && isWifi == mIsWifi) {
+                    return;
+                }
+                mNetwork = network;
+                mIsWifi = isWifi;
+                // 只有移动网络需要查询制式
+                update(NetworkUtil.connectedState(isWifi, isWifi ? null : mManager.getNetworkInfo(network)));
+            }
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            synchronized (NetworkStateProvider.this) {
+                // 默认网络已经切换到其他网络
+                if (!network.equals(mNetwork)) {
+                    return;
+                }
+                mNetwork = null;
+                update(NetworkUtil.disconnectedState());
+            }
+        }
+    }
+
+    private final class ConnectivityReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            refresh();
+        }
+    }
+}
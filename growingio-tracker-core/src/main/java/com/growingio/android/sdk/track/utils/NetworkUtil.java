@@ -53,6 +53,35 @@ public class NetworkUtil {
         public String getNetworkName() {
             return mNetworkName;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NetworkState)) {
+                return false;
+            }
+            NetworkState that = (NetworkState) o;
+            return mIsConnected == that.mIsConnected
+                    && mIsMobileData == that.mIsMobileData
+                    && mIsWifi == that.mIsWifi
+                    && mNetworkName.equals(that.mNetworkName);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mIsConnected ? 1 : 0;
+            result = 31 * result + (mIsMobileData ? 1 : 0);
+            result = 31 * result + (mIsWifi ? 1 : 0);
+            result = 31 * result + mNetworkName.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "NetworkState{connected=" + mIsConnected + ", wifi=" + mIsWifi + ", name=" + mNetworkName + "}";
+        }
     }
 
     private NetworkUtil() {
@@ -67,6 +96,24 @@ public class NetworkUtil {
         return null;
     }
 
+    @NonNull
+    public static NetworkState disconnectedState() {
+        return new NetworkState(false, false, false, ConstantPool.UNKNOWN);
+    }
+
+    /**
+     * 已知 transport 时生成网络状态, 非 WIFI 的网络与 {@link #getActiveNetworkState(Context)} 一样视为移动网络
+     *
+     * @param networkInfo 只用于区分移动网络的制式, 可以为 null
+     */
+    @NonNull
+    public static NetworkState connectedState(boolean isWifi, @Nullable NetworkInfo networkInfo) {
+        if (isWifi) {
+            return new NetworkState(true, false, true, "WIFI");
+        }
+        return new NetworkState(true, true, false, getNetworkName(networkInfo));
+    }
+
     @NonNull
     public static NetworkState getActiveNetworkState(Context context) {
         NetworkInfo networkInfo = getActiveNetworkInfo(context);
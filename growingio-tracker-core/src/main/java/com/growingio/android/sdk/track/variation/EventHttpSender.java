@@ -17,34 +17,89 @@
 package com.growingio.android.sdk.track.variation;
 
 import com.growingio.android.sdk.track.TrackConfiguration;
+import com.growingio.android.sdk.track.encrypt.PayloadEncoder;
+import com.growingio.android.sdk.track.encrypt.PayloadEncryptor;
 import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.events.marshaller.EventMarshaller;
+import com.growingio.android.sdk.track.http.ConnectionManager;
 import com.growingio.android.sdk.track.http.HttpRequest;
+import com.growingio.android.sdk.track.http.JsonPostRequestBuilder;
+import com.growingio.android.sdk.track.http.RequestTemplate;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.middleware.GEvent;
 import com.growingio.android.sdk.track.middleware.IEventNetSender;
+import com.growingio.android.sdk.track.middleware.IServerAvailability;
 import com.growingio.android.sdk.track.middleware.SendResponse;
+import com.growingio.android.sdk.track.providers.ActivityStateProvider;
 import com.growingio.android.sdk.track.providers.ConfigurationProvider;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
 import java.util.List;
 
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
 import okhttp3.Response;
 
-public class EventHttpSender implements IEventNetSender {
+public class EventHttpSender implements IEventNetSender, IServerAvailability {
     private static final String TAG = "EventHttpSender";
+    private static final MediaType ENCODED_CONTENT_TYPE = MediaType.get("application/octet-stream");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /**
+     * 网络错误, 5xx 和 429 时在发送线程中退避重试的次数, 之后的失败计入熔断, 数据留在数据库中等下次发送
+     */
+    private static final int COLLECT_RETRY_TIMES = 2;
 
     private final EventMarshaller<JSONObject, JSONArray> mEventMarshaller;
     private final String mProjectId;
     private final String mServerHost;
+    private final RequestTemplate mCollectTemplate;
+    private final PayloadEncoder mPayloadEncoder;
+    private final ConnectionManager mConnectionManager;
 
     public EventHttpSender(EventMarshaller<JSONObject, JSONArray> eventMarshaller) {
+        this(eventMarshaller, ConfigurationProvider.get().getTrackConfiguration());
+    }
+
+    EventHttpSender(EventMarshaller<JSONObject, JSONArray> eventMarshaller, TrackConfiguration configuration) {
         mEventMarshaller = eventMarshaller;
-        TrackConfiguration configuration = ConfigurationProvider.get().getTrackConfiguration();
         mProjectId = configuration.getProjectId();
         mServerHost = configuration.getDataCollectionServerHost();
+        JsonPostRequestBuilder collectBuilder = HttpRequest.postJson(mServerHost)
+                .addPath("v3")
+                .addPath("projects")
+                .addPath(mProjectId)
+                .addPath("collect")
+                .setRetryTimes(COLLECT_RETRY_TIMES);
+        PayloadEncryptor encryptor = configuration.getPayloadEncryptor();
+        if (encryptor == null) {
+            mCollectTemplate = collectBuilder.buildTemplate();
+            mPayloadEncoder = null;
+        } else {
+            mCollectTemplate = collectBuilder
+                    .addHeader(PayloadEncoder.HEADER_COMPRESS_CODEC, PayloadEncoder.COMPRESS_CODEC_DEFLATE)
+                    .addHeader(PayloadEncoder.HEADER_CRYPT_CODEC, encryptor.getCodec())
+                    .buildTemplate();
+            mPayloadEncoder = new PayloadEncoder(encryptor);
+        }
+
+        mConnectionManager = new ConnectionManager(mServerHost,
+                configuration.getDataUploadInterval() * 1000L, configuration.isHttp2Enabled());
+        mConnectionManager.install();
+        ActivityStateProvider.get().registerActivityLifecycleListener(mConnectionManager);
+        mConnectionManager.warmUp();
+    }
+
+    ConnectionManager getConnectionManager() {
+        return mConnectionManager;
+    }
+
+    @Override
+    public long getUnavailableMillis() {
+        return HttpRequest.getUnavailableMillis(mServerHost);
     }
 
     /**
@@ -66,24 +121,40 @@ public class EventHttpSender implements IEventNetSender {
         Logger.d(TAG, "Send events, type is " + event.getEventType());
 
         String data = mEventMarshaller.marshall(events).toString();
-        HttpRequest httpRequest = HttpRequest.postJson(mServerHost)
-                .addPath("v3")
-                .addPath("projects")
-                .addPath(mProjectId)
-                .addPath("collect")
-                .addParam("stm", String.valueOf(System.currentTimeMillis()))
-                .setBody(data)
-                .build();
+        String stm = String.valueOf(System.currentTimeMillis());
+        HttpRequest httpRequest;
+        int bodyLength;
+        if (mPayloadEncoder == null) {
+            httpRequest = mCollectTemplate.postJson("stm", stm, data);
+            bodyLength = data.getBytes().length;
+        } else {
+            try {
+                bodyLength = mPayloadEncoder.encode(data.getBytes(UTF_8));
+            } catch (GeneralSecurityException e) {
+                Logger.e(TAG, e, "Encrypt events failed");
+                return new SendResponse(false, 0);
+            }
+            // buffer 在下一次 send 前不会被修改, 重试时可以重复写出
+            httpRequest = mCollectTemplate.post("stm", stm, RequestBody.create(ENCODED_CONTENT_TYPE, mPayloadEncoder.getBuffer(), 0, bodyLength));
+        }
         Logger.printJson(TAG, "POST: " + httpRequest.getRequest().url().toString(), data);
         Response response = httpRequest.execute();
-
-        boolean successful = response != null && response.isSuccessful();
-        if (successful) {
-            Logger.d(TAG, "Send events successfully");
-        } else {
-            Logger.d(TAG, "Send events failed, response = " + response);
+        if (response == null) {
+            Logger.d(TAG, "Send events failed, response = null");
+            return new SendResponse(false, bodyLength);
         }
 
-        return new SendResponse(successful, data.getBytes().length);
+        try {
+            boolean successful = response.isSuccessful();
+            if (successful) {
+                Logger.d(TAG, "Send events successfully");
+            } else {
+                Logger.d(TAG, "Send events failed, response = " + response);
+            }
+            return new SendResponse(successful, bodyLength);
+        } finally {
+            // 关闭响应后连接才会回到连接池, TimingEventListener 也在这时收到 callEnd
+            response.close();
+        }
     }
 }
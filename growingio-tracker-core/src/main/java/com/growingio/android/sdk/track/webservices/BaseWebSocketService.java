@@ -16,6 +16,7 @@
 
 package com.growingio.android.sdk.track.webservices;
 
+import android.os.Build;
 import android.support.annotation.CallSuper;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
@@ -38,6 +39,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.WebSocket;
+import okio.ByteString;
 
 public abstract class BaseWebSocketService implements IWebService {
     private static final String TAG = "BaseWebSocketService";
@@ -50,6 +52,8 @@ public abstract class BaseWebSocketService implements IWebService {
     private WebSocket mWebSocket;
     protected TipView mTipView;
     private final AtomicInteger mSocketState = new AtomicInteger(SOCKET_STATE_INITIALIZE);
+    private volatile boolean mBinaryFrameEnabled = false;
+    private volatile BinaryFrameCodec mBinaryFrameCodec;
 
     @CallSuper
     @Override
@@ -130,6 +134,26 @@ public abstract class BaseWebSocketService implements IWebService {
         }
     }
 
+    /**
+     * Web端在ready消息中声明binaryFrame后才能发送二进制帧，否则调用方需要回退到文本消息
+     */
+    protected boolean isBinaryFrameEnabled() {
+        return mBinaryFrameEnabled;
+    }
+
+    /**
+     * 以二进制帧发送，payload为原始数据，不需要Base64
+     */
+    protected void sendBinaryMessage(String msg, byte[] payload) {
+        BinaryFrameCodec codec = mBinaryFrameCodec;
+        if (mWebSocket != null && codec != null) {
+            ByteString frame = codec.encode(msg, payload);
+            if (frame != null) {
+                mWebSocket.send(frame);
+            }
+        }
+    }
+
     protected void sendQuitMessage() {
         sendMessage(new QuitMessage().toJSONObject().toString());
     }
@@ -138,6 +162,16 @@ public abstract class BaseWebSocketService implements IWebService {
     @CallSuper
     public void end() {
         mSocketState.set(SOCKET_STATE_CLOSED);
+        mBinaryFrameEnabled = false;
+        releaseBinaryFrameCodec();
+    }
+
+    private void releaseBinaryFrameCodec() {
+        BinaryFrameCodec codec = mBinaryFrameCodec;
+        mBinaryFrameCodec = null;
+        if (codec != null) {
+            codec.release();
+        }
     }
 
     private final class WebSocketListener extends okhttp3.WebSocketListener {
@@ -167,6 +201,11 @@ public abstract class BaseWebSocketService implements IWebService {
                 String msgType = message.optString("msgType");
                 if (ReadyMessage.MSG_TYPE.equals(msgType)) {
                     Logger.d(TAG, "Web is ready");
+                    releaseBinaryFrameCodec();
+                    if (message.optBoolean(ReadyMessage.BINARY_FRAME)) {
+                        mBinaryFrameCodec = new BinaryFrameCodec(Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT);
+                        mBinaryFrameEnabled = true;
+                    }
                     onReady();
                     return;
                 } else if (QuitMessage.MSG_TYPE.equals(msgType)) {
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.webservices;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import okio.ByteString;
+
+/**
+ * 二进制帧格式:
+ * <pre>
+ * | version(1) | flags(1) | messageLength(4) | payloadLength(4) | message | payload |
+ * </pre>
+ * message为UTF-8编码的JSON，payload为原始数据(如截图)，不做Base64。
+ * 设置了{@link #FLAG_DEFLATED}时message是raw deflate数据，与permessage-deflate一样使用SYNC_FLUSH并去掉结尾的0x00 0x00 0xff 0xff，
+ * 整个连接共用一个压缩上下文，前后消息中重复的内容(如圈选的元素列表)只需要传一次。
+ */
+public class BinaryFrameCodec {
+    public static final byte VERSION = 1;
+    public static final int FLAG_DEFLATED = 1;
+    public static final int HEADER_LENGTH = 10;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] DEFLATE_TAIL = new byte[]{0x00, 0x00, (byte) 0xff, (byte) 0xff};
+
+    private final boolean mDeflateEnabled;
+    private final Deflater mDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Inflater mInflater = new Inflater(true);
+    private final ByteArrayOutputStream mBuffer = new ByteArrayOutputStream(8192);
+    private final byte[] mChunk = new byte[8192];
+    private boolean mReleased;
+
+    /**
+     * @param deflateEnabled SYNC_FLUSH需要API 19，低版本传false只做二进制分帧
+     */
+    public BinaryFrameCodec(boolean deflateEnabled) {
+        mDeflateEnabled = deflateEnabled;
+    }
+
+    /**
+     * @return 已经 release 时返回 null
+     */
+    public synchronized ByteString encode(String message, byte[] payload) {
+        if (mReleased) {
+            return null;
+        }
+        byte[] messageBytes = message.getBytes(UTF_8);
+        int flags = 0;
+        if (mDeflateEnabled) {
+            messageBytes = deflate(messageBytes);
+            flags |= FLAG_DEFLATED;
+        }
+        int payloadLength = payload == null ? 0 : payload.length;
+
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + messageBytes.length + payloadLength);
+        frame.put(VERSION);
+        frame.put((byte) flags);
+        frame.putInt(messageBytes.length);
+        frame.putInt(payloadLength);
+        frame.put(messageBytes);
+        if (payloadLength > 0) {
+            frame.put(payload);
+        }
+        return ByteString.of(frame.array());
+    }
+
+    public synchronized Frame decode(ByteString frameBytes) throws IOException {
+        if (mReleased) {
+            throw new IOException("Codec is released");
+        }
+        ByteBuffer frame = ByteBuffer.wrap(frameBytes.toByteArray());
+        if (frame.remaining() < HEADER_LENGTH) {
+            throw new IOException("Frame is too short: " + frame.remaining());
+        }
+        byte version = frame.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported frame version: " + version);
+        }
+        int flags = frame.get();
+        int messageLength = frame.getInt();
+        int payloadLength = frame.getInt();
+        if (messageLength < 0 || payloadLength < 0 || messageLength + payloadLength != frame.remaining()) {
+            throw new IOException("Illegal frame length, message: " + messageLength + ", payload: " + payloadLength);
+        }
+
+        byte[] messageBytes = new byte[messageLength];
+        frame.get(messageBytes);
+        if ((flags & FLAG_DEFLATED) != 0) {
+            messageBytes = inflate(messageBytes);
+        }
+        byte[] payload = new byte[payloadLength];
+        frame.get(payload);
+        return new Frame(new String(messageBytes, UTF_8), payload);
+    }
+
+    private byte[] deflate(byte[] input) {
+        mBuffer.reset();
+        mDeflater.setInput(input);
+        int count;
+        do {
+            count = mDeflater.deflate(mChunk, 0, mChunk.length, Deflater.SYNC_FLUSH);
+            mBuffer.write(mChunk, 0, count);
+        } while (count == mChunk.length);
+        byte[] output = mBuffer.toByteArray();
+        if (endsWithDeflateTail(output)) {
+            byte[] trimmed = new byte[output.length - DEFLATE_TAIL.length];
+            System.arraycopy(output, 0, trimmed, 0, trimmed.length);
+            return trimmed;
+        }
+        return output;
+    }
+
+    private byte[] inflate(byte[] input) throws IOException {
+        mBuffer.reset();
+        byte[] withTail = new byte[input.length + DEFLATE_TAIL.length];
+        System.arraycopy(input, 0, withTail, 0, input.length);
+        System.arraycopy(DEFLATE_TAIL, 0, withTail, input.length, DEFLATE_TAIL.length);
+        mInflater.setInput(withTail);
+        try {
+            while (!mInflater.needsInput() && !mInflater.finished()) {
+                int count = mInflater.inflate(mChunk);
+                if (count == 0 && mInflater.needsDictionary()) {
+                    throw new IOException("Inflater needs dictionary");
+                }
+                mBuffer.write(mChunk, 0, count);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        }
+        return mBuffer.toByteArray();
+    }
+
+    private static boolean endsWithDeflateTail(byte[] output) {
+        if (output.length < DEFLATE_TAIL.length) {
+            return false;
+        }
+        for (int i = 0; i < DEFLATE_TAIL.length; i++) {
+            if (output[output.length - DEFLATE_TAIL.length + i] != DEFLATE_TAIL[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 释放 Deflater 和 Inflater 的 native 内存，之后不能再使用
+     */
+    public synchronized void release() {
+        if (mReleased) {
+            return;
+        }
+        mReleased = true;
+        mDeflater.end();
+        mInflater.end();
+    }
+
+    public static final class Frame {
+        private final String mMessage;
+        private final byte[] mPayload;
+
+        Frame(String message, byte[] payload) {
+            mMessage = message;
+            mPayload = payload;
+        }
+
+        public String getMessage() {
+            return mMessage;
+        }
+
+        public byte[] getPayload() {
+            return mPayload;
+        }
+    }
+}
@@ -35,7 +35,11 @@ public class MobileLogService extends BaseWebSocketService {
         mWsLogger.setCallback(new WsLogger.Callback() {
             @Override
             public void disposeLog(LoggerDataMessage logMessage) {
-                sendMessage(logMessage.toJSONObject().toString());
+                if (isBinaryFrameEnabled()) {
+                    sendBinaryMessage(logMessage.toJSONObject().toString(), null);
+                } else {
+                    sendMessage(logMessage.toJSONObject().toString());
+                }
             }
         });
     }
@@ -16,6 +16,8 @@
 
 package com.growingio.android.sdk.track.webservices.log;
 
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
@@ -31,41 +33,101 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * 日志先在内存中聚合，每BATCH_WINDOW毫秒或满MAX_BATCH_SIZE条时才发送一次，避免每条日志都发送一个socket消息
+ */
 public class WsLogger extends BaseLogger {
     public static final String TYPE = "WsLogger";
 
+    private static final long BATCH_WINDOW = 200L;
+    private static final int MAX_BATCH_SIZE = 100;
+
     private volatile Callback mCallback;
-    private AtomicBoolean mFirstInit = new AtomicBoolean(true);
+    private final AtomicBoolean mFirstInit = new AtomicBoolean(true);
+    private final Object mLock = new Object();
+    private Queue<LoggerDataMessage.LogItem> mPendingLogs = new ArrayDeque<>();
+    private HandlerThread mFlushThread;
+    private Handler mFlushHandler;
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
 
     public void setCallback(Callback callback) {
         mCallback = callback;
+        if (callback == null) {
+            synchronized (mLock) {
+                mPendingLogs.clear();
+                if (mFlushThread != null) {
+                    mFlushThread.quit();
+                    mFlushThread = null;
+                    mFlushHandler = null;
+                }
+            }
+        }
     }
 
     @Override
     protected void print(int priority, @NonNull String tag, @NonNull String message, @Nullable Throwable t) {
-          String state = priorityToState(priority);
-          if (mCallback != null) {
-              if (mFirstInit.compareAndSet(true, false)) {
-                  ILogger cacheLogger = Logger.getLogger(CacheLogger.TYPE);
-                  if (cacheLogger instanceof CacheLogger) {
-                      List<LogItem> cacheLogs = ((CacheLogger) cacheLogger).getCacheLogs();
-                      Queue<LoggerDataMessage.LogItem> queue = new ArrayDeque<>(cacheLogs.size());
-                      for (LogItem item : cacheLogs) {
-                          queue.add(LoggerDataMessage.createLogItem(
-                                  priorityToState(item.getPriority()),
-                                  "subType",
-                                  item.getMessage(),
-                                  String.valueOf(item.getTimeStamp())));
-                      }
-                      mCallback.disposeLog(LoggerDataMessage.createMessage(queue));
-                  }
-              }
-              mCallback.disposeLog(LoggerDataMessage.
-                      createMessage(state,
-                              "subType",
-                              message,
-                              String.valueOf(System.currentTimeMillis())));
-          }
+        if (mCallback == null) {
+            return;
+        }
+
+        synchronized (mLock) {
+            if (mFirstInit.compareAndSet(true, false)) {
+                ILogger cacheLogger = Logger.getLogger(CacheLogger.TYPE);
+                if (cacheLogger instanceof CacheLogger) {
+                    List<LogItem> cacheLogs = ((CacheLogger) cacheLogger).getCacheLogs();
+                    for (LogItem item : cacheLogs) {
+                        mPendingLogs.add(LoggerDataMessage.createLogItem(
+                                priorityToState(item.getPriority()),
+                                "subType",
+                                item.getMessage(),
+                                String.valueOf(item.getTimeStamp())));
+                    }
+                }
+            }
+            mPendingLogs.add(LoggerDataMessage.createLogItem(
+                    priorityToState(priority),
+                    "subType",
+                    message,
+                    String.valueOf(System.currentTimeMillis())));
+
+            Handler handler = getFlushHandler();
+            if (mPendingLogs.size() >= MAX_BATCH_SIZE) {
+                handler.removeCallbacks(mFlushRunnable);
+                handler.post(mFlushRunnable);
+            } else if (mPendingLogs.size() == 1) {
+                handler.postDelayed(mFlushRunnable, BATCH_WINDOW);
+            }
+        }
+    }
+
+    private Handler getFlushHandler() {
+        if (mFlushHandler == null) {
+            mFlushThread = new HandlerThread("GIO-WsLogger");
+            mFlushThread.start();
+            mFlushHandler = new Handler(mFlushThread.getLooper());
+        }
+        return mFlushHandler;
+    }
+
+    private void flush() {
+        Queue<LoggerDataMessage.LogItem> logs;
+        synchronized (mLock) {
+            if (mPendingLogs.isEmpty()) {
+                return;
+            }
+            logs = mPendingLogs;
+            mPendingLogs = new ArrayDeque<>();
+        }
+
+        Callback callback = mCallback;
+        if (callback != null) {
+            callback.disposeLog(LoggerDataMessage.createMessage(logs));
+        }
     }
 
     @Override
@@ -30,6 +30,7 @@ import org.json.JSONObject;
 
 public class ReadyMessage {
     public static final String MSG_TYPE = "ready";
+    public static final String BINARY_FRAME = "binaryFrame";
 
     private final String mProjectId;
     private final String mMsgType;
@@ -81,6 +82,7 @@ public class ReadyMessage {
             json.put("screenWidth", mScreenWidth);
             json.put("screenHeight", mScreenHeight);
             json.put("urlScheme", mUrlScheme);
+            json.put(BINARY_FRAME, true);
         } catch (JSONException ignored) {
         }
         return json;
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.encrypt;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.crypto.Cipher;
+
+/**
+ * 服务端的解码逻辑, 解析 AeadPayloadEncryptor 的 header, 解开会话密钥后解密并 inflate
+ */
+final class PayloadDecoder {
+    private final int mKeyId;
+    private final PrivateKey mPrivateKey;
+
+    PayloadDecoder(int keyId, PrivateKey privateKey) {
+        mKeyId = keyId;
+        mPrivateKey = privateKey;
+    }
+
+    byte[] decode(byte[] body) throws GeneralSecurityException, DataFormatException {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        int version = buffer.get();
+        if (version != AeadPayloadEncryptor.VERSION) {
+            throw new GeneralSecurityException("unknown version: " + version);
+        }
+        int algorithm = buffer.get();
+        int keyId = buffer.getInt();
+        if (keyId != mKeyId) {
+            throw new GeneralSecurityException("unknown key id: " + keyId);
+        }
+        byte[] wrappedKey = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(wrappedKey);
+        byte[] nonce = new byte[buffer.get()];
+        buffer.get(nonce);
+        int headerLength = buffer.position();
+
+        Cipher unwrapCipher = Cipher.getInstance(AeadPayloadEncryptor.KEY_WRAP_TRANSFORMATION);
+        unwrapCipher.init(Cipher.UNWRAP_MODE, mPrivateKey, AeadPayloadEncryptor.KEY_WRAP_SPEC);
+        String keyAlgorithm = algorithm == AeadPayloadEncryptor.ALGORITHM_AES_GCM ? "AES" : "ChaCha20";
+        Key sessionKey = unwrapCipher.unwrap(wrappedKey, keyAlgorithm, Cipher.SECRET_KEY);
+
+        Cipher cipher = AeadPayloadEncryptor.createCipher(algorithm);
+        cipher.init(Cipher.DECRYPT_MODE, sessionKey, AeadPayloadEncryptor.parameterSpec(algorithm, nonce));
+        cipher.updateAAD(body, 0, headerLength);
+        byte[] compressed = cipher.doFinal(body, headerLength, body.length - headerLength);
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        while (!inflater.finished()) {
+            int count = inflater.inflate(chunk);
+            if (count == 0 && inflater.needsInput()) {
+                throw new DataFormatException("truncated payload");
+            }
+            out.write(chunk, 0, count);
+        }
+        inflater.end();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.encrypt;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.http.HttpRequest;
+import com.growingio.android.sdk.track.http.RequestTemplate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.crypto.AEADBadTagException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.net.ssl.*", "javax.security.*", "javax.crypto.*", "java.security.*", "sun.security.*", "com.sun.crypto.*"})
+public class PayloadEncoderTest {
+    private static final int KEY_ID = 7;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    private static KeyPair sKeyPair;
+
+    private MockWebServer mServer;
+    private final CopyOnWriteArrayList<String> mDecoded = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        if (sKeyPair == null) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            sKeyPair = generator.generateKeyPair();
+        }
+        final PayloadDecoder decoder = new PayloadDecoder(KEY_ID, sKeyPair.getPrivate());
+        mServer = new MockWebServer();
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                try {
+                    Truth.assertThat(request.getHeader(PayloadEncoder.HEADER_COMPRESS_CODEC)).isEqualTo(PayloadEncoder.COMPRESS_CODEC_DEFLATE);
+                    mDecoded.add(new String(decoder.decode(request.getBody().readByteArray()), UTF_8));
+                    return new MockResponse().setBody(request.getHeader(PayloadEncoder.HEADER_CRYPT_CODEC));
+                } catch (Exception e) {
+                    return new MockResponse().setResponseCode(400).setBody(e.toString());
+                }
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void aesGcmRoundTrip() throws Exception {
+        PayloadEncryptor encryptor = AeadPayloadEncryptor.create(KEY_ID, sKeyPair.getPublic().getEncoded());
+        roundTrip(encryptor);
+    }
+
+    @Test
+    public void chaCha20Poly1305RoundTrip() throws Exception {
+        PayloadEncryptor encryptor;
+        try {
+            encryptor = new AeadPayloadEncryptor(AeadPayloadEncryptor.ALGORITHM_CHACHA20_POLY1305, KEY_ID, sKeyPair.getPublic());
+        } catch (GeneralSecurityException e) {
+            // JDK 11 之前没有 ChaCha20-Poly1305
+            return;
+        }
+        roundTrip(encryptor);
+    }
+
+    private void roundTrip(PayloadEncryptor encryptor) throws Exception {
+        RequestTemplate template = HttpRequest.postJson(mServer.url("/").toString())
+                .addPath("v3").addPath("projects").addPath("test").addPath("collect")
+                .addHeader(PayloadEncoder.HEADER_COMPRESS_CODEC, PayloadEncoder.COMPRESS_CODEC_DEFLATE)
+                .addHeader(PayloadEncoder.HEADER_CRYPT_CODEC, encryptor.getCodec())
+                .buildTemplate();
+        PayloadEncoder encoder = new PayloadEncoder(encryptor);
+        String[] payloads = new String[]{"[]", "[{\"eventType\":\"VISIT\",\"sessionId\":\"s1\"}]", randomJson(200 * 1024), "[{\"eventType\":\"PAGE\"}]"};
+        byte[] initialBuffer = encoder.getBuffer();
+
+        for (String payload : payloads) {
+            int length = encoder.encode(payload.getBytes(UTF_8));
+            RequestBody body = RequestBody.create(OCTET_STREAM, encoder.getBuffer(), 0, length);
+            try (Response response = template.post("stm", "1", body).execute()) {
+                Truth.assertThat(response.code()).isEqualTo(200);
+                Truth.assertThat(response.body().string()).isEqualTo(encryptor.getCodec());
+            }
+        }
+
+        Truth.assertThat(mDecoded).containsExactlyElementsIn(payloads).inOrder();
+        // 小数据复用同一个 buffer, 大数据扩容后继续复用
+        Truth.assertThat(initialBuffer.length).isLessThan(encoder.getBuffer().length);
+        byte[] grownBuffer = encoder.getBuffer();
+        encoder.encode(payloads[1].getBytes(UTF_8));
+        Truth.assertThat(encoder.getBuffer()).isSameInstanceAs(grownBuffer);
+    }
+
+    @Test
+    public void nonceIsNotReused() throws Exception {
+        PayloadEncoder encoder = new PayloadEncoder(AeadPayloadEncryptor.create(KEY_ID, sKeyPair.getPublic().getEncoded()));
+        byte[] data = "[{\"eventType\":\"VISIT\"}]".getBytes(UTF_8);
+        int first = encoder.encode(data);
+        byte[] firstBody = Arrays.copyOf(encoder.getBuffer(), first);
+        int second = encoder.encode(data);
+        byte[] secondBody = Arrays.copyOf(encoder.getBuffer(), second);
+
+        Truth.assertThat(second).isEqualTo(first);
+        Truth.assertThat(Arrays.equals(firstBody, secondBody)).isFalse();
+        PayloadDecoder decoder = new PayloadDecoder(KEY_ID, sKeyPair.getPrivate());
+        Truth.assertThat(decoder.decode(firstBody)).isEqualTo(data);
+        Truth.assertThat(decoder.decode(secondBody)).isEqualTo(data);
+    }
+
+    @Test(expected = AEADBadTagException.class)
+    public void tamperedHeaderIsRejected() throws Exception {
+        PayloadEncoder encoder = new PayloadEncoder(AeadPayloadEncryptor.create(KEY_ID, sKeyPair.getPublic().getEncoded()));
+        int length = encoder.encode("[]".getBytes(UTF_8));
+        byte[] body = Arrays.copyOf(encoder.getBuffer(), length);
+        // 修改 nonce 的最后一个字节, header 参与认证
+        body[encoder.getEncryptor().getHeaderLength() - 1] ^= 1;
+        new PayloadDecoder(KEY_ID, sKeyPair.getPrivate()).decode(body);
+    }
+
+    static String randomJson(int size) {
+        Random random = new Random(1);
+        StringBuilder builder = new StringBuilder(size + 64).append('[');
+        while (builder.length() < size) {
+            if (builder.length() > 1) {
+                builder.append(',');
+            }
+            builder.append("{\"eventType\":\"CUSTOM\",\"eventName\":\"e").append(random.nextInt(1000))
+                    .append("\",\"timestamp\":").append(1600000000000L + random.nextInt())
+                    .append(",\"sessionId\":\"").append(Long.toHexString(random.nextLong())).append("\"}");
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.encrypt;
+
+import com.google.common.truth.Truth;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+
+/**
+ * 对比 XORUtils 和原地 AEAD 加密的吞吐(MB/s), 以及压缩后再加密的整体吞吐
+ */
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.crypto.*", "javax.security.*", "sun.security.*", "com.sun.crypto.*"})
+public class PayloadEncryptBenchmarkTest {
+    private static final int PAYLOAD_SIZE = 64 * 1024;
+    private static final int ROUNDS = 400;
+    private static final int WARM_UP_ROUNDS = 100;
+
+    @Test
+    public void xorVersusAead() throws GeneralSecurityException {
+        byte[] payload = PayloadEncoderTest.randomJson(PAYLOAD_SIZE).getBytes(Charset.forName("UTF-8"));
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        PublicKey publicKey = generator.generateKeyPair().getPublic();
+
+        xor(payload, WARM_UP_ROUNDS);
+        long start = System.nanoTime();
+        xor(payload, ROUNDS);
+        System.out.println("XORUtils:          " + throughput(payload.length, System.nanoTime() - start));
+
+        aead(new AeadPayloadEncryptor(AeadPayloadEncryptor.ALGORITHM_AES_GCM, 1, publicKey), payload);
+        PayloadEncryptor chaCha;
+        try {
+            chaCha = new AeadPayloadEncryptor(AeadPayloadEncryptor.ALGORITHM_CHACHA20_POLY1305, 1, publicKey);
+        } catch (GeneralSecurityException e) {
+            chaCha = null;
+        }
+        if (chaCha != null) {
+            aead(chaCha, payload);
+        }
+
+        PayloadEncoder encoder = new PayloadEncoder(new AeadPayloadEncryptor(AeadPayloadEncryptor.ALGORITHM_AES_GCM, 1, publicKey));
+        encode(encoder, payload, WARM_UP_ROUNDS);
+        start = System.nanoTime();
+        int length = encode(encoder, payload, ROUNDS);
+        System.out.println("deflate + aes-gcm: " + throughput(payload.length, System.nanoTime() - start)
+                + ", " + payload.length + " -> " + length + " bytes");
+        Truth.assertThat(length).isLessThan(payload.length);
+    }
+
+    private static void aead(PayloadEncryptor encryptor, byte[] payload) throws GeneralSecurityException {
+        byte[] buffer = new byte[encryptor.getHeaderLength() + payload.length + encryptor.getTrailerLength()];
+        encrypt(encryptor, payload, buffer, WARM_UP_ROUNDS);
+        long start = System.nanoTime();
+        int length = encrypt(encryptor, payload, buffer, ROUNDS);
+        System.out.println(String.format("%-18s %s", encryptor.getCodec() + ":", throughput(payload.length, System.nanoTime() - start)));
+        Truth.assertThat(length).isEqualTo(buffer.length);
+    }
+
+    private static int encrypt(PayloadEncryptor encryptor, byte[] payload, byte[] buffer, int rounds) throws GeneralSecurityException {
+        int length = 0;
+        for (int i = 0; i < rounds; i++) {
+            // 和 XORUtils 一样每轮从明文开始
+            System.arraycopy(payload, 0, buffer, encryptor.getHeaderLength(), payload.length);
+            length = encryptor.encrypt(buffer, payload.length);
+        }
+        return length;
+    }
+
+    private static void xor(byte[] payload, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            XORUtils.encrypt(payload, i);
+        }
+    }
+
+    private static int encode(PayloadEncoder encoder, byte[] payload, int rounds) throws GeneralSecurityException {
+        int length = 0;
+        for (int i = 0; i < rounds; i++) {
+            length = encoder.encode(payload);
+        }
+        return length;
+    }
+
+    private static String throughput(int size, long nanos) {
+        return String.format("%.1f MB/s", (double) size * ROUNDS / (1024 * 1024) / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import com.google.common.truth.Truth;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+@RunWith(PowerMockRunner.class)
+public class CircuitBreakerTest {
+
+    @Test
+    public void halfOpenAllowsOneTrialAndBacksOff() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("host", 2, 1000L, 3000L);
+        circuitBreaker.onFailure(0);
+        Truth.assertThat(circuitBreaker.allowRequest(0)).isTrue();
+        circuitBreaker.onFailure(0);
+        Truth.assertThat(circuitBreaker.allowRequest(999)).isFalse();
+        Truth.assertThat(circuitBreaker.getRemainingOpenMillis(400)).isEqualTo(600L);
+
+        Truth.assertThat(circuitBreaker.allowRequest(1000)).isTrue();
+        Truth.assertThat(circuitBreaker.allowRequest(1000)).isFalse();
+        // 试探失败, 打开时间加倍
+        circuitBreaker.onFailure(1000);
+        Truth.assertThat(circuitBreaker.getRemainingOpenMillis(1000)).isEqualTo(2000L);
+        Truth.assertThat(circuitBreaker.allowRequest(3000)).isTrue();
+        circuitBreaker.onFailure(3000);
+        Truth.assertThat(circuitBreaker.getRemainingOpenMillis(3000)).isEqualTo(3000L);
+
+        Truth.assertThat(circuitBreaker.allowRequest(6000)).isTrue();
+        circuitBreaker.onSuccess();
+        Truth.assertThat(circuitBreaker.allowRequest(6000)).isTrue();
+        Truth.assertThat(circuitBreaker.allowRequest(6000)).isTrue();
+        // 关闭后重新计数, 打开时间恢复
+        circuitBreaker.onFailure(6000);
+        circuitBreaker.onFailure(6000);
+        Truth.assertThat(circuitBreaker.getRemainingOpenMillis(6000)).isEqualTo(1000L);
+    }
+
+    @Test
+    public void canceledTrialCanBeRetried() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("host", 1, 1000L, 1000L);
+        circuitBreaker.onFailure(0);
+        Truth.assertThat(circuitBreaker.allowRequest(1000)).isTrue();
+        circuitBreaker.onCanceled();
+        Truth.assertThat(circuitBreaker.allowRequest(1000)).isTrue();
+    }
+}
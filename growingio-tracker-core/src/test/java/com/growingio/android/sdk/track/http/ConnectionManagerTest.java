@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import com.google.common.truth.Truth;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.net.ssl.*", "javax.security.*"})
+public class ConnectionManagerTest {
+    private MockWebServer mServer;
+    private ConnectionManager mConnectionManager;
+    private final LinkedBlockingQueue<ConnectionTiming> mTimings = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+        mConnectionManager = new ConnectionManager(mServer.url("/").toString(), 15000L, true, new OkHttpClient());
+        mConnectionManager.setOnTimingListener(new ConnectionManager.OnTimingListener() {
+            @Override
+            public void onTiming(ConnectionTiming timing) {
+                mTimings.add(timing);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+        mConnectionManager.getClient().connectionPool().evictAll();
+    }
+
+    private Response post() throws IOException {
+        Request request = new Request.Builder()
+                .url(mServer.url("/v3/projects/test/collect"))
+                .post(RequestBody.create(null, "[]"))
+                .build();
+        return mConnectionManager.getClient().newCall(request).execute();
+    }
+
+    @Test
+    public void keepAliveFollowsUploadInterval() {
+        Truth.assertThat(ConnectionManager.keepAliveMillis(0)).isEqualTo(ConnectionManager.MIN_KEEP_ALIVE_MILLIS);
+        Truth.assertThat(ConnectionManager.keepAliveMillis(45000L)).isEqualTo(90000L);
+        Truth.assertThat(ConnectionManager.keepAliveMillis(60 * 60 * 1000L)).isEqualTo(ConnectionManager.MAX_KEEP_ALIVE_MILLIS);
+        Truth.assertThat(mConnectionManager.getKeepAliveMillis()).isEqualTo(ConnectionManager.MIN_KEEP_ALIVE_MILLIS);
+    }
+
+    @Test
+    public void warmUpThenReuse() throws Exception {
+        mServer.enqueue(new MockResponse());
+        mServer.enqueue(new MockResponse().setBody("ok"));
+
+        Truth.assertThat(mConnectionManager.warmUp()).isTrue();
+        RecordedRequest warmUp = mServer.takeRequest(5, TimeUnit.SECONDS);
+        Truth.assertThat(warmUp.getMethod()).isEqualTo("HEAD");
+        Truth.assertThat(warmUp.getPath()).isEqualTo("/");
+        ConnectionTiming coldTiming = mTimings.poll(5, TimeUnit.SECONDS);
+        Truth.assertThat(coldTiming.isConnectionReused()).isFalse();
+        Truth.assertThat(coldTiming.getConnectMillis()).isAtLeast(0L);
+        Truth.assertThat(coldTiming.getProtocol()).isEqualTo(Protocol.HTTP_1_1);
+
+        // 已经有空闲连接, 不需要再预连接
+        Truth.assertThat(mConnectionManager.getIdleConnectionCount()).isEqualTo(1);
+        Truth.assertThat(mConnectionManager.warmUp()).isFalse();
+
+        try (Response response = post()) {
+            Truth.assertThat(response.body().string()).isEqualTo("ok");
+        }
+        ConnectionTiming warmTiming = mTimings.poll(5, TimeUnit.SECONDS);
+        Truth.assertThat(warmTiming.isConnectionReused()).isTrue();
+        Truth.assertThat(warmTiming.getConnectMillis()).isEqualTo(-1L);
+        Truth.assertThat(warmTiming.getTtfbMillis()).isAtLeast(0L);
+        Truth.assertThat(warmTiming.isSuccessful()).isTrue();
+        Truth.assertThat(mConnectionManager.getLastTiming()).isSameInstanceAs(warmTiming);
+        Truth.assertThat(mServer.takeRequest().getSequenceNumber()).isEqualTo(1);
+    }
+
+    @Test
+    public void failedCallIsReported() throws Exception {
+        mServer.shutdown();
+        try {
+            post();
+        } catch (IOException ignored) {
+        }
+        ConnectionTiming timing = mTimings.poll(5, TimeUnit.SECONDS);
+        Truth.assertThat(timing.isSuccessful()).isFalse();
+        Truth.assertThat(timing.getProtocol()).isNull();
+    }
+
+    @Test
+    public void http2CanBeDisabled() {
+        ConnectionManager http1Only = new ConnectionManager("https://api.growingio.com", 15000L, false, new OkHttpClient());
+        Truth.assertThat(http1Only.getClient().protocols()).containsExactly(Protocol.HTTP_1_1);
+        Truth.assertThat(mConnectionManager.getClient().protocols()).contains(Protocol.HTTP_2);
+    }
+
+    @Test
+    public void invalidHostNeverWarmsUp() {
+        Truth.assertThat(new ConnectionManager(null, 15000L, true, new OkHttpClient()).warmUp()).isFalse();
+        Truth.assertThat(new ConnectionManager("not a url", 15000L, true, new OkHttpClient()).warmUp()).isFalse();
+    }
+}
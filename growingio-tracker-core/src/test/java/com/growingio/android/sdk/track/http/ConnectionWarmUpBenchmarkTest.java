@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import com.google.common.truth.Truth;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * 本地 TLS MockWebServer 上对比冷连接(每批数据前清空连接池)和预连接后每批数据的耗时,
+ * 分别使用 HTTP/1.1 和 HTTP/2。
+ * <p>
+ * 证书 http/localhost.p12 是 localhost 的自签名证书, 重新生成:
+ * keytool -genkeypair -alias localhost -keyalg EC -groupname secp256r1 -dname CN=localhost
+ * -ext SAN=dns:localhost,ip:127.0.0.1 -validity 36500 -storetype PKCS12 -keystore localhost.p12 -storepass growingio
+ */
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.net.ssl.*", "javax.security.*", "javax.crypto.*", "sun.security.*"})
+public class ConnectionWarmUpBenchmarkTest {
+    private static final char[] PASSWORD = "growingio".toCharArray();
+    private static final int BATCHES = 30;
+    private static final String BODY = "[{\"eventType\":\"VISIT\",\"timestamp\":1600000000000}]";
+
+    private MockWebServer mServer;
+    private SSLContext mSslContext;
+    private X509TrustManager mTrustManager;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("http/localhost.p12")) {
+            keyStore.load(inputStream, PASSWORD);
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, PASSWORD);
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keyStore);
+        mTrustManager = (X509TrustManager) trustManagerFactory.getTrustManagers()[0];
+        mSslContext = SSLContext.getInstance("TLS");
+        mSslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+
+        mServer = new MockWebServer();
+        mServer.useHttps(mSslContext.getSocketFactory(), false);
+        mServer.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void http1WarmVersusCold() throws Exception {
+        compare(false);
+    }
+
+    @Test
+    public void http2WarmVersusCold() throws Exception {
+        compare(true);
+    }
+
+    private void compare(boolean http2Enabled) throws Exception {
+        OkHttpClient baseClient = new OkHttpClient.Builder()
+                .sslSocketFactory(mSslContext.getSocketFactory(), mTrustManager)
+                .build();
+        ConnectionManager connectionManager = new ConnectionManager(mServer.url("/").toString(), 15000L, http2Enabled, baseClient);
+        final LinkedBlockingQueue<ConnectionTiming> timings = new LinkedBlockingQueue<>();
+        connectionManager.setOnTimingListener(new ConnectionManager.OnTimingListener() {
+            @Override
+            public void onTiming(ConnectionTiming timing) {
+                timings.add(timing);
+            }
+        });
+
+        // 预热 JIT 和 TLS 实现
+        runBatches(connectionManager, timings, BATCHES, true);
+
+        long coldNanos = runBatches(connectionManager, timings, BATCHES, true);
+        long coldTls = 0;
+        for (ConnectionTiming timing : drain(timings, BATCHES)) {
+            Truth.assertThat(timing.isConnectionReused()).isFalse();
+            coldTls += timing.getTlsMillis();
+        }
+
+        connectionManager.getClient().connectionPool().evictAll();
+        mServer.enqueue(new MockResponse());
+        Truth.assertThat(connectionManager.warmUp()).isTrue();
+        ConnectionTiming warmUpTiming = timings.poll(5, TimeUnit.SECONDS);
+        Truth.assertThat(warmUpTiming.getTlsMillis()).isAtLeast(0L);
+        Protocol protocol = warmUpTiming.getProtocol();
+        Truth.assertThat(protocol).isEqualTo(http2Enabled ? Protocol.HTTP_2 : Protocol.HTTP_1_1);
+
+        long warmNanos = runBatches(connectionManager, timings, BATCHES, false);
+        for (ConnectionTiming timing : drain(timings, BATCHES)) {
+            Truth.assertThat(timing.isConnectionReused()).isTrue();
+        }
+
+        System.out.println(String.format("%s cold: %.2f ms/batch (tls %.2f ms)", protocol,
+                coldNanos / 1e6 / BATCHES, (double) coldTls / BATCHES));
+        System.out.println(String.format("%s warm: %.2f ms/batch", protocol, warmNanos / 1e6 / BATCHES));
+        connectionManager.getClient().connectionPool().evictAll();
+    }
+
+    private long runBatches(ConnectionManager connectionManager, LinkedBlockingQueue<ConnectionTiming> timings,
+                            int batches, boolean cold) throws Exception {
+        timings.clear();
+        long total = 0;
+        for (int i = 0; i < batches; i++) {
+            if (cold) {
+                connectionManager.getClient().connectionPool().evictAll();
+            }
+            mServer.enqueue(new MockResponse().setBody("ok"));
+            Request request = new Request.Builder()
+                    .url(mServer.url("/v3/projects/test/collect?stm=" + i))
+                    .post(RequestBody.create(JsonPostRequestBuilder.CONTENT_TYPE, BODY))
+                    .build();
+            long start = System.nanoTime();
+            try (Response response = connectionManager.getClient().newCall(request).execute()) {
+                Truth.assertThat(response.body().string()).isEqualTo("ok");
+            }
+            total += System.nanoTime() - start;
+        }
+        return total;
+    }
+
+    private static ConnectionTiming[] drain(LinkedBlockingQueue<ConnectionTiming> timings, int count) throws InterruptedException {
+        ConnectionTiming[] result = new ConnectionTiming[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = timings.poll(5, TimeUnit.SECONDS);
+        }
+        return result;
+    }
+}
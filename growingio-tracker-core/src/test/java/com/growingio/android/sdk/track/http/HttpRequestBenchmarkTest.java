@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import com.google.common.truth.Truth;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * 对比每次用 builder 构建 collect 请求和使用 RequestTemplate 的耗时,
+ * 以及响应解析时反射查找 fromJson 和使用 ResponseDecoders 的耗时
+ */
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.net.ssl.*", "javax.security.*"})
+public class HttpRequestBenchmarkTest {
+    private static final int ROUNDS = 50000;
+    private static final int WARM_UP_ROUNDS = 10000;
+    private static final int RESPONSES = 200;
+    private static final String BODY = "[{\"eventType\":\"VISIT\",\"timestamp\":1600000000000}]";
+
+    private MockWebServer mServer;
+    private String mHost;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+        mHost = mServer.url("/").toString();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void requestConstruction() {
+        RequestTemplate template = HttpRequest.postJson(mHost)
+                .addPath("v3").addPath("projects").addPath("test").addPath("collect")
+                .buildTemplate();
+
+        buildWithBuilder(WARM_UP_ROUNDS);
+        buildWithTemplate(template, WARM_UP_ROUNDS);
+        long start = System.nanoTime();
+        int builderCount = buildWithBuilder(ROUNDS);
+        long builderNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        int templateCount = buildWithTemplate(template, ROUNDS);
+        long templateNanos = System.nanoTime() - start;
+
+        Truth.assertThat(templateCount).isEqualTo(builderCount);
+        System.out.println(String.format("builder:  %d ns/request", builderNanos / ROUNDS));
+        System.out.println(String.format("template: %d ns/request", templateNanos / ROUNDS));
+    }
+
+    private int buildWithBuilder(int rounds) {
+        int count = 0;
+        for (int i = 0; i < rounds; i++) {
+            HttpRequest request = HttpRequest.postJson(mHost)
+                    .addPath("v3").addPath("projects").addPath("test").addPath("collect")
+                    .addParam("stm", String.valueOf(i))
+                    .setBody(BODY)
+                    .build();
+            count += request.getRequest().url().querySize();
+        }
+        return count;
+    }
+
+    private static int buildWithTemplate(RequestTemplate template, int rounds) {
+        int count = 0;
+        for (int i = 0; i < rounds; i++) {
+            HttpRequest request = template.postJson("stm", String.valueOf(i), BODY);
+            count += request.getRequest().url().querySize();
+        }
+        return count;
+    }
+
+    @Test
+    public void responseDispatch() throws Exception {
+        RequestTemplate template = HttpRequest.postJson(mHost).addPath("config").buildTemplate();
+        List<String> bodies = new ArrayList<>(RESPONSES);
+        for (int i = 0; i < RESPONSES; i++) {
+            mServer.enqueue(new MockResponse().setBody("{\"id\":" + i + "}"));
+            try (Response response = template.postJson(null, null, "{}").execute()) {
+                bodies.add(response.body().string());
+            }
+        }
+
+        DataCallback<Config> callback = new ConfigCallback();
+        dispatchWithReflection(callback, bodies, WARM_UP_ROUNDS / RESPONSES);
+        dispatchWithDecoder(bodies, WARM_UP_ROUNDS / RESPONSES);
+        int rounds = ROUNDS / RESPONSES;
+        long start = System.nanoTime();
+        long reflectionSum = dispatchWithReflection(callback, bodies, rounds);
+        long reflectionNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        long decoderSum = dispatchWithDecoder(bodies, rounds);
+        long decoderNanos = System.nanoTime() - start;
+
+        Truth.assertThat(decoderSum).isEqualTo(reflectionSum);
+        System.out.println(String.format("reflection: %d ns/response", reflectionNanos / (rounds * RESPONSES)));
+        System.out.println(String.format("decoder:    %d ns/response", decoderNanos / (rounds * RESPONSES)));
+    }
+
+    /**
+     * 之前 HttpRequest 每个响应的解析方式
+     */
+    private static long dispatchWithReflection(DataCallback<Config> callback, List<String> bodies, int rounds) throws Exception {
+        long sum = 0;
+        for (int i = 0; i < rounds; i++) {
+            for (String body : bodies) {
+                Type[] interfacesTypes = callback.getClass().getGenericInterfaces();
+                Class<?> clazz = (Class<?>) ((ParameterizedType) interfacesTypes[0]).getActualTypeArguments()[0];
+                Method method = clazz.getMethod("fromJson", String.class);
+                sum += ((Config) method.invoke(null, body)).mId;
+            }
+        }
+        return sum;
+    }
+
+    private static long dispatchWithDecoder(List<String> bodies, int rounds) throws Exception {
+        ResponseDecoders.register(Config.class, new ResponseDecoder<Config>() {
+            @Override
+            public Config decode(String body) {
+                return Config.fromJson(body);
+            }
+        });
+        long sum = 0;
+        for (int i = 0; i < rounds; i++) {
+            for (String body : bodies) {
+                sum += ResponseDecoders.get(Config.class).decode(body).mId;
+            }
+        }
+        return sum;
+    }
+
+    public static class Config {
+        final int mId;
+
+        Config(int id) {
+            mId = id;
+        }
+
+        public static Config fromJson(String json) {
+            return new Config(Integer.parseInt(json.substring(json.indexOf(':') + 1, json.length() - 1)));
+        }
+    }
+
+    private static class ConfigCallback implements DataCallback<Config> {
+        @Override
+        public void onSuccess(Config result, Map<String, List<String>> headers) {
+        }
+
+        @Override
+        public void onFailed(int errorCode) {
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import com.google.common.truth.Truth;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.net.ssl.*", "javax.security.*"})
+public class RequestTemplateTest {
+    private MockWebServer mServer;
+    private String mHost;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+        mHost = mServer.url("/").toString();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void sameRequestAsBuilder() {
+        HttpRequest built = HttpRequest.postJson(mHost)
+                .addPath("v3").addPath("projects").addPath("test").addPath("collect")
+                .addParam("stm", "1000")
+                .addHeader("X-Test", "value")
+                .setRetryTimes(2)
+                .setBody("[]")
+                .build();
+        RequestTemplate template = HttpRequest.postJson(mHost)
+                .addPath("v3").addPath("projects").addPath("test").addPath("collect")
+                .addHeader("X-Test", "value")
+                .setRetryTimes(2)
+                .buildTemplate();
+        HttpRequest fromTemplate = template.postJson("stm", "1000", "[]");
+
+        Truth.assertThat(fromTemplate.getRequest().url()).isEqualTo(built.getRequest().url());
+        Truth.assertThat(fromTemplate.getRequest().headers()).isEqualTo(built.getRequest().headers());
+        Truth.assertThat(fromTemplate.getRequest().method()).isEqualTo("POST");
+        Truth.assertThat(fromTemplate.getRequest().body().contentType())
+                .isEqualTo(built.getRequest().body().contentType());
+        Truth.assertThat(fromTemplate.getRequest().tag(RequestExtra.class).getRetryTimes()).isEqualTo(2);
+        // 模板本身不会被修改
+        Truth.assertThat(template.getUrl().querySize()).isEqualTo(0);
+    }
+
+    @Test
+    public void postToServer() throws Exception {
+        RequestTemplate template = HttpRequest.postJson(mHost)
+                .addPath("v3").addPath("projects").addPath("test").addPath("collect")
+                .buildTemplate();
+        mServer.enqueue(new MockResponse().setBody("ok"));
+        mServer.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = template.postJson("stm", "1", "[{\"t\":\"VISIT\"}]").execute()) {
+            Truth.assertThat(response.isSuccessful()).isTrue();
+        }
+        try (Response response = template.postJson("stm", "2", "[]").execute()) {
+            Truth.assertThat(response.isSuccessful()).isTrue();
+        }
+
+        RecordedRequest first = mServer.takeRequest();
+        Truth.assertThat(first.getPath()).isEqualTo("/v3/projects/test/collect?stm=1");
+        Truth.assertThat(first.getHeader("Content-Type")).startsWith("application/json");
+        Truth.assertThat(first.getBody().readUtf8()).isEqualTo("[{\"t\":\"VISIT\"}]");
+        RecordedRequest second = mServer.takeRequest();
+        Truth.assertThat(second.getPath()).isEqualTo("/v3/projects/test/collect?stm=2");
+        Truth.assertThat(second.getBody().readUtf8()).isEqualTo("[]");
+    }
+
+    @Test
+    public void registeredDecoders() throws Exception {
+        Truth.assertThat(ResponseDecoders.get(String.class).decode("body")).isEqualTo("body");
+
+        ResponseDecoders.register(Integer.class, new ResponseDecoder<Integer>() {
+            @Override
+            public Integer decode(String body) {
+                return Integer.parseInt(body);
+            }
+        });
+        Truth.assertThat(ResponseDecoders.get(Integer.class).decode("42")).isEqualTo(42);
+
+        ResponseDecoder<Echo> echoDecoder = ResponseDecoders.get(Echo.class);
+        Truth.assertThat(echoDecoder.decode("hi").mValue).isEqualTo("hi");
+        Truth.assertThat(ResponseDecoders.get(Echo.class)).isSameInstanceAs(echoDecoder);
+    }
+
+    @Test
+    public void responseTypeFromCallback() {
+        Truth.assertThat(HttpRequest.getResponseType(new EchoCallback())).isEqualTo(Echo.class);
+        Truth.assertThat(HttpRequest.getResponseType(new RunnableEchoCallback())).isEqualTo(Echo.class);
+        Truth.assertThat(HttpRequest.getResponseType(new RawCallback())).isNull();
+        Truth.assertThat(HttpRequest.getResponseType(null)).isNull();
+    }
+
+    private static class EchoCallback implements DataCallback<Echo> {
+        @Override
+        public void onSuccess(Echo result, Map<String, List<String>> headers) {
+        }
+
+        @Override
+        public void onFailed(int errorCode) {
+        }
+    }
+
+    private static class RunnableEchoCallback implements Runnable, DataCallback<Echo> {
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public void onSuccess(Echo result, Map<String, List<String>> headers) {
+        }
+
+        @Override
+        public void onFailed(int errorCode) {
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class RawCallback implements DataCallback {
+        @Override
+        public void onSuccess(Object result, Map headers) {
+        }
+
+        @Override
+        public void onFailed(int errorCode) {
+        }
+    }
+
+    public static class Echo {
+        final String mValue;
+
+        Echo(String value) {
+            mValue = value;
+        }
+
+        public static Echo fromJson(String json) {
+            return new Echo(json);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.http;
+
+import com.google.common.truth.Truth;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.net.ssl.*", "javax.security.*"})
+public class RetryInterceptorTest {
+    private MockWebServer mServer;
+    private FakeClockRetryInterceptor mInterceptor;
+    private OkHttpClient mClient;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+        mInterceptor = new FakeClockRetryInterceptor(new RetryPolicy(1000L, 8000L, 30000L));
+        mClient = new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .addInterceptor(mInterceptor)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+        mClient.dispatcher().executorService().shutdown();
+    }
+
+    private Response execute(int retryTimes) throws IOException {
+        Request request = new Request.Builder()
+                .url(mServer.url("/v3/projects/test/collect"))
+                .tag(RequestExtra.class, new RequestExtra(retryTimes, false))
+                .build();
+        return mClient.newCall(request).execute();
+    }
+
+    @Test
+    public void retryServerErrorWithBackoff() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(503).setBody("busy"));
+        mServer.enqueue(new MockResponse().setResponseCode(500).setBody("error"));
+        mServer.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = execute(3)) {
+            Truth.assertThat(response.code()).isEqualTo(200);
+            Truth.assertThat(response.body().string()).isEqualTo("ok");
+        }
+        Truth.assertThat(mServer.getRequestCount()).isEqualTo(3);
+        Truth.assertThat(mInterceptor.mSleeps).hasSize(2);
+        Truth.assertThat(mInterceptor.mSleeps.get(0)).isAtMost(1000L);
+        Truth.assertThat(mInterceptor.mSleeps.get(1)).isAtMost(2000L);
+        // 上一次的响应关闭后连接可以复用
+        Truth.assertThat(mServer.takeRequest().getSequenceNumber()).isEqualTo(0);
+        Truth.assertThat(mServer.takeRequest().getSequenceNumber()).isEqualTo(1);
+        Truth.assertThat(mServer.takeRequest().getSequenceNumber()).isEqualTo(2);
+    }
+
+    @Test
+    public void clientErrorIsNotRetried() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(400));
+        mServer.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = execute(3)) {
+            Truth.assertThat(response.code()).isEqualTo(400);
+        }
+        Truth.assertThat(mServer.getRequestCount()).isEqualTo(1);
+        Truth.assertThat(mInterceptor.mSleeps).isEmpty();
+    }
+
+    @Test
+    public void retryAfterIsHonoured() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "2"));
+        mServer.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = execute(1)) {
+            Truth.assertThat(response.code()).isEqualTo(200);
+        }
+        Truth.assertThat(mInterceptor.mSleeps).containsExactly(2000L);
+    }
+
+    @Test
+    public void tooLongRetryAfterGivesUp() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "3600"));
+
+        try (Response response = execute(3)) {
+            Truth.assertThat(response.code()).isEqualTo(503);
+        }
+        Truth.assertThat(mServer.getRequestCount()).isEqualTo(1);
+        Truth.assertThat(mInterceptor.mSleeps).isEmpty();
+    }
+
+    @Test
+    public void retryNetworkError() throws Exception {
+        mServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        mServer.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = execute(1)) {
+            Truth.assertThat(response.code()).isEqualTo(200);
+        }
+        Truth.assertThat(mInterceptor.mSleeps).hasSize(1);
+    }
+
+    @Test
+    public void retryTimesIsLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mServer.enqueue(new MockResponse().setResponseCode(502));
+        }
+
+        try (Response response = execute(2)) {
+            Truth.assertThat(response.code()).isEqualTo(502);
+        }
+        Truth.assertThat(mServer.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void circuitOpensAfterRepeatedFailures() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mServer.enqueue(new MockResponse().setResponseCode(503));
+        }
+        for (int i = 0; i < 5; i++) {
+            execute(0).close();
+        }
+        String host = mServer.url("/").host();
+        Truth.assertThat(mInterceptor.getCircuitBreaker(host).getRemainingOpenMillis(mInterceptor.mNow)).isGreaterThan(0L);
+
+        try {
+            execute(0);
+            Truth.assertWithMessage("circuit breaker should reject the request").fail();
+        } catch (IOException expected) {
+            Truth.assertThat(expected.getMessage()).contains("Circuit breaker");
+        }
+        Truth.assertThat(mServer.getRequestCount()).isEqualTo(5);
+
+        // 打开时间结束后放行一个试探请求, 成功后关闭
+        mInterceptor.mNow += 30 * 1000L;
+        mServer.enqueue(new MockResponse().setBody("ok"));
+        try (Response response = execute(0)) {
+            Truth.assertThat(response.code()).isEqualTo(200);
+        }
+        Truth.assertThat(mInterceptor.getCircuitBreaker(host).getRemainingOpenMillis(mInterceptor.mNow)).isEqualTo(0L);
+    }
+
+    @Test
+    public void runtimeExceptionInTrialReleasesIt() throws Exception {
+        final boolean[] crash = {false};
+        OkHttpClient client = mClient.newBuilder()
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        if (crash[0]) {
+                            throw new IllegalStateException("crash");
+                        }
+                        return chain.proceed(chain.request());
+                    }
+                })
+                .build();
+        for (int i = 0; i < 5; i++) {
+            mServer.enqueue(new MockResponse().setResponseCode(503));
+            client.newCall(new Request.Builder().url(mServer.url("/")).build()).execute().close();
+        }
+
+        mInterceptor.mNow += 30 * 1000L;
+        crash[0] = true;
+        try {
+            client.newCall(new Request.Builder().url(mServer.url("/")).build()).execute();
+            Truth.assertWithMessage("trial request should crash").fail();
+        } catch (IllegalStateException expected) {
+            Truth.assertThat(expected.getMessage()).isEqualTo("crash");
+        }
+
+        // 试探请求异常结束后, 下一个请求仍然可以试探
+        crash[0] = false;
+        mServer.enqueue(new MockResponse().setBody("ok"));
+        try (Response response = client.newCall(new Request.Builder().url(mServer.url("/")).build()).execute()) {
+            Truth.assertThat(response.code()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    public void backoffIsFullJitterWithCap() {
+        RetryPolicy retryPolicy = new RetryPolicy(100L, 1000L, 30000L);
+        Random random = new Random(0);
+        long max = 0;
+        for (int i = 0; i < 1000; i++) {
+            long delay = retryPolicy.getBackoffMillis(2, random);
+            Truth.assertThat(delay).isAtLeast(0L);
+            Truth.assertThat(delay).isAtMost(400L);
+            max = Math.max(max, delay);
+        }
+        Truth.assertThat(max).isGreaterThan(300L);
+        Truth.assertThat(retryPolicy.getBackoffMillis(40, random)).isAtMost(1000L);
+
+        Truth.assertThat(retryPolicy.isRetryable(503)).isTrue();
+        Truth.assertThat(retryPolicy.isRetryable(429)).isTrue();
+        Truth.assertThat(retryPolicy.isRetryable(501)).isFalse();
+        Truth.assertThat(retryPolicy.isRetryable(404)).isFalse();
+    }
+
+    private static final class FakeClockRetryInterceptor extends RetryInterceptor {
+        private final List<Long> mSleeps = new ArrayList<>();
+        private long mNow = 1000L;
+
+        FakeClockRetryInterceptor(RetryPolicy retryPolicy) {
+            super(retryPolicy, new Random(0));
+        }
+
+        @Override
+        long elapsedRealtime() {
+            return mNow;
+        }
+
+        @Override
+        void sleep(long millis) {
+            mSleeps.add(millis);
+            mNow += millis;
+        }
+    }
+}
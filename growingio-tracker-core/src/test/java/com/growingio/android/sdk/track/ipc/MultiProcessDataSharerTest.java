@@ -20,6 +20,7 @@ import android.content.Context;
 
 import com.google.common.truth.Truth;
 
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -54,4 +55,47 @@ public class MultiProcessDataSharerTest {
         multiProcessDataSharer.putLong("long", 1);
         Truth.assertThat(multiProcessDataSharer.getLong("long", 0) == 1).isTrue();
     }
+
+    @Test
+    public void testCompareAndSetLong() throws IOException {
+        Context context = PowerMockito.mock(Context.class);
+        File file = mTempDir.newFile("cas.txt");
+        if (file.exists()) file.delete();
+        PowerMockito.when(context.getFileStreamPath(Mockito.anyString())).thenReturn(file);
+        MultiProcessDataSharer multiProcessDataSharer = new MultiProcessDataSharer(context, "cas", 16);
+        Truth.assertThat(multiProcessDataSharer.compareAndSetLong("counter", 1, 2)).isFalse();
+        Truth.assertThat(multiProcessDataSharer.compareAndSetLong("counter", 0, 5)).isTrue();
+        Truth.assertThat(multiProcessDataSharer.getLong("counter", 0)).isEqualTo(5);
+        Truth.assertThat(multiProcessDataSharer.compareAndSetLong("counter", 0, 6)).isFalse();
+        Truth.assertThat(multiProcessDataSharer.compareAndSetLong("counter", 5, 6)).isTrue();
+        Truth.assertThat(multiProcessDataSharer.getLong("counter", 0)).isEqualTo(6);
+        multiProcessDataSharer.putString("other", "value");
+        Truth.assertThat(multiProcessDataSharer.compareAndSetLong("second", 0, 7)).isTrue();
+        Truth.assertThat(multiProcessDataSharer.getString("other", "")).isEqualTo("value");
+        Truth.assertThat(multiProcessDataSharer.getLong("second", 0)).isEqualTo(7);
+        Truth.assertThat(multiProcessDataSharer.getLong("counter", 0)).isEqualTo(6);
+    }
+
+    @Test
+    public void testNewKeyWhenFull() throws IOException {
+        Context context = PowerMockito.mock(Context.class);
+        File file = mTempDir.newFile("full.txt");
+        if (file.exists()) file.delete();
+        PowerMockito.when(context.getFileStreamPath(Mockito.anyString())).thenReturn(file);
+        MultiProcessDataSharer multiProcessDataSharer = new MultiProcessDataSharer(context, "full", 1);
+        Truth.assertThat(multiProcessDataSharer.compareAndSetLong("first", 0, 1)).isTrue();
+        try {
+            multiProcessDataSharer.compareAndSetLong("second", 0, 2);
+            Assert.fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            multiProcessDataSharer.putLong("third", 3);
+            Assert.fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+        // 已有的 key 仍然可以更新
+        Truth.assertThat(multiProcessDataSharer.compareAndSetLong("first", 1, 4)).isTrue();
+        Truth.assertThat(multiProcessDataSharer.getLong("first", 0)).isEqualTo(4);
+    }
 }
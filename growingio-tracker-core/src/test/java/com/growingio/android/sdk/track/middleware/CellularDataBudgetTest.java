@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.middleware;
+
+import android.content.Context;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.ipc.MultiProcessDataSharer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.TimeZone;
+
+@RunWith(PowerMockRunner.class)
+public class CellularDataBudgetTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final TimeZone SHANGHAI = TimeZone.getTimeZone("Asia/Shanghai");
+    private static final TimeZone LONDON = TimeZone.getTimeZone("Europe/London");
+    /**
+     * 2020-06-01 23:00 Asia/Shanghai
+     */
+    private static final long JUNE_1_23H_SHANGHAI = 1591023600000L;
+
+    @Rule
+    public TemporaryFolder mTempDir = new TemporaryFolder();
+
+    private FakeClock mClock;
+    private CellularDataBudget mBudget;
+
+    @Before
+    public void setUp() throws IOException {
+        Context context = PowerMockito.mock(Context.class);
+        File file = mTempDir.newFile("budget.shared");
+        file.delete();
+        PowerMockito.when(context.getFileStreamPath(Mockito.anyString())).thenReturn(file);
+        mClock = new FakeClock(JUNE_1_23H_SHANGHAI, SHANGHAI);
+        mBudget = new CellularDataBudget(new MultiProcessDataSharer(context, "budget", 8), mClock);
+        mBudget.setLimit(GEvent.SEND_POLICY_MOBILE_DATA, 1000L);
+    }
+
+    @Test
+    public void policiesShareOneTotal() {
+        Truth.assertThat(mBudget.add(400L)).isEqualTo(400L);
+        Truth.assertThat(mBudget.add(500L)).isEqualTo(900L);
+        Truth.assertThat(mBudget.isExhausted(GEvent.SEND_POLICY_MOBILE_DATA)).isFalse();
+
+        // INSTANT 不受限制, 但是计入总量
+        mBudget.add(100L);
+        Truth.assertThat(mBudget.getUsedBytes()).isEqualTo(1000L);
+        Truth.assertThat(mBudget.isExhausted(GEvent.SEND_POLICY_MOBILE_DATA)).isTrue();
+        Truth.assertThat(mBudget.isExhausted(GEvent.SEND_POLICY_INSTANT)).isFalse();
+
+        mBudget.setLimit(GEvent.SEND_POLICY_INSTANT, 800L);
+        Truth.assertThat(mBudget.isExhausted(GEvent.SEND_POLICY_INSTANT)).isTrue();
+        mBudget.setLimit(GEvent.SEND_POLICY_INSTANT, -1L);
+        Truth.assertThat(mBudget.isExhausted(GEvent.SEND_POLICY_INSTANT)).isFalse();
+    }
+
+    @Test
+    public void importsLegacyUsageOfToday() {
+        Truth.assertThat(CellularDataBudget.parseLegacyDay("20200601")).isEqualTo(mBudget.today());
+        Truth.assertThat(CellularDataBudget.parseLegacyDay("bad")).isEqualTo(-1L);
+
+        // 不是今天的记录不导入
+        mBudget.importLegacyUsage("20200531", 700L);
+        Truth.assertThat(mBudget.getUsedBytes()).isEqualTo(0L);
+
+        mBudget.importLegacyUsage("20200601", 700L);
+        Truth.assertThat(mBudget.getUsedBytes()).isEqualTo(700L);
+        // 其他进程重复导入只计一次
+        mBudget.importLegacyUsage("20200601", 700L);
+        Truth.assertThat(mBudget.add(300L)).isEqualTo(1000L);
+        Truth.assertThat(mBudget.isExhausted(GEvent.SEND_POLICY_MOBILE_DATA)).isTrue();
+    }
+
+    @Test
+    public void resetsAtLocalMidnight() {
+        mBudget.add(1000L);
+        mClock.mMillis += HOUR - 1;
+        Truth.assertThat(mBudget.isExhausted(GEvent.SEND_POLICY_MOBILE_DATA)).isTrue();
+
+        mClock.mMillis += 1;
+        Truth.assertThat(mBudget.getUsedBytes()).isEqualTo(0L);
+        Truth.assertThat(mBudget.isExhausted(GEvent.SEND_POLICY_MOBILE_DATA)).isFalse();
+        Truth.assertThat(mBudget.add(10L)).isEqualTo(10L);
+    }
+
+    @Test
+    public void timeZoneChanges() {
+        // 00:30 上海时间已经是 6 月 2 日
+        mClock.mMillis += HOUR + HOUR / 2;
+        mBudget.add(300L);
+
+        // 切换到伦敦时区后还是 6 月 1 日, 继续记在 6 月 2 日上, 不会重置
+        mClock.mTimeZone = LONDON;
+        Truth.assertThat(mBudget.getUsedBytes()).isEqualTo(300L);
+        Truth.assertThat(mBudget.add(200L)).isEqualTo(500L);
+
+        // 伦敦时间到了 6 月 2 日, 仍然是同一天
+        mClock.mMillis += 8 * HOUR;
+        Truth.assertThat(mBudget.getUsedBytes()).isEqualTo(500L);
+
+        // 伦敦时间 6 月 3 日
+        mClock.mMillis += 24 * HOUR;
+        Truth.assertThat(mBudget.getUsedBytes()).isEqualTo(0L);
+    }
+
+    @Test
+    public void clockMovedFarBackResets() {
+        mBudget.add(1000L);
+        mClock.mMillis -= 3 * 24 * HOUR;
+        Truth.assertThat(mBudget.isExhausted(GEvent.SEND_POLICY_MOBILE_DATA)).isFalse();
+        Truth.assertThat(mBudget.add(1L)).isEqualTo(1L);
+    }
+
+    @Test
+    public void concurrentAdds() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 250; j++) {
+                        mBudget.add(3L);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Truth.assertThat(mBudget.getUsedBytes()).isEqualTo(3000L);
+    }
+
+    @Test
+    public void packing() {
+        long packed = CellularDataBudget.pack(18414L, 123456789L);
+        Truth.assertThat(CellularDataBudget.dayOf(packed)).isEqualTo(18414L);
+        Truth.assertThat(CellularDataBudget.bytesOf(packed)).isEqualTo(123456789L);
+        Truth.assertThat(mBudget.today()).isEqualTo(18414L);
+    }
+
+    private static final class FakeClock implements CellularDataBudget.Clock {
+        long mMillis;
+        TimeZone mTimeZone;
+
+        FakeClock(long millis, TimeZone timeZone) {
+            mMillis = millis;
+            mTimeZone = timeZone;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return mMillis;
+        }
+
+        @Override
+        public TimeZone getTimeZone() {
+            return mTimeZone;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.middleware;
+
+import com.google.common.truth.Truth;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.growingio.android.sdk.track.middleware.UploadCoordinator.LANE_ALL;
+import static com.growingio.android.sdk.track.middleware.UploadCoordinator.LANE_INSTANT;
+
+@RunWith(PowerMockRunner.class)
+public class UploadCoordinatorTest {
+    private FakeScheduler mScheduler;
+    private RecordingUploader mUploader;
+    private UploadCoordinator mCoordinator;
+
+    @Before
+    public void setUp() {
+        mScheduler = new FakeScheduler();
+        mUploader = new RecordingUploader();
+        mCoordinator = new UploadCoordinator(mUploader, mScheduler, mScheduler, 200L, 1000L);
+        mUploader.mCoordinator = mCoordinator;
+        mScheduler.mCoordinator = mCoordinator;
+    }
+
+    @Test
+    public void coalescesPendingRequests() {
+        for (int i = 0; i < 5; i++) {
+            mCoordinator.request(LANE_ALL);
+        }
+        Truth.assertThat(mScheduler.mScheduleCount).isEqualTo(1);
+        mScheduler.advanceTo(0);
+
+        Truth.assertThat(mUploader.mRuns).containsExactly("all");
+        Truth.assertThat(mCoordinator.getRequestCount(LANE_ALL)).isEqualTo(5);
+        Truth.assertThat(mCoordinator.getCoalescedCount(LANE_ALL)).isEqualTo(4);
+        Truth.assertThat(mCoordinator.getRunCount(LANE_ALL)).isEqualTo(1);
+        Truth.assertThat(mCoordinator.isPending(LANE_ALL)).isFalse();
+    }
+
+    @Test
+    public void requestDuringRunRerunsOnce() {
+        mUploader.mDuringAll = new Runnable() {
+            @Override
+            public void run() {
+                mUploader.mDuringAll = null;
+                mCoordinator.request(LANE_ALL);
+                mCoordinator.request(LANE_ALL);
+                mCoordinator.request(LANE_ALL);
+            }
+        };
+        mCoordinator.request(LANE_ALL);
+        mScheduler.advanceTo(0);
+        Truth.assertThat(mCoordinator.isPending(LANE_ALL)).isTrue();
+        // 第二次执行要等最小间隔
+        Truth.assertThat(mScheduler.mDueTimes[LANE_ALL]).isEqualTo(1000L);
+
+        mScheduler.advanceTo(999L);
+        Truth.assertThat(mUploader.mRuns).hasSize(1);
+        mScheduler.advanceTo(1000L);
+        Truth.assertThat(mUploader.mRuns).containsExactly("all", "all");
+        Truth.assertThat(mCoordinator.getCoalescedCount(LANE_ALL)).isEqualTo(2);
+        Truth.assertThat(mCoordinator.isPending(LANE_ALL)).isFalse();
+    }
+
+    @Test
+    public void minIntervalBetweenIdenticalRuns() {
+        mCoordinator.request(LANE_INSTANT);
+        mScheduler.advanceTo(0);
+
+        mScheduler.mNow = 50L;
+        mCoordinator.request(LANE_INSTANT);
+        Truth.assertThat(mScheduler.mDueTimes[LANE_INSTANT]).isEqualTo(200L);
+        // 不同通道互不影响
+        mCoordinator.request(LANE_ALL);
+        Truth.assertThat(mScheduler.mDueTimes[LANE_ALL]).isEqualTo(50L);
+
+        mScheduler.advanceTo(5000L);
+        Truth.assertThat(mUploader.mRuns).containsExactly("instant@0", "all", "instant@200").inOrder();
+        mCoordinator.request(LANE_INSTANT);
+        Truth.assertThat(mScheduler.mDueTimes[LANE_INSTANT]).isEqualTo(5000L);
+    }
+
+    @Test
+    public void instantPreemptsRunningBatches() {
+        mUploader.mAllBatches = 3;
+        mUploader.mDuringAll = new Runnable() {
+            @Override
+            public void run() {
+                mUploader.mDuringAll = null;
+                mCoordinator.request(LANE_INSTANT);
+            }
+        };
+        mCoordinator.request(LANE_ALL);
+        mScheduler.advanceTo(0);
+
+        Truth.assertThat(mUploader.mRuns).containsExactly("batch0", "instant@0", "batch1", "batch2", "all").inOrder();
+        Truth.assertThat(mCoordinator.getPreemptionCount()).isEqualTo(1);
+        Truth.assertThat(mCoordinator.getRunCount(LANE_INSTANT)).isEqualTo(1);
+
+        // 调度中的 INSTANT 消息到达时已经执行过了
+        mScheduler.runLane(LANE_INSTANT);
+        Truth.assertThat(mCoordinator.getRunCount(LANE_INSTANT)).isEqualTo(1);
+    }
+
+    @Test
+    public void instantWaitsForMinIntervalBeforePreempting() {
+        mCoordinator.request(LANE_INSTANT);
+        mScheduler.advanceTo(0);
+
+        mUploader.mAllBatches = 2;
+        mUploader.mDuringAll = new Runnable() {
+            @Override
+            public void run() {
+                mUploader.mDuringAll = null;
+                mCoordinator.request(LANE_INSTANT);
+            }
+        };
+        mCoordinator.request(LANE_ALL);
+        mScheduler.advanceTo(0);
+        Truth.assertThat(mCoordinator.getPreemptionCount()).isEqualTo(0);
+        Truth.assertThat(mCoordinator.isPending(LANE_INSTANT)).isTrue();
+
+        mScheduler.advanceTo(200L);
+        Truth.assertThat(mUploader.mRuns).containsExactly("instant@0", "batch0", "batch1", "all", "instant@200").inOrder();
+    }
+
+    @Test
+    public void delayedRequestDuringRun() {
+        mUploader.mDuringAll = new Runnable() {
+            @Override
+            public void run() {
+                mUploader.mDuringAll = null;
+                mCoordinator.request(LANE_ALL, 30000L);
+            }
+        };
+        mCoordinator.request(LANE_ALL);
+        mScheduler.advanceTo(0);
+        Truth.assertThat(mScheduler.mDueTimes[LANE_ALL]).isEqualTo(30000L);
+        mCoordinator.request(LANE_ALL);
+        Truth.assertThat(mScheduler.mDueTimes[LANE_ALL]).isEqualTo(30000L);
+    }
+
+    /**
+     * 模拟 SendHandler: 每个通道最多一个消息, 新的调度替换旧的
+     */
+    private static final class FakeScheduler implements UploadCoordinator.Scheduler, UploadCoordinator.Clock {
+        long mNow;
+        int mScheduleCount;
+        final long[] mDueTimes = {-1L, -1L};
+        UploadCoordinator mCoordinator;
+
+        @Override
+        public void schedule(int lane, long delayMillis) {
+            mScheduleCount++;
+            mDueTimes[lane] = mNow + delayMillis;
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return mNow;
+        }
+
+        void runLane(int lane) {
+            mDueTimes[lane] = -1L;
+            mCoordinator.onScheduled(lane);
+        }
+
+        void advanceTo(long time) {
+            while (true) {
+                int next = -1;
+                for (int lane = 0; lane < mDueTimes.length; lane++) {
+                    if (mDueTimes[lane] >= 0 && mDueTimes[lane] <= time && (next == -1 || mDueTimes[lane] < mDueTimes[next])) {
+                        next = lane;
+                    }
+                }
+                if (next == -1) {
+                    break;
+                }
+                mNow = Math.max(mNow, mDueTimes[next]);
+                runLane(next);
+            }
+            mNow = Math.max(mNow, time);
+        }
+    }
+
+    private final class RecordingUploader implements UploadCoordinator.Uploader {
+        final List<String> mRuns = new ArrayList<>();
+        UploadCoordinator mCoordinator;
+        Runnable mDuringAll;
+        int mAllBatches;
+
+        @Override
+        public void upload(int lane) {
+            if (lane == LANE_INSTANT) {
+                mRuns.add("instant@" + mScheduler.mNow);
+                return;
+            }
+            for (int i = 0; i < mAllBatches; i++) {
+                mRuns.add("batch" + i);
+                if (mDuringAll != null) {
+                    mDuringAll.run();
+                }
+                mCoordinator.yieldToInstant();
+            }
+            if (mDuringAll != null) {
+                mDuringAll.run();
+            }
+            mRuns.add("all");
+        }
+    }
+}
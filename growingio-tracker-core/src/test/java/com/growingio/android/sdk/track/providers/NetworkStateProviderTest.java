@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.providers;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.telephony.TelephonyManager;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.utils.NetworkUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(PowerMockRunner.class)
+public class NetworkStateProviderTest {
+    private Context mContext;
+    private ConnectivityManager mConnectivityManager;
+
+    @Before
+    public void setUp() {
+        mContext = Mockito.mock(Context.class);
+        mConnectivityManager = Mockito.mock(ConnectivityManager.class);
+        Mockito.when(mContext.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(mConnectivityManager);
+    }
+
+    private void setActiveNetwork(NetworkInfo networkInfo) {
+        Mockito.when(mConnectivityManager.getActiveNetworkInfo()).thenReturn(networkInfo);
+    }
+
+    private static NetworkInfo wifi() {
+        NetworkInfo networkInfo = Mockito.mock(NetworkInfo.class);
+        Mockito.when(networkInfo.isConnected()).thenReturn(true);
+        Mockito.when(networkInfo.getType()).thenReturn(ConnectivityManager.TYPE_WIFI);
+        return networkInfo;
+    }
+
+    private static NetworkInfo lte() {
+        NetworkInfo networkInfo = Mockito.mock(NetworkInfo.class);
+        Mockito.when(networkInfo.isConnected()).thenReturn(true);
+        Mockito.when(networkInfo.getType()).thenReturn(ConnectivityManager.TYPE_MOBILE);
+        Mockito.when(networkInfo.getSubtype()).thenReturn(TelephonyManager.NETWORK_TYPE_LTE);
+        return networkInfo;
+    }
+
+    private BroadcastReceiver captureReceiver() {
+        ArgumentCaptor<BroadcastReceiver> receiver = ArgumentCaptor.forClass(BroadcastReceiver.class);
+        Mockito.verify(mContext).registerReceiver(receiver.capture(), Mockito.any(IntentFilter.class));
+        return receiver.getValue();
+    }
+
+    @Test
+    public void readsSnapshotWithoutQuerying() {
+        setActiveNetwork(lte());
+        NetworkStateProvider provider = new NetworkStateProvider(mContext);
+
+        for (int i = 0; i < 10; i++) {
+            NetworkUtil.NetworkState state = provider.getNetworkState();
+            Truth.assertThat(state.isMobileData()).isTrue();
+            Truth.assertThat(state.getNetworkName()).isEqualTo("4G");
+        }
+        Mockito.verify(mConnectivityManager, Mockito.times(1)).getActiveNetworkInfo();
+    }
+
+    @Test
+    public void notifiesOnTransition() {
+        setActiveNetwork(null);
+        NetworkStateProvider provider = new NetworkStateProvider(mContext);
+        Truth.assertThat(provider.getNetworkState().isConnected()).isFalse();
+        final List<NetworkUtil.NetworkState> changes = new ArrayList<>();
+        provider.registerNetworkStateChangedListener(new NetworkStateProvider.OnNetworkStateChangedListener() {
+            @Override
+            public void onNetworkStateChanged(NetworkUtil.NetworkState networkState) {
+                changes.add(networkState);
+            }
+        });
+        BroadcastReceiver receiver = captureReceiver();
+
+        setActiveNetwork(wifi());
+        receiver.onReceive(mContext, new Intent());
+        Truth.assertThat(provider.getNetworkState().isWifi()).isTrue();
+        Truth.assertThat(changes).hasSize(1);
+        Truth.assertThat(changes.get(0).getNetworkName()).isEqualTo("WIFI");
+
+        // 状态没有变化时不通知
+        setActiveNetwork(wifi());
+        receiver.onReceive(mContext, new Intent());
+        Truth.assertThat(changes).hasSize(1);
+
+        setActiveNetwork(lte());
+        receiver.onReceive(mContext, new Intent());
+        Truth.assertThat(changes).hasSize(2);
+        Truth.assertThat(provider.getNetworkState().isMobileData()).isTrue();
+    }
+
+    private static NetworkCapabilities capabilities(int transport) {
+        NetworkCapabilities capabilities = Mockito.mock(NetworkCapabilities.class);
+        Mockito.when(capabilities.hasTransport(transport)).thenReturn(true);
+        return capabilities;
+    }
+
+    @Test
+    public void defaultNetworkCallbackDerivesState() {
+        setActiveNetwork(null);
+        NetworkStateProvider provider = new NetworkStateProvider(mContext);
+        final List<NetworkUtil.NetworkState> changes = new ArrayList<>();
+        provider.registerNetworkStateChangedListener(new NetworkStateProvider.OnNetworkStateChangedListener() {
+            @Override
+            public void onNetworkStateChanged(NetworkUtil.NetworkState networkState) {
+                changes.add(networkState);
+            }
+        });
+        NetworkStateProvider.DefaultNetworkCallback callback = provider.new DefaultNetworkCallback(mConnectivityManager);
+        Network wifiNetwork = Mockito.mock(Network.class);
+        Network cellularNetwork = Mockito.mock(Network.class);
+        NetworkInfo cellularInfo = lte();
+        Mockito.when(mConnectivityManager.getNetworkInfo(cellularNetwork)).thenReturn(cellularInfo);
+        // 回调中的 getActiveNetworkInfo() 可能还是旧状态, 不能使用
+        setActiveNetwork(lte());
+
+        callback.onCapabilitiesChanged(wifiNetwork, capabilities(NetworkCapabilities.TRANSPORT_WIFI));
+        Truth.assertThat(provider.getNetworkState().isWifi()).isTrue();
+        Truth.assertThat(changes).hasSize(1);
+
+        // 信号强度等变化不查询也不通知
+        callback.onCapabilitiesChanged(wifiNetwork, capabilities(NetworkCapabilities.TRANSPORT_WIFI));
+        Truth.assertThat(changes).hasSize(1);
+        Mockito.verify(mConnectivityManager, Mockito.never()).getNetworkInfo(Mockito.any(Network.class));
+
+        callback.onCapabilitiesChanged(cellularNetwork, capabilities(NetworkCapabilities.TRANSPORT_CELLULAR));
+        Truth.assertThat(provider.getNetworkState().isMobileData()).isTrue();
+        Truth.assertThat(provider.getNetworkState().getNetworkName()).isEqualTo("4G");
+        Truth.assertThat(changes).hasSize(2);
+
+        // 切换后旧网络的 onLost 不影响当前状态
+        callback.onLost(wifiNetwork);
+        Truth.assertThat(provider.getNetworkState().isConnected()).isTrue();
+        Truth.assertThat(changes).hasSize(2);
+
+        callback.onLost(cellularNetwork);
+        Truth.assertThat(provider.getNetworkState().isConnected()).isFalse();
+        Truth.assertThat(changes).hasSize(3);
+        // 只在初始化时查询过一次
+        Mockito.verify(mConnectivityManager, Mockito.times(1)).getActiveNetworkInfo();
+    }
+
+    @Test
+    public void queriesEachTimeWhenMonitoringFailed() {
+        Mockito.when(mContext.registerReceiver(Mockito.any(BroadcastReceiver.class), Mockito.any(IntentFilter.class)))
+                .thenThrow(new SecurityException("denied"));
+        setActiveNetwork(lte());
+        NetworkStateProvider provider = new NetworkStateProvider(mContext);
+
+        setActiveNetwork(wifi());
+        Truth.assertThat(provider.getNetworkState().isWifi()).isTrue();
+        setActiveNetwork(null);
+        Truth.assertThat(provider.getNetworkState().isConnected()).isFalse();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.growingio.android.sdk.track.variation;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.TrackConfiguration;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
+import com.growingio.android.sdk.track.events.marshaller.EventMarshaller;
+import com.growingio.android.sdk.track.http.ConnectionManager;
+import com.growingio.android.sdk.track.http.ConnectionTiming;
+import com.growingio.android.sdk.track.middleware.GEvent;
+import com.growingio.android.sdk.track.middleware.SendResponse;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.net.ssl.*", "javax.security.*"})
+public class EventHttpSenderTest {
+    private final LinkedBlockingQueue<MockResponse> mCollectResponses = new LinkedBlockingQueue<>();
+    private final AtomicInteger mCollectCount = new AtomicInteger();
+    private MockWebServer mServer;
+    private EventHttpSender mSender;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                // 预连接的 HEAD 请求
+                if ("HEAD".equals(request.getMethod())) {
+                    return new MockResponse();
+                }
+                mCollectCount.incrementAndGet();
+                MockResponse response = mCollectResponses.poll();
+                return response == null ? new MockResponse().setBody("ok") : response;
+            }
+        });
+        mServer.start();
+        TrackConfiguration configuration = new TrackConfiguration("test", "growing.test")
+                .setDataCollectionServerHost(mServer.url("/").toString());
+        mSender = new EventHttpSender(new EmptyMarshaller(), configuration);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    private static List<GEvent> events() {
+        return Collections.<GEvent>singletonList(Mockito.mock(BaseEvent.class));
+    }
+
+    @Test
+    public void collectRetriesServerError() {
+        mCollectResponses.add(new MockResponse().setResponseCode(503));
+
+        SendResponse response = mSender.send(events());
+        Truth.assertThat(response.isSucceeded()).isTrue();
+        Truth.assertThat(mCollectCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void uploadsReuseConnectionAndReportTiming() throws Exception {
+        ConnectionManager connectionManager = mSender.getConnectionManager();
+        RecordedRequest warmUp = mServer.takeRequest(5, TimeUnit.SECONDS);
+        Truth.assertThat(warmUp.getMethod()).isEqualTo("HEAD");
+        for (int i = 0; i < 50 && connectionManager.getIdleConnectionCount() == 0; i++) {
+            Thread.sleep(100);
+        }
+        Truth.assertThat(connectionManager.getIdleConnectionCount()).isEqualTo(1);
+
+        final LinkedBlockingQueue<ConnectionTiming> timings = new LinkedBlockingQueue<>();
+        connectionManager.setOnTimingListener(new ConnectionManager.OnTimingListener() {
+            @Override
+            public void onTiming(ConnectionTiming timing) {
+                timings.add(timing);
+            }
+        });
+        Truth.assertThat(mSender.send(events()).isSucceeded()).isTrue();
+        Truth.assertThat(mSender.send(events()).isSucceeded()).isTrue();
+
+        // 两次上报都复用预连接建立的连接
+        Truth.assertThat(mServer.takeRequest().getSequenceNumber()).isEqualTo(1);
+        Truth.assertThat(mServer.takeRequest().getSequenceNumber()).isEqualTo(2);
+        for (int i = 0; i < 2; i++) {
+            ConnectionTiming timing = timings.poll(5, TimeUnit.SECONDS);
+            Truth.assertThat(timing).isNotNull();
+            Truth.assertThat(timing.isSuccessful()).isTrue();
+            Truth.assertThat(timing.isConnectionReused()).isTrue();
+        }
+    }
+
+    private static final class EmptyMarshaller implements EventMarshaller<JSONObject, JSONArray> {
+        @Override
+        public JSONObject marshall(GEvent event) {
+            return new JSONObject();
+        }
+
+        @Override
+        public JSONArray marshall(List<GEvent> events) {
+            return new JSONArray();
+        }
+    }
+}
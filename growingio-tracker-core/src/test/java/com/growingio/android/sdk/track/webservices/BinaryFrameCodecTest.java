@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.webservices;
+
+import com.google.common.truth.Truth;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import okio.ByteString;
+
+@RunWith(PowerMockRunner.class)
+public class BinaryFrameCodecTest {
+
+    @Test
+    public void encodeAndDecode() throws IOException {
+        BinaryFrameCodec encoder = new BinaryFrameCodec(false);
+        BinaryFrameCodec decoder = new BinaryFrameCodec(false);
+        byte[] payload = new byte[]{(byte) 0xff, (byte) 0xd8, 0x00, 0x01};
+
+        ByteString frame = encoder.encode("{\"msgType\":\"refreshScreenshot\"}", payload);
+        Truth.assertThat(frame.getByte(0)).isEqualTo(BinaryFrameCodec.VERSION);
+        Truth.assertThat(frame.getByte(1) & BinaryFrameCodec.FLAG_DEFLATED).isEqualTo(0);
+
+        BinaryFrameCodec.Frame decoded = decoder.decode(frame);
+        Truth.assertThat(decoded.getMessage()).isEqualTo("{\"msgType\":\"refreshScreenshot\"}");
+        Truth.assertThat(Arrays.equals(decoded.getPayload(), payload)).isTrue();
+    }
+
+    @Test
+    public void deflateSharesContextAcrossMessages() throws IOException {
+        BinaryFrameCodec encoder = new BinaryFrameCodec(true);
+        BinaryFrameCodec decoder = new BinaryFrameCodec(true);
+        StringBuilder elements = new StringBuilder("{\"msgType\":\"refreshScreenshot\",\"elements\":[");
+        for (int i = 0; i < 100; i++) {
+            elements.append("{\"xpath\":\"/Page/LinearLayout[0]/TextView[").append(i).append("]\",\"left\":0,\"top\":").append(i * 48).append("},");
+        }
+        String message = elements.append("{}]}").toString();
+
+        ByteString first = encoder.encode(message, null);
+        ByteString second = encoder.encode(message, null);
+        Truth.assertThat(first.getByte(1) & BinaryFrameCodec.FLAG_DEFLATED).isEqualTo(BinaryFrameCodec.FLAG_DEFLATED);
+        Truth.assertThat(first.size()).isLessThan(message.length());
+        // 第二帧与第一帧完全相同，共享压缩上下文后只需要很少的字节
+        Truth.assertThat(second.size()).isLessThan(first.size() / 4);
+
+        Truth.assertThat(decoder.decode(first).getMessage()).isEqualTo(message);
+        BinaryFrameCodec.Frame decoded = decoder.decode(second);
+        Truth.assertThat(decoded.getMessage()).isEqualTo(message);
+        Truth.assertThat(decoded.getPayload().length).isEqualTo(0);
+    }
+
+    @Test
+    public void encodeAfterRelease() {
+        BinaryFrameCodec codec = new BinaryFrameCodec(true);
+        Truth.assertThat(codec.encode("{}", null)).isNotNull();
+        codec.release();
+        codec.release();
+        Truth.assertThat(codec.encode("{}", null)).isNull();
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeIllegalFrame() throws IOException {
+        new BinaryFrameCodec(false).decode(ByteString.of(new byte[]{BinaryFrameCodec.VERSION, 0, 0, 0, 0, 10, 0, 0, 0, 0}));
+    }
+}
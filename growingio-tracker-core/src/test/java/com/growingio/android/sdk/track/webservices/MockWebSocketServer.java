@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.webservices;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.ByteString;
+
+/**
+ * 本地WebSocket服务，统计收到的消息数、字节数和每秒吞吐，二进制帧会用BinaryFrameCodec解码
+ */
+public class MockWebSocketServer {
+    private final MockWebServer mMockWebServer = new MockWebServer();
+    private final BinaryFrameCodec mCodec = new BinaryFrameCodec(true);
+    private final List<String> mMessages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger mMessageCount = new AtomicInteger();
+    private final AtomicLong mByteCount = new AtomicLong();
+    private volatile long mFirstMessageTime;
+    private volatile long mLastMessageTime;
+
+    public void start() throws IOException {
+        mMockWebServer.enqueue(new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+            @Override
+            public void onMessage(WebSocket webSocket, String text) {
+                record(text.getBytes().length);
+                mMessages.add(text);
+            }
+
+            @Override
+            public void onMessage(WebSocket webSocket, ByteString bytes) {
+                record(bytes.size());
+                try {
+                    mMessages.add(mCodec.decode(bytes).getMessage());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }));
+        mMockWebServer.start();
+    }
+
+    private void record(int bytes) {
+        long now = System.nanoTime();
+        if (mMessageCount.getAndIncrement() == 0) {
+            mFirstMessageTime = now;
+        }
+        mLastMessageTime = now;
+        mByteCount.addAndGet(bytes);
+    }
+
+    public String getWsUrl() {
+        return "ws://" + mMockWebServer.getHostName() + ":" + mMockWebServer.getPort() + "/";
+    }
+
+    public List<String> getMessages() {
+        return mMessages;
+    }
+
+    public int getMessageCount() {
+        return mMessageCount.get();
+    }
+
+    public long getByteCount() {
+        return mByteCount.get();
+    }
+
+    public double getMessagesPerSecond() {
+        return mMessageCount.get() / getElapsedSeconds();
+    }
+
+    public double getBytesPerSecond() {
+        return mByteCount.get() / getElapsedSeconds();
+    }
+
+    private double getElapsedSeconds() {
+        return Math.max(mLastMessageTime - mFirstMessageTime, 1L) / 1e9;
+    }
+
+    public void shutdown() throws IOException {
+        mMockWebServer.shutdown();
+    }
+}
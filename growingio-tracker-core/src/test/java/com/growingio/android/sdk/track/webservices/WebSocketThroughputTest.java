@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.android.sdk.track.webservices;
+
+import com.google.common.truth.Truth;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+/**
+ * 对比圈选截图消息以文本(JSON内嵌Base64截图)和二进制帧(deflate + 原始截图)发送时的字节数和吞吐
+ */
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.net.ssl.*", "javax.security.*"})
+public class WebSocketThroughputTest {
+    private static final int MESSAGE_COUNT = 200;
+    private static final int SCREENSHOT_SIZE = 40 * 1024;
+
+    private MockWebSocketServer mTextServer;
+    private MockWebSocketServer mBinaryServer;
+    private OkHttpClient mClient;
+
+    @Before
+    public void setUp() throws IOException {
+        mTextServer = new MockWebSocketServer();
+        mTextServer.start();
+        mBinaryServer = new MockWebSocketServer();
+        mBinaryServer.start();
+        mClient = new OkHttpClient();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mTextServer.shutdown();
+        mBinaryServer.shutdown();
+        mClient.dispatcher().executorService().shutdown();
+    }
+
+    @Test
+    public void textVersusBinaryFrames() throws InterruptedException {
+        byte[] screenshot = new byte[SCREENSHOT_SIZE];
+        new Random(0).nextBytes(screenshot);
+        String elements = createElements();
+
+        WebSocket textSocket = connect(mTextServer);
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            textSocket.send("{\"msgType\":\"refreshScreenshot\",\"snapshotKey\":" + i
+                    + ",\"screenshot\":\"data:image/jpeg;base64," + ByteString.of(screenshot).base64() + "\"," + elements + "}");
+        }
+
+        BinaryFrameCodec codec = new BinaryFrameCodec(true);
+        WebSocket binarySocket = connect(mBinaryServer);
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            binarySocket.send(codec.encode("{\"msgType\":\"refreshScreenshot\",\"snapshotKey\":" + i
+                    + ",\"screenshotType\":\"image/jpeg\"," + elements + "}", screenshot));
+        }
+
+        awaitMessages(mTextServer);
+        awaitMessages(mBinaryServer);
+        report("text", mTextServer);
+        report("binary", mBinaryServer);
+
+        Truth.assertThat(mBinaryServer.getMessages()).hasSize(MESSAGE_COUNT);
+        Truth.assertThat(mBinaryServer.getMessages().get(MESSAGE_COUNT - 1)).contains("\"snapshotKey\":" + (MESSAGE_COUNT - 1));
+        Truth.assertThat(mBinaryServer.getByteCount()).isLessThan(mTextServer.getByteCount());
+    }
+
+    private WebSocket connect(MockWebSocketServer server) {
+        return mClient.newWebSocket(new Request.Builder().url(server.getWsUrl()).build(), new WebSocketListener() {
+        });
+    }
+
+    private static String createElements() {
+        StringBuilder builder = new StringBuilder("\"elements\":[");
+        for (int i = 0; i < 50; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"xpath\":\"/Page/ActionBarOverlayLayout[0]/FrameLayout[0]/LinearLayout[0]#content_parent/TextView[")
+                    .append(i).append("]\",\"left\":0,\"top\":").append(i * 48).append(",\"width\":720,\"height\":48,\"nodeType\":\"TEXT\"}");
+        }
+        return builder.append(']').toString();
+    }
+
+    private static void awaitMessages(MockWebSocketServer server) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (server.getMessageCount() < MESSAGE_COUNT && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Truth.assertThat(server.getMessageCount()).isEqualTo(MESSAGE_COUNT);
+    }
+
+    private static void report(String name, MockWebSocketServer server) {
+        System.out.println(String.format("%-6s %d messages, %d bytes/message, %.0f messages/s, %.2f MB/s",
+                name, server.getMessageCount(), server.getByteCount() / server.getMessageCount(),
+                server.getMessagesPerSecond(), server.getBytesPerSecond() / 1024 / 1024));
+    }
+}
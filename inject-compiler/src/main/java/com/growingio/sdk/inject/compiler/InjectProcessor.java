@@ -25,6 +25,7 @@ import com.growingio.sdk.inject.annotation.Before;
 import com.growingio.sdk.inject.annotation.BeforeSuper;
 import com.growingio.sdk.inject.annotation.BeforeSupers;
 import com.growingio.sdk.inject.annotation.Befores;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -46,9 +47,10 @@ import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -68,6 +70,7 @@ import javax.tools.Diagnostic;
 @AutoService(Processor.class)
 public class InjectProcessor extends AbstractProcessor {
     private static final String TAG = "InjectProcessor";
+    private static final String HOOK_PACKAGE = "com.growingio.sdk.plugin.autotrack.hook";
     private static final String LICENSE_HEADER = "/*\n" +
             " * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.\n" +
             " *\n" +
@@ -213,38 +216,56 @@ public class InjectProcessor extends AbstractProcessor {
             builder.addJavadoc("该Class是由 inject-compiler 自动生成的，请不要随意更改！");
 
             ClassName mapClass = ClassName.get(Map.class);
-            ClassName hashMapClass = ClassName.get(HashMap.class);
             ClassName stringClass = ClassName.get(String.class);
-            ClassName collectionsClass = ClassName.get(Collections.class);
-            ClassName targetClassClass = ClassName.get("com.growingio.sdk.plugin.autotrack.hook", "TargetClass");
-            ClassName targetMethodClass = ClassName.get("com.growingio.sdk.plugin.autotrack.hook", "TargetMethod");
-            ClassName injectMethodClass = ClassName.get("com.growingio.sdk.plugin.autotrack.hook", "InjectMethod");
+            ClassName targetClassClass = ClassName.get(HOOK_PACKAGE, "TargetClass");
+            ClassName targetMethodClass = ClassName.get(HOOK_PACKAGE, "TargetMethod");
+            ClassName injectMethodClass = ClassName.get(HOOK_PACKAGE, "InjectMethod");
+            ClassName hookClassTableClass = ClassName.get(HOOK_PACKAGE, "HookClassTable");
+            ClassName generatedTargetClass = ClassName.get(HOOK_PACKAGE, "HookClassesConfig", "GeneratedTargetClass");
             TypeName mapOfTargetClass = ParameterizedTypeName.get(mapClass, stringClass, targetClassClass);
 
-            FieldSpec aroundMethodMapField = FieldSpec.builder(mapOfTargetClass, "AROUND_HOOK_CLASSES")
-                    .addModifiers(Modifier.PRIVATE)
-                    .addModifiers(Modifier.STATIC)
-                    .addModifiers(Modifier.FINAL)
-                    .initializer("new $T<>()", hashMapClass)
-                    .build();
-            builder.addField(aroundMethodMapField);
-
-            FieldSpec superMethodMapField = FieldSpec.builder(mapOfTargetClass, "SUPER_HOOK_CLASSES")
-                    .addModifiers(Modifier.PRIVATE)
-                    .addModifiers(Modifier.STATIC)
-                    .addModifiers(Modifier.FINAL)
-                    .initializer("new $T<>()", hashMapClass)
-                    .build();
-            builder.addField(superMethodMapField);
+            // 类和方法在所有表中统一编号, 查找方法时按编号 switch, 不需要拼接字符串
+            HookTable aroundTable = new HookTable("AROUND_HOOK", mAroundHookClassesArgs);
+            HookTable superTable = new HookTable("SUPER_HOOK", mSuperHookClassesArgs);
+            List<Map<String, Map<String, Integer>>> classMethods = new ArrayList<>();
+            Map<String, Integer> methodIndexes = new HashMap<>();
+            aroundTable.index(classMethods, methodIndexes);
+            superTable.index(classMethods, methodIndexes);
+
+            builder.addField(FieldSpec.builder(ArrayTypeName.of(targetMethodClass), "TARGET_METHODS")
+                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("new $T[$L]", targetMethodClass, methodIndexes.size())
+                    .build());
+            for (HookTable table : Arrays.asList(aroundTable, superTable)) {
+                CodeBlock.Builder keys = CodeBlock.builder().add("{");
+                String[] slots = table.mPerfectHash.getSlots();
+                for (int i = 0; i < slots.length; i++) {
+                    keys.add(i == 0 ? "$S" : ", $S", slots[i]);
+                }
+                builder.addField(FieldSpec.builder(String[].class, table.mPrefix + "_KEYS")
+                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer(keys.add("}").build())
+                        .build());
+                builder.addField(FieldSpec.builder(ArrayTypeName.of(targetClassClass), table.mPrefix + "_VALUES")
+                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("new $T[$L]", targetClassClass, slots.length)
+                        .build());
+                builder.addField(FieldSpec.builder(mapOfTargetClass, table.mPrefix + "_CLASSES")
+                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("new $T($L_KEYS, $L_VALUES, 0x$L, $L)", hookClassTableClass, table.mPrefix, table.mPrefix,
+                                Integer.toHexString(table.mPerfectHash.getSeed()), table.mPerfectHash.getShift())
+                        .build());
+            }
 
             CodeBlock.Builder staticBlock = CodeBlock.builder();
-            for (List<Object> arg : mAroundHookClassesArgs) {
-                staticBlock.addStatement("putAroundHookMethod($S, $S, $S, $S, $S, $S, $L)",
-                        arg.get(0), arg.get(1), arg.get(2), arg.get(3), arg.get(4), arg.get(5), arg.get(6));
-            }
-            for (List<Object> arg : mSuperHookClassesArgs) {
-                staticBlock.addStatement("putSuperHookMethod($S, $S, $S, $S, $S, $S, $L)",
-                        arg.get(0), arg.get(1), arg.get(2), arg.get(3), arg.get(4), arg.get(5), arg.get(6));
+            for (HookTable table : Arrays.asList(aroundTable, superTable)) {
+                for (List<Object> arg : table.mArgs) {
+                    String className = (String) arg.get(0);
+                    staticBlock.addStatement("putHookMethod($L_VALUES, $L, $L, $L, $S, $S, $S, $S, $S, $S, $L)",
+                            table.mPrefix, table.mPerfectHash.getSlot(className), table.mClassIndexes.get(className),
+                            methodIndexes.get(table.getMethodKey(arg)),
+                            arg.get(0), arg.get(1), arg.get(2), arg.get(3), arg.get(4), arg.get(5), arg.get(6));
+                }
             }
             builder.addStaticBlock(staticBlock.build());
 
@@ -253,41 +274,14 @@ public class InjectProcessor extends AbstractProcessor {
                     .build();
             builder.addMethod(constructor);
 
-            MethodSpec putAroundHookMethod = MethodSpec.methodBuilder("putAroundHookMethod")
-                    .addModifiers(Modifier.PRIVATE)
-                    .addModifiers(Modifier.STATIC)
-                    .returns(void.class)
-                    .addParameter(String.class, "targetClassName")
-                    .addParameter(String.class, "targetMethodName")
-                    .addParameter(String.class, "targetMethodDesc")
-                    .addParameter(String.class, "injectClassName")
-                    .addParameter(String.class, "injectMethodName")
-                    .addParameter(String.class, "injectMethodDesc")
-                    .addParameter(boolean.class, "isAfter")
-                    .addStatement("putHookMethod(AROUND_HOOK_CLASSES, targetClassName, targetMethodName, targetMethodDesc, injectClassName, injectMethodName, injectMethodDesc, isAfter)")
-                    .build();
-            builder.addMethod(putAroundHookMethod);
-
-            MethodSpec putSuperHookMethod = MethodSpec.methodBuilder("putSuperHookMethod")
-                    .addModifiers(Modifier.PRIVATE)
-                    .addModifiers(Modifier.STATIC)
-                    .returns(void.class)
-                    .addParameter(String.class, "targetClassName")
-                    .addParameter(String.class, "targetMethodName")
-                    .addParameter(String.class, "targetMethodDesc")
-                    .addParameter(String.class, "injectClassName")
-                    .addParameter(String.class, "injectMethodName")
-                    .addParameter(String.class, "injectMethodDesc")
-                    .addParameter(boolean.class, "isAfter")
-                    .addStatement("putHookMethod(SUPER_HOOK_CLASSES, targetClassName, targetMethodName, targetMethodDesc, injectClassName, injectMethodName, injectMethodDesc, isAfter)")
-                    .build();
-            builder.addMethod(putSuperHookMethod);
-
             MethodSpec putHookMethod = MethodSpec.methodBuilder("putHookMethod")
                     .addModifiers(Modifier.PRIVATE)
                     .addModifiers(Modifier.STATIC)
                     .returns(void.class)
-                    .addParameter(mapOfTargetClass, "classMap")
+                    .addParameter(ArrayTypeName.of(targetClassClass), "table")
+                    .addParameter(int.class, "slot")
+                    .addParameter(int.class, "classIndex")
+                    .addParameter(int.class, "methodIndex")
                     .addParameter(String.class, "targetClassName")
                     .addParameter(String.class, "targetMethodName")
                     .addParameter(String.class, "targetMethodDesc")
@@ -295,45 +289,101 @@ public class InjectProcessor extends AbstractProcessor {
                     .addParameter(String.class, "injectMethodName")
                     .addParameter(String.class, "injectMethodDesc")
                     .addParameter(boolean.class, "isAfter")
-                    .addCode("$T targetClass = classMap.get(targetClassName);\n" +
-                                    "    if (targetClass == null) {\n" +
-                                    "        targetClass = new $T(targetClassName);\n" +
-                                    "        classMap.put(targetClassName, targetClass);\n" +
-                                    "    }\n" +
-                                    "    $T targetMethod = targetClass.getTargetMethod(targetMethodName, targetMethodDesc);\n" +
-                                    "    if (targetMethod == null) {\n" +
-                                    "        targetMethod = new $T(targetMethodName, targetMethodDesc);\n" +
-                                    "        targetClass.addTargetMethod(targetMethod);\n" +
-                                    "    }\n" +
-                                    "    targetMethod.addInjectMethod(new $T(injectClassName, injectMethodName, injectMethodDesc, isAfter));\n",
-                            targetClassClass, targetClassClass, targetMethodClass, targetMethodClass, injectMethodClass)
+                    .addStatement("$T targetClass = table[slot]", targetClassClass)
+                    .beginControlFlow("if (targetClass == null)")
+                    .addStatement("targetClass = new $T(targetClassName, classIndex)", generatedTargetClass)
+                    .addStatement("table[slot] = targetClass")
+                    .endControlFlow()
+                    .addStatement("$T targetMethod = TARGET_METHODS[methodIndex]", targetMethodClass)
+                    .beginControlFlow("if (targetMethod == null)")
+                    .addStatement("targetMethod = new $T(targetMethodName, targetMethodDesc)", targetMethodClass)
+                    .addStatement("TARGET_METHODS[methodIndex] = targetMethod")
+                    .addStatement("targetClass.addTargetMethod(targetMethod)")
+                    .endControlFlow()
+                    .addStatement("targetMethod.addInjectMethod(new $T(injectClassName, injectMethodName, injectMethodDesc, isAfter))", injectMethodClass)
                     .build();
             builder.addMethod(putHookMethod);
 
+            builder.addMethod(generateFindTargetMethod(targetMethodClass, classMethods));
+
             MethodSpec getAroundHookClasses = MethodSpec.methodBuilder("getAroundHookClasses")
                     .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
                     .returns(mapOfTargetClass)
-                    .addStatement("return $T.unmodifiableMap(AROUND_HOOK_CLASSES)", collectionsClass)
+                    .addStatement("return AROUND_HOOK_CLASSES")
                     .build();
             builder.addMethod(getAroundHookClasses);
 
             MethodSpec getSuperHookClasses = MethodSpec.methodBuilder("getSuperHookClasses")
                     .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
                     .returns(mapOfTargetClass)
-                    .addStatement("return $T.unmodifiableMap(SUPER_HOOK_CLASSES)", collectionsClass)
+                    .addStatement("return SUPER_HOOK_CLASSES")
                     .build();
             builder.addMethod(getSuperHookClasses);
 
-            JavaFile javaFile = JavaFile.builder("com.growingio.sdk.plugin.autotrack.hook", builder.build())
+            TypeSpec generatedTargetClassSpec = TypeSpec.classBuilder("GeneratedTargetClass")
+                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .superclass(targetClassClass)
+                    .addField(int.class, "mIndex", Modifier.PRIVATE, Modifier.FINAL)
+                    .addMethod(MethodSpec.constructorBuilder()
+                            .addParameter(String.class, "name")
+                            .addParameter(int.class, "index")
+                            .addStatement("super(name)")
+                            .addStatement("mIndex = index")
+                            .build())
+                    .addMethod(MethodSpec.methodBuilder("getTargetMethod")
+                            .addAnnotation(Override.class)
+                            .addModifiers(Modifier.PUBLIC)
+                            .returns(targetMethodClass)
+                            .addParameter(String.class, "name")
+                            .addParameter(String.class, "desc")
+                            .addStatement("return findTargetMethod(mIndex, name, desc)")
+                            .build())
+                    .build();
+            builder.addType(generatedTargetClassSpec);
+
+            JavaFile javaFile = JavaFile.builder(HOOK_PACKAGE, builder.build())
                     .skipJavaLangImports(true)
                     .build();
             generatePerfectJava(javaFile);
 
         } catch (IOException e) {
             e.printStackTrace();
+        } catch (IllegalStateException e) {
+            mMessager.printMessage(Diagnostic.Kind.ERROR, TAG + ": " + e.getMessage());
         }
     }
 
+    /**
+     * 先按类编号 switch, 再按方法名 switch, 最后比较方法描述
+     */
+    private MethodSpec generateFindTargetMethod(ClassName targetMethodClass, List<Map<String, Map<String, Integer>>> classMethods) {
+        CodeBlock.Builder code = CodeBlock.builder().beginControlFlow("switch (classIndex)");
+        for (int classIndex = 0; classIndex < classMethods.size(); classIndex++) {
+            code.add("case $L:\n", classIndex).indent().beginControlFlow("switch (name)");
+            for (Map.Entry<String, Map<String, Integer>> method : classMethods.get(classIndex).entrySet()) {
+                code.add("case $S:\n", method.getKey()).indent();
+                for (Map.Entry<String, Integer> desc : method.getValue().entrySet()) {
+                    code.beginControlFlow("if ($S.equals(desc))", desc.getKey())
+                            .addStatement("return TARGET_METHODS[$L]", desc.getValue())
+                            .endControlFlow();
+                }
+                code.addStatement("return null").unindent();
+            }
+            code.add("default:\n").indent().addStatement("return null").unindent()
+                    .endControlFlow().unindent();
+        }
+        code.add("default:\n").indent().addStatement("return null").unindent()
+                .endControlFlow();
+        return MethodSpec.methodBuilder("findTargetMethod")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .returns(targetMethodClass)
+                .addParameter(int.class, "classIndex")
+                .addParameter(String.class, "name")
+                .addParameter(String.class, "desc")
+                .addCode(code.build())
+                .build();
+    }
+
     private void generatePerfectJava(JavaFile javaFile) throws IOException {
         String classPath = getProjectRootPath() + "/growingio-autotracker-gradle-plugin/src/main/java/" + javaFile.packageName.replace(".", "/") + "/" + javaFile.typeSpec.name + ".java";
         File file = new File(classPath);
@@ -349,4 +399,54 @@ public class InjectProcessor extends AbstractProcessor {
         String jarPath = getClass().getProtectionDomain().getCodeSource().getLocation().getPath();
         return new File(jarPath).getParentFile().getParentFile().getParentFile().getParent();
     }
-}
\ No newline at end of file
+
+    /**
+     * 一张 hook 表(Around 或 Super)中的类名及其完美哈希
+     */
+    private static final class HookTable {
+        private final String mPrefix;
+        private final List<List<Object>> mArgs;
+        private final Map<String, Integer> mClassIndexes = new LinkedHashMap<>();
+        private final PerfectHash mPerfectHash;
+
+        HookTable(String prefix, List<List<Object>> args) {
+            mPrefix = prefix;
+            mArgs = args;
+            Set<String> classNames = new LinkedHashSet<>();
+            for (List<Object> arg : args) {
+                classNames.add((String) arg.get(0));
+            }
+            mPerfectHash = PerfectHash.create(classNames);
+        }
+
+        /**
+         * 分配全局的类编号和方法编号, classMethods 的下标为类编号, value 为 方法名 -> (方法描述 -> 方法编号)
+         */
+        void index(List<Map<String, Map<String, Integer>>> classMethods, Map<String, Integer> methodIndexes) {
+            for (List<Object> arg : mArgs) {
+                String className = (String) arg.get(0);
+                Integer classIndex = mClassIndexes.get(className);
+                if (classIndex == null) {
+                    classIndex = classMethods.size();
+                    mClassIndexes.put(className, classIndex);
+                    classMethods.add(new LinkedHashMap<>());
+                }
+                String methodKey = getMethodKey(arg);
+                if (!methodIndexes.containsKey(methodKey)) {
+                    methodIndexes.put(methodKey, methodIndexes.size());
+                    Map<String, Map<String, Integer>> methods = classMethods.get(classIndex);
+                    Map<String, Integer> descs = methods.get((String) arg.get(1));
+                    if (descs == null) {
+                        descs = new LinkedHashMap<>();
+                        methods.put((String) arg.get(1), descs);
+                    }
+                    descs.put((String) arg.get(2), methodIndexes.get(methodKey));
+                }
+            }
+        }
+
+        String getMethodKey(List<Object> arg) {
+            return mPrefix + " " + arg.get(0) + " " + arg.get(1) + " " + arg.get(2);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2020 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.growingio.sdk.inject.compiler;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 为一组固定的类名搜索无冲突的乘法哈希: slot = (hashCode * seed) >>> shift, 表大小为 2 的幂。
+ * 计算方式必须和插件中的 HookClassTable.slot 保持一致。
+ */
+public class PerfectHash {
+    private static final int MAX_BITS = 16;
+    private static final int MAX_ATTEMPTS = 1 << 16;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private final int mSeed;
+    private final int mShift;
+    private final String[] mSlots;
+
+    private PerfectHash(int seed, int shift, String[] slots) {
+        mSeed = seed;
+        mShift = shift;
+        mSlots = slots;
+    }
+
+    public static int slot(String key, int seed, int shift) {
+        return (key.hashCode() * seed) >>> shift;
+    }
+
+    /**
+     * 从装载因子不超过 0.5 的表开始搜索, 找不到时扩大一倍
+     *
+     * @throws IllegalStateException 类名的 hashCode 相同等无法构造完美哈希的情况
+     */
+    public static PerfectHash create(Collection<String> keys) {
+        Set<Integer> hashCodes = new HashSet<>();
+        for (String key : keys) {
+            if (!hashCodes.add(key.hashCode())) {
+                throw new IllegalStateException("duplicate hashCode: " + key);
+            }
+        }
+        int bits = 1;
+        while ((1 << bits) < keys.size() * 2) {
+            bits++;
+        }
+        for (; bits <= MAX_BITS; bits++) {
+            int shift = 32 - bits;
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                int seed = (GOLDEN_RATIO + attempt * 2) | 1;
+                String[] slots = tryCreate(keys, seed, shift, 1 << bits);
+                if (slots != null) {
+                    return new PerfectHash(seed, shift, slots);
+                }
+            }
+        }
+        throw new IllegalStateException("can not find perfect hash for " + keys);
+    }
+
+    private static String[] tryCreate(Collection<String> keys, int seed, int shift, int size) {
+        String[] slots = new String[size];
+        for (String key : keys) {
+            int slot = slot(key, seed, shift);
+            if (slots[slot] != null) {
+                return null;
+            }
+            slots[slot] = key;
+        }
+        return slots;
+    }
+
+    public int getSeed() {
+        return mSeed;
+    }
+
+    public int getShift() {
+        return mShift;
+    }
+
+    public int getSlot(String key) {
+        return slot(key, mSeed, mShift);
+    }
+
+    /**
+     * @return 大小为 2 的幂的槽位数组, 空槽位为 null
+     */
+    public String[] getSlots() {
+        return mSlots.clone();
+    }
+}